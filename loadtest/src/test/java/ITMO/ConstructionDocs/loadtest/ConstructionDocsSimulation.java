@@ -0,0 +1,116 @@
+package ITMO.ConstructionDocs.loadtest;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static io.gatling.javaapi.core.CoreDsl.ByteArrayBody;
+import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.global;
+import static io.gatling.javaapi.core.CoreDsl.jsonPath;
+import static io.gatling.javaapi.core.CoreDsl.rampUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import static io.gatling.javaapi.http.HttpDsl.http;
+
+/**
+ * Designers of the data {@code DataGenerator} writes, the role that may list projects as well as docs: some log
+ * in and page through projects and docs, with and without a filter, others upload docs. Start the application with
+ * {@code mvn -Ploadtest-server verify} in the project root, then run {@code mvn gatling:test} here.
+ * <p>
+ * System properties: {@code baseUrl}, {@code users} and {@code projects} (as generated, users being companies
+ * times users per company), {@code browsersPerSec} and {@code uploadersPerSec} (arrival rates), {@code rampUp} and
+ * {@code duration} (seconds), {@code uploadSize} (bytes).
+ */
+public class ConstructionDocsSimulation extends Simulation {
+    private static final String BASE_URL = System.getProperty("baseUrl", "http://localhost:8080");
+    private static final int USERS = Integer.getInteger("users", 2000);
+    private static final int PROJECTS = Integer.getInteger("projects", 1000);
+    private static final double BROWSERS_PER_SEC = Double.parseDouble(System.getProperty("browsersPerSec", "20"));
+    private static final double UPLOADERS_PER_SEC = Double.parseDouble(System.getProperty("uploadersPerSec", "2"));
+    private static final Duration RAMP_UP = Duration.ofSeconds(Integer.getInteger("rampUp", 30));
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("duration", 120));
+    private static final int UPLOAD_SIZE = Integer.getInteger("uploadSize", 256 * 1024);
+    private static final String[] FILTERS = {"concrete", "sheet", "P1", "Generated project 4", "A1-"};
+
+    /** Every third generated user is a designer, see {@code DataGenerator.insertUsers}. */
+    private static Iterator<Map<String, Object>> designers() {
+        return Stream.generate(() -> {
+            int n = ThreadLocalRandom.current().nextInt(1, USERS / 3 + 1) * 3;
+            return Map.<String, Object>of("email", "user" + n + "@datagen.test");
+        }).iterator();
+    }
+
+    private static final ChainBuilder LOGIN = exec(http("login").post("/auth/login")
+            .body(StringBody("{\"email\": \"#{email}\", \"password\": \"password\"}")).asJson()
+            .check(jsonPath("$.jwt").saveAs("jwt")));
+
+    private static final ChainBuilder BROWSE = exec(http("projects page").get("/api/projects/all")
+            .queryParam("page", session -> ThreadLocalRandom.current().nextInt(1, Math.max(2, PROJECTS / 10)))
+            .check(jsonPath("$.content[*].id").findRandom().saveAs("projectId")))
+            .exec(http("docs of project").get("/api/designs/allByProjectId")
+                    .queryParam("projectId", "#{projectId}")
+                    .queryParam("sort", "updatedAt").queryParam("order", "DESC"))
+            .exec(http("docs page").get("/api/designs/all")
+                    .queryParam("page", session -> ThreadLocalRandom.current().nextInt(1, 50))
+                    .queryParam("sizePerPage", 20))
+            .exec(http("docs first cursor page").get("/api/designs/all/cursor")
+                    .queryParam("sizePerPage", 20)
+                    .check(jsonPath("$.nextCursor").optional().saveAs("cursor")))
+            .doIf(session -> session.contains("cursor")).then(exec(http("docs next cursor page")
+                    .get("/api/designs/all/cursor")
+                    .queryParam("cursor", "#{cursor}").queryParam("sizePerPage", 20)))
+            .exec(http("docs filtered").get("/api/designs/all")
+                    .queryParam("filter", session -> FILTERS[ThreadLocalRandom.current().nextInt(FILTERS.length)]))
+            .exec(http("projects filtered").get("/api/projects/all")
+                    .queryParam("filter", session -> "project " + ThreadLocalRandom.current().nextInt(1, 100)));
+
+    private static final ChainBuilder UPLOAD = exec(http("upload").post("/api/designs/stream")
+            .queryParam("fileName", session -> "load-" + session.userId() + "-" + System.nanoTime() + ".txt")
+            .queryParam("description", "Uploaded by the load test")
+            .queryParam("designCategory", "ARCHITECTURAL")
+            .header("Content-Type", "text/plain")
+            .body(ByteArrayBody(session -> uploadContent())));
+
+    private final HttpProtocolBuilder httpProtocol = http.baseUrl(BASE_URL)
+            .acceptHeader("application/json")
+            .authorizationHeader(session -> session.contains("jwt") ? "Bearer " + session.getString("jwt") : "")
+            .shareConnections();
+
+    private final ScenarioBuilder browsers = scenario("browse").feed(designers())
+            .exec(LOGIN)
+            .repeat(5).on(BROWSE);
+
+    private final ScenarioBuilder uploaders = scenario("upload").feed(designers())
+            .exec(LOGIN)
+            .repeat(3).on(UPLOAD);
+
+    {
+        setUp(
+                browsers.injectOpen(rampUsersPerSec(1).to(BROWSERS_PER_SEC).during(RAMP_UP),
+                        constantUsersPerSec(BROWSERS_PER_SEC).during(DURATION)),
+                uploaders.injectOpen(rampUsersPerSec(0.1).to(UPLOADERS_PER_SEC).during(RAMP_UP),
+                        constantUsersPerSec(UPLOADERS_PER_SEC).during(DURATION)))
+                .protocols(httpProtocol)
+                .assertions(
+                        global().failedRequests().percent().lt(1.0),
+                        global().responseTime().percentile(95.0).lt(1000));
+    }
+
+    private static byte[] uploadContent() {
+        byte[] content = new byte[UPLOAD_SIZE];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + random.nextInt(26));
+        }
+        return content;
+    }
+}
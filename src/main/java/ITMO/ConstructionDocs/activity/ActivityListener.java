@@ -0,0 +1,38 @@
+package ITMO.ConstructionDocs.activity;
+
+import ITMO.ConstructionDocs.model.enums.ActivityAction;
+import ITMO.ConstructionDocs.service.ActivityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA listener of the entities tracked by the activity feed. The event is written in the transaction of the
+ * change and fails it when it cannot be written, so the feed never misses a committed change.
+ */
+@Component
+public class ActivityListener {
+
+    @Autowired
+    @Lazy
+    private ActivityService activityService;
+
+    @PostPersist
+    public void onCreate(Object entity) {
+        activityService.record(entity, ActivityAction.CREATED);
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        activityService.record(entity, ActivityAction.UPDATED);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        activityService.record(entity, ActivityAction.DELETED);
+    }
+}
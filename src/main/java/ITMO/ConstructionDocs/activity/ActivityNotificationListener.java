@@ -0,0 +1,133 @@
+package ITMO.ConstructionDocs.activity;
+
+import ITMO.ConstructionDocs.mapper.ActivityEventMapper;
+import ITMO.ConstructionDocs.model.db.entity.ActivityEvent;
+import ITMO.ConstructionDocs.model.db.repository.ActivityEventRepository;
+import ITMO.ConstructionDocs.model.dto.response.ActivityEventResp;
+import ITMO.ConstructionDocs.service.ActivityService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Listens on the postgres channel of the activity feed and hands the announced events to {@link ActivityStream}.
+ * Every node listens, so a client is sent the changes made through any node, and the database is read once per
+ * batch of notifications however many clients are subscribed.
+ * <p>
+ * The connection is opened apart from the pool and held for the life of the node. When it is lost it is opened
+ * again and the events appended meanwhile are read from the feed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActivityNotificationListener {
+    private static final int POLL_MILLIS = 1000;
+    private static final long RECONNECT_MILLIS = 5000;
+    private static final int CATCH_UP_BATCH = 1000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final ActivityEventRepository activityEventRepository;
+    private final ActivityEventMapper activityEventMapper;
+    private final ActivityStream activityStream;
+
+    private volatile boolean running;
+    private Thread thread;
+    private long lastEventId;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:")) {
+            log.info("Activity stream disabled, the database does not support notifications");
+            return;
+        }
+
+        lastEventId = activityEventRepository.findTopByOrderByIdDesc().map(ActivityEvent::getId).orElse(0L);
+        running = true;
+        thread = new Thread(this::run, "activity-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join(2 * POLL_MILLIS);
+        }
+    }
+
+    private void run() {
+        boolean reconnected = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("listen " + ActivityService.CHANNEL);
+                }
+                if (reconnected) {
+                    catchUp();
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null && notifications.length > 0) {
+                        List<Long> ids = new ArrayList<>();
+                        for (PGNotification notification : notifications) {
+                            ids.add(Long.valueOf(notification.getParameter()));
+                        }
+                        publish(activityEventRepository.findAllById(ids));
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Activity listener lost its connection, reconnecting", e);
+                reconnected = true;
+                sleep();
+            }
+        }
+    }
+
+    private void catchUp() {
+        List<ActivityEvent> events;
+        do {
+            events = activityEventRepository.findAllByIdGreaterThanOrderByIdAsc(lastEventId, PageRequest.of(0, CATCH_UP_BATCH));
+            publish(events);
+        } while (events.size() == CATCH_UP_BATCH);
+    }
+
+    private void publish(List<ActivityEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<ActivityEventResp> sorted = events.stream()
+                .sorted(Comparator.comparing(ActivityEvent::getId))
+                .map(activityEventMapper::toActivityEventResp)
+                .collect(Collectors.toList());
+        lastEventId = Math.max(lastEventId, sorted.get(sorted.size() - 1).getId());
+        activityStream.publish(sorted);
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(RECONNECT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
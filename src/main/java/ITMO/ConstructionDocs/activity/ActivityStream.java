@@ -0,0 +1,268 @@
+package ITMO.ConstructionDocs.activity;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.mapper.ActivityEventMapper;
+import ITMO.ConstructionDocs.model.db.entity.ActivityEvent;
+import ITMO.ConstructionDocs.model.db.repository.ActivityEventRepository;
+import ITMO.ConstructionDocs.model.dto.response.ActivityEventResp;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes activity events over server-sent events to the clients subscribed to a project or a project doc.
+ * <p>
+ * Connections are held by the servlet container without a thread each. Every subscription has a bounded queue
+ * of pending events, drained by {@code activityStreamExecutor} one drain at a time per subscription, so events
+ * arrive in order and a slow client never holds up the others. A client that cannot keep up fills its queue and
+ * is disconnected; it reconnects with {@code Last-Event-ID} and is sent what it missed from the feed.
+ */
+@Slf4j
+@Component
+public class ActivityStream {
+    static final String EVENT_NAME = "activity";
+    static final String RESET_EVENT_NAME = "reset";
+
+    /**
+     * Queued between events to have idle connections written to, so dead ones are found and proxies keep them.
+     */
+    private static final ActivityEventResp HEARTBEAT = new ActivityEventResp();
+
+    private final ActivityEventRepository activityEventRepository;
+    private final ActivityEventMapper activityEventMapper;
+    private final ThreadPoolTaskExecutor activityStreamExecutor;
+    private final long timeoutMillis;
+    private final int queueCapacity;
+    private final int replayLimit;
+
+    private final Map<Long, Set<Subscription>> byProject = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<Subscription>> byProjectDoc = new ConcurrentHashMap<>();
+
+    public ActivityStream(ActivityEventRepository activityEventRepository,
+                          ActivityEventMapper activityEventMapper,
+                          ThreadPoolTaskExecutor activityStreamExecutor,
+                          @Value("${app.activity.stream.timeout:30m}") Duration timeout,
+                          @Value("${app.activity.stream.queue-capacity:256}") int queueCapacity,
+                          @Value("${app.activity.stream.replay-limit:500}") int replayLimit) {
+        this.activityEventRepository = activityEventRepository;
+        this.activityEventMapper = activityEventMapper;
+        this.activityStreamExecutor = activityStreamExecutor;
+        this.timeoutMillis = timeout.toMillis();
+        this.queueCapacity = queueCapacity;
+        this.replayLimit = replayLimit;
+    }
+
+    /**
+     * Opens a stream of the changes of one project or one project doc. With {@code lastEventId} the changes
+     * after it are sent first; when more than {@code replay-limit} were missed a reset event is sent instead.
+     */
+    public SseEmitter subscribe(Long projectId, UUID projectDocId, Long lastEventId) {
+        if ((projectId == null) == (projectDocId == null)) {
+            throw new CustomException("Either projectId or projectDocId must be given", HttpStatus.BAD_REQUEST);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        subscribe(emitter, projectId, projectDocId, lastEventId);
+        return emitter;
+    }
+
+    void subscribe(SseEmitter emitter, Long projectId, UUID projectDocId, Long lastEventId) {
+        Subscription subscription = new Subscription(emitter, projectId, projectDocId, queueCapacity);
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(e -> remove(subscription));
+
+        // registered before the replay is read, the events committed in between are queued and sent once
+        if (projectId != null) {
+            add(byProject, projectId, subscription);
+        } else {
+            add(byProjectDoc, projectDocId, subscription);
+        }
+
+        try {
+            if (lastEventId != null) {
+                replay(subscription, lastEventId);
+            }
+        } catch (IOException | IllegalStateException e) {
+            close(subscription);
+            return;
+        }
+        subscription.draining.set(false);
+        schedule(subscription);
+    }
+
+    private void replay(Subscription subscription, Long lastEventId) throws IOException {
+        PageRequest limit = PageRequest.of(0, replayLimit + 1);
+        List<ActivityEvent> missed = subscription.projectId != null
+                ? activityEventRepository.findAllByProjectIdAndIdGreaterThanOrderByIdAsc(subscription.projectId, lastEventId, limit)
+                : activityEventRepository.findAllByProjectDocIdAndIdGreaterThanOrderByIdAsc(subscription.projectDocId, lastEventId, limit);
+
+        if (missed.size() > replayLimit) {
+            subscription.emitter.send(SseEmitter.event().name(RESET_EVENT_NAME).data(""));
+            return;
+        }
+        for (ActivityEvent event : missed) {
+            subscription.replayed.add(event.getId());
+            subscription.emitter.send(toSseEvent(activityEventMapper.toActivityEventResp(event)));
+        }
+    }
+
+    /**
+     * Queues the events for the subscriptions of their project and project doc.
+     */
+    public void publish(List<ActivityEventResp> events) {
+        Set<Subscription> notified = new LinkedHashSet<>();
+        for (ActivityEventResp event : events) {
+            List<Subscription> subscriptions = new ArrayList<>();
+            if (event.getProjectId() != null) {
+                subscriptions.addAll(byProject.getOrDefault(event.getProjectId(), Set.of()));
+            }
+            if (event.getProjectDocId() != null) {
+                subscriptions.addAll(byProjectDoc.getOrDefault(event.getProjectDocId(), Set.of()));
+            }
+            for (Subscription subscription : subscriptions) {
+                if (offer(subscription, event)) {
+                    notified.add(subscription);
+                }
+            }
+        }
+        notified.forEach(this::schedule);
+    }
+
+    @Scheduled(fixedDelay = 30 * 1000)
+    public void heartbeat() {
+        for (Subscription subscription : all()) {
+            if (offer(subscription, HEARTBEAT)) {
+                schedule(subscription);
+            }
+        }
+    }
+
+    int subscriptions() {
+        return all().size();
+    }
+
+    private boolean offer(Subscription subscription, ActivityEventResp event) {
+        if (subscription.queue.offer(event)) {
+            return true;
+        }
+        log.debug("Closing activity stream of a client that does not keep up");
+        close(subscription);
+        return false;
+    }
+
+    private void schedule(Subscription subscription) {
+        if (subscription.queue.isEmpty() || !subscription.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            activityStreamExecutor.execute(() -> drain(subscription));
+        } catch (TaskRejectedException e) {
+            subscription.draining.set(false);
+            close(subscription);
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        try {
+            ActivityEventResp event;
+            while ((event = subscription.queue.poll()) != null) {
+                if (event == HEARTBEAT) {
+                    subscription.emitter.send(SseEmitter.event().comment("keepalive"));
+                } else if (!subscription.replayed.contains(event.getId())) {
+                    subscription.emitter.send(toSseEvent(event));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client went away, the container completes the request
+            remove(subscription);
+            return;
+        } finally {
+            subscription.draining.set(false);
+        }
+        schedule(subscription);
+    }
+
+    private SseEmitter.SseEventBuilder toSseEvent(ActivityEventResp event) {
+        return SseEmitter.event().id(String.valueOf(event.getId())).name(EVENT_NAME).data(event);
+    }
+
+    private void close(Subscription subscription) {
+        remove(subscription);
+        subscription.emitter.complete();
+    }
+
+    private void remove(Subscription subscription) {
+        if (subscription.projectId != null) {
+            remove(byProject, subscription.projectId, subscription);
+        } else {
+            remove(byProjectDoc, subscription.projectDocId, subscription);
+        }
+    }
+
+    private static <K> void add(Map<K, Set<Subscription>> subscriptions, K key, Subscription subscription) {
+        subscriptions.compute(key, (k, set) -> {
+            Set<Subscription> result = set == null ? ConcurrentHashMap.newKeySet() : set;
+            result.add(subscription);
+            return result;
+        });
+    }
+
+    private static <K> void remove(Map<K, Set<Subscription>> subscriptions, K key, Subscription subscription) {
+        subscriptions.computeIfPresent(key, (k, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private List<Subscription> all() {
+        List<Subscription> all = new ArrayList<>();
+        byProject.values().forEach(all::addAll);
+        byProjectDoc.values().forEach(all::addAll);
+        return all;
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        all().forEach(this::close);
+    }
+
+    private static class Subscription {
+        final SseEmitter emitter;
+        final Long projectId;
+        final UUID projectDocId;
+        final BlockingQueue<ActivityEventResp> queue;
+        final Set<Long> replayed = ConcurrentHashMap.newKeySet();
+        /**
+         * Set while a drain is scheduled or running, and until the replay is sent.
+         */
+        final AtomicBoolean draining = new AtomicBoolean(true);
+
+        Subscription(SseEmitter emitter, Long projectId, UUID projectDocId, int queueCapacity) {
+            this.emitter = emitter;
+            this.projectId = projectId;
+            this.projectDocId = projectDocId;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+}
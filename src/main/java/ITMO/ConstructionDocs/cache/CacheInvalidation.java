@@ -0,0 +1,39 @@
+package ITMO.ConstructionDocs.cache;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * A write to cached data made on one node, to be evicted on the others: an entity by name and id, the collection
+ * of a role owned by an id, or everything when a node may have missed invalidations.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CacheInvalidation {
+    public static final CacheInvalidation ALL = new CacheInvalidation(Kind.ALL, null, null);
+
+    Kind kind;
+    String name;
+    String id;
+
+    public static CacheInvalidation entity(String entityName, Object id) {
+        return new CacheInvalidation(Kind.ENTITY, entityName, String.valueOf(id));
+    }
+
+    public static CacheInvalidation collection(String role, Object ownerId) {
+        return new CacheInvalidation(Kind.COLLECTION, role, String.valueOf(ownerId));
+    }
+
+    public enum Kind {
+        ENTITY,
+        COLLECTION,
+        ALL
+    }
+}
@@ -0,0 +1,20 @@
+package ITMO.ConstructionDocs.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidations of cached data between the nodes. Chosen by {@code app.cache.bus}: {@code postgres}
+ * for a deployment of several nodes, {@code none} for a single node.
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Sends the invalidation to the other nodes if the current transaction commits, right away without one.
+     */
+    void publish(CacheInvalidation invalidation);
+
+    /**
+     * Registers a consumer of the invalidations published by the other nodes.
+     */
+    void subscribe(Consumer<CacheInvalidation> consumer);
+}
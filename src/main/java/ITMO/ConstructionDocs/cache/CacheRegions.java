@@ -0,0 +1,21 @@
+package ITMO.ConstructionDocs.cache;
+
+import org.hibernate.cache.spi.RegionFactory;
+
+import java.util.List;
+
+/**
+ * Regions of the second-level cache. Each is a cache of {@code hibernateCacheManager}, created on startup.
+ */
+public interface CacheRegions {
+    String PROJECTS = "projects";
+    String COMPANIES = "companies";
+    String USERS = "users";
+    String PROJECT_COMPANIES = "project-companies";
+    String COMPANY_PROJECTS = "company-projects";
+    String COMPANY_USERS = "company-users";
+    String QUERY_RESULTS = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    String UPDATE_TIMESTAMPS = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    List<String> ENTITY_REGIONS = List.of(PROJECTS, COMPANIES, USERS, PROJECT_COMPANIES, COMPANY_PROJECTS, COMPANY_USERS);
+}
@@ -0,0 +1,155 @@
+package ITMO.ConstructionDocs.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Bus over the {@value #CHANNEL} postgres channel. An invalidation is sent with {@code pg_notify} on the connection
+ * of the write, so the other nodes get it when the write commits and never for a rolled back one.
+ * <p>
+ * Each node listens on a connection of its own. While it is lost invalidations are missed, so once it is opened
+ * again the consumers are told to drop everything.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.cache", name = "bus", havingValue = "postgres", matchIfMissing = true)
+public class PostgresCacheInvalidationBus implements CacheInvalidationBus {
+    static final String CHANNEL = "cache_invalidation";
+    private static final int POLL_MILLIS = 1000;
+    private static final long RECONNECT_MILLIS = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<CacheInvalidation>> consumers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public PostgresCacheInvalidationBus(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        jdbcTemplate.queryForObject("select cast(pg_notify(?, ?) as varchar)", String.class, CHANNEL, encode(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> consumer) {
+        consumers.add(consumer);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:")) {
+            log.info("Cache invalidation bus disabled, the database does not support notifications");
+            return;
+        }
+
+        running = true;
+        thread = new Thread(this::run, "cache-invalidation-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join(2 * POLL_MILLIS);
+        }
+    }
+
+    private void run() {
+        boolean reconnected = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("listen " + CHANNEL);
+                }
+                if (reconnected) {
+                    deliver(CacheInvalidation.ALL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Cache invalidation listener lost its connection, reconnecting", e);
+                reconnected = true;
+                sleep();
+            }
+        }
+    }
+
+    /**
+     * Hands an invalidation of another node to the consumers, the ones of this node were applied by Hibernate.
+     */
+    void receive(String payload) {
+        String[] parts = payload.split(" ", 4);
+        if (parts[0].equals(nodeId)) {
+            return;
+        }
+        switch (CacheInvalidation.Kind.valueOf(parts[1])) {
+            case ENTITY:
+                deliver(CacheInvalidation.entity(parts[2], parts[3]));
+                break;
+            case COLLECTION:
+                deliver(CacheInvalidation.collection(parts[2], parts[3]));
+                break;
+            default:
+                deliver(CacheInvalidation.ALL);
+        }
+    }
+
+    private void deliver(CacheInvalidation invalidation) {
+        for (Consumer<CacheInvalidation> consumer : consumers) {
+            try {
+                consumer.accept(invalidation);
+            } catch (RuntimeException e) {
+                log.warn("Cache invalidation {} failed", invalidation, e);
+            }
+        }
+    }
+
+    String encode(CacheInvalidation invalidation) {
+        if (invalidation.getKind() == CacheInvalidation.Kind.ALL) {
+            return nodeId + " " + invalidation.getKind();
+        }
+        return String.join(" ", nodeId, invalidation.getKind().name(), invalidation.getName(), invalidation.getId());
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(RECONNECT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ITMO.ConstructionDocs.cache;
+
+import ITMO.ConstructionDocs.model.dto.response.CacheRegionResp;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.type.AbstractStandardBasicType;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Applies the invalidations of the other nodes to the second-level cache of this one and reports its hit rates.
+ * <p>
+ * A changed entity is evicted together with the collections it owns. The collections holding it on the inverse
+ * side are not written with it, so their regions are dropped whole; they are small and rarely written. Query
+ * results are dropped on every invalidation, their timestamps only follow the writes of this node.
+ */
+@Component
+public class SecondLevelCache {
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final CacheManager hibernateCacheManager;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final Map<String, List<String>> ownedCollections = new HashMap<>();
+    private final Map<String, List<String>> containingCollections = new HashMap<>();
+
+    public SecondLevelCache(EntityManagerFactory entityManagerFactory, CacheManager hibernateCacheManager,
+                            CacheInvalidationBus cacheInvalidationBus) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.hibernateCacheManager = hibernateCacheManager;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+
+        for (CollectionPersister persister : sessionFactory.getMetamodel().collectionPersisters().values()) {
+            if (!persister.hasCache()) {
+                continue;
+            }
+            ownedCollections.computeIfAbsent(persister.getOwnerEntityPersister().getEntityName(), k -> new ArrayList<>())
+                    .add(persister.getRole());
+            if (persister.getElementType().isEntityType()) {
+                containingCollections.computeIfAbsent(((EntityType) persister.getElementType()).getAssociatedEntityName(),
+                        k -> new ArrayList<>()).add(persister.getRole());
+            }
+        }
+        cacheInvalidationBus.subscribe(this::evict);
+    }
+
+    public void evict(CacheInvalidation invalidation) {
+        Cache cache = sessionFactory.getCache();
+        MetamodelImplementor metamodel = sessionFactory.getMetamodel();
+        switch (invalidation.getKind()) {
+            case ENTITY:
+                String entityName = invalidation.getName();
+                Serializable id = toId(metamodel.entityPersister(entityName).getIdentifierType(), invalidation.getId());
+                cache.evictEntityData(entityName, id);
+                ownedCollections.getOrDefault(entityName, List.of()).forEach(role -> cache.evictCollectionData(role, id));
+                containingCollections.getOrDefault(entityName, List.of()).forEach(cache::evictCollectionData);
+                break;
+            case COLLECTION:
+                String role = invalidation.getName();
+                Type ownerIdType = metamodel.collectionPersister(role).getOwnerEntityPersister().getIdentifierType();
+                cache.evictCollectionData(role, toId(ownerIdType, invalidation.getId()));
+                break;
+            default:
+                cache.evictAllRegions();
+                return;
+        }
+        cache.evictQueryRegions();
+    }
+
+    /**
+     * Invalidates cached data written with SQL, which Hibernate does not see: publishes the invalidation to the
+     * other nodes and evicts it here once the current transaction commits, so no reader caches the old state in
+     * between.
+     */
+    public void invalidate(CacheInvalidation invalidation) {
+        cacheInvalidationBus.publish(invalidation);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(invalidation);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(invalidation);
+            }
+        });
+    }
+
+    public List<CacheRegionResp> getStats() {
+        return Stream.concat(CacheRegions.ENTITY_REGIONS.stream(),
+                        Stream.of(CacheRegions.QUERY_RESULTS, CacheRegions.UPDATE_TIMESTAMPS))
+                .map(this::getStats)
+                .collect(Collectors.toList());
+    }
+
+    private CacheRegionResp getStats(String region) {
+        com.github.benmanes.caffeine.cache.Cache<?, ?> cache = hibernateCacheManager.getCache(region)
+                .unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+        CacheStats stats = cache.stats();
+        return CacheRegionResp.builder()
+                .region(region)
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+
+    private static Serializable toId(Type identifierType, String id) {
+        return (Serializable) ((AbstractStandardBasicType<?>) identifierType).getJavaTypeDescriptor().fromString(id);
+    }
+}
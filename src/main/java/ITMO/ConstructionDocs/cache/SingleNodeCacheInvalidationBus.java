@@ -0,0 +1,22 @@
+package ITMO.ConstructionDocs.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Bus of a single node: there is no other node to tell, the caches of this one are kept by Hibernate.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.cache", name = "bus", havingValue = "none")
+public class SingleNodeCacheInvalidationBus implements CacheInvalidationBus {
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> consumer) {
+    }
+}
@@ -0,0 +1,25 @@
+package ITMO.ConstructionDocs.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ActivityConfig {
+
+    /**
+     * Writes pending events to the activity streams. A task drains one stream, at most one is queued per stream,
+     * so the queue holds up to one task per open connection.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor activityStreamExecutor(@Value("${app.activity.stream.threads:4}") int threads,
+                                                         @Value("${app.activity.stream.max-connections:10000}") int maxConnections) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(maxConnections);
+        executor.setThreadNamePrefix("activity-stream-");
+        return executor;
+    }
+}
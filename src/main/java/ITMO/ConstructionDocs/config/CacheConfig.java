@@ -0,0 +1,71 @@
+package ITMO.ConstructionDocs.config;
+
+import ITMO.ConstructionDocs.cache.CacheRegions;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Regions of the second-level cache, in process. Projects, companies, users and the collections between them
+     * are kept up to {@code max-size} entries each for {@code ttl}, which bounds how stale a node can get should
+     * an invalidation be lost. Update timestamps never expire, query results would be served past their writes.
+     */
+    @Bean
+    public CacheManager hibernateCacheManager(@Value("${app.cache.max-size:10000}") long maxSize,
+                                              @Value("${app.cache.ttl:10m}") Duration ttl,
+                                              @Value("${app.cache.query-max-size:1000}") long queryMaxSize,
+                                              @Value("${app.cache.query-ttl:1m}") Duration queryTtl) {
+        // a manager of its own per context, contexts of tests must not share regions
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : CacheRegions.ENTITY_REGIONS) {
+            cacheManager.createCache(region, regionConfiguration(maxSize, ttl));
+        }
+        cacheManager.createCache(CacheRegions.QUERY_RESULTS, regionConfiguration(queryMaxSize, queryTtl));
+        cacheManager.createCache(CacheRegions.UPDATE_TIMESTAMPS, regionConfiguration(maxSize, null));
+        return cacheManager;
+    }
+
+    /**
+     * Second-level and query cache on the regions of {@code hibernateCacheManager}. A region missing there fails
+     * the startup instead of being created unbounded.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // a user moved to another company is dropped from the cached users of both
+            properties.put(AvailableSettings.AUTO_EVICT_COLLECTION_CACHE, true);
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        configuration.setStoreByValue(false);
+        configuration.setNativeStatisticsEnabled(true);
+        return configuration;
+    }
+}
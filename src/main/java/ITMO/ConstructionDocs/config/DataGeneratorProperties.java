@@ -0,0 +1,37 @@
+package ITMO.ConstructionDocs.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Volumes of the synthetic data {@code DataGenerator} writes. The defaults make about 600 thousand docs; with
+ * {@code project-docs-per-project} at 1700 it is about 5 million.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.datagen")
+public class DataGeneratorProperties {
+    private boolean enabled;
+    private int companies = 100;
+    private int usersPerCompany = 20;
+    private int projects = 1000;
+    private int companiesPerProject = 3;
+    private int projectDocsPerProject = 200;
+    private int asbuiltDocsPerProjectDoc = 2;
+    private int commentsPerDoc = 1;
+    /**
+     * Distinct files stored, the docs share them the way content addressing lets identical uploads do.
+     */
+    private int files = 200;
+    private int maxFileSize = 256 * 1024;
+    /**
+     * Projects filled at the same time, each on a connection of the pool.
+     */
+    private int threads = 8;
+    /**
+     * Password of every generated user, users are {@code user<n>@datagen.test}.
+     */
+    private String password = "password";
+    private boolean reindex = true;
+}
@@ -0,0 +1,41 @@
+package ITMO.ConstructionDocs.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class JobConfig {
+
+    /**
+     * Runs the jobs themselves: each job walks its items and hands them out to {@link #jobWorkerExecutor}.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor jobExecutor(@Value("${app.jobs.concurrent-jobs:2}") int concurrentJobs) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrentJobs);
+        executor.setMaxPoolSize(concurrentJobs);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Processes single items of a job batch. Kept apart from {@link #jobExecutor} so a job waiting for its
+     * batch never takes the thread one of its items needs.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor jobWorkerExecutor(@Value("${app.jobs.workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("job-worker-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,51 @@
+package ITMO.ConstructionDocs.config;
+
+import ITMO.ConstructionDocs.search.SearchIndex;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.tika.Tika;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+public class SearchConfig {
+
+    /**
+     * The index lives on the local disk of each node; it is closed, and its last changes committed, on shutdown.
+     */
+    @Bean
+    public SearchIndex searchIndex(@Value("${app.search.index-dir:search-index}") String indexDir) throws IOException {
+        return new SearchIndex(FSDirectory.open(Paths.get(indexDir)));
+    }
+
+    /**
+     * Text beyond {@code max-chars} is cut off, it would only make the index bigger.
+     */
+    @Bean
+    public Tika tika(@Value("${app.search.extraction.max-chars:1000000}") int maxChars) {
+        Tika tika = new Tika();
+        tika.setMaxStringLength(maxChars);
+        return tika;
+    }
+
+    /**
+     * Extracts text of new uploads. Bounded in threads and queue, a full queue drops the task instead of
+     * slowing down the upload that triggered it.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor textExtractionExecutor(@Value("${app.search.extraction.threads:2}") int threads,
+                                                         @Value("${app.search.extraction.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("text-extraction-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -2,7 +2,9 @@ package ITMO.ConstructionDocs.config;
 
 import ITMO.ConstructionDocs.security.JwtRequestFilter;
 import ITMO.ConstructionDocs.security.CustomUserDetailsService;
+import ITMO.ConstructionDocs.security.PrincipalCache;
 import ITMO.ConstructionDocs.utils.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -23,10 +25,15 @@ public class SecurityConfig {
 
     private final CustomUserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
+    private final PrincipalCache principalCache;
+    private final MeterRegistry meterRegistry;
 
-    public SecurityConfig(@Lazy CustomUserDetailsService userDetailsService, JwtUtil jwtUtil) {
+    public SecurityConfig(@Lazy CustomUserDetailsService userDetailsService, JwtUtil jwtUtil, PrincipalCache principalCache,
+                          MeterRegistry meterRegistry) {
         this.userDetailsService = userDetailsService;
         this.jwtUtil = jwtUtil;
+        this.principalCache = principalCache;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
@@ -36,10 +43,13 @@ public class SecurityConfig {
                 .antMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/webjars/**").permitAll()
                 .antMatchers("/api/users/**").hasRole("ADMIN")
                 .antMatchers("/auth/login").permitAll()
+                .antMatchers("/actuator/health").permitAll()
+                // the metrics expose the endpoints and their load, prometheus scrapes them with the token of an admin
+                .antMatchers("/actuator/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
                 .and()
                 .csrf().disable()
-                .addFilterBefore(new JwtRequestFilter(jwtUtil, userDetailsService), UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(new JwtRequestFilter(jwtUtil, principalCache, meterRegistry), UsernamePasswordAuthenticationFilter.class)
                 .build();
     }
 
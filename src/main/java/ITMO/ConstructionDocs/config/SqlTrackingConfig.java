@@ -0,0 +1,41 @@
+package ITMO.ConstructionDocs.config;
+
+import ITMO.ConstructionDocs.metrics.SqlTracker;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class SqlTrackingConfig {
+
+    /**
+     * Wraps the data source in a proxy reporting every statement to {@link SqlTracker}. With
+     * {@code app.sql.count-rows} the result sets are proxies too, reporting every fetched row at the cost of a
+     * listener call per JDBC method; the connections and result sets handed out unwrap to the driver's.
+     */
+    @Bean
+    public static BeanPostProcessor sqlTrackingDataSourceProxy(ObjectProvider<SqlTracker> sqlTracker,
+                                                               Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                SqlTracker tracker = sqlTracker.getObject();
+                ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                        .listener(tracker);
+                if (environment.getProperty("app.sql.count-rows", Boolean.class, false)) {
+                    builder.methodListener(tracker).proxyResultSet();
+                }
+                return builder.build();
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package ITMO.ConstructionDocs.config;
+
+import ITMO.ConstructionDocs.storage.DocumentStorage;
+import ITMO.ConstructionDocs.storage.LocalDocumentStorage;
+import ITMO.ConstructionDocs.storage.S3DocumentStorage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+@Configuration
+@EnableConfigurationProperties(StorageProperties.class)
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.storage", name = "type", havingValue = "local", matchIfMissing = true)
+    public DocumentStorage localDocumentStorage(StorageProperties properties) {
+        StorageProperties.Local local = properties.getLocal();
+        return new LocalDocumentStorage(Paths.get(local.getRoot()), local.getAsyncThreads());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.storage", name = "type", havingValue = "s3")
+    public S3Client s3Client(StorageProperties properties) {
+        StorageProperties.S3 s3 = properties.getS3();
+
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(s3.getRegion()))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(s3.isPathStyleAccess()).build());
+
+        if (StringUtils.hasText(s3.getEndpoint())) {
+            builder.endpointOverride(URI.create(s3.getEndpoint()));
+        }
+        if (StringUtils.hasText(s3.getAccessKey())) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(s3.getAccessKey(), s3.getSecretKey())));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.storage", name = "type", havingValue = "s3")
+    public DocumentStorage s3DocumentStorage(S3Client s3Client, StorageProperties properties) {
+        StorageProperties.S3 s3 = properties.getS3();
+        return new S3DocumentStorage(s3Client, s3.getBucket(), s3.getPartSize(), s3.getUploadThreads());
+    }
+}
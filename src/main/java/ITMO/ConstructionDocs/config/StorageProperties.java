@@ -0,0 +1,45 @@
+package ITMO.ConstructionDocs.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import static ITMO.ConstructionDocs.constants.Constants.FILETEMP;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.storage")
+public class StorageProperties {
+    /**
+     * {@code local} or {@code s3}.
+     */
+    private String type = "local";
+    private final Local local = new Local();
+    private final S3 s3 = new S3();
+
+    @Getter
+    @Setter
+    public static class Local {
+        private String root = FILETEMP;
+        private int asyncThreads = 2;
+    }
+
+    @Getter
+    @Setter
+    public static class S3 {
+        /**
+         * Overrides the AWS endpoint, e.g. {@code http://localhost:9000} for MinIO.
+         */
+        private String endpoint;
+        private String region = "us-east-1";
+        private String bucket;
+        private String accessKey;
+        private String secretKey;
+        private boolean pathStyleAccess = true;
+        /**
+         * Files above this size are uploaded in parts of this size. S3 requires at least 5MB per part.
+         */
+        private long partSize = 8L * 1024 * 1024;
+        private int uploadThreads = 4;
+    }
+}
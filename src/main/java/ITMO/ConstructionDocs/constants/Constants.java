@@ -8,5 +8,26 @@ public interface Constants {
     String PROJECT = API + "/projects";
     String COMPANY = API + "/companies";
     String USER = API + "/users";
+    String JOB = API + "/jobs";
+    String ACTIVITY = API + "/activity";
+    String CACHE = API + "/cache";
+    String SQL = API + "/sql";
     String FILETEMP = "C:/CONSTRUCTION_DOCS/filetemp/";
+    long MAX_STREAM_FILE_SIZE = 2L * 1024 * 1024 * 1024;
+    int STREAM_CHUNK_SIZE = 64 * 1024;
+    String BLOBS_PREFIX = "blobs/";
+    String UPLOAD_SESSIONS_PREFIX = "upload-sessions/";
+    long MAX_UPLOAD_CHUNK_SIZE = 256L * 1024 * 1024;
+    String CURSOR_PAGINATION = "Returns a slice without total count. Pass nextCursor of the previous response to get the next slice, " +
+            "sort and order are taken from the cursor";
+    String ACTIVITY_WINDOW = "Lists what was created, updated or deleted at or after from and before to (ISO date-time), " +
+            "the week up to now unless given";
+    String ACTIVITY_STREAM = "Server-sent events named activity, one per change of the project or projectDoc, with the event id " +
+            "as id. On reconnect the changes after Last-Event-ID are sent first, a reset event tells to reload instead " +
+            "when too many were missed";
+    String BATCH = "Writes all items in one transaction, sent to the database as JDBC batches. The result of each item is at " +
+            "its index; items failing their checks are left out, nothing is written when the transaction fails";
+    String BATCH_LINK = "Links all pairs in one transaction with one JDBC batch setting the foreign keys, the entities on either " +
+            "side are not loaded. The result of each pair is at its index; pairs with an unknown id are left out, nothing " +
+            "is written when the transaction fails";
 }
@@ -0,0 +1,55 @@
+package ITMO.ConstructionDocs.controllers;
+
+import ITMO.ConstructionDocs.activity.ActivityStream;
+import ITMO.ConstructionDocs.model.dto.response.ActivityEventResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
+import ITMO.ConstructionDocs.service.ActivityService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static ITMO.ConstructionDocs.constants.Constants.ACTIVITY;
+import static ITMO.ConstructionDocs.constants.Constants.ACTIVITY_STREAM;
+import static ITMO.ConstructionDocs.constants.Constants.ACTIVITY_WINDOW;
+import static ITMO.ConstructionDocs.constants.Constants.CURSOR_PAGINATION;
+
+@Tag(name = "Activity")
+@RestController
+@RequestMapping(ACTIVITY)
+@RequiredArgsConstructor
+public class ActivityController {
+
+    private final ActivityService activityService;
+    private final ActivityStream activityStream;
+
+    @GetMapping
+    @Operation(summary = "Get change feed, newest first, optionally of one project, projectDoc or user",
+            description = ACTIVITY_WINDOW + ". " + CURSOR_PAGINATION)
+    @PreAuthorize("isAuthenticated()")
+    public CursorPageResp<ActivityEventResp> getActivity(@RequestParam(required = false) Long projectId,
+                                                         @RequestParam(required = false) UUID projectDocId,
+                                                         @RequestParam(required = false) Long userId,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "20") Integer sizePerPage) {
+        return activityService.getActivity(projectId, projectDocId, userId, from, to, cursor, sizePerPage);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subscribe to changes of a project or a projectDoc", description = ACTIVITY_STREAM)
+    @PreAuthorize("isAuthenticated()")
+    public SseEmitter stream(@RequestParam(required = false) Long projectId,
+                             @RequestParam(required = false) UUID projectDocId,
+                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return activityStream.subscribe(projectId, projectDocId, lastEventId);
+    }
+}
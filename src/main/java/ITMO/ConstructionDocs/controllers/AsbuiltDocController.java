@@ -3,24 +3,42 @@ package ITMO.ConstructionDocs.controllers;
 import ITMO.ConstructionDocs.model.dto.request.AsbuiltDocReq;
 import ITMO.ConstructionDocs.model.dto.request.AsbuiltDocToCompanyReq;
 import ITMO.ConstructionDocs.model.dto.request.AsbuiltDocToProjDocReq;
+import ITMO.ConstructionDocs.model.dto.request.UploadSessionReq;
 import ITMO.ConstructionDocs.model.dto.response.AsbuiltDocResp;
+import ITMO.ConstructionDocs.model.dto.response.BackgroundJobResp;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
+import ITMO.ConstructionDocs.model.dto.response.BulkUploadResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
+import ITMO.ConstructionDocs.model.dto.response.UploadSessionResp;
 import ITMO.ConstructionDocs.service.AsbuiltDocService;
+import ITMO.ConstructionDocs.service.BulkUploadService;
+import ITMO.ConstructionDocs.service.UploadSessionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
+import static ITMO.ConstructionDocs.constants.Constants.ACTIVITY_WINDOW;
 import static ITMO.ConstructionDocs.constants.Constants.ASBUILT;
+import static ITMO.ConstructionDocs.constants.Constants.BATCH_LINK;
+import static ITMO.ConstructionDocs.constants.Constants.CURSOR_PAGINATION;
 
 @Tag(name = "AsbuiltDocs")
 @RestController
@@ -29,6 +47,8 @@ import static ITMO.ConstructionDocs.constants.Constants.ASBUILT;
 public class AsbuiltDocController {
 
     private final AsbuiltDocService asbuiltDocService;
+    private final UploadSessionService uploadSessionService;
+    private final BulkUploadService bulkUploadService;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Create asbuiltDoc")
@@ -53,6 +73,70 @@ public class AsbuiltDocController {
         return asbuiltDocService.updateAsbuiltDoc(id, request, file, authentication);
     }
 
+    @PostMapping("/stream")
+    @Operation(summary = "Create asbuiltDoc from raw file body", description = "File bytes are sent as the request body with their own Content-Type, metadata as query parameters")
+    @PreAuthorize("isAuthenticated()")
+    public AsbuiltDocResp createAsbuiltDocFromStream(
+            @Valid AsbuiltDocReq request,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String fileFormat,
+            InputStream content,
+            Authentication authentication) {
+        return asbuiltDocService.createAsbuiltDocFromStream(request, content, fileFormat, authentication);
+    }
+
+    @PostMapping("/bulk")
+    @Operation(summary = "Create asbuiltDocs from a ZIP archive", description = "The archive is sent as the raw request body and read entry by entry. " +
+            "An optional manifest.json placed first maps entry names to doc metadata. Returns a result for every entry")
+    @PreAuthorize("isAuthenticated()")
+    public BulkUploadResp uploadAsbuiltDocs(InputStream archive, Authentication authentication) {
+        return bulkUploadService.uploadAsbuiltDocs(archive, authentication);
+    }
+
+    @PostMapping("/{id}/stream")
+    @Operation(summary = "Update asbuiltDoc from raw file body", description = "File bytes are sent as the request body with their own Content-Type, metadata as query parameters")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public AsbuiltDocResp updateAsbuiltDocFromStream(
+            @PathVariable UUID id,
+            @Valid AsbuiltDocReq request,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String fileFormat,
+            InputStream content,
+            Authentication authentication) {
+        return asbuiltDocService.updateAsbuiltDocFromStream(id, request, content, fileFormat, authentication);
+    }
+
+    @PostMapping("/uploads")
+    @Operation(summary = "Open resumable upload session for asbuiltDoc file")
+    @PreAuthorize("isAuthenticated()")
+    public UploadSessionResp openUploadSession(@RequestBody @Valid UploadSessionReq request, Authentication authentication) {
+        return uploadSessionService.openSession(request, authentication);
+    }
+
+    @PutMapping("/uploads/{sessionId}/chunks/{index}")
+    @Operation(summary = "Upload one chunk of the file, chunks may be sent in any order and in parallel")
+    @PreAuthorize("isAuthenticated()")
+    public UploadSessionResp uploadChunk(@PathVariable UUID sessionId,
+                                         @PathVariable Integer index,
+                                         InputStream content,
+                                         Authentication authentication) {
+        return uploadSessionService.uploadChunk(sessionId, index, content, authentication);
+    }
+
+    @GetMapping("/uploads/{sessionId}")
+    @Operation(summary = "Get upload session with received chunks")
+    @PreAuthorize("isAuthenticated()")
+    public UploadSessionResp getUploadSession(@PathVariable UUID sessionId, Authentication authentication) {
+        return uploadSessionService.getSession(sessionId, authentication);
+    }
+
+    @PostMapping("/uploads/{sessionId}/commit")
+    @Operation(summary = "Assemble uploaded chunks and create asbuiltDoc")
+    @PreAuthorize("isAuthenticated()")
+    public AsbuiltDocResp commitAsbuiltDocUpload(@PathVariable UUID sessionId,
+                                                 @RequestBody @Valid AsbuiltDocReq request,
+                                                 Authentication authentication) {
+        return asbuiltDocService.commitAsbuiltDocUpload(sessionId, request, authentication);
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete asbuiltDoc")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
@@ -67,6 +151,13 @@ public class AsbuiltDocController {
         return asbuiltDocService.getAsbuiltDoc(id);
     }
 
+    @GetMapping("/{id}/content")
+    @Operation(summary = "Download asbuiltDoc file", description = "Supports Range, If-Range, If-None-Match and If-Modified-Since headers")
+    @PreAuthorize("isAuthenticated()")
+    public void getAsbuiltDocContent(@PathVariable UUID id, HttpServletRequest request, HttpServletResponse response) {
+        asbuiltDocService.writeAsbuiltDocContent(id, request, response);
+    }
+
     @GetMapping("/all")
     @Operation(summary = "Get list of asbuiltDocs")
     @PreAuthorize("isAuthenticated()")
@@ -78,11 +169,21 @@ public class AsbuiltDocController {
         return asbuiltDocService.getAllAsbuiltDocs(page, sizePerPage, sort, order, filter);
     }
 
+    @GetMapping("/all/cursor")
+    @Operation(summary = "Get list of asbuiltDocs by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("isAuthenticated()")
+    public CursorPageResp<AsbuiltDocResp> seekAllAsbuiltDocs(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                             @RequestParam(defaultValue = "fileName") String sort,
+                                                             @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return asbuiltDocService.seekAllAsbuiltDocs(cursor, sizePerPage, sort, order);
+    }
+
     @PostMapping("/setAsbuiltDocToProjectDoc")
     @Operation(summary = "set AsbuiltDoc to ProjectDoc")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
-    public void addAsbuiltDocToProjectDoc(@RequestBody @Valid AsbuiltDocToProjDocReq request, Authentication authentication) {
-        asbuiltDocService.addAsbuiltDocToProjectDoc(request, authentication);
+    public BackgroundJobResp addAsbuiltDocToProjectDoc(@RequestBody @Valid AsbuiltDocToProjDocReq request, Authentication authentication) {
+        return asbuiltDocService.addAsbuiltDocToProjectDoc(request, authentication);
     }
 
     @PostMapping("/setAsbuiltDocToCompany")
@@ -92,6 +193,20 @@ public class AsbuiltDocController {
         asbuiltDocService.addAsbuiltDocToCompany(request);
     }
 
+    @PostMapping("/setAsbuiltDocToProjectDoc/batch")
+    @Operation(summary = "set AsbuiltDocs to ProjectDocs", description = BATCH_LINK)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public BatchResp<BackgroundJobResp> addAsbuiltDocsToProjectDocs(@RequestBody List<AsbuiltDocToProjDocReq> requests, Authentication authentication) {
+        return asbuiltDocService.addAsbuiltDocsToProjectDocs(requests, authentication);
+    }
+
+    @PostMapping("/setAsbuiltDocToCompany/batch")
+    @Operation(summary = "set AsbuiltDocs to Companies", description = BATCH_LINK)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public BatchResp<Void> addAsbuiltDocsToCompanies(@RequestBody List<AsbuiltDocToCompanyReq> requests, Authentication authentication) {
+        return asbuiltDocService.addAsbuiltDocsToCompanies(requests, authentication);
+    }
+
     @GetMapping("/allByCompanyId")
     @Operation(summary = "Get list of asbuiltDocs by Company id")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
@@ -103,6 +218,17 @@ public class AsbuiltDocController {
         return asbuiltDocService.getAsbuiltDocsByCompanyId(companyId, page, sizePerPage, sort, order);
     }
 
+    @GetMapping("/allByCompanyId/cursor")
+    @Operation(summary = "Get list of asbuiltDocs by Company id by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public CursorPageResp<AsbuiltDocResp> seekAsbuiltDocsByCompanyId(@RequestParam Long companyId,
+                                                                     @RequestParam(required = false) String cursor,
+                                                                     @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                                     @RequestParam(defaultValue = "fileName") String sort,
+                                                                     @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return asbuiltDocService.seekAsbuiltDocsByCompanyId(companyId, cursor, sizePerPage, sort, order);
+    }
+
     @GetMapping("/allByProjectDocId")
     @Operation(summary = "Get list of asbuiltDocs by ProjectDoc id")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
@@ -114,24 +240,64 @@ public class AsbuiltDocController {
         return asbuiltDocService.getAsbuiltDocsByProjectDocId(projectDocId, page, sizePerPage, sort, order);
     }
 
+    @GetMapping("/allByProjectDocId/cursor")
+    @Operation(summary = "Get list of asbuiltDocs by ProjectDoc id by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public CursorPageResp<AsbuiltDocResp> seekAsbuiltDocsByProjectDocId(@RequestParam UUID projectDocId,
+                                                                        @RequestParam(required = false) String cursor,
+                                                                        @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                                        @RequestParam(defaultValue = "fileName") String sort,
+                                                                        @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return asbuiltDocService.seekAsbuiltDocsByProjectDocId(projectDocId, cursor, sizePerPage, sort, order);
+    }
+
     @GetMapping("/allForLastWeek")
-    @Operation(summary = "Get list of asbuiltDocs for last week")
+    @Operation(summary = "Get list of asbuiltDocs for last week", description = ACTIVITY_WINDOW)
     @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
-    public Page<AsbuiltDocResp> getAsbuiltDocsForLastWeek(@RequestParam(defaultValue = "1") Integer page,
+    public Page<AsbuiltDocResp> getAsbuiltDocsForLastWeek(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                          @RequestParam(defaultValue = "1") Integer page,
                                                           @RequestParam(defaultValue = "10") Integer sizePerPage,
                                                           @RequestParam(defaultValue = "fileName") String sort,
                                                           @RequestParam(defaultValue = "ASC") Sort.Direction order) {
-        return asbuiltDocService.getAsbuiltDocsForLastWeek(page, sizePerPage, sort, order);
+        return asbuiltDocService.getAsbuiltDocsForLastWeek(from, to, page, sizePerPage, sort, order);
+    }
+
+    @GetMapping("/allForLastWeek/cursor")
+    @Operation(summary = "Get list of asbuiltDocs for last week by cursor", description = ACTIVITY_WINDOW + ". " + CURSOR_PAGINATION)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public CursorPageResp<AsbuiltDocResp> seekAsbuiltDocsForLastWeek(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                     @RequestParam(required = false) String cursor,
+                                                                     @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                                     @RequestParam(defaultValue = "fileName") String sort,
+                                                                     @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return asbuiltDocService.seekAsbuiltDocsForLastWeek(from, to, cursor, sizePerPage, sort, order);
     }
 
     @GetMapping("/allByProjDocIdForLastWeek")
-    @Operation(summary = "Get list of asbuiltDocs by ProjectDoc Id for last week")
+    @Operation(summary = "Get list of asbuiltDocs by ProjectDoc Id for last week", description = ACTIVITY_WINDOW)
     @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
     public Page<AsbuiltDocResp> getAsbuiltDocsByProjectDocIdForLastWeek(@RequestParam UUID projectDocId,
+                                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
                                                                         @RequestParam(defaultValue = "1") Integer page,
                                                                         @RequestParam(defaultValue = "10") Integer sizePerPage,
                                                                         @RequestParam(defaultValue = "fileName") String sort,
                                                                         @RequestParam(defaultValue = "ASC") Sort.Direction order) {
-        return asbuiltDocService.getAsbuiltDocsByProjectDocIdForLastWeek(projectDocId, page, sizePerPage, sort, order);
+        return asbuiltDocService.getAsbuiltDocsByProjectDocIdForLastWeek(projectDocId, from, to, page, sizePerPage, sort, order);
+    }
+
+    @GetMapping("/allByProjDocIdForLastWeek/cursor")
+    @Operation(summary = "Get list of asbuiltDocs by ProjectDoc Id for last week by cursor", description = ACTIVITY_WINDOW + ". " + CURSOR_PAGINATION)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public CursorPageResp<AsbuiltDocResp> seekAsbuiltDocsByProjectDocIdForLastWeek(@RequestParam UUID projectDocId,
+                                                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                                   @RequestParam(required = false) String cursor,
+                                                                                   @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                                                   @RequestParam(defaultValue = "fileName") String sort,
+                                                                                   @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return asbuiltDocService.seekAsbuiltDocsByProjectDocIdForLastWeek(projectDocId, from, to, cursor, sizePerPage, sort, order);
     }
 }
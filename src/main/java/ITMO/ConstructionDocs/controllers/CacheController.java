@@ -0,0 +1,31 @@
+package ITMO.ConstructionDocs.controllers;
+
+import ITMO.ConstructionDocs.cache.SecondLevelCache;
+import ITMO.ConstructionDocs.model.dto.response.CacheRegionResp;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import static ITMO.ConstructionDocs.constants.Constants.CACHE;
+
+@Tag(name = "Cache")
+@RestController
+@RequestMapping(CACHE)
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final SecondLevelCache secondLevelCache;
+
+    @GetMapping
+    @Operation(summary = "Get size, hits, misses and hit rate of every second-level cache region of this node")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<CacheRegionResp> getCacheStats() {
+        return secondLevelCache.getStats();
+    }
+}
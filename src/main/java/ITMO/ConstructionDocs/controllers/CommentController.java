@@ -1,23 +1,33 @@
 package ITMO.ConstructionDocs.controllers;
 
+import ITMO.ConstructionDocs.model.dto.request.BatchUpdateReq;
 import ITMO.ConstructionDocs.model.dto.request.CommentReq;
 import ITMO.ConstructionDocs.model.dto.request.CommentToAsbuiltReq;
 import ITMO.ConstructionDocs.model.dto.request.CommentToProjDocReq;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
 import ITMO.ConstructionDocs.model.dto.response.CommentResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
 import ITMO.ConstructionDocs.service.CommentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
+import static ITMO.ConstructionDocs.constants.Constants.BATCH;
+import static ITMO.ConstructionDocs.constants.Constants.BATCH_LINK;
+import static ITMO.ConstructionDocs.constants.Constants.ACTIVITY_WINDOW;
 import static ITMO.ConstructionDocs.constants.Constants.COMMENT;
+import static ITMO.ConstructionDocs.constants.Constants.CURSOR_PAGINATION;
 
 @Tag(name = "Comments")
 @RestController
@@ -55,6 +65,27 @@ public class CommentController {
         commentService.deleteComment(id, authentication);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create comments", description = BATCH)
+    @PreAuthorize("isAuthenticated()")
+    public BatchResp<CommentResp> createComments(@RequestBody List<CommentReq> requests, Authentication authentication) {
+        return commentService.createComments(requests, authentication);
+    }
+
+    @PutMapping("/batch")
+    @Operation(summary = "Update comments by id", description = BATCH)
+    @PreAuthorize("isAuthenticated()")
+    public BatchResp<CommentResp> updateComments(@RequestBody List<BatchUpdateReq<CommentReq>> requests, Authentication authentication) {
+        return commentService.updateComments(requests, authentication);
+    }
+
+    @DeleteMapping("/batch")
+    @Operation(summary = "Delete comments by id", description = BATCH)
+    @PreAuthorize("isAuthenticated()")
+    public BatchResp<Void> deleteComments(@RequestBody List<Long> ids, Authentication authentication) {
+        return commentService.deleteComments(ids, authentication);
+    }
+
     @GetMapping("/all")
     @Operation(summary = "Get list of comments")
     @PreAuthorize("isAuthenticated()")
@@ -66,6 +97,16 @@ public class CommentController {
         return commentService.getAllComments(page, sizePerPage, sort, order, filter);
     }
 
+    @GetMapping("/all/cursor")
+    @Operation(summary = "Get list of comments by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("isAuthenticated()")
+    public CursorPageResp<CommentResp> seekAllComments(@RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                       @RequestParam(defaultValue = "title") String sort,
+                                                       @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return commentService.seekAllComments(cursor, sizePerPage, sort, order);
+    }
+
     @PostMapping("/setCommentToProjectDoc")
     @Operation(summary = "set Comment to ProjectDoc")
     @PreAuthorize("isAuthenticated()")
@@ -80,6 +121,20 @@ public class CommentController {
         commentService.addCommentToAsbuiltDoc(request);
     }
 
+    @PostMapping("/setCommentToProjectDoc/batch")
+    @Operation(summary = "set Comments to ProjectDocs", description = BATCH_LINK)
+    @PreAuthorize("isAuthenticated()")
+    public BatchResp<Void> addCommentsToProjectDocs(@RequestBody List<CommentToProjDocReq> requests, Authentication authentication) {
+        return commentService.addCommentsToProjectDocs(requests, authentication);
+    }
+
+    @PostMapping("/setCommentToAsbuiltDoc/batch")
+    @Operation(summary = "set Comments to AsbuiltDocs", description = BATCH_LINK)
+    @PreAuthorize("isAuthenticated()")
+    public BatchResp<Void> addCommentsToAsbuiltDocs(@RequestBody List<CommentToAsbuiltReq> requests, Authentication authentication) {
+        return commentService.addCommentsToAsbuiltDocs(requests, authentication);
+    }
+
     @GetMapping("/allByProjectDocId")
     @Operation(summary = "Get list of comments by ProjectDoc id")
     @PreAuthorize("isAuthenticated()")
@@ -91,6 +146,17 @@ public class CommentController {
         return commentService.getCommentsByProjectDocId(projectDocId, page, sizePerPage, sort, order);
     }
 
+    @GetMapping("/allByProjectDocId/cursor")
+    @Operation(summary = "Get list of comments by ProjectDoc id by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("isAuthenticated()")
+    public CursorPageResp<CommentResp> seekCommentsByProjectDocId(@RequestParam UUID projectDocId,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                                  @RequestParam(defaultValue = "title") String sort,
+                                                                  @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return commentService.seekCommentsByProjectDocId(projectDocId, cursor, sizePerPage, sort, order);
+    }
+
     @GetMapping("/allByAsbuiltDocId")
     @Operation(summary = "Get list of comments by AsbuiltDoc id")
     @PreAuthorize("isAuthenticated()")
@@ -102,24 +168,64 @@ public class CommentController {
         return commentService.getCommentsByAsbuiltDocId(asbuiltDocId, page, sizePerPage, sort, order);
     }
 
+    @GetMapping("/allByAsbuiltDocId/cursor")
+    @Operation(summary = "Get list of comments by AsbuiltDoc id by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("isAuthenticated()")
+    public CursorPageResp<CommentResp> seekCommentsByAsbuiltDocId(@RequestParam UUID asbuiltDocId,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                                  @RequestParam(defaultValue = "title") String sort,
+                                                                  @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return commentService.seekCommentsByAsbuiltDocId(asbuiltDocId, cursor, sizePerPage, sort, order);
+    }
+
     @GetMapping("/allForLastWeek")
-    @Operation(summary = "Get list of comments for last week")
+    @Operation(summary = "Get list of comments for last week", description = ACTIVITY_WINDOW)
     @PreAuthorize("isAuthenticated()")
-    public Page<CommentResp> getCommentsForLastWeek(@RequestParam(defaultValue = "1") Integer page,
+    public Page<CommentResp> getCommentsForLastWeek(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                    @RequestParam(defaultValue = "1") Integer page,
                                                     @RequestParam(defaultValue = "10") Integer sizePerPage,
                                                     @RequestParam(defaultValue = "title") String sort,
                                                     @RequestParam(defaultValue = "ASC") Sort.Direction order) {
-        return commentService.getCommentsForLastWeek(page, sizePerPage, sort, order);
+        return commentService.getCommentsForLastWeek(from, to, page, sizePerPage, sort, order);
+    }
+
+    @GetMapping("/allForLastWeek/cursor")
+    @Operation(summary = "Get list of comments for last week by cursor", description = ACTIVITY_WINDOW + ". " + CURSOR_PAGINATION)
+    @PreAuthorize("isAuthenticated()")
+    public CursorPageResp<CommentResp> seekCommentsForLastWeek(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                               @RequestParam(defaultValue = "title") String sort,
+                                                               @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return commentService.seekCommentsForLastWeek(from, to, cursor, sizePerPage, sort, order);
     }
 
     @GetMapping("/allForLastWeekByUser")
-    @Operation(summary = "Get list of comments for last week by user id")
+    @Operation(summary = "Get list of comments for last week by user id", description = ACTIVITY_WINDOW)
     @PreAuthorize("isAuthenticated()")
     public Page<CommentResp> getCommentsForLastWeekByUser(@RequestParam Long userId,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
                                                           @RequestParam(defaultValue = "1") Integer page,
                                                           @RequestParam(defaultValue = "10") Integer sizePerPage,
                                                           @RequestParam(defaultValue = "title") String sort,
                                                           @RequestParam(defaultValue = "ASC") Sort.Direction order) {
-        return commentService.getCommentsForLastWeekByUser(userId, page, sizePerPage, sort, order);
+        return commentService.getCommentsForLastWeekByUser(userId, from, to, page, sizePerPage, sort, order);
+    }
+
+    @GetMapping("/allForLastWeekByUser/cursor")
+    @Operation(summary = "Get list of comments for last week by user id by cursor", description = ACTIVITY_WINDOW + ". " + CURSOR_PAGINATION)
+    @PreAuthorize("isAuthenticated()")
+    public CursorPageResp<CommentResp> seekCommentsForLastWeekByUser(@RequestParam Long userId,
+                                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                     @RequestParam(required = false) String cursor,
+                                                                     @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                                     @RequestParam(defaultValue = "title") String sort,
+                                                                     @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return commentService.seekCommentsForLastWeekByUser(userId, from, to, cursor, sizePerPage, sort, order);
     }
 }
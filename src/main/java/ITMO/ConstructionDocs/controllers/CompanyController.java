@@ -1,9 +1,12 @@
 package ITMO.ConstructionDocs.controllers;
 
+import ITMO.ConstructionDocs.model.dto.request.BatchUpdateReq;
 import ITMO.ConstructionDocs.model.dto.request.CompanyReq;
 import ITMO.ConstructionDocs.model.dto.request.CompanyToProjectReq;
 import ITMO.ConstructionDocs.model.dto.request.UserToCompanyReq;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
 import ITMO.ConstructionDocs.model.dto.response.CompanyResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
 import ITMO.ConstructionDocs.model.dto.response.ProjectResp;
 import ITMO.ConstructionDocs.service.CompanyService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,8 +18,12 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.List;
 
+import static ITMO.ConstructionDocs.constants.Constants.BATCH;
+import static ITMO.ConstructionDocs.constants.Constants.BATCH_LINK;
 import static ITMO.ConstructionDocs.constants.Constants.COMPANY;
+import static ITMO.ConstructionDocs.constants.Constants.CURSOR_PAGINATION;
 
 @Tag(name = "Companies")
 @RestController
@@ -54,6 +61,27 @@ public class CompanyController {
         companyService.deleteCompany(id);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create companies", description = BATCH)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public BatchResp<CompanyResp> createCompanies(@RequestBody List<CompanyReq> requests) {
+        return companyService.createCompanies(requests);
+    }
+
+    @PutMapping("/batch")
+    @Operation(summary = "Update companies by id", description = BATCH)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public BatchResp<CompanyResp> updateCompanies(@RequestBody List<BatchUpdateReq<CompanyReq>> requests) {
+        return companyService.updateCompanies(requests);
+    }
+
+    @DeleteMapping("/batch")
+    @Operation(summary = "Delete companies by id", description = BATCH)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public BatchResp<Void> deleteCompanies(@RequestBody List<Long> ids) {
+        return companyService.deleteCompanies(ids);
+    }
+
     @GetMapping("/all")
     @Operation(summary = "Get list of companies")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
@@ -65,6 +93,16 @@ public class CompanyController {
         return companyService.getAllCompanies(page, sizePerPage, sort, order, filter);
     }
 
+    @GetMapping("/all/cursor")
+    @Operation(summary = "Get list of companies by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public CursorPageResp<CompanyResp> seekAllCompanies(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                        @RequestParam(defaultValue = "name") String sort,
+                                                        @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return companyService.seekAllCompanies(cursor, sizePerPage, sort, order);
+    }
+
     @GetMapping("/allByProjectId")
     @Operation(summary = "Get list of companies by Project id")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
@@ -76,10 +114,28 @@ public class CompanyController {
         return companyService.getCompanyByProjectId(projectId, page, sizePerPage, sort, order);
     }
 
+    @GetMapping("/allByProjectId/cursor")
+    @Operation(summary = "Get list of companies by Project id by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public CursorPageResp<CompanyResp> seekCompanyByProjectId(@RequestParam Long projectId,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                              @RequestParam(defaultValue = "name") String sort,
+                                                              @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return companyService.seekCompanyByProjectId(projectId, cursor, sizePerPage, sort, order);
+    }
+
     @PostMapping("/setCompanyToProject")
     @Operation(summary = "set Company to Project")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
     public void addCompanyToProject(@RequestBody @Valid CompanyToProjectReq request) {
         companyService.addCompanyToProject(request);
     }
+
+    @PostMapping("/setCompanyToProject/batch")
+    @Operation(summary = "set Companies to Projects", description = BATCH_LINK)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER') or hasRole('DEVELOPER')")
+    public BatchResp<Void> addCompaniesToProjects(@RequestBody List<CompanyToProjectReq> requests) {
+        return companyService.addCompaniesToProjects(requests);
+    }
 }
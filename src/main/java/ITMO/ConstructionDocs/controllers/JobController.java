@@ -0,0 +1,57 @@
+package ITMO.ConstructionDocs.controllers;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
+import ITMO.ConstructionDocs.model.dto.response.BackgroundJobResp;
+import ITMO.ConstructionDocs.service.BackgroundJobService;
+import ITMO.ConstructionDocs.service.LegacyImportService;
+import ITMO.ConstructionDocs.service.SearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+import static ITMO.ConstructionDocs.constants.Constants.JOB;
+
+@Tag(name = "Jobs")
+@RestController
+@RequestMapping(JOB)
+@RequiredArgsConstructor
+public class JobController {
+
+    private final BackgroundJobService backgroundJobService;
+    private final LegacyImportService legacyImportService;
+    private final SearchService searchService;
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get background job status and progress by id")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public BackgroundJobResp getJob(@PathVariable UUID id) {
+        return backgroundJobService.getJob(id);
+    }
+
+    @PostMapping("/legacy-import")
+    @Operation(summary = "Move files of legacy docs into the blob store, for one project or for all docs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public BackgroundJobResp startLegacyImport(@RequestParam(required = false) Long projectId) {
+        BackgroundJob job;
+        if (projectId == null) {
+            job = legacyImportService.importAllFiles();
+        } else {
+            job = legacyImportService.importProjectFiles(projectId)
+                    .orElseThrow(() -> new CustomException(String.format("Project with id: %d has no legacy files", projectId), HttpStatus.NO_CONTENT));
+        }
+        return backgroundJobService.toBackgroundJobResp(job);
+    }
+
+    @PostMapping("/search-reindex")
+    @Operation(summary = "Rebuild the search index from the database, filtered lists use the database meanwhile")
+    @PreAuthorize("hasRole('ADMIN')")
+    public BackgroundJobResp startSearchReindex() {
+        return backgroundJobService.toBackgroundJobResp(searchService.reindexAll());
+    }
+}
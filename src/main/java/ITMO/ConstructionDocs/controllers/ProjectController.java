@@ -1,6 +1,9 @@
 package ITMO.ConstructionDocs.controllers;
 
+import ITMO.ConstructionDocs.model.dto.request.BatchUpdateReq;
 import ITMO.ConstructionDocs.model.dto.request.ProjectReq;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
 import ITMO.ConstructionDocs.model.dto.response.ProjectResp;
 import ITMO.ConstructionDocs.service.ProjectService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -11,6 +14,10 @@ import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
+import static ITMO.ConstructionDocs.constants.Constants.BATCH;
+import static ITMO.ConstructionDocs.constants.Constants.CURSOR_PAGINATION;
 import static ITMO.ConstructionDocs.constants.Constants.PROJECT;
 
 @Tag(name = "Projects")
@@ -49,6 +56,27 @@ public class ProjectController {
         projectService.deleteProject(id);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create projects", description = BATCH)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public BatchResp<ProjectResp> createProjects(@RequestBody List<ProjectReq> requests) {
+        return projectService.createProjects(requests);
+    }
+
+    @PutMapping("/batch")
+    @Operation(summary = "Update projects by id", description = BATCH)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public BatchResp<ProjectResp> updateProjects(@RequestBody List<BatchUpdateReq<ProjectReq>> requests) {
+        return projectService.updateProjects(requests);
+    }
+
+    @DeleteMapping("/batch")
+    @Operation(summary = "Delete projects by id", description = BATCH)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public BatchResp<Void> deleteProjects(@RequestBody List<Long> ids) {
+        return projectService.deleteProjects(ids);
+    }
+
     @GetMapping("/all")
     @Operation(summary = "Get list of projects")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
@@ -60,4 +88,14 @@ public class ProjectController {
         return projectService.getAllProjects(page, sizePerPage, sort, order, filter);
     }
 
+    @GetMapping("/all/cursor")
+    @Operation(summary = "Get list of projects by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public CursorPageResp<ProjectResp> seekAllProjects(@RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                       @RequestParam(defaultValue = "name") String sort,
+                                                       @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return projectService.seekAllProjects(cursor, sizePerPage, sort, order);
+    }
+
 }
@@ -2,23 +2,41 @@ package ITMO.ConstructionDocs.controllers;
 
 import ITMO.ConstructionDocs.model.dto.request.ProjectDocReq;
 import ITMO.ConstructionDocs.model.dto.request.ProjectDocToProjectReq;
+import ITMO.ConstructionDocs.model.dto.request.UploadSessionReq;
+import ITMO.ConstructionDocs.model.dto.response.BackgroundJobResp;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
+import ITMO.ConstructionDocs.model.dto.response.BulkUploadResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
 import ITMO.ConstructionDocs.model.dto.response.ProjectDocResp;
+import ITMO.ConstructionDocs.model.dto.response.UploadSessionResp;
 import ITMO.ConstructionDocs.service.ProjectDocService;
+import ITMO.ConstructionDocs.service.BulkUploadService;
+import ITMO.ConstructionDocs.service.UploadSessionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
+import static ITMO.ConstructionDocs.constants.Constants.ACTIVITY_WINDOW;
+import static ITMO.ConstructionDocs.constants.Constants.BATCH_LINK;
+import static ITMO.ConstructionDocs.constants.Constants.CURSOR_PAGINATION;
 import static ITMO.ConstructionDocs.constants.Constants.DESIGN;
 
 @Tag(name = "ProjectDocs")
@@ -28,6 +46,8 @@ import static ITMO.ConstructionDocs.constants.Constants.DESIGN;
 public class ProjectDocController {
 
     private final ProjectDocService projectDocService;
+    private final UploadSessionService uploadSessionService;
+    private final BulkUploadService bulkUploadService;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Create projectDoc")
@@ -52,6 +72,70 @@ public class ProjectDocController {
         return projectDocService.updateProjectDoc(id, request, file, authentication);
     }
 
+    @PostMapping("/stream")
+    @Operation(summary = "Create projectDoc from raw file body", description = "File bytes are sent as the request body with their own Content-Type, metadata as query parameters")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public ProjectDocResp createProjectDocFromStream(
+            @Valid ProjectDocReq request,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String fileFormat,
+            InputStream content,
+            Authentication authentication) {
+        return projectDocService.createProjectDocFromStream(request, content, fileFormat, authentication);
+    }
+
+    @PostMapping("/bulk")
+    @Operation(summary = "Create projectDocs from a ZIP archive", description = "The archive is sent as the raw request body and read entry by entry. " +
+            "An optional manifest.json placed first maps entry names to doc metadata. Returns a result for every entry")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public BulkUploadResp uploadProjectDocs(InputStream archive, Authentication authentication) {
+        return bulkUploadService.uploadProjectDocs(archive, authentication);
+    }
+
+    @PostMapping("/{id}/stream")
+    @Operation(summary = "Update projectDoc from raw file body", description = "File bytes are sent as the request body with their own Content-Type, metadata as query parameters")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public ProjectDocResp updateProjectDocFromStream(
+            @PathVariable UUID id,
+            @Valid ProjectDocReq request,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String fileFormat,
+            InputStream content,
+            Authentication authentication) {
+        return projectDocService.updateProjectDocFromStream(id, request, content, fileFormat, authentication);
+    }
+
+    @PostMapping("/uploads")
+    @Operation(summary = "Open resumable upload session for projectDoc file")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public UploadSessionResp openUploadSession(@RequestBody @Valid UploadSessionReq request, Authentication authentication) {
+        return uploadSessionService.openSession(request, authentication);
+    }
+
+    @PutMapping("/uploads/{sessionId}/chunks/{index}")
+    @Operation(summary = "Upload one chunk of the file, chunks may be sent in any order and in parallel")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public UploadSessionResp uploadChunk(@PathVariable UUID sessionId,
+                                         @PathVariable Integer index,
+                                         InputStream content,
+                                         Authentication authentication) {
+        return uploadSessionService.uploadChunk(sessionId, index, content, authentication);
+    }
+
+    @GetMapping("/uploads/{sessionId}")
+    @Operation(summary = "Get upload session with received chunks")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public UploadSessionResp getUploadSession(@PathVariable UUID sessionId, Authentication authentication) {
+        return uploadSessionService.getSession(sessionId, authentication);
+    }
+
+    @PostMapping("/uploads/{sessionId}/commit")
+    @Operation(summary = "Assemble uploaded chunks and create projectDoc")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public ProjectDocResp commitProjectDocUpload(@PathVariable UUID sessionId,
+                                                 @RequestBody @Valid ProjectDocReq request,
+                                                 Authentication authentication) {
+        return projectDocService.commitProjectDocUpload(sessionId, request, authentication);
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete projectDoc")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
@@ -66,6 +150,13 @@ public class ProjectDocController {
         return projectDocService.getProjectDoc(id);
     }
 
+    @GetMapping("/{id}/content")
+    @Operation(summary = "Download projectDoc file", description = "Supports Range, If-Range, If-None-Match and If-Modified-Since headers")
+    @PreAuthorize("isAuthenticated()")
+    public void getProjectDocContent(@PathVariable UUID id, HttpServletRequest request, HttpServletResponse response) {
+        projectDocService.writeProjectDocContent(id, request, response);
+    }
+
     @GetMapping("/all")
     @Operation(summary = "Get list of projectDocs")
     @PreAuthorize("isAuthenticated()")
@@ -77,11 +168,28 @@ public class ProjectDocController {
         return projectDocService.getAllProjectDocs(page, sizePerPage, sort, order, filter);
     }
 
+    @GetMapping("/all/cursor")
+    @Operation(summary = "Get list of projectDocs by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("isAuthenticated()")
+    public CursorPageResp<ProjectDocResp> seekAllProjectDocs(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                             @RequestParam(defaultValue = "fileName") String sort,
+                                                             @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return projectDocService.seekAllProjectDocs(cursor, sizePerPage, sort, order);
+    }
+
     @PostMapping("/setProjectDocToProject")
     @Operation(summary = "set ProjectDoc to Project")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
-    public void addProjectDocToProject(@RequestBody @Valid ProjectDocToProjectReq request, Authentication authentication) {
-        projectDocService.addProjectDocToProject(request, authentication);
+    public BackgroundJobResp addProjectDocToProject(@RequestBody @Valid ProjectDocToProjectReq request, Authentication authentication) {
+        return projectDocService.addProjectDocToProject(request, authentication);
+    }
+
+    @PostMapping("/setProjectDocToProject/batch")
+    @Operation(summary = "set ProjectDocs to Projects", description = BATCH_LINK)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DESIGNER')")
+    public BatchResp<BackgroundJobResp> addProjectDocsToProjects(@RequestBody List<ProjectDocToProjectReq> requests, Authentication authentication) {
+        return projectDocService.addProjectDocsToProjects(requests, authentication);
     }
 
     @GetMapping("/allByProjectId")
@@ -95,14 +203,40 @@ public class ProjectDocController {
         return projectDocService.getProjectDocsByProjectId(projectId, page, sizePerPage, sort, order);
     }
 
+    @GetMapping("/allByProjectId/cursor")
+    @Operation(summary = "Get list of projectDocs by Project id by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("isAuthenticated()")
+    public CursorPageResp<ProjectDocResp> seekProjectDocsByProjectId(@RequestParam Long projectId,
+                                                                     @RequestParam(required = false) String cursor,
+                                                                     @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                                     @RequestParam(defaultValue = "fileName") String sort,
+                                                                     @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return projectDocService.seekProjectDocsByProjectId(projectId, cursor, sizePerPage, sort, order);
+    }
+
     @GetMapping("/allByProjectIdForLastWeek")
-    @Operation(summary = "Get list of projectDocs by Project id for last week")
+    @Operation(summary = "Get list of projectDocs by Project id for last week", description = ACTIVITY_WINDOW)
     @PreAuthorize("isAuthenticated()")
     public Page<ProjectDocResp> getProjectDocsForLastWeekByProjId(@RequestParam Long projectId,
+                                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
                                                                   @RequestParam(defaultValue = "1") Integer page,
                                                                   @RequestParam(defaultValue = "10") Integer sizePerPage,
                                                                   @RequestParam(defaultValue = "fileName") String sort,
                                                                   @RequestParam(defaultValue = "ASC") Sort.Direction order) {
-        return projectDocService.getProjectDocsForLastWeekByProjId(projectId, page, sizePerPage, sort, order);
+        return projectDocService.getProjectDocsForLastWeekByProjId(projectId, from, to, page, sizePerPage, sort, order);
+    }
+
+    @GetMapping("/allByProjectIdForLastWeek/cursor")
+    @Operation(summary = "Get list of projectDocs by Project id for last week by cursor", description = ACTIVITY_WINDOW + ". " + CURSOR_PAGINATION)
+    @PreAuthorize("isAuthenticated()")
+    public CursorPageResp<ProjectDocResp> seekProjectDocsForLastWeekByProjId(@RequestParam Long projectId,
+                                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                             @RequestParam(required = false) String cursor,
+                                                                             @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                                             @RequestParam(defaultValue = "fileName") String sort,
+                                                                             @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return projectDocService.seekProjectDocsForLastWeekByProjId(projectId, from, to, cursor, sizePerPage, sort, order);
     }
 }
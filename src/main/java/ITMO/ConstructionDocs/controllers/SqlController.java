@@ -0,0 +1,31 @@
+package ITMO.ConstructionDocs.controllers;
+
+import ITMO.ConstructionDocs.metrics.SqlTracker;
+import ITMO.ConstructionDocs.model.dto.response.SqlRequestResp;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import static ITMO.ConstructionDocs.constants.Constants.SQL;
+
+@Tag(name = "SQL")
+@RestController
+@RequestMapping(SQL)
+@RequiredArgsConstructor
+public class SqlController {
+
+    private final SqlTracker sqlTracker;
+
+    @GetMapping("/slow-requests")
+    @Operation(summary = "Get the last slow requests of this node with their statement count, rows, JDBC time and SQL, slowest first")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<SqlRequestResp> getSlowRequests() {
+        return sqlTracker.getSlowRequests();
+    }
+}
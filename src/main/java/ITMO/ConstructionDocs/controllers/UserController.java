@@ -1,7 +1,10 @@
 package ITMO.ConstructionDocs.controllers;
 
+import ITMO.ConstructionDocs.model.dto.request.BatchUpdateReq;
 import ITMO.ConstructionDocs.model.dto.request.UserReq;
 import ITMO.ConstructionDocs.model.dto.request.UserToCompanyReq;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
 import ITMO.ConstructionDocs.model.dto.response.UserResp;
 import ITMO.ConstructionDocs.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,7 +16,11 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.List;
 
+import static ITMO.ConstructionDocs.constants.Constants.BATCH;
+import static ITMO.ConstructionDocs.constants.Constants.BATCH_LINK;
+import static ITMO.ConstructionDocs.constants.Constants.CURSOR_PAGINATION;
 import static ITMO.ConstructionDocs.constants.Constants.USER;
 
 @Tag(name = "Users")
@@ -52,6 +59,27 @@ public class UserController {
         userService.deleteUser(id);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create users", description = BATCH)
+    @PreAuthorize("hasRole('ADMIN')")
+    public BatchResp<UserResp> createUsers(@RequestBody List<UserReq> requests) {
+        return userService.createUsers(requests);
+    }
+
+    @PutMapping("/batch")
+    @Operation(summary = "Update users by id", description = BATCH)
+    @PreAuthorize("hasRole('ADMIN')")
+    public BatchResp<UserResp> updateUsers(@RequestBody List<BatchUpdateReq<UserReq>> requests) {
+        return userService.updateUsers(requests);
+    }
+
+    @DeleteMapping("/batch")
+    @Operation(summary = "Delete users by id", description = BATCH)
+    @PreAuthorize("hasRole('ADMIN')")
+    public BatchResp<Void> deleteUsers(@RequestBody List<Long> ids) {
+        return userService.deleteUsers(ids);
+    }
+
     @GetMapping("/all")
     @Operation(summary = "Get list of users")
     @PreAuthorize("hasRole('ADMIN')")
@@ -63,6 +91,16 @@ public class UserController {
         return userService.getAllUsers(page, sizePerPage, sort, order, filter);
     }
 
+    @GetMapping("/all/cursor")
+    @Operation(summary = "Get list of users by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("hasRole('ADMIN')")
+    public CursorPageResp<UserResp> seekAllUsers(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                 @RequestParam(defaultValue = "lastName") String sort,
+                                                 @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return userService.seekAllUsers(cursor, sizePerPage, sort, order);
+    }
+
     @PostMapping("/setUserToCompany")
     @Operation(summary = "set User to Company")
     @PreAuthorize("hasRole('ADMIN')")
@@ -70,6 +108,13 @@ public class UserController {
         userService.addUserToCompany(request);
     }
 
+    @PostMapping("/setUserToCompany/batch")
+    @Operation(summary = "set Users to Companies", description = BATCH_LINK)
+    @PreAuthorize("hasRole('ADMIN')")
+    public BatchResp<Void> addUsersToCompanies(@RequestBody List<UserToCompanyReq> requests) {
+        return userService.addUsersToCompanies(requests);
+    }
+
     @GetMapping("/allByCompanyId")
     @Operation(summary = "Get list of users by Company Id")
     @PreAuthorize("hasRole('ADMIN')")
@@ -81,4 +126,15 @@ public class UserController {
         return userService.getUsersByCompany(companyId, page, sizePerPage, sort, order);
     }
 
+    @GetMapping("/allByCompanyId/cursor")
+    @Operation(summary = "Get list of users by Company Id by cursor", description = CURSOR_PAGINATION)
+    @PreAuthorize("hasRole('ADMIN')")
+    public CursorPageResp<UserResp> seekUsersByCompany(@RequestParam Long companyId,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "10") Integer sizePerPage,
+                                                       @RequestParam(defaultValue = "lastName") String sort,
+                                                       @RequestParam(defaultValue = "ASC") Sort.Direction order) {
+        return userService.seekUsersByCompany(companyId, cursor, sizePerPage, sort, order);
+    }
+
 }
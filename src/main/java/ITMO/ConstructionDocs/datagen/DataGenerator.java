@@ -0,0 +1,267 @@
+package ITMO.ConstructionDocs.datagen;
+
+import ITMO.ConstructionDocs.config.DataGeneratorProperties;
+import ITMO.ConstructionDocs.service.FileBlobService;
+import ITMO.ConstructionDocs.service.SearchService;
+import ITMO.ConstructionDocs.storage.DocumentStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Fills an empty database with synthetic companies, users, projects, docs, comments and files at the volumes of
+ * {@code app.datagen}, for load tests on production scale. Runs on startup when {@code app.datagen.enabled} is
+ * set and nothing it generated is there yet.
+ * <p>
+ * Rows are written by set-based inserts over {@code generate_series}, one project after another on
+ * {@code threads} connections; the listeners of the entities do not see them, so the search index is rebuilt
+ * afterwards and the activity feed backfills itself from the timestamps. Postgres only.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(DataGeneratorProperties.class)
+@ConditionalOnProperty(prefix = "app.datagen", name = "enabled", havingValue = "true")
+public class DataGenerator implements CommandLineRunner {
+    private static final String PROJECT_PREFIX = "Generated project ";
+    private static final String[] WORDS = {"concrete", "rebar", "beam", "column", "slab", "foundation", "facade",
+            "drainage", "insulation", "formwork", "roofing", "ventilation", "masonry", "staircase", "elevation"};
+
+    /** Blobs of the run, numbered so that row {@code g} of a series takes blob {@code g % files}. */
+    private static final String BLOBS = "with b as (select content_hash, file_size, " +
+            "cast(row_number() over (order by content_hash) - 1 as int) as n from file_blobs " +
+            "where content_hash = any(cast(? as varchar[]))) ";
+
+    private static final String DOC_STATUS = "case when s.r < 0.05 then 'WITHDRAWN' else (array['INITIAL', 'REVISED', " +
+            "'CORRECTED', 'CHECKED', 'APPROVED', 'NOTE'])[1 + cast(floor(random() * 6) as int)] end";
+
+    /** A third of the rows is updated later, some of them within the last week. */
+    private static final String UPDATED_AT = "case when s.r > 0.9 then greatest(s.created_at, now() - random() * interval '7 days') " +
+            "when s.r > 0.65 then s.created_at + random() * (now() - s.created_at) end";
+
+    private final DataGeneratorProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final DocumentStorage documentStorage;
+    private final FileBlobService fileBlobService;
+    private final SearchService searchService;
+    private final PasswordEncoder passwordEncoder;
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (jdbcTemplate.queryForObject("select exists (select 1 from projects where name like ?)", Boolean.class,
+                PROJECT_PREFIX + "%")) {
+            log.info("Generated data is already there, nothing to generate");
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<Long> companyIds = insertCompanies();
+        insertUsers(companyIds);
+        List<Long> projectIds = insertProjects();
+        List<List<Long>> projectCompanies = insertProjectCompanies(projectIds, companyIds);
+        String blobs = insertBlobs();
+        insertDocs(projectIds, projectCompanies, blobs);
+        jdbcTemplate.update("update file_blobs b set ref_count = c.docs from (select content_hash, count(*) as docs " +
+                "from docs where content_hash = any(cast(? as varchar[])) group by content_hash) c " +
+                "where b.content_hash = c.content_hash", blobs);
+        jdbcTemplate.execute("analyze");
+        log.info("Generated {} projects with {} docs in {} s", projectIds.size(),
+                jdbcTemplate.queryForObject("select count(*) from docs", Long.class), (System.nanoTime() - start) / 1_000_000_000);
+
+        if (properties.isReindex()) {
+            searchService.reindexAll();
+        }
+    }
+
+    private List<Long> insertCompanies() {
+        return jdbcTemplate.queryForList("insert into companies (name, address, description, registration_number, " +
+                "taxpayer_number, status, created_at) select 'Generated company ' || g, 'Industrial street ' || g, " +
+                "'General contractor', lpad(cast(g as varchar), 13, '0'), lpad(cast(g as varchar), 10, '0'), 'CREATED', " +
+                "now() - random() * interval '730 days' from generate_series(1, ?) g returning id", Long.class,
+                properties.getCompanies());
+    }
+
+    /**
+     * Users are numbered across the companies; every third one is a designer, the others are contractors and
+     * developers. They share one password hash, BCrypt of each would take longer than everything else.
+     */
+    private void insertUsers(List<Long> companyIds) {
+        String passwordHash = passwordEncoder.encode(properties.getPassword());
+        int perCompany = properties.getUsersPerCompany();
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < companyIds.size(); i++) {
+            batch.add(new Object[]{passwordHash, companyIds.get(i), i * perCompany + 1, (i + 1) * perCompany});
+        }
+        jdbcTemplate.batchUpdate("insert into users (email, password, first_name, last_name, phone_number, position, " +
+                "role, status, company_id, created_at) select 'user' || n || '@datagen.test', ?, " +
+                "(array['Ivan', 'Anna', 'Pavel', 'Olga', 'Sergey', 'Maria'])[1 + n % 6], 'Petrov-' || n, " +
+                "'+7900' || lpad(cast(n as varchar), 7, '0'), (array['Engineer', 'Foreman', 'Architect', 'Manager'])[1 + n % 4], " +
+                "case n % 3 when 0 then 'DESIGNER' when 1 then 'CONTRACTOR' else 'DEVELOPER' end, 'CREATED', ?, " +
+                "now() - random() * interval '730 days' from generate_series(?, ?) n", batch);
+    }
+
+    private List<Long> insertProjects() {
+        return jdbcTemplate.queryForList("insert into projects (name, address, description, files_root_directory, " +
+                "status, created_at) select '" + PROJECT_PREFIX + "' || g, 'Construction site ' || g, " +
+                "(array['Residential block', 'Office centre', 'School', 'Warehouse'])[1 + g % 4], 'project-' || g, " +
+                "case when g % 20 = 0 then 'DELETED' else 'CREATED' end, now() - random() * interval '730 days' " +
+                "from generate_series(1, ?) g returning id", Long.class, properties.getProjects());
+    }
+
+    private List<List<Long>> insertProjectCompanies(List<Long> projectIds, List<Long> companyIds) {
+        int perProject = Math.min(properties.getCompaniesPerProject(), companyIds.size());
+        List<List<Long>> projectCompanies = new ArrayList<>(projectIds.size());
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < projectIds.size(); i++) {
+            List<Long> companies = new ArrayList<>(perProject);
+            for (int j = 0; j < perProject; j++) {
+                Long companyId = companyIds.get((i * perProject + j) % companyIds.size());
+                companies.add(companyId);
+                batch.add(new Object[]{companyId, projectIds.get(i)});
+            }
+            projectCompanies.add(companies);
+        }
+        jdbcTemplate.batchUpdate("insert into company_project (company_id, project_id) values (?, ?)", batch);
+        return projectCompanies;
+    }
+
+    /**
+     * Stores the files the docs point to, as text so that extraction and search have words to work with.
+     *
+     * @return the hashes of the files as a postgres array
+     */
+    private String insertBlobs() throws IOException, NoSuchAlgorithmException {
+        Random random = new Random();
+        List<Object[]> batch = new ArrayList<>();
+        Path stagedFile = Files.createTempFile("datagen-", ".staged");
+        try {
+            for (int i = 0; i < properties.getFiles(); i++) {
+                StringBuilder text = new StringBuilder("Sheet ").append(i).append('\n');
+                int size = 1024 + random.nextInt(Math.max(1, properties.getMaxFileSize() - 1024));
+                while (text.length() < size) {
+                    text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(10) == 0 ? ".\n" : " ");
+                }
+                byte[] content = text.toString().getBytes(StandardCharsets.UTF_8);
+                String contentHash = String.format("%064x",
+                        new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(content)));
+
+                Files.write(stagedFile, content);
+                documentStorage.putFile(fileBlobService.getBlobKey(contentHash), stagedFile);
+                batch.add(new Object[]{contentHash, (long) content.length, Timestamp.valueOf(LocalDateTime.now())});
+            }
+        } finally {
+            Files.deleteIfExists(stagedFile);
+        }
+        jdbcTemplate.batchUpdate("insert into file_blobs (content_hash, file_size, ref_count, created_at) " +
+                "values (?, ?, 0, ?) on conflict (content_hash) do nothing", batch);
+        return batch.stream()
+                .map(row -> (String) row[0])
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private void insertDocs(List<Long> projectIds, List<List<Long>> projectCompanies, String blobs)
+            throws InterruptedException, ExecutionException {
+        List<Long> designerIds = userIds("DESIGNER");
+        List<Long> contractorIds = userIds("CONTRACTOR");
+        int progressStep = Math.max(1, projectIds.size() / 10);
+        AtomicInteger done = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getThreads());
+        try {
+            List<Future<?>> futures = new ArrayList<>(projectIds.size());
+            for (int i = 0; i < projectIds.size(); i++) {
+                Long projectId = projectIds.get(i);
+                Long companyId = projectCompanies.get(i).isEmpty() ? null : projectCompanies.get(i).get(0);
+                Long designerId = pick(designerIds, i);
+                Long contractorId = pick(contractorIds, i);
+                futures.add(executor.submit(() -> {
+                    insertProjectDocs(projectId, designerId, blobs);
+                    insertAsbuiltDocs(projectId, companyId, contractorId, blobs);
+                    insertComments(projectId, contractorId);
+                    int projects = done.incrementAndGet();
+                    if (projects % progressStep == 0) {
+                        log.info("Generated {} of {} projects", projects, projectIds.size());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void insertProjectDocs(Long projectId, Long designerId, String blobs) {
+        jdbcTemplate.update(BLOBS + "insert into docs (id, doc_type, file_name, file_format, file_size, file_address, " +
+                "content_hash, description, category, status, project_id, created_by_user_id, created_at, updated_at) " +
+                "select gen_random_uuid(), 'PROJECT_DOC', s.file_name, 'text/plain', b.file_size, s.file_name, " +
+                "b.content_hash, 'Sheet ' || s.g || ' of the working drawings', cast(floor(random() * 6) as int), " +
+                DOC_STATUS + ", ?, ?, s.created_at, " + UPDATED_AT + " from (select g, random() as r, " +
+                "now() - random() * interval '730 days' as created_at, " +
+                "'P' || ? || '-' || lpad(cast(g as varchar), 6, '0') || '.txt' as file_name " +
+                "from generate_series(1, ?) g) s join b on b.n = s.g % ?",
+                blobs, projectId, designerId, projectId, properties.getProjectDocsPerProject(), properties.getFiles());
+    }
+
+    private void insertAsbuiltDocs(Long projectId, Long companyId, Long contractorId, String blobs) {
+        jdbcTemplate.update(BLOBS + "insert into docs (id, doc_type, file_name, file_format, file_size, file_address, " +
+                "content_hash, description, category, status, project_doc_id, company_id, created_by_user_id, " +
+                "created_at, updated_at) select gen_random_uuid(), 'ASBUILT_DOC', s.file_name, 'text/plain', " +
+                "b.file_size, s.project_doc_file_name || '-ABDs/' || s.file_name, b.content_hash, " +
+                "'As-built record ' || s.g, cast(floor(random() * 3) as int), " + DOC_STATUS + ", s.project_doc_id, " +
+                "?, ?, s.created_at, " + UPDATED_AT + " from (select d.id as project_doc_id, " +
+                "d.file_name as project_doc_file_name, g, cast(row_number() over () as int) as k, random() as r, " +
+                "d.created_at + random() * (now() - d.created_at) as created_at, " +
+                "'A' || g || '-' || d.file_name as file_name from docs d cross join generate_series(1, ?) g " +
+                "where d.project_id = ? and d.doc_type = 'PROJECT_DOC') s join b on b.n = s.k % ?",
+                blobs, companyId, contractorId, properties.getAsbuiltDocsPerProjectDoc(), projectId, properties.getFiles());
+    }
+
+    private void insertComments(Long projectId, Long authorId) {
+        String insert = "insert into comments (title, text, status, project_doc_id, asbuilt_doc_id, created_by_user_id, " +
+                "created_at) select 'Remark ' || g, (array['Check the dimensions', 'Missing signature', " +
+                "'Update the revision', 'Approved on site'])[1 + cast(floor(random() * 4) as int)], " +
+                "case when random() < 0.05 then 'DELETED' else 'CREATED' end, ";
+        jdbcTemplate.update(insert + "d.id, null, ?, d.created_at + random() * (now() - d.created_at) " +
+                "from docs d cross join generate_series(1, ?) g where d.project_id = ? and d.doc_type = 'PROJECT_DOC'",
+                authorId, properties.getCommentsPerDoc(), projectId);
+        jdbcTemplate.update(insert + "null, a.id, ?, a.created_at + random() * (now() - a.created_at) " +
+                "from docs p join docs a on a.project_doc_id = p.id cross join generate_series(1, ?) g " +
+                "where p.project_id = ? and p.doc_type = 'PROJECT_DOC'",
+                authorId, properties.getCommentsPerDoc(), projectId);
+    }
+
+    private List<Long> userIds(String role) {
+        return jdbcTemplate.queryForList("select id from users where email like '%@datagen.test' and role = ?",
+                Long.class, role);
+    }
+
+    private static Long pick(List<Long> ids, int i) {
+        return ids.isEmpty() ? null : ids.get(i % ids.size());
+    }
+}
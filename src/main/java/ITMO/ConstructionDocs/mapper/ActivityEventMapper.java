@@ -0,0 +1,10 @@
+package ITMO.ConstructionDocs.mapper;
+
+import ITMO.ConstructionDocs.model.db.entity.ActivityEvent;
+import ITMO.ConstructionDocs.model.dto.response.ActivityEventResp;
+import org.mapstruct.Mapper;
+
+@Mapper(config = MapperConfiguration.class)
+public interface ActivityEventMapper {
+    ActivityEventResp toActivityEventResp(ActivityEvent activityEvent);
+}
@@ -0,0 +1,16 @@
+package ITMO.ConstructionDocs.mapper;
+
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.projection.AsbuiltDocView;
+import ITMO.ConstructionDocs.model.dto.request.AsbuiltDocReq;
+import ITMO.ConstructionDocs.model.dto.response.AsbuiltDocResp;
+import org.mapstruct.Mapper;
+
+@Mapper(config = MapperConfiguration.class)
+public interface AsbuiltDocMapper {
+    AsbuiltDoc toAsbuiltDoc(AsbuiltDocReq request);
+
+    AsbuiltDocResp toAsbuiltDocResp(AsbuiltDoc asbuiltDoc);
+
+    AsbuiltDocResp toAsbuiltDocResp(AsbuiltDocView asbuiltDoc);
+}
@@ -0,0 +1,16 @@
+package ITMO.ConstructionDocs.mapper;
+
+import ITMO.ConstructionDocs.model.db.entity.Comment;
+import ITMO.ConstructionDocs.model.db.projection.CommentView;
+import ITMO.ConstructionDocs.model.dto.request.CommentReq;
+import ITMO.ConstructionDocs.model.dto.response.CommentResp;
+import org.mapstruct.Mapper;
+
+@Mapper(config = MapperConfiguration.class)
+public interface CommentMapper {
+    Comment toComment(CommentReq request);
+
+    CommentResp toCommentResp(Comment comment);
+
+    CommentResp toCommentResp(CommentView comment);
+}
@@ -0,0 +1,16 @@
+package ITMO.ConstructionDocs.mapper;
+
+import ITMO.ConstructionDocs.model.db.entity.Company;
+import ITMO.ConstructionDocs.model.db.projection.CompanyView;
+import ITMO.ConstructionDocs.model.dto.request.CompanyReq;
+import ITMO.ConstructionDocs.model.dto.response.CompanyResp;
+import org.mapstruct.Mapper;
+
+@Mapper(config = MapperConfiguration.class)
+public interface CompanyMapper {
+    Company toCompany(CompanyReq request);
+
+    CompanyResp toCompanyResp(Company company);
+
+    CompanyResp toCompanyResp(CompanyView company);
+}
@@ -0,0 +1,16 @@
+package ITMO.ConstructionDocs.mapper;
+
+import org.mapstruct.Builder;
+import org.mapstruct.MapperConfig;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Shared settings of the generated entity/DTO mappers. Mappers copy plain properties only: associations and
+ * audit fields are set by the services, and the {@code @SuperBuilder} builders of the DTOs are bypassed for
+ * their setters.
+ */
+@MapperConfig(componentModel = "spring",
+        unmappedTargetPolicy = ReportingPolicy.IGNORE,
+        builder = @Builder(disableBuilder = true))
+public interface MapperConfiguration {
+}
@@ -0,0 +1,16 @@
+package ITMO.ConstructionDocs.mapper;
+
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.projection.ProjectDocView;
+import ITMO.ConstructionDocs.model.dto.request.ProjectDocReq;
+import ITMO.ConstructionDocs.model.dto.response.ProjectDocResp;
+import org.mapstruct.Mapper;
+
+@Mapper(config = MapperConfiguration.class)
+public interface ProjectDocMapper {
+    ProjectDoc toProjectDoc(ProjectDocReq request);
+
+    ProjectDocResp toProjectDocResp(ProjectDoc projectDoc);
+
+    ProjectDocResp toProjectDocResp(ProjectDocView projectDoc);
+}
@@ -0,0 +1,19 @@
+package ITMO.ConstructionDocs.mapper;
+
+import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.projection.ProjectView;
+import ITMO.ConstructionDocs.model.dto.request.ProjectReq;
+import ITMO.ConstructionDocs.model.dto.response.ProjectResp;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MapperConfiguration.class)
+public interface ProjectMapper {
+    Project toProject(ProjectReq request);
+
+    @Mapping(target = "migrationJobId", ignore = true)
+    ProjectResp toProjectResp(Project project);
+
+    @Mapping(target = "migrationJobId", ignore = true)
+    ProjectResp toProjectResp(ProjectView project);
+}
@@ -0,0 +1,19 @@
+package ITMO.ConstructionDocs.mapper;
+
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.projection.UserView;
+import ITMO.ConstructionDocs.model.dto.request.UserReq;
+import ITMO.ConstructionDocs.model.dto.response.UserResp;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MapperConfiguration.class)
+public interface UserMapper {
+    User toUser(UserReq request);
+
+    // the password hash never leaves the service
+    @Mapping(target = "password", ignore = true)
+    UserResp toUserResp(User user);
+
+    UserResp toUserResp(UserView user);
+}
@@ -0,0 +1,51 @@
+package ITMO.ConstructionDocs.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bytes and durations of the file contents written to the store and read back, as {@code app.files.transfer}
+ * (seconds) and {@code app.files.transfer.size} (bytes), tagged with the direction. A download handed to
+ * sendfile is timed until the container takes it over.
+ */
+@Component
+public class FileTransferMetrics {
+    private final Timer uploadTimer;
+    private final DistributionSummary uploadSize;
+    private final Timer downloadTimer;
+    private final DistributionSummary downloadSize;
+
+    public FileTransferMetrics(MeterRegistry meterRegistry) {
+        uploadTimer = timer(meterRegistry, "upload");
+        uploadSize = size(meterRegistry, "upload");
+        downloadTimer = timer(meterRegistry, "download");
+        downloadSize = size(meterRegistry, "download");
+    }
+
+    public void recordUpload(long bytes, long startNanos) {
+        uploadTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        uploadSize.record(bytes);
+    }
+
+    public void recordDownload(long bytes, long startNanos) {
+        downloadTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        downloadSize.record(bytes);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String direction) {
+        return Timer.builder("app.files.transfer")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    private static DistributionSummary size(MeterRegistry meterRegistry, String direction) {
+        return DistributionSummary.builder("app.files.transfer.size")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,50 @@
+package ITMO.ConstructionDocs.metrics;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL run on the thread of one request, collected by {@link SqlTracker}. Only the first {@link #MAX_STATEMENTS}
+ * statements are kept with their text, the counts go on.
+ */
+@Getter
+public class RequestSqlStats {
+    static final int MAX_STATEMENTS = 100;
+
+    private final String method;
+    private final String uri;
+    private final long startNanos = System.nanoTime();
+    private final List<String> sql = new ArrayList<>();
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+    private long statementStartNanos;
+
+    RequestSqlStats(String method, String uri) {
+        this.method = method;
+        this.uri = uri;
+    }
+
+    void statementStarted() {
+        statementStartNanos = System.nanoTime();
+    }
+
+    void statementFinished(String query) {
+        long elapsed = System.nanoTime() - statementStartNanos;
+        statements++;
+        jdbcNanos += elapsed;
+        if (sql.size() < MAX_STATEMENTS) {
+            sql.add(String.format("%.3f ms: %s", elapsed / 1e6, query));
+        }
+    }
+
+    void rowFetched() {
+        rows++;
+    }
+
+    public double getJdbcMillis() {
+        return jdbcNanos / 1e6;
+    }
+}
@@ -0,0 +1,134 @@
+package ITMO.ConstructionDocs.metrics;
+
+import ITMO.ConstructionDocs.model.dto.response.SqlRequestResp;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the statements, JDBC time and, with {@code count-rows}, fetched rows of each request, from the listeners
+ * of the proxy around the data source, so every repository and JdbcTemplate call is seen. SQL outside a request,
+ * of jobs and schedules, is not tracked.
+ * <p>
+ * A request running more than {@code statement-budget} statements is logged with the stack of the statement
+ * over the budget, which points at the loop issuing them. Requests slower than {@code slow-request-threshold}
+ * are kept with their SQL in a ring buffer of the last {@code slow-requests}.
+ */
+@Slf4j
+@Component
+public class SqlTracker implements QueryExecutionListener, MethodExecutionListener {
+    private final ThreadLocal<RequestSqlStats> current = new ThreadLocal<>();
+    private final int statementBudget;
+    private final long slowRequestThresholdNanos;
+    private final int slowRequestsSize;
+    private final Deque<SqlRequestResp> slowRequests;
+
+    public SqlTracker(@Value("${app.sql.statement-budget:100}") int statementBudget,
+                      @Value("${app.sql.slow-request-threshold:500ms}") Duration slowRequestThreshold,
+                      @Value("${app.sql.slow-requests:50}") int slowRequestsSize) {
+        this.statementBudget = statementBudget;
+        this.slowRequestThresholdNanos = slowRequestThreshold.toNanos();
+        this.slowRequestsSize = slowRequestsSize;
+        this.slowRequests = new ArrayDeque<>(slowRequestsSize);
+    }
+
+    public RequestSqlStats start(String method, String uri) {
+        RequestSqlStats stats = new RequestSqlStats(method, uri);
+        current.set(stats);
+        return stats;
+    }
+
+    public void finish(RequestSqlStats stats, int status) {
+        current.remove();
+        long duration = System.nanoTime() - stats.getStartNanos();
+        if (duration < slowRequestThresholdNanos || slowRequestsSize <= 0) {
+            return;
+        }
+
+        SqlRequestResp slowRequest = SqlRequestResp.builder()
+                .method(stats.getMethod())
+                .uri(stats.getUri())
+                .status(status)
+                .finishedAt(LocalDateTime.now())
+                .durationMillis(duration / 1_000_000)
+                .statements(stats.getStatements())
+                .rows(stats.getRows())
+                .jdbcMillis(stats.getJdbcMillis())
+                .sql(new ArrayList<>(stats.getSql()))
+                .build();
+        synchronized (slowRequests) {
+            if (slowRequests.size() == slowRequestsSize) {
+                slowRequests.removeFirst();
+            }
+            slowRequests.addLast(slowRequest);
+        }
+    }
+
+    /**
+     * The slow requests still in the ring buffer, slowest first.
+     */
+    public List<SqlRequestResp> getSlowRequests() {
+        synchronized (slowRequests) {
+            return slowRequests.stream()
+                    .sorted(Comparator.comparing(SqlRequestResp::getDurationMillis).reversed())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestSqlStats stats = current.get();
+        if (stats != null) {
+            stats.statementStarted();
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestSqlStats stats = current.get();
+        if (stats == null) {
+            return;
+        }
+
+        String query = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+        if (execInfo.isBatch()) {
+            query = "batch of " + execInfo.getBatchSize() + ": " + query;
+        }
+        stats.statementFinished(query);
+        if (stats.getStatements() == statementBudget + 1) {
+            log.warn("{} {} ran more than {} SQL statements, the one over the budget: {}", stats.getMethod(),
+                    stats.getUri(), statementBudget, query, new Throwable("SQL statement budget exceeded"));
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && Boolean.TRUE.equals(executionContext.getResult())
+                && executionContext.getMethod().getName().equals("next")) {
+            RequestSqlStats stats = current.get();
+            if (stats != null) {
+                stats.rowFetched();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ITMO.ConstructionDocs.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Tracks the SQL of each request with {@link SqlTracker}, the authentication included. With
+ * {@code app.sql.debug-header} the counts are sent in the {@value #HEADER} header, as they are when the response
+ * is committed; SQL run while a large body is written comes after it.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class SqlTrackingFilter extends OncePerRequestFilter {
+    public static final String HEADER = "X-SQL-Stats";
+
+    private final SqlTracker sqlTracker;
+    private final boolean debugHeader;
+
+    public SqlTrackingFilter(SqlTracker sqlTracker, @Value("${app.sql.debug-header:false}") boolean debugHeader) {
+        this.sqlTracker = sqlTracker;
+        this.debugHeader = debugHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestSqlStats stats = sqlTracker.start(request.getMethod(), request.getRequestURI());
+        HttpServletResponse trackedResponse = !debugHeader ? response : new OnCommittedResponseWrapper(response) {
+            @Override
+            protected void onResponseCommitted() {
+                writeStatsHeader(response, stats);
+            }
+        };
+
+        try {
+            chain.doFilter(request, trackedResponse);
+        } finally {
+            // a response without a body is committed only once the filters have returned
+            if (debugHeader && !response.isCommitted()) {
+                writeStatsHeader(response, stats);
+            }
+            sqlTracker.finish(stats, response.getStatus());
+        }
+    }
+
+    private static void writeStatsHeader(HttpServletResponse response, RequestSqlStats stats) {
+        response.setHeader(HEADER, String.format("statements=%d; rows=%d; jdbc-ms=%.3f",
+                stats.getStatements(), stats.getRows(), stats.getJdbcMillis()));
+    }
+}
@@ -0,0 +1,57 @@
+package ITMO.ConstructionDocs.model.db.entity;
+
+import ITMO.ConstructionDocs.model.enums.ActivityAction;
+import ITMO.ConstructionDocs.model.enums.ActivitySubject;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One create, update or delete of a tracked entity. Events are only ever appended; besides the changed entity
+ * they carry the project, project doc, as-built doc and comment it belongs to, so the change feed of any of them
+ * is an index range scan over a time window.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "activity_events")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ActivityEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    @Column(name = "occurred_at", nullable = false)
+    LocalDateTime occurredAt;
+
+    @Column(name = "subject", nullable = false)
+    @Enumerated(EnumType.STRING)
+    ActivitySubject subject;
+
+    @Column(name = "action", nullable = false)
+    @Enumerated(EnumType.STRING)
+    ActivityAction action;
+
+    @Column(name = "subject_id", nullable = false)
+    String subjectId;
+
+    @Column(name = "project_id")
+    Long projectId;
+
+    @Column(name = "project_doc_id")
+    UUID projectDocId;
+
+    @Column(name = "asbuilt_doc_id")
+    UUID asbuiltDocId;
+
+    @Column(name = "comment_id")
+    Long commentId;
+
+    @Column(name = "actor_id")
+    Long actorId;
+}
@@ -14,19 +14,20 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
-@Table(name = "asbuilt_docs")
+@DiscriminatorValue(AsbuiltDoc.DOC_TYPE)
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class AsbuiltDoc extends Doc {
+    public static final String DOC_TYPE = "ASBUILT_DOC";
 
     @Column(name = "category")
     AsbuiltCategory asbuiltCategory;
 
-    @ManyToOne
-    @JoinColumn(name = "project_doc_id")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_doc_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     @JsonBackReference("projDocToABD")
     ProjectDoc projectDoc;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "company_id")
     @JsonBackReference("companyToABD")
     Company company;
@@ -35,12 +36,12 @@ public class AsbuiltDoc extends Doc {
     @JsonManagedReference("asbuiltDocToComm")
     List<Comment> comments;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by_user_id")
     @JsonBackReference("userCreatedABD")
     User createdBy;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "updated_by_user_id")
     @JsonBackReference("userUpdatedABD")
     User updatedBy;
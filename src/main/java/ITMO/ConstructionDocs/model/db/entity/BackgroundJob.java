@@ -0,0 +1,74 @@
+package ITMO.ConstructionDocs.model.db.entity;
+
+import ITMO.ConstructionDocs.model.enums.JobStatus;
+import ITMO.ConstructionDocs.model.enums.JobType;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "background_jobs")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BackgroundJob {
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    UUID id;
+
+    @Column(name = "type")
+    @Enumerated(EnumType.STRING)
+    JobType type;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    JobStatus status;
+
+    @Column(name = "project_id")
+    Long projectId;
+
+    @Column(name = "project_doc_id")
+    UUID projectDocId;
+
+    @Column(name = "total_items")
+    Long totalItems;
+
+    @Column(name = "processed_items")
+    Long processedItems;
+
+    @Column(name = "failed_items")
+    Long failedItems;
+
+    /**
+     * Stage the job was in and the last item of that stage whose work is finished, saved after
+     * each batch so a restarted job continues from there.
+     */
+    @Column(name = "checkpoint_stage")
+    String checkpointStage;
+
+    @Column(name = "checkpoint_item_id")
+    UUID checkpointItemId;
+
+    @Column(name = "message", length = 1000)
+    String message;
+
+    @Column(name = "created_at")
+    @CreationTimestamp
+    LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    @UpdateTimestamp
+    LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    LocalDateTime finishedAt;
+}
@@ -0,0 +1,32 @@
+package ITMO.ConstructionDocs.model.db.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Text extracted from a stored blob, shared by all docs with the same content. Empty when the format has
+ * no text or extraction failed, so the blob is not tried again.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "blob_texts")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BlobText {
+    @Id
+    @Column(name = "content_hash", length = 64)
+    String contentHash;
+
+    @Column(name = "text", columnDefinition = "text")
+    String text;
+
+    @Column(name = "extracted_at")
+    @CreationTimestamp
+    LocalDateTime extractedAt;
+}
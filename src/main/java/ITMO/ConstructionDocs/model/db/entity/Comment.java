@@ -1,6 +1,8 @@
 package ITMO.ConstructionDocs.model.db.entity;
 
+import ITMO.ConstructionDocs.activity.ActivityListener;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.search.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
@@ -19,11 +21,13 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
+@EntityListeners({SearchIndexListener.class, ActivityListener.class})
 @Table(name = "comments")
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Comment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_id_seq")
+    @SequenceGenerator(name = "comments_id_seq", sequenceName = "comments_id_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "title")
@@ -32,13 +36,13 @@ public class Comment {
     @Column(name = "text")
     String text;
 
-    @ManyToOne
-    @JoinColumn(name = "asbuilt_doc_id")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "asbuilt_doc_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     @JsonBackReference("asbuiltDocToComm")
     AsbuiltDoc asbuiltDoc;
 
-    @ManyToOne
-    @JoinColumn(name = "project_doc_id")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_doc_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     @JsonBackReference("projDocToComm")
     ProjectDoc projectDoc;
 
@@ -54,12 +58,12 @@ public class Comment {
     @UpdateTimestamp
     LocalDateTime updatedAt;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by_user_id")
     @JsonBackReference("userCreatedComm")
     User createdBy;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "updated_by_user_id")
     @JsonBackReference("userUpdatedComm")
     User updatedBy;
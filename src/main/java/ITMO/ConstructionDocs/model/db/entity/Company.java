@@ -1,6 +1,9 @@
 package ITMO.ConstructionDocs.model.db.entity;
 
+import ITMO.ConstructionDocs.activity.ActivityListener;
+import ITMO.ConstructionDocs.cache.CacheRegions;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.search.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
@@ -12,6 +15,8 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -22,12 +27,15 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.COMPANIES)
+@EntityListeners({SearchIndexListener.class, ActivityListener.class})
 @Table(name = "companies")
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Company {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "companies_id_seq")
+    @SequenceGenerator(name = "companies_id_seq", sequenceName = "companies_id_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "name")
@@ -47,14 +55,17 @@ public class Company {
 
     @OneToMany(mappedBy = "company")
     @JsonManagedReference("companyToUser")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.COMPANY_USERS)
     List<User> users;
 
     @ManyToMany
     @JoinTable(
             name = "company_project",
             joinColumns = @JoinColumn(name = "company_id"),
-            inverseJoinColumns = @JoinColumn(name = "project_id")
+            inverseJoinColumns = @JoinColumn(name = "project_id"),
+            uniqueConstraints = @UniqueConstraint(columnNames = {"company_id", "project_id"})
     )
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.COMPANY_PROJECTS)
     List<Project> projects;
 
     @OneToMany(mappedBy = "company")
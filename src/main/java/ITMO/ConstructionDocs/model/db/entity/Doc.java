@@ -1,6 +1,8 @@
 package ITMO.ConstructionDocs.model.db.entity;
 
+import ITMO.ConstructionDocs.activity.ActivityListener;
 import ITMO.ConstructionDocs.model.enums.DocStatus;
+import ITMO.ConstructionDocs.search.SearchIndexListener;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
@@ -20,8 +22,11 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
+@EntityListeners({SearchIndexListener.class, ActivityListener.class})
+@Table(name = "docs")
 @FieldDefaults(level = AccessLevel.PRIVATE)
-@Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
+@Inheritance(strategy = InheritanceType.SINGLE_TABLE)
+@DiscriminatorColumn(name = "doc_type", length = 16)
 public abstract class Doc {
     @Id
     @GeneratedValue(generator = "UUID")
@@ -40,6 +45,9 @@ public abstract class Doc {
     @Column(name = "file_address")
     String fileAddress;
 
+    @Column(name = "content_hash", length = 64)
+    String contentHash;
+
     @Column(name = "description")
     String description;
 
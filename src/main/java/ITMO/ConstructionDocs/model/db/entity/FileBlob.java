@@ -0,0 +1,36 @@
+package ITMO.ConstructionDocs.model.db.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "file_blobs")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FileBlob {
+    @Id
+    @Column(name = "content_hash", length = 64)
+    String contentHash;
+
+    @Column(name = "file_size")
+    Long fileSize;
+
+    @Column(name = "ref_count")
+    Integer refCount;
+
+    @Column(name = "created_at")
+    @CreationTimestamp
+    LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    @UpdateTimestamp
+    LocalDateTime updatedAt;
+}
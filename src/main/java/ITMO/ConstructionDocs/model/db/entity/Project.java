@@ -1,6 +1,9 @@
 package ITMO.ConstructionDocs.model.db.entity;
 
+import ITMO.ConstructionDocs.activity.ActivityListener;
+import ITMO.ConstructionDocs.cache.CacheRegions;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.search.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
@@ -12,6 +15,8 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -22,12 +27,15 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.PROJECTS)
+@EntityListeners({SearchIndexListener.class, ActivityListener.class})
 @Table(name = "projects")
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Project {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "projects_id_seq")
+    @SequenceGenerator(name = "projects_id_seq", sequenceName = "projects_id_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "name")
@@ -43,6 +51,7 @@ public class Project {
     String filesRootDirectory;
 
     @ManyToMany(mappedBy = "projects")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.PROJECT_COMPANIES)
     List<Company> companies;
 
     @OneToMany(mappedBy = "project")
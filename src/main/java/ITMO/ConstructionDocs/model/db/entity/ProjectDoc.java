@@ -14,13 +14,15 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
-@Table(name = "project_docs")
+@DiscriminatorValue(ProjectDoc.DOC_TYPE)
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class ProjectDoc extends Doc {
+    public static final String DOC_TYPE = "PROJECT_DOC";
+
     @Column(name = "category")
     DesignCategory designCategory;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "project_id")
     @JsonBackReference("projToProjDocs")
     Project project;
@@ -33,12 +35,12 @@ public class ProjectDoc extends Doc {
     @JsonManagedReference("projDocToABD")
     List<AsbuiltDoc> asbuiltDocs;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by_user_id")
     @JsonBackReference("userCreatedProjDoc")
     User createdBy;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "updated_by_user_id")
     @JsonBackReference("userUpdatedProjDoc")
     User updatedBy;
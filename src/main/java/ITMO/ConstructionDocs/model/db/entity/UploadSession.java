@@ -0,0 +1,48 @@
+package ITMO.ConstructionDocs.model.db.entity;
+
+import ITMO.ConstructionDocs.model.enums.UploadStatus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "upload_sessions")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UploadSession {
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    UUID id;
+
+    @Column(name = "total_chunks")
+    Integer totalChunks;
+
+    @Column(name = "file_format")
+    String fileFormat;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    UploadStatus status;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "created_by_user_id")
+    User createdBy;
+
+    @Column(name = "created_at")
+    @CreationTimestamp
+    LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    @UpdateTimestamp
+    LocalDateTime updatedAt;
+}
@@ -1,7 +1,10 @@
 package ITMO.ConstructionDocs.model.db.entity;
 
+import ITMO.ConstructionDocs.activity.ActivityListener;
+import ITMO.ConstructionDocs.cache.CacheRegions;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
 import ITMO.ConstructionDocs.model.enums.Role;
+import ITMO.ConstructionDocs.search.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
@@ -10,6 +13,8 @@ import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.security.core.GrantedAuthority;
@@ -24,6 +29,8 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USERS)
+@EntityListeners({SearchIndexListener.class, ActivityListener.class})
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "users")
@@ -31,7 +38,8 @@ import java.util.List;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class User implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
     Long id;
 
     @Column(name = "email")
@@ -56,7 +64,7 @@ public class User implements UserDetails {
     @Column(name = "phone_number")
     String phoneNumber;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "company_id")
     @JsonBackReference("companyToUser")
     Company company;
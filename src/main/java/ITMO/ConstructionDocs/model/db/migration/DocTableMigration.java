@@ -0,0 +1,277 @@
+package ITMO.ConstructionDocs.model.db.migration;
+
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Moves the docs from the tables of their types, {@code project_docs} and {@code asbuilt_docs}, into the single
+ * {@code docs} table, while nodes of the previous release keep serving from the old ones.
+ * <p>
+ * The {@code expand} phase runs on every startup of this release, before it takes traffic. Triggers copy each
+ * write of one side to the other in the writing transaction, then the rows written before are copied in batches.
+ * A row the triggers already copied is left as is. The foreign keys to {@code docs} are added once every row is
+ * there, unchecked at first so the writes are not blocked by the scan that validates them.
+ * <p>
+ * Once no node of the previous release is left, the {@code contract} phase drops the triggers and the old tables.
+ */
+@Slf4j
+@Component
+// runs once Flyway has created docs
+@DependsOn("flywayInitializer")
+public class DocTableMigration {
+    static final String PHASE_CONTRACT = "contract";
+    private static final String LOCK_NAME = "docs_migration";
+    /** Turns the triggers off in a transaction, for the rows the backfill copies over. */
+    private static final String SYNC_SETTING = "app.docs_sync";
+    private static final String REVERSE_FUNCTION = "docs_sync_to_legacy";
+
+    private static final List<String> COMMON_COLUMNS = List.of("id", "file_name", "file_format", "file_size",
+            "file_address", "content_hash", "description", "created_at", "updated_at", "status", "category",
+            "created_by_user_id", "updated_by_user_id");
+
+    /**
+     * Constraint name, table and column of the foreign keys to {@code docs}. The Flyway migrations do not create
+     * them, they would do so before the rows they point to are copied.
+     */
+    private static final List<List<String>> FOREIGN_KEYS = List.of(
+            List.of("docs_project_doc_id_fk", "docs", "project_doc_id"),
+            List.of("comments_project_doc_id_fk", "comments", "project_doc_id"),
+            List.of("comments_asbuilt_doc_id_fk", "comments", "asbuilt_doc_id"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final String phase;
+    private final int batchSize;
+
+    public DocTableMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             DataSourceProperties dataSourceProperties,
+                             @Value("${app.migration.docs.phase:expand}") String phase,
+                             @Value("${app.migration.docs.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.phase = phase;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (!dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:")) {
+            return;
+        }
+
+        // nodes starting together migrate one after the other, the later ones find the work done
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("select pg_advisory_lock(hashtext('" + LOCK_NAME + "'))");
+                try {
+                    if (PHASE_CONTRACT.equals(phase)) {
+                        contract();
+                    } else {
+                        expand();
+                    }
+                } finally {
+                    statement.execute("select pg_advisory_unlock(hashtext('" + LOCK_NAME + "'))");
+                }
+            }
+            return null;
+        });
+    }
+
+    private void expand() {
+        if (legacyTablesExist()) {
+            for (LegacyTable table : LegacyTable.values()) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    // tables of the releases before the blob store have no content_hash, which both triggers and
+                    // the backfill copy; a nullable column without a default is added without rewriting the table
+                    jdbcTemplate.execute("alter table " + table.name + " add column if not exists content_hash varchar(64)");
+                    jdbcTemplate.execute(syncFunction(table));
+                    createTrigger(table.syncFunction, table.name);
+                });
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute(reverseSyncFunction());
+                createTrigger(REVERSE_FUNCTION, "docs");
+            });
+
+            // project docs first, the as-built ones point to them
+            for (LegacyTable table : LegacyTable.values()) {
+                backfill(table);
+            }
+        }
+        addForeignKeys();
+    }
+
+    private void contract() {
+        if (legacyTablesExist()) {
+            for (LegacyTable table : LegacyTable.values()) {
+                long missing = countMissing(table);
+                if (missing > 0) {
+                    log.error("{} rows of {} are missing from docs, the table is kept until the expand phase " +
+                            "copies them", missing, table.name);
+                    return;
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("drop trigger if exists " + REVERSE_FUNCTION + " on docs");
+                jdbcTemplate.execute("drop function if exists " + REVERSE_FUNCTION + "()");
+                for (LegacyTable table : LegacyTable.values()) {
+                    // with their triggers and the foreign keys of the previous release pointing to them
+                    jdbcTemplate.execute("drop table " + table.name + " cascade");
+                    jdbcTemplate.execute("drop function if exists " + table.syncFunction + "()");
+                }
+            });
+            log.info("Dropped the tables {}", List.of(LegacyTable.values()));
+        }
+        addForeignKeys();
+    }
+
+    /**
+     * Copies the rows of the old table in batches of ids, each committed by itself so that no lock is held long.
+     */
+    private void backfill(LegacyTable table) {
+        if (countMissing(table) == 0) {
+            return;
+        }
+
+        String insert = "insert into docs (" + String.join(", ", table.columns) + ", doc_type) select " +
+                String.join(", ", table.columns) + ", '" + table.docType + "' from " + table.name +
+                " where id > ? and id <= ? on conflict (id) do nothing";
+        UUID after = new UUID(0, 0);
+        long copied = 0;
+        while (true) {
+            List<UUID> ids = jdbcTemplate.queryForList("select id from " + table.name + " where id > ? order by id limit ?",
+                    UUID.class, after, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            UUID from = after;
+            UUID to = ids.get(ids.size() - 1);
+            copied += transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("set local " + SYNC_SETTING + " = 'off'");
+                return jdbcTemplate.update(insert, from, to);
+            });
+            after = to;
+        }
+        log.info("Copied {} rows of {} into docs", copied, table.name);
+    }
+
+    private long countMissing(LegacyTable table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table.name + " t where not exists " +
+                "(select 1 from docs d where d.id = t.id)", Long.class);
+    }
+
+    /**
+     * Adds the foreign keys unchecked, which only takes a short lock, then checks the existing rows against them
+     * without blocking the writes.
+     */
+    private void addForeignKeys() {
+        for (List<String> foreignKey : FOREIGN_KEYS) {
+            String name = foreignKey.get(0);
+            String table = foreignKey.get(1);
+            Boolean validated = jdbcTemplate.query("select convalidated from pg_constraint where conname = ?",
+                    rs -> rs.next() ? rs.getBoolean(1) : null, name);
+            if (validated == null) {
+                jdbcTemplate.execute("alter table " + table + " add constraint " + name + " foreign key (" +
+                        foreignKey.get(2) + ") references docs (id) not valid");
+            }
+            if (!Boolean.TRUE.equals(validated)) {
+                jdbcTemplate.execute("alter table " + table + " validate constraint " + name);
+            }
+        }
+    }
+
+    private boolean legacyTablesExist() {
+        return Stream.of(LegacyTable.values()).allMatch(table ->
+                jdbcTemplate.queryForObject("select to_regclass(?) is not null", Boolean.class, table.name));
+    }
+
+    private void createTrigger(String function, String table) {
+        jdbcTemplate.execute("drop trigger if exists " + function + " on " + table);
+        jdbcTemplate.execute("create trigger " + function + " after insert or update or delete on " + table +
+                " for each row execute procedure " + function + "()");
+    }
+
+    /**
+     * Copies a write of an old table to {@code docs}. The copy back of that write by the reverse trigger is
+     * skipped, its depth is 2.
+     */
+    private static String syncFunction(LegacyTable table) {
+        List<String> columns = new ArrayList<>(table.columns);
+        columns.add("doc_type");
+        List<String> values = table.columns.stream().map(column -> "new." + column).collect(Collectors.toList());
+        values.add("'" + table.docType + "'");
+        return function(table.syncFunction, "if tg_op = 'DELETE' then delete from docs where id = old.id; " +
+                "else " + upsert("docs", columns, values) + "; end if;");
+    }
+
+    /**
+     * Copies a write of {@code docs} to the old table of its type, for the nodes of the previous release.
+     */
+    private static String reverseSyncFunction() {
+        return function(REVERSE_FUNCTION, "if tg_op = 'DELETE' then " +
+                byDocType("old", table -> "delete from " + table.name + " where id = old.id") + " " +
+                "else " + byDocType("new", table -> upsert(table.name, table.columns,
+                table.columns.stream().map(column -> "new." + column).collect(Collectors.toList()))) + " end if;");
+    }
+
+    private static String function(String name, String body) {
+        return "create or replace function " + name + "() returns trigger language plpgsql as $$ begin " +
+                "if pg_trigger_depth() > 1 or current_setting('" + SYNC_SETTING + "', true) = 'off' then " +
+                "return null; end if; " + body + " return null; end $$";
+    }
+
+    private static String byDocType(String row, Function<LegacyTable, String> statement) {
+        return Stream.of(LegacyTable.values())
+                .map(table -> "if " + row + ".doc_type = '" + table.docType + "' then " + statement.apply(table) + "; ")
+                .collect(Collectors.joining("els", "", "end if;"));
+    }
+
+    private static String upsert(String table, List<String> columns, List<String> values) {
+        return "insert into " + table + " (" + String.join(", ", columns) + ") values (" + String.join(", ", values) +
+                ") on conflict (id) do update set " + columns.stream()
+                .filter(column -> !column.equals("id"))
+                .map(column -> column + " = excluded." + column)
+                .collect(Collectors.joining(", "));
+    }
+
+    private enum LegacyTable {
+        PROJECT_DOCS("project_docs", ProjectDoc.DOC_TYPE, "project_id"),
+        ASBUILT_DOCS("asbuilt_docs", AsbuiltDoc.DOC_TYPE, "project_doc_id", "company_id");
+
+        final String name;
+        final String docType;
+        final String syncFunction;
+        final List<String> columns;
+
+        LegacyTable(String name, String docType, String... columns) {
+            this.name = name;
+            this.docType = docType;
+            this.syncFunction = "docs_sync_from_" + name;
+            this.columns = Stream.concat(COMMON_COLUMNS.stream(), Stream.of(columns)).collect(Collectors.toList());
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
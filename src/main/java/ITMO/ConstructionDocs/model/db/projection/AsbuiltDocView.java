@@ -0,0 +1,28 @@
+package ITMO.ConstructionDocs.model.db.projection;
+
+import ITMO.ConstructionDocs.model.enums.AsbuiltCategory;
+import ITMO.ConstructionDocs.model.enums.DocStatus;
+
+import java.util.UUID;
+
+/**
+ * The columns of an as-built doc that list endpoints return. List queries select these into an interface
+ * projection, so a page is read with one statement: no entity is loaded, nor any association of one.
+ */
+public interface AsbuiltDocView {
+    UUID getId();
+
+    String getFileName();
+
+    String getDescription();
+
+    DocStatus getDocStatus();
+
+    AsbuiltCategory getAsbuiltCategory();
+
+    String getFileFormat();
+
+    Long getFileSize();
+
+    String getFileAddress();
+}
@@ -0,0 +1,9 @@
+package ITMO.ConstructionDocs.model.db.projection;
+
+public interface CommentView {
+    Long getId();
+
+    String getTitle();
+
+    String getText();
+}
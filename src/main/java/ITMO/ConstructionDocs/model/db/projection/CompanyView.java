@@ -0,0 +1,15 @@
+package ITMO.ConstructionDocs.model.db.projection;
+
+public interface CompanyView {
+    Long getId();
+
+    String getName();
+
+    String getAddress();
+
+    String getDescription();
+
+    String getRegistrationNumber();
+
+    String getTaxpayerIdentificationNumber();
+}
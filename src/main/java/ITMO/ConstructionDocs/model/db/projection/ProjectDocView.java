@@ -0,0 +1,24 @@
+package ITMO.ConstructionDocs.model.db.projection;
+
+import ITMO.ConstructionDocs.model.enums.DesignCategory;
+import ITMO.ConstructionDocs.model.enums.DocStatus;
+
+import java.util.UUID;
+
+public interface ProjectDocView {
+    UUID getId();
+
+    String getFileName();
+
+    String getDescription();
+
+    DocStatus getDocStatus();
+
+    DesignCategory getDesignCategory();
+
+    String getFileFormat();
+
+    Long getFileSize();
+
+    String getFileAddress();
+}
@@ -0,0 +1,13 @@
+package ITMO.ConstructionDocs.model.db.projection;
+
+public interface ProjectView {
+    Long getId();
+
+    String getName();
+
+    String getAddress();
+
+    String getDescription();
+
+    String getFilesRootDirectory();
+}
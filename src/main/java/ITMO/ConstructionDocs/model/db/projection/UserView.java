@@ -0,0 +1,22 @@
+package ITMO.ConstructionDocs.model.db.projection;
+
+import ITMO.ConstructionDocs.model.enums.Role;
+
+/**
+ * Listed columns of a user, the password hash is not selected.
+ */
+public interface UserView {
+    Long getId();
+
+    String getEmail();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getPosition();
+
+    String getPhoneNumber();
+
+    Role getRole();
+}
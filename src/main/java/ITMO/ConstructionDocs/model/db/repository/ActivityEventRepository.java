@@ -0,0 +1,21 @@
+package ITMO.ConstructionDocs.model.db.repository;
+
+import ITMO.ConstructionDocs.model.db.entity.ActivityEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ActivityEventRepository extends JpaRepository<ActivityEvent, Long> {
+    boolean existsByIdNotNull();
+
+    Optional<ActivityEvent> findTopByOrderByIdDesc();
+
+    List<ActivityEvent> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<ActivityEvent> findAllByProjectIdAndIdGreaterThanOrderByIdAsc(Long projectId, Long id, Pageable pageable);
+
+    List<ActivityEvent> findAllByProjectDocIdAndIdGreaterThanOrderByIdAsc(UUID projectDocId, Long id, Pageable pageable);
+}
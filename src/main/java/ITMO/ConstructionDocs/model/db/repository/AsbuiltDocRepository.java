@@ -1,35 +1,73 @@
 package ITMO.ConstructionDocs.model.db.repository;
 
 import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.projection.AsbuiltDocView;
 import ITMO.ConstructionDocs.model.enums.DocStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
-public interface AsbuiltDocRepository extends JpaRepository<AsbuiltDoc, UUID> {
-    @Query("select a from AsbuiltDoc a where a.docStatus <>:status")
-    Page<AsbuiltDoc> findAllNotDeleted(Pageable pageRequest, @Param("status") DocStatus status);
+public interface AsbuiltDocRepository extends DocRepository<AsbuiltDoc> {
+    String VIEW = "a.id as id, a.fileName as fileName, a.description as description, a.docStatus as docStatus, " +
+            "a.asbuiltCategory as asbuiltCategory, a.fileFormat as fileFormat, a.fileSize as fileSize, " +
+            "a.fileAddress as fileAddress";
 
-    @Query("select a from AsbuiltDoc a where a.docStatus <>:status and lower(a.fileName) like %:filter% or " +
+    @Query("select " + VIEW + " from AsbuiltDoc a where a.docStatus <>:status")
+    Page<AsbuiltDocView> findAllNotDeleted(Pageable pageRequest, @Param("status") DocStatus status);
+
+    @Query("select " + VIEW + " from AsbuiltDoc a where a.docStatus <>:status and (lower(a.fileName) like %:filter% or " +
             "lower(a.projectDoc.fileName) like %:filter% or " +
-            "lower(cast(a.asbuiltCategory as string)) like %:filter%")
-    Page<AsbuiltDoc> findAllNotDeletedAndFiltered(Pageable pageRequest, @Param("status") DocStatus status, String filter);
+            "lower(cast(a.asbuiltCategory as string)) like %:filter%)")
+    Page<AsbuiltDocView> findAllNotDeletedAndFiltered(Pageable pageRequest, @Param("status") DocStatus status, String filter);
+
+    @Query("select " + VIEW + " from AsbuiltDoc a where a.company.id =:id")
+    Page<AsbuiltDocView> findAllByCompanyId(@Param("id") Long companyId, Pageable pageRequest);
+
+    @Query("select " + VIEW + " from AsbuiltDoc a where a.projectDoc.id =:id")
+    Page<AsbuiltDocView> findAllByProjectDocId(@Param("id") UUID projectDocId, Pageable pageRequest);
+
+    @Query("select " + VIEW + " from AsbuiltDoc a where a.id in (select e.asbuiltDocId from ActivityEvent e where " +
+            "e.subject = ITMO.ConstructionDocs.model.enums.ActivitySubject.ASBUILT_DOC and " +
+            "e.occurredAt >= :windowStart and e.occurredAt < :windowEnd)")
+    Page<AsbuiltDocView> findAllChanged(@Param("windowStart") LocalDateTime windowStart,
+                                        @Param("windowEnd") LocalDateTime windowEnd, Pageable pageRequest);
+
+    @Query("select " + VIEW + " from AsbuiltDoc a where a.id in (select e.asbuiltDocId from ActivityEvent e where " +
+            "e.projectDocId =:id and e.subject = ITMO.ConstructionDocs.model.enums.ActivitySubject.ASBUILT_DOC and " +
+            "e.occurredAt >= :windowStart and e.occurredAt < :windowEnd)")
+    Page<AsbuiltDocView> findAllChangedByProjectDocId(@Param("id") UUID projectDocId,
+                                                      @Param("windowStart") LocalDateTime windowStart,
+                                                      @Param("windowEnd") LocalDateTime windowEnd, Pageable pageRequest);
+
+
+    @Query("select count(a) from AsbuiltDoc a where a.projectDoc.project.id =:id and a.contentHash is null and " +
+            "(a.docStatus is null or a.docStatus <>:status)")
+    long countLegacyByProjectId(@Param("id") Long projectId, @Param("status") DocStatus status);
+
+    @Query(value = "select a from AsbuiltDoc a left join fetch a.projectDoc where a.id >:afterId order by a.id",
+            countQuery = "select count(a) from AsbuiltDoc a where a.id >:afterId")
+    Page<AsbuiltDoc> findAllAfterId(@Param("afterId") UUID afterId, Pageable pageRequest);
+
+    @Query(value = "select a from AsbuiltDoc a join fetch a.projectDoc p where p.project.id =:id and a.id >:afterId order by a.id",
+            countQuery = "select count(a) from AsbuiltDoc a where a.projectDoc.project.id =:id and a.id >:afterId")
+    Page<AsbuiltDoc> findAllByProjectIdAfterId(@Param("id") Long projectId, @Param("afterId") UUID afterId, Pageable pageRequest);
 
-    @Query("select a from AsbuiltDoc a where a.company.id =:id")
-    Page<AsbuiltDoc> findAllByCompanyId(@Param("id") Long companyId, Pageable pageRequest);
+    @Query(value = "select a from AsbuiltDoc a join fetch a.projectDoc p where p.id =:id and a.id >:afterId order by a.id",
+            countQuery = "select count(a) from AsbuiltDoc a where a.projectDoc.id =:id and a.id >:afterId")
+    Page<AsbuiltDoc> findAllByProjectDocIdAfterId(@Param("id") UUID projectDocId, @Param("afterId") UUID afterId, Pageable pageRequest);
 
-    @Query("select a from AsbuiltDoc a where a.projectDoc.id =:id")
-    Page<AsbuiltDoc> findAllByProjectDocId(@Param("id") UUID projectDocId, Pageable pageRequest);
+    @Query("select count(a) from AsbuiltDoc a where a.projectDoc.id =:id and a.contentHash is null and " +
+            "(a.docStatus is null or a.docStatus <>:status)")
+    long countLegacyByProjectDocId(@Param("id") UUID projectDocId, @Param("status") DocStatus status);
 
-    @Query("select a from AsbuiltDoc a where a.createdAt >= :lastWeek or a.updatedAt >= :lastWeek")
-    Page<AsbuiltDoc> findAllForLastWeek(@Param("lastWeek") LocalDateTime lastWeek, Pageable pageRequest);
+    List<AsbuiltDocView> findViewsByIdIn(Collection<UUID> ids);
 
-    @Query("select a from AsbuiltDoc a where a.createdAt >= :lastWeek or a.updatedAt >= :lastWeek and " +
-            "a.projectDoc.id =:id")
-    Page<AsbuiltDoc> findAllByProjectDocIdForLastWeek(@Param("id") UUID projectDocId, @Param("lastWeek") LocalDateTime lastWeek, Pageable pageRequest);
-}
\ No newline at end of file
+    @Query("select a.id from AsbuiltDoc a where a.id in :ids")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,16 @@
+package ITMO.ConstructionDocs.model.db.repository;
+
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
+import ITMO.ConstructionDocs.model.enums.JobStatus;
+import ITMO.ConstructionDocs.model.enums.JobType;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface BackgroundJobRepository extends JpaRepository<BackgroundJob, UUID> {
+    List<BackgroundJob> findAllByStatusInOrderByCreatedAt(Collection<JobStatus> statuses);
+
+    boolean existsByTypeAndStatusIn(JobType type, Collection<JobStatus> statuses);
+}
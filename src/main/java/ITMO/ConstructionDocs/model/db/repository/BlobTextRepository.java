@@ -0,0 +1,13 @@
+package ITMO.ConstructionDocs.model.db.repository;
+
+import ITMO.ConstructionDocs.model.db.entity.BlobText;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface BlobTextRepository extends JpaRepository<BlobText, String> {
+    @Modifying
+    @Query("delete from BlobText t where t.contentHash =:contentHash")
+    void deleteByContentHash(@Param("contentHash") String contentHash);
+}
@@ -2,6 +2,7 @@ package ITMO.ConstructionDocs.model.db.repository;
 
 import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
 import ITMO.ConstructionDocs.model.db.entity.Comment;
+import ITMO.ConstructionDocs.model.db.projection.CommentView;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,25 +11,42 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    @Query("select c from Comment c where c.status <>:status")
-    Page<Comment> findAllNotDeleted(Pageable pageRequest, @Param("status") CommonStatus commentStatus);
+    String VIEW = "c.id as id, c.title as title, c.text as text";
 
-    @Query("select c from Comment c where c.status <>:status and lower(c.title) like %:filter% or lower(c.text) like %:filter%")
-    Page<Comment> findAllNotDeletedAndFiltered(Pageable pageRequest, @Param("status") CommonStatus commentStatus, String filter);
+    @Query("select " + VIEW + " from Comment c where c.status <>:status")
+    Page<CommentView> findAllNotDeleted(Pageable pageRequest, @Param("status") CommonStatus commentStatus);
 
-    @Query("select c from Comment c where c.projectDoc.id =:id")
-    Page<Comment> findAllByProjectDocId(@Param("id") UUID projectDocId, Pageable pageRequest);
+    @Query("select " + VIEW + " from Comment c where c.status <>:status and (lower(c.title) like %:filter% or lower(c.text) like %:filter%)")
+    Page<CommentView> findAllNotDeletedAndFiltered(Pageable pageRequest, @Param("status") CommonStatus commentStatus, String filter);
 
-    @Query("select c from Comment c where c.asbuiltDoc.id =:id")
-    Page<Comment> findAllByAsbuiltDocId(@Param("id") UUID projectDocId, Pageable pageRequest);
+    @Query("select " + VIEW + " from Comment c where c.projectDoc.id =:id")
+    Page<CommentView> findAllByProjectDocId(@Param("id") UUID projectDocId, Pageable pageRequest);
 
-    @Query("select c from Comment c where (c.createdAt >= :lastWeek or c.updatedAt >= :lastWeek)")
-    Page<Comment> findAllForLastWeek(@Param("lastWeek") LocalDateTime lastWeek, Pageable pageRequest);
+    @Query("select " + VIEW + " from Comment c where c.asbuiltDoc.id =:id")
+    Page<CommentView> findAllByAsbuiltDocId(@Param("id") UUID projectDocId, Pageable pageRequest);
 
-    @Query("select c from Comment c where (c.createdAt >= :lastWeek or c.updatedAt >= :lastWeek) and " +
-            "(c.createdBy.id =:userId or c.updatedBy.id =:userId)")
-    Page<Comment> findAllForLastWeekByUser(@Param("userId") Long userId, @Param("lastWeek") LocalDateTime lastWeek, Pageable pageRequest);
+    @Query("select " + VIEW + " from Comment c where c.id in (select e.commentId from ActivityEvent e where " +
+            "e.subject = ITMO.ConstructionDocs.model.enums.ActivitySubject.COMMENT and " +
+            "e.occurredAt >= :windowStart and e.occurredAt < :windowEnd)")
+    Page<CommentView> findAllChanged(@Param("windowStart") LocalDateTime windowStart,
+                                     @Param("windowEnd") LocalDateTime windowEnd, Pageable pageRequest);
+
+    @Query("select " + VIEW + " from Comment c where c.id in (select e.commentId from ActivityEvent e where " +
+            "e.actorId =:userId and e.subject = ITMO.ConstructionDocs.model.enums.ActivitySubject.COMMENT and " +
+            "e.occurredAt >= :windowStart and e.occurredAt < :windowEnd)")
+    Page<CommentView> findAllChangedByUser(@Param("userId") Long userId, @Param("windowStart") LocalDateTime windowStart,
+                                           @Param("windowEnd") LocalDateTime windowEnd, Pageable pageRequest);
+
+    @Query("select c from Comment c where c.id >:afterId order by c.id")
+    List<Comment> findAllAfterId(@Param("afterId") Long afterId, Pageable pageRequest);
+
+    List<CommentView> findViewsByIdIn(Collection<Long> ids);
+
+    @Query("select c.id from Comment c where c.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -1,25 +1,46 @@
 package ITMO.ConstructionDocs.model.db.repository;
 
 import ITMO.ConstructionDocs.model.db.entity.Company;
+import ITMO.ConstructionDocs.model.db.projection.CompanyView;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 public interface CompanyRepository extends JpaRepository<Company, Long> {
+    String VIEW = "c.id as id, c.name as name, c.address as address, c.description as description, " +
+            "c.registrationNumber as registrationNumber, c.taxpayerIdentificationNumber as taxpayerIdentificationNumber";
 
-    @Query("select c from Company c where c.status <>:status")
-    Page<Company> findAllNotDeleted(Pageable pageRequest, @Param("status") CommonStatus companyStatus);
+    @Query("select " + VIEW + " from Company c where c.status <>:status")
+    Page<CompanyView> findAllNotDeleted(Pageable pageRequest, @Param("status") CommonStatus companyStatus);
 
-    @Query("select c from Company c where c.status <>:status and (lower(c.name) like %:filter% or lower(c.address) like %:filter%)")
-    Page<Company> findAllNotDeletedAndFiltered(Pageable pageRequest, @Param("status") CommonStatus companyStatus, String filter);
+    @Query("select " + VIEW + " from Company c where c.status <>:status and (lower(c.name) like %:filter% or lower(c.address) like %:filter%)")
+    Page<CompanyView> findAllNotDeletedAndFiltered(Pageable pageRequest, @Param("status") CommonStatus companyStatus, String filter);
 
     Optional<Company> findByNameIgnoreCase(String name);
 
-    @Query("select c from Company c join c.projects p where p.id =:id")
-    Page<Company> findAllByProjectId(@Param("id") Long projectId, Pageable pageRequest);
+    @Query("select lower(c.name) from Company c where lower(c.name) in :names")
+    List<String> findExistingNames(@Param("names") Collection<String> lowerCaseNames);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select " + VIEW + " from Company c join c.projects p where p.id =:id")
+    Page<CompanyView> findAllByProjectId(@Param("id") Long projectId, Pageable pageRequest);
+
+    @Query("select c from Company c where c.id >:afterId order by c.id")
+    List<Company> findAllAfterId(@Param("afterId") Long afterId, Pageable pageRequest);
+
+    List<CompanyView> findViewsByIdIn(Collection<Long> ids);
+
+    @Query("select c.id from Company c where c.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,23 @@
+package ITMO.ConstructionDocs.model.db.repository;
+
+import ITMO.ConstructionDocs.model.db.entity.Doc;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.Param;
+
+import java.util.UUID;
+
+@NoRepositoryBean
+public interface DocRepository<T extends Doc> extends JpaRepository<T, UUID> {
+    @Modifying
+    @Query("update #{#entityName} d set d.contentHash =:hash, d.fileSize =:size, d.fileAddress =:address " +
+            "where d.id =:id and d.contentHash is null")
+    int importContent(@Param("id") UUID id, @Param("hash") String contentHash, @Param("size") Long fileSize,
+                      @Param("address") String fileAddress);
+
+    @Modifying
+    @Query("update #{#entityName} d set d.fileAddress =:address where d.id =:id and d.contentHash =:hash")
+    int updateFileAddress(@Param("id") UUID id, @Param("hash") String contentHash, @Param("address") String fileAddress);
+}
@@ -0,0 +1,32 @@
+package ITMO.ConstructionDocs.model.db.repository;
+
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+    @Modifying
+    @Query(value = "insert into file_blobs (content_hash, file_size, ref_count, created_at, updated_at) " +
+            "values (:hash, :size, 1, now(), now()) " +
+            "on conflict (content_hash) do update set ref_count = file_blobs.ref_count + 1, updated_at = now()",
+            nativeQuery = true)
+    void acquire(@Param("hash") String contentHash, @Param("size") Long fileSize);
+
+    @Modifying
+    @Query("update FileBlob b set b.refCount = b.refCount - 1 where b.contentHash =:hash")
+    void release(@Param("hash") String contentHash);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from FileBlob b where b.contentHash =:hash")
+    Optional<FileBlob> findByIdForUpdate(@Param("hash") String contentHash);
+
+    @Query("select b.contentHash from FileBlob b where b.refCount <= 0")
+    List<String> findAllUnreferenced();
+}
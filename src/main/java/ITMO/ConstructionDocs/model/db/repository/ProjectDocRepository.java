@@ -1,29 +1,61 @@
 package ITMO.ConstructionDocs.model.db.repository;
 
 import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.projection.ProjectDocView;
 import ITMO.ConstructionDocs.model.enums.DocStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
-public interface ProjectDocRepository extends JpaRepository<ProjectDoc, UUID> {
-    @Query("select p from ProjectDoc p where p.docStatus <>:status")
-    Page<ProjectDoc> findAllNotDeleted(Pageable pageRequest, @Param("status") DocStatus status);
+public interface ProjectDocRepository extends DocRepository<ProjectDoc> {
+    String VIEW = "p.id as id, p.fileName as fileName, p.description as description, p.docStatus as docStatus, " +
+            "p.designCategory as designCategory, p.fileFormat as fileFormat, p.fileSize as fileSize, " +
+            "p.fileAddress as fileAddress";
 
-    @Query("select p from ProjectDoc p where p.docStatus <>:status and lower(p.fileName) like %:filter% or " +
+    @Query("select " + VIEW + " from ProjectDoc p where p.docStatus <>:status")
+    Page<ProjectDocView> findAllNotDeleted(Pageable pageRequest, @Param("status") DocStatus status);
+
+    @Query("select " + VIEW + " from ProjectDoc p where p.docStatus <>:status and (lower(p.fileName) like %:filter% or " +
             "lower(p.project.name) like %:filter% or " +
-            "lower(cast(p.designCategory as string)) like %:filter%")
-    Page<ProjectDoc> findAllNotDeletedAndFiltered(Pageable pageRequest, @Param("status") DocStatus status, String filter);
+            "lower(cast(p.designCategory as string)) like %:filter%)")
+    Page<ProjectDocView> findAllNotDeletedAndFiltered(Pageable pageRequest, @Param("status") DocStatus status, String filter);
+
+    @Query("select " + VIEW + " from ProjectDoc p where p.project.id =:id")
+    Page<ProjectDocView> findAllByProjectId(@Param("id") Long projectId, Pageable pageRequest);
+
+    @Query("select " + VIEW + " from ProjectDoc p where p.id in (select e.projectDocId from ActivityEvent e where " +
+            "e.projectId =:id and e.subject = ITMO.ConstructionDocs.model.enums.ActivitySubject.PROJECT_DOC and " +
+            "e.occurredAt >= :windowStart and e.occurredAt < :windowEnd)")
+    Page<ProjectDocView> findAllChangedByProjectId(@Param("id") Long projectId,
+                                                   @Param("windowStart") LocalDateTime windowStart,
+                                                   @Param("windowEnd") LocalDateTime windowEnd, Pageable pageRequest);
+
+    @Query("select count(p) from ProjectDoc p where p.project.id =:id and p.contentHash is null and " +
+            "(p.docStatus is null or p.docStatus <>:status)")
+    long countLegacyByProjectId(@Param("id") Long projectId, @Param("status") DocStatus status);
+
+    @Query("select p from ProjectDoc p where p.id >:afterId order by p.id")
+    Page<ProjectDoc> findAllAfterId(@Param("afterId") UUID afterId, Pageable pageRequest);
+
+    @Query("select p from ProjectDoc p where p.project.id =:id and p.id >:afterId order by p.id")
+    Page<ProjectDoc> findAllByProjectIdAfterId(@Param("id") Long projectId, @Param("afterId") UUID afterId, Pageable pageRequest);
+
+    @Query("select p from ProjectDoc p where p.id =:id and p.id >:afterId order by p.id")
+    Page<ProjectDoc> findByIdAfterId(@Param("id") UUID projectDocId, @Param("afterId") UUID afterId, Pageable pageRequest);
+
+    List<ProjectDocView> findViewsByIdIn(Collection<UUID> ids);
 
-    @Query("select p from ProjectDoc p where p.project.id =:id")
-    Page<ProjectDoc> findAllByProjectId(@Param("id") Long projectId, Pageable pageRequest);
+    @Query("select p.id from ProjectDoc p where p.id in :ids")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
 
-    @Query("select p from ProjectDoc p where (p.createdAt >= :lastWeek or p.updatedAt >= :lastWeek) and " +
-            "p.project.id =:id")
-    Page<ProjectDoc> findAllForLastWeekByProjectId(@Param("lastWeek") LocalDateTime lastWeek, @Param("id") Long projectId, Pageable pageRequest);
+    @Query("select p.id from ProjectDoc p where p.id in :ids and ((p.contentHash is null and " +
+            "(p.docStatus is null or p.docStatus <>:status)) or exists (select a.id from AsbuiltDoc a where " +
+            "a.projectDoc = p and a.contentHash is null and (a.docStatus is null or a.docStatus <>:status)))")
+    List<UUID> findIdsWithLegacyFiles(@Param("ids") Collection<UUID> ids, @Param("status") DocStatus status);
 }
@@ -1,6 +1,7 @@
 package ITMO.ConstructionDocs.model.db.repository;
 
 import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.projection.ProjectView;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -8,17 +9,33 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProjectRepository extends JpaRepository<Project, Long> {
-    @Query("select p from Project p where p.status <>:status")
-    Page<Project> findAllNotDeleted(Pageable pageRequest, @Param("status") CommonStatus projectStatus);
+    String VIEW = "p.id as id, p.name as name, p.address as address, p.description as description, " +
+            "p.filesRootDirectory as filesRootDirectory";
 
-    @Query("select p from Project p where p.status <>:status and (lower(p.name) like %:filter% or lower(p.address) like %:filter% or lower(p.filesRootDirectory) like %:filter%)")
-    Page<Project> findAllNotDeletedAndFiltered(Pageable pageRequest, @Param("status") CommonStatus projectStatus, String filter);
+    @Query("select " + VIEW + " from Project p where p.status <>:status")
+    Page<ProjectView> findAllNotDeleted(Pageable pageRequest, @Param("status") CommonStatus projectStatus);
+
+    @Query("select " + VIEW + " from Project p where p.status <>:status and (lower(p.name) like %:filter% or lower(p.address) like %:filter% or lower(p.filesRootDirectory) like %:filter%)")
+    Page<ProjectView> findAllNotDeletedAndFiltered(Pageable pageRequest, @Param("status") CommonStatus projectStatus, String filter);
 
     Optional<Project> findByNameIgnoreCase(String name);
 
+    @Query("select lower(p.name) from Project p where lower(p.name) in :names")
+    List<String> findExistingNames(@Param("names") Collection<String> lowerCaseNames);
+
     /*@Query("select p from Project p join p.companies c where c.id =:id")
     Page<Project> findAllByCompanyId(@Param("id") Long companyId, Pageable pageRequest);*/
+
+    @Query("select p from Project p where p.id >:afterId order by p.id")
+    List<Project> findAllAfterId(@Param("afterId") Long afterId, Pageable pageRequest);
+
+    List<ProjectView> findViewsByIdIn(Collection<Long> ids);
+
+    @Query("select p.id from Project p where p.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
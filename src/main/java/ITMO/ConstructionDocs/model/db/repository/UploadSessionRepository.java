@@ -0,0 +1,23 @@
+package ITMO.ConstructionDocs.model.db.repository;
+
+import ITMO.ConstructionDocs.model.db.entity.UploadSession;
+import ITMO.ConstructionDocs.model.enums.UploadStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+    @Modifying
+    @Query("update UploadSession s set s.status =:status, s.updatedAt =:updatedAt where s.id =:id and s.status =:expected")
+    int updateStatus(@Param("id") UUID id, @Param("expected") UploadStatus expected, @Param("status") UploadStatus status,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("select s from UploadSession s where s.status in :statuses and s.createdAt < :createdBefore")
+    List<UploadSession> findAllByStatusInCreatedBefore(@Param("statuses") Collection<UploadStatus> statuses, @Param("createdBefore") LocalDateTime createdBefore);
+}
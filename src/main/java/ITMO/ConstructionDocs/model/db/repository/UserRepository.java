@@ -1,24 +1,50 @@
 package ITMO.ConstructionDocs.model.db.repository;
 
 import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.projection.UserView;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 public interface UserRepository extends JpaRepository<User, Long> {
-    @Query("select u from User u where u.status <>:status")
-    Page<User> findAllNotDeleted(Pageable pageRequest, @Param("status") CommonStatus userStatus);
+    String VIEW = "u.id as id, u.email as email, u.firstName as firstName, u.lastName as lastName, " +
+            "u.position as position, u.phoneNumber as phoneNumber, u.role as role";
+
+    @Query("select " + VIEW + " from User u where u.status <>:status")
+    Page<UserView> findAllNotDeleted(Pageable pageRequest, @Param("status") CommonStatus userStatus);
 
-    @Query("select u from User u where u.status <>:status and (lower(u.firstName) like %:filter% or lower(u.lastName) like %:filter% or lower(u.position) like %:filter% or lower(u.company) like %:filter%)")
-    Page<User> findAllNotDeletedAndFiltered(Pageable pageRequest, @Param("status") CommonStatus userStatus, String filter);
+    @Query("select " + VIEW + " from User u left join u.company c where u.status <>:status and (lower(u.firstName) like %:filter% or lower(u.lastName) like %:filter% or lower(u.position) like %:filter% or lower(c.name) like %:filter%)")
+    Page<UserView> findAllNotDeletedAndFiltered(Pageable pageRequest, @Param("status") CommonStatus userStatus, String filter);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmailIgnoreCase(String email);
 
-    @Query("select u from User u where u.company.id =:id")
-    Page<User> findAllByCompany(Pageable pageRequest, @Param("id") Long id);
+    @Query("select lower(u.email) from User u where lower(u.email) in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> lowerCaseEmails);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select " + VIEW + " from User u where u.company.id =:id")
+    Page<UserView> findAllByCompany(Pageable pageRequest, @Param("id") Long id);
+
+    @Query("select u from User u where u.id >:afterId order by u.id")
+    List<User> findAllAfterId(@Param("afterId") Long afterId, Pageable pageRequest);
+
+    List<UserView> findViewsByIdIn(Collection<Long> ids);
+
+    @Query("select u.id from User u where u.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select distinct u.company.id from User u where u.id in :ids")
+    List<Long> findCompanyIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,20 @@
+package ITMO.ConstructionDocs.model.dto.request;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+
+import javax.validation.constraints.NotNull;
+
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BatchUpdateReq<T> {
+    @NotNull
+    Long id;
+    @NotNull
+    T item;
+}
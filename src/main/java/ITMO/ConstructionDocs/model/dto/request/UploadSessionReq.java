@@ -0,0 +1,21 @@
+package ITMO.ConstructionDocs.model.dto.request;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UploadSessionReq {
+    @NotNull
+    @Positive
+    Integer totalChunks;
+    String fileFormat;
+}
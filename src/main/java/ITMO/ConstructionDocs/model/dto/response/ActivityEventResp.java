@@ -0,0 +1,31 @@
+package ITMO.ConstructionDocs.model.dto.response;
+
+import ITMO.ConstructionDocs.model.enums.ActivityAction;
+import ITMO.ConstructionDocs.model.enums.ActivitySubject;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ActivityEventResp {
+    Long id;
+    LocalDateTime occurredAt;
+    ActivitySubject subject;
+    ActivityAction action;
+    String subjectId;
+    Long projectId;
+    UUID projectDocId;
+    UUID asbuiltDocId;
+    Long commentId;
+    Long actorId;
+}
@@ -0,0 +1,34 @@
+package ITMO.ConstructionDocs.model.dto.response;
+
+import ITMO.ConstructionDocs.model.enums.JobStatus;
+import ITMO.ConstructionDocs.model.enums.JobType;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BackgroundJobResp {
+    UUID id;
+    JobType type;
+    JobStatus status;
+    Long projectId;
+    UUID projectDocId;
+    Long totalItems;
+    Long processedItems;
+    Long failedItems;
+    Integer progressPercent;
+    String message;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+    LocalDateTime finishedAt;
+}
@@ -0,0 +1,22 @@
+package ITMO.ConstructionDocs.model.dto.response;
+
+import ITMO.ConstructionDocs.model.enums.BulkEntryStatus;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchItemResp<T> {
+    Integer index;
+    Long id;
+    BulkEntryStatus status;
+    String message;
+    T item;
+}
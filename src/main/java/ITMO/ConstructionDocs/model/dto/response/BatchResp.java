@@ -0,0 +1,23 @@
+package ITMO.ConstructionDocs.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchResp<T> {
+    Integer totalItems;
+    Integer succeededItems;
+    Integer failedItems;
+    String message;
+    List<BatchItemResp<T>> items;
+}
@@ -0,0 +1,25 @@
+package ITMO.ConstructionDocs.model.dto.response;
+
+import ITMO.ConstructionDocs.model.enums.BulkEntryStatus;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkUploadEntryResp {
+    String entryName;
+    String fileName;
+    UUID docId;
+    Long fileSize;
+    BulkEntryStatus status;
+    String message;
+}
@@ -0,0 +1,23 @@
+package ITMO.ConstructionDocs.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkUploadResp {
+    Integer totalEntries;
+    Integer createdEntries;
+    Integer failedEntries;
+    String message;
+    List<BulkUploadEntryResp> entries;
+}
@@ -0,0 +1,22 @@
+package ITMO.ConstructionDocs.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CacheRegionResp {
+    String region;
+    Long size;
+    Long hitCount;
+    Long missCount;
+    Double hitRate;
+    Long evictionCount;
+}
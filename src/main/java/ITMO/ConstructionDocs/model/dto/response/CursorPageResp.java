@@ -0,0 +1,31 @@
+package ITMO.ConstructionDocs.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CursorPageResp<T> {
+    List<T> content;
+    String nextCursor;
+    boolean hasNext;
+
+    public <R> CursorPageResp<R> map(Function<? super T, ? extends R> converter) {
+        List<R> converted = content.stream()
+                .map(converter)
+                .collect(Collectors.toList());
+
+        return new CursorPageResp<>(converted, nextCursor, hasNext);
+    }
+}
@@ -0,0 +1,28 @@
+package ITMO.ConstructionDocs.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SqlRequestResp {
+    String method;
+    String uri;
+    Integer status;
+    LocalDateTime finishedAt;
+    Long durationMillis;
+    Integer statements;
+    Long rows;
+    Double jdbcMillis;
+    List<String> sql;
+}
@@ -0,0 +1,25 @@
+package ITMO.ConstructionDocs.model.dto.response;
+
+import ITMO.ConstructionDocs.model.dto.request.UploadSessionReq;
+import ITMO.ConstructionDocs.model.enums.UploadStatus;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UploadSessionResp extends UploadSessionReq {
+    UUID id;
+    UploadStatus status;
+    List<Integer> receivedChunks;
+    Long receivedBytes;
+}
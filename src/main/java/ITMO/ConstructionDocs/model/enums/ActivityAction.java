@@ -0,0 +1,7 @@
+package ITMO.ConstructionDocs.model.enums;
+
+public enum ActivityAction {
+    CREATED,
+    UPDATED,
+    DELETED;
+}
@@ -0,0 +1,10 @@
+package ITMO.ConstructionDocs.model.enums;
+
+public enum ActivitySubject {
+    PROJECT,
+    PROJECT_DOC,
+    ASBUILT_DOC,
+    COMMENT,
+    COMPANY,
+    USER;
+}
@@ -0,0 +1,9 @@
+package ITMO.ConstructionDocs.model.enums;
+
+public enum BulkEntryStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    LINKED,
+    FAILED;
+}
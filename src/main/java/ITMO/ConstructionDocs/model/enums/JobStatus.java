@@ -0,0 +1,8 @@
+package ITMO.ConstructionDocs.model.enums;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED;
+}
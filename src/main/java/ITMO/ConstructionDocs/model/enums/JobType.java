@@ -0,0 +1,6 @@
+package ITMO.ConstructionDocs.model.enums;
+
+public enum JobType {
+    LEGACY_IMPORT,
+    SEARCH_REINDEX;
+}
@@ -0,0 +1,7 @@
+package ITMO.ConstructionDocs.model.enums;
+
+public enum UploadStatus {
+    OPEN,
+    COMMITTING,
+    COMMITTED;
+}
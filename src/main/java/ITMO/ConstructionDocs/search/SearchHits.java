@@ -0,0 +1,33 @@
+package ITMO.ConstructionDocs.search;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of search results: entity ids in relevance order and the number of all matching entities.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SearchHits {
+    private final List<String> ids;
+    private final long totalHits;
+
+    public <ID> List<ID> getIds(Function<String, ID> parser) {
+        return ids.stream().map(parser).collect(Collectors.toList());
+    }
+
+    /**
+     * Puts entities loaded by id back into relevance order, ids no longer found are skipped.
+     */
+    public <T> List<T> inHitOrder(List<T> entities, Function<T, ?> idOf) {
+        Map<String, T> byId = entities.stream()
+                .collect(Collectors.toMap(entity -> String.valueOf(idOf.apply(entity)), Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,298 @@
+package ITMO.ConstructionDocs.search;
+
+import ITMO.ConstructionDocs.model.enums.SearchType;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Inverted index of everything the {@code /all?filter=} endpoints search in, one Lucene document per entity.
+ * A document holds the entity id, the searchable values analyzed into one {@code text} field, for docs the
+ * text of their file in {@code content} and, for entities that are also found through their parent (a project
+ * doc by its project name), the parent id.
+ * <p>
+ * Writes become visible to searches within a second and are committed to disk every minute. The last commit
+ * records whether the index was complete, an index that was never fully built is not used for searches.
+ */
+@Slf4j
+public class SearchIndex implements Closeable {
+    private static final String UID = "uid";
+    private static final String TYPE = "type";
+    private static final String ID = "id";
+    private static final String PARENT_ID = "parentId";
+    private static final String TEXT = "text";
+    private static final String CONTENT = "content";
+    private static final String COMPLETE = "complete";
+
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MIN_CONTENT_PREFIX_LENGTH = 3;
+    private static final int MAX_PARENT_IDS = 10000;
+
+    private final Directory directory;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final IndexWriter indexWriter;
+    private final SearcherManager searcherManager;
+    private volatile boolean complete;
+    private boolean committedComplete;
+
+    public SearchIndex(Directory directory) throws IOException {
+        this.directory = directory;
+        this.complete = DirectoryReader.indexExists(directory)
+                && Boolean.parseBoolean(SegmentInfos.readLatestCommit(directory).getUserData().get(COMPLETE));
+        this.committedComplete = complete;
+        this.indexWriter = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(indexWriter, null);
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void update(SearchType type, String id, String parentId, Collection<?> values) {
+        update(type, id, parentId, values, null);
+    }
+
+    /**
+     * Adds the entity or replaces its previous version. {@code parentId} may be null, so may {@code content},
+     * the text of the doc's file, which is searched like the values but ranks lower.
+     */
+    public void update(SearchType type, String id, String parentId, Collection<?> values, String content) {
+        Document document = new Document();
+        document.add(new StringField(UID, uid(type, id), Field.Store.NO));
+        document.add(new StringField(TYPE, type.name(), Field.Store.NO));
+        document.add(new StringField(ID, id, Field.Store.YES));
+        if (parentId != null) {
+            document.add(new StringField(PARENT_ID, parentId, Field.Store.NO));
+        }
+        document.add(new TextField(TEXT, values.stream()
+                .filter(Objects::nonNull)
+                .map(String::valueOf)
+                .collect(Collectors.joining(" ")), Field.Store.NO));
+        if (content != null) {
+            document.add(new TextField(CONTENT, content, Field.Store.NO));
+        }
+
+        try {
+            indexWriter.updateDocument(new Term(UID, uid(type, id)), document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void delete(SearchType type, String id) {
+        try {
+            indexWriter.deleteDocuments(new Term(UID, uid(type, id)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Drops all documents and marks the index incomplete until {@link #markComplete()}.
+     */
+    public void clear() {
+        complete = false;
+        try {
+            indexWriter.deleteAll();
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void markComplete() {
+        complete = true;
+        commit();
+    }
+
+    /**
+     * Finds entities of {@code type} whose own values match every word of {@code filter}, or whose parent of
+     * {@code parentType} does. A word matches exactly, as prefix or, from four letters on, with one typo;
+     * in the file content it has to match exactly or as prefix of three letters or more. Hits are ordered by
+     * relevance, exact matches first and matches of the values before matches of the content.
+     */
+    public SearchHits search(SearchType type, SearchType parentType, String filter, int offset, int limit) {
+        Query query = matching(filter);
+        if (parentType != null) {
+            Set<String> parentIds = searchIds(parentType, query, MAX_PARENT_IDS);
+            if (!parentIds.isEmpty()) {
+                query = new BooleanQuery.Builder()
+                        .add(query, BooleanClause.Occur.SHOULD)
+                        .add(new TermInSetQuery(PARENT_ID, parentIds.stream().map(BytesRef::new).collect(Collectors.toList())),
+                                BooleanClause.Occur.SHOULD)
+                        .build();
+            }
+        }
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopScoreDocCollector collector = TopScoreDocCollector.create(offset + limit, Integer.MAX_VALUE);
+                searcher.search(ofType(type, query), collector);
+
+                List<String> ids = new ArrayList<>(limit);
+                for (ScoreDoc hit : collector.topDocs(offset, limit).scoreDocs) {
+                    ids.add(searcher.doc(hit.doc, Set.of(ID)).get(ID));
+                }
+                return new SearchHits(ids, collector.getTotalHits());
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Set<String> searchIds(SearchType type, Query query, int limit) {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                Set<String> ids = new LinkedHashSet<>();
+                for (ScoreDoc hit : searcher.search(ofType(type, query), limit).scoreDocs) {
+                    ids.add(searcher.doc(hit.doc, Set.of(ID)).get(ID));
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Query ofType(SearchType type, Query query) {
+        return new BooleanQuery.Builder()
+                .add(query, BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(TYPE, type.name())), BooleanClause.Occur.FILTER)
+                .build();
+    }
+
+    private Query matching(String filter) {
+        List<String> words = analyze(filter);
+        if (words.isEmpty()) {
+            return new MatchAllDocsQuery();
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String word : words) {
+            Term term = new Term(TEXT, word);
+            BooleanQuery.Builder wordQuery = new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(term), 4), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new PrefixQuery(term), 2), BooleanClause.Occur.SHOULD);
+            if (word.length() >= MIN_FUZZY_LENGTH) {
+                wordQuery.add(new FuzzyQuery(term, 1), BooleanClause.Occur.SHOULD);
+            }
+            Term contentTerm = new Term(CONTENT, word);
+            wordQuery.add(new TermQuery(contentTerm), BooleanClause.Occur.SHOULD);
+            if (word.length() >= MIN_CONTENT_PREFIX_LENGTH) {
+                wordQuery.add(new BoostQuery(new PrefixQuery(contentTerm), 0.5f), BooleanClause.Occur.SHOULD);
+            }
+            query.add(wordQuery.build(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> words = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(TEXT, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                words.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return words;
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            log.warn("Search index refresh failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60 * 1000)
+    public void commitChanges() {
+        try {
+            commit();
+        } catch (UncheckedIOException e) {
+            log.warn("Search index commit failed", e);
+        }
+    }
+
+    /**
+     * Writes pending changes to disk, an index unchanged since the last commit is left alone.
+     */
+    public synchronized void commit() {
+        boolean completeNow = complete;
+        if (!indexWriter.hasUncommittedChanges() && committedComplete == completeNow) {
+            return;
+        }
+
+        try {
+            indexWriter.setLiveCommitData(Map.of(COMPLETE, String.valueOf(completeNow)).entrySet());
+            indexWriter.commit();
+            committedComplete = completeNow;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String uid(SearchType type, String id) {
+        return type.name() + ":" + id;
+    }
+
+    @Override
+    public void close() throws IOException {
+        commit();
+        searcherManager.close();
+        indexWriter.close();
+        analyzer.close();
+        directory.close();
+    }
+}
@@ -0,0 +1,60 @@
+package ITMO.ConstructionDocs.search;
+
+import ITMO.ConstructionDocs.service.SearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA listener of the searchable entities. Changes reach the index only once their transaction has committed,
+ * so a rolled back write never shows up in search results. A failed index update is logged and does not fail
+ * the write; the next rebuild picks the entity up.
+ */
+@Slf4j
+@Component
+public class SearchIndexListener {
+
+    @Autowired
+    @Lazy
+    private SearchService searchService;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        afterCommit(() -> searchService.index(entity));
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        afterCommit(() -> searchService.remove(entity));
+    }
+
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            run(update);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                run(update);
+            }
+        });
+    }
+
+    private void run(Runnable update) {
+        try {
+            update.run();
+        } catch (RuntimeException e) {
+            log.warn("Search index update failed", e);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package ITMO.ConstructionDocs.security;
 
+import ITMO.ConstructionDocs.model.db.entity.User;
 import ITMO.ConstructionDocs.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -12,15 +16,25 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Authenticates requests by their bearer token. The time spent on the token and the principal, without the rest
+ * of the chain, is recorded as {@code app.security.jwt} tagged with the outcome.
+ */
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final CustomUserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final Timer authenticatedTimer;
+    private final Timer rejectedTimer;
 
-    public JwtRequestFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtRequestFilter(JwtUtil jwtUtil, PrincipalCache principalCache, MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.authenticatedTimer = Timer.builder("app.security.jwt").tag("outcome", "authenticated").register(meterRegistry);
+        this.rejectedTimer = Timer.builder("app.security.jwt").tag("outcome", "rejected").register(meterRegistry);
     }
 
     @Override
@@ -32,35 +46,49 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         if (request.getRequestURI().startsWith("/v3/api-docs") ||
                 request.getRequestURI().startsWith("/swagger-ui") ||
                 request.getRequestURI().startsWith("/webjars") ||
-                request.getRequestURI().startsWith("/auth/login")) {
+                request.getRequestURI().startsWith("/auth/login") ||
+                request.getRequestURI().equals("/actuator/health")) {
             chain.doFilter(request, response);
             return;
         }
 
-        String email = null;
-        String jwt = null;
-
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            email = jwtUtil.extractEmail(jwt);
+        long start = System.nanoTime();
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            reject(response, "Authorization header is missing or invalid", start);
+            return;
         }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() != null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            Claims claims;
+            try {
+                claims = jwtUtil.parseToken(authorizationHeader.substring(7));
+            } catch (JwtException | IllegalArgumentException e) {
+                reject(response, "Invalid JWT token", start);
+                return;
+            }
+
+            Number userId = claims.get(JwtUtil.USER_ID_CLAIM, Number.class);
+            Optional<User> principal = userId == null ? Optional.empty() : principalCache.getPrincipal(userId.longValue());
 
-            if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
-                UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
-            } else {
-                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid JWT token");
+            // a token issued before a role change is refused, the user has to log in again
+            if (principal.isEmpty() || !principal.get().getRole().name().equals(claims.get(JwtUtil.ROLE_CLAIM, String.class))) {
+                reject(response, "Invalid JWT token", start);
                 return;
             }
-        } else {
-            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Authorization header is missing or invalid");
-            return;
+
+            User user = principal.get();
+            UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
+                    new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+            usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
         }
+        authenticatedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private void reject(HttpServletResponse response, String message, long start) throws IOException {
+        rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        response.sendError(HttpServletResponse.SC_UNAUTHORIZED, message);
+    }
+}
@@ -0,0 +1,59 @@
+package ITMO.ConstructionDocs.security;
+
+import ITMO.ConstructionDocs.cache.CacheInvalidation;
+import ITMO.ConstructionDocs.cache.CacheInvalidationBus;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.repository.UserRepository;
+import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Users authenticated by JWT, keyed by id, so a request with a known token needs no database round-trip.
+ * Entries expire after {@code app.security.principal-cache.ttl} and are evicted by {@code UserService}
+ * when a user is updated or deleted, and on the invalidations of the other nodes.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, User> principals;
+
+    public PrincipalCache(UserRepository userRepository,
+                          CacheInvalidationBus cacheInvalidationBus,
+                          @Value("${app.security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${app.security.principal-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        cacheInvalidationBus.subscribe(this::evict);
+    }
+
+    /**
+     * Returns the active user with this id, loading it on a cache miss. Deleted users are not cached.
+     */
+    public Optional<User> getPrincipal(Long userId) {
+        return Optional.ofNullable(principals.get(userId, id -> userRepository.findById(id)
+                .filter(user -> user.getStatus() != CommonStatus.DELETED && user.getRole() != null)
+                .orElse(null)));
+    }
+
+    public void evict(Long userId) {
+        principals.invalidate(userId);
+    }
+
+    private void evict(CacheInvalidation invalidation) {
+        if (invalidation.getKind() == CacheInvalidation.Kind.ALL) {
+            principals.invalidateAll();
+        } else if (invalidation.getKind() == CacheInvalidation.Kind.ENTITY && User.class.getName().equals(invalidation.getName())) {
+            principals.invalidate(Long.valueOf(invalidation.getId()));
+        }
+    }
+}
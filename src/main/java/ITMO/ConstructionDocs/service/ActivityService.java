@@ -0,0 +1,270 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.mapper.ActivityEventMapper;
+import ITMO.ConstructionDocs.model.db.entity.ActivityEvent;
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.Comment;
+import ITMO.ConstructionDocs.model.db.entity.Company;
+import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.repository.ActivityEventRepository;
+import ITMO.ConstructionDocs.model.dto.response.ActivityEventResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
+import ITMO.ConstructionDocs.model.enums.ActivityAction;
+import ITMO.ConstructionDocs.model.enums.ActivitySubject;
+import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.model.enums.DocStatus;
+import ITMO.ConstructionDocs.utils.ActivityWindowUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Change feed of projects, docs, comments, companies and users. Every create, update and delete is appended to
+ * {@code activity_events} in the transaction of the change, so the feed holds exactly the committed changes.
+ * Withdrawing a doc or deleting by status is recorded as a delete.
+ * <p>
+ * Each event is also announced on the {@value #CHANNEL} postgres channel. Notifications are delivered to every
+ * node on commit and dropped on rollback, {@code ActivityStream} pushes them to the subscribed clients.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ActivityService {
+    public static final String CHANNEL = "activity_events";
+    private static final String INSERT_EVENT = "insert into activity_events (occurred_at, subject, action, subject_id, " +
+            "project_id, project_doc_id, asbuilt_doc_id, comment_id, actor_id) ";
+    private static final int[] EVENT_TYPES = {Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.BIGINT, Types.OTHER, Types.OTHER, Types.BIGINT, Types.BIGINT};
+
+    /**
+     * Events derived from the timestamps of rows written before the feed existed: their creation and their last
+     * update, the one that touched each row in between are lost.
+     */
+    private static final List<String> BACKFILL = List.of(
+            "select d.%1$s, 'PROJECT_DOC', '%2$s', cast(d.id as varchar), d.project_id, d.id, cast(null as uuid), " +
+                    "cast(null as bigint), d.%3$s from docs d where d.doc_type = 'PROJECT_DOC' and d.%1$s is not null",
+            "select a.%1$s, 'ASBUILT_DOC', '%2$s', cast(a.id as varchar), d.project_id, a.project_doc_id, a.id, " +
+                    "cast(null as bigint), a.%3$s from docs a left join docs d on d.id = a.project_doc_id " +
+                    "where a.doc_type = 'ASBUILT_DOC' and a.%1$s is not null",
+            "select c.%1$s, 'COMMENT', '%2$s', cast(c.id as varchar), d.project_id, d.id, c.asbuilt_doc_id, c.id, c.%3$s " +
+                    "from comments c left join docs a on a.id = c.asbuilt_doc_id " +
+                    "left join docs d on d.id = coalesce(c.project_doc_id, a.project_doc_id) where c.%1$s is not null",
+            "select p.%1$s, 'PROJECT', '%2$s', cast(p.id as varchar), p.id, cast(null as uuid), cast(null as uuid), " +
+                    "cast(null as bigint), cast(null as bigint) from projects p where p.%1$s is not null",
+            "select c.%1$s, 'COMPANY', '%2$s', cast(c.id as varchar), cast(null as bigint), cast(null as uuid), " +
+                    "cast(null as uuid), cast(null as bigint), cast(null as bigint) from companies c where c.%1$s is not null",
+            "select u.%1$s, 'USER', '%2$s', cast(u.id as varchar), cast(null as bigint), cast(null as uuid), " +
+                    "cast(null as uuid), cast(null as bigint), cast(null as bigint) from users u where u.%1$s is not null");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ActivityEventRepository activityEventRepository;
+    private final SeekPaginationService seekPaginationService;
+    private final ActivityEventMapper activityEventMapper;
+
+    /**
+     * Appends the event of the entity's write and announces it, in one statement. Runs inside the flush of the
+     * write, so the event goes through JDBC on the same connection instead of the entity manager being flushed.
+     * Parents that were not loaded are not read here, their ids are joined in by the insert.
+     * Entities of other types are ignored.
+     */
+    public void record(Object entity, ActivityAction action) {
+        ActivityEvent event = toEvent(entity, action);
+        if (event == null) {
+            return;
+        }
+
+        insert(List.of(event));
+    }
+
+    /**
+     * Appends and announces an update event for each row linked to another parent by SQL, which the entity
+     * listeners do not see, in one statement. {@code setIds} sets the subject id and the ids the request carries,
+     * the parents above them are joined in.
+     */
+    public <R> void recordLinked(ActivitySubject subject, List<R> requests, BiConsumer<R, ActivityEvent> setIds) {
+        LocalDateTime now = LocalDateTime.now();
+        Long actorId = getCurrentUserId();
+        List<ActivityEvent> events = new ArrayList<>(requests.size());
+        for (R request : requests) {
+            ActivityEvent event = new ActivityEvent();
+            event.setSubject(subject);
+            event.setAction(ActivityAction.UPDATED);
+            event.setOccurredAt(now);
+            event.setActorId(actorId);
+            setIds.accept(request, event);
+            events.add(event);
+        }
+        if (!events.isEmpty()) {
+            insert(events);
+        }
+    }
+
+    private void insert(List<ActivityEvent> events) {
+        String row = "(cast(? as timestamp), ?, ?, ?, cast(? as bigint), cast(? as uuid), cast(? as uuid), " +
+                "cast(? as bigint), cast(? as bigint))";
+        List<Object> args = new ArrayList<>(events.size() * EVENT_TYPES.length);
+        int[] types = new int[events.size() * EVENT_TYPES.length];
+        for (int i = 0; i < events.size(); i++) {
+            ActivityEvent event = events.get(i);
+            args.addAll(Arrays.asList(Timestamp.valueOf(event.getOccurredAt()), event.getSubject().name(),
+                    event.getAction().name(), event.getSubjectId(), event.getProjectId(), event.getProjectDocId(),
+                    event.getAsbuiltDocId(), event.getCommentId(), event.getActorId()));
+            System.arraycopy(EVENT_TYPES, 0, types, i * EVENT_TYPES.length, EVENT_TYPES.length);
+        }
+
+        jdbcTemplate.query("with v (occurred_at, subject, action, subject_id, project_id, project_doc_id, " +
+                        "asbuilt_doc_id, comment_id, actor_id) as (values " +
+                        String.join(", ", Collections.nCopies(events.size(), row)) + "), " +
+                        "e as (" + INSERT_EVENT + "select v.occurred_at, v.subject, v.action, v.subject_id, " +
+                        "coalesce(v.project_id, d.project_id), coalesce(v.project_doc_id, a.project_doc_id), v.asbuilt_doc_id, " +
+                        "v.comment_id, v.actor_id from v left join docs a on a.id = v.asbuilt_doc_id " +
+                        "left join docs d on d.id = coalesce(v.project_doc_id, a.project_doc_id) returning id) " +
+                        "select e.id, pg_notify('" + CHANNEL + "', cast(e.id as varchar)) from e", args.toArray(), types,
+                (rs, rowNum) -> rs.getLong(1));
+    }
+
+    private ActivityEvent toEvent(Object entity, ActivityAction action) {
+        ActivityEvent event = new ActivityEvent();
+        boolean deleted;
+        if (entity instanceof ProjectDoc) {
+            ProjectDoc projectDoc = (ProjectDoc) entity;
+            deleted = projectDoc.getDocStatus() == DocStatus.WITHDRAWN;
+            event.setSubject(ActivitySubject.PROJECT_DOC);
+            event.setSubjectId(String.valueOf(projectDoc.getId()));
+            setProjectDoc(event, projectDoc);
+        } else if (entity instanceof AsbuiltDoc) {
+            AsbuiltDoc asbuiltDoc = (AsbuiltDoc) entity;
+            deleted = asbuiltDoc.getDocStatus() == DocStatus.WITHDRAWN;
+            event.setSubject(ActivitySubject.ASBUILT_DOC);
+            event.setSubjectId(String.valueOf(asbuiltDoc.getId()));
+            event.setAsbuiltDocId(asbuiltDoc.getId());
+            setProjectDoc(event, asbuiltDoc.getProjectDoc());
+        } else if (entity instanceof Comment) {
+            Comment comment = (Comment) entity;
+            deleted = comment.getStatus() == CommonStatus.DELETED;
+            event.setSubject(ActivitySubject.COMMENT);
+            event.setSubjectId(String.valueOf(comment.getId()));
+            event.setCommentId(comment.getId());
+            ProjectDoc projectDoc = comment.getProjectDoc();
+            if (comment.getAsbuiltDoc() != null) {
+                event.setAsbuiltDocId(comment.getAsbuiltDoc().getId());
+                if (projectDoc == null && Hibernate.isInitialized(comment.getAsbuiltDoc())) {
+                    projectDoc = comment.getAsbuiltDoc().getProjectDoc();
+                }
+            }
+            setProjectDoc(event, projectDoc);
+        } else if (entity instanceof Project) {
+            Project project = (Project) entity;
+            deleted = project.getStatus() == CommonStatus.DELETED;
+            event.setSubject(ActivitySubject.PROJECT);
+            event.setSubjectId(String.valueOf(project.getId()));
+            event.setProjectId(project.getId());
+        } else if (entity instanceof Company) {
+            Company company = (Company) entity;
+            deleted = company.getStatus() == CommonStatus.DELETED;
+            event.setSubject(ActivitySubject.COMPANY);
+            event.setSubjectId(String.valueOf(company.getId()));
+        } else if (entity instanceof User) {
+            User user = (User) entity;
+            deleted = user.getStatus() == CommonStatus.DELETED;
+            event.setSubject(ActivitySubject.USER);
+            event.setSubjectId(String.valueOf(user.getId()));
+        } else {
+            return null;
+        }
+
+        event.setAction(action == ActivityAction.UPDATED && deleted ? ActivityAction.DELETED : action);
+        event.setOccurredAt(LocalDateTime.now());
+        event.setActorId(getCurrentUserId());
+        return event;
+    }
+
+    private void setProjectDoc(ActivityEvent event, ProjectDoc projectDoc) {
+        if (projectDoc == null) {
+            return;
+        }
+        event.setProjectDocId(projectDoc.getId());
+        if (Hibernate.isInitialized(projectDoc) && projectDoc.getProject() != null) {
+            event.setProjectId(projectDoc.getProject().getId());
+        }
+    }
+
+    private Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+            return null;
+        }
+        return ((User) authentication.getPrincipal()).getId();
+    }
+
+    /**
+     * Events of the window, newest first, narrowed to a project, a project doc and the user who made them when
+     * given.
+     */
+    public CursorPageResp<ActivityEventResp> getActivity(Long projectId, UUID projectDocId, Long userId,
+                                                         LocalDateTime from, LocalDateTime to,
+                                                         String cursor, Integer sizePerPage) {
+        LocalDateTime windowEnd = ActivityWindowUtil.getTo(to);
+        LocalDateTime windowStart = ActivityWindowUtil.getFrom(from, windowEnd);
+
+        List<String> conditions = new ArrayList<>(List.of("e.occurredAt >= :windowStart", "e.occurredAt < :windowEnd"));
+        Map<String, Object> params = new HashMap<>(Map.of("windowStart", windowStart, "windowEnd", windowEnd));
+        if (projectId != null) {
+            conditions.add("e.projectId = :projectId");
+            params.put("projectId", projectId);
+        }
+        if (projectDocId != null) {
+            conditions.add("e.projectDocId = :projectDocId");
+            params.put("projectDocId", projectDocId);
+        }
+        if (userId != null) {
+            conditions.add("e.actorId = :userId");
+            params.put("userId", userId);
+        }
+
+        return seekPaginationService.seek(ActivityEvent.class, String.join(" and ", conditions), params,
+                        cursor, sizePerPage, "occurredAt", Sort.Direction.DESC)
+                .map(activityEventMapper::toActivityEventResp);
+    }
+
+    /**
+     * Fills an empty feed from the created and updated timestamps of the existing rows, so the activity endpoints
+     * answer for the time before the feed was introduced.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        if (activityEventRepository.existsByIdNotNull()) {
+            return;
+        }
+
+        int events = 0;
+        for (String select : BACKFILL) {
+            events += jdbcTemplate.update(INSERT_EVENT + String.format(select, "created_at", ActivityAction.CREATED, "created_by_user_id"));
+            events += jdbcTemplate.update(INSERT_EVENT + String.format(select, "updated_at", ActivityAction.UPDATED, "updated_by_user_id"));
+        }
+        log.info("Activity feed filled with {} events of existing rows", events);
+    }
+}
@@ -1,19 +1,32 @@
 package ITMO.ConstructionDocs.service;
 
 import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.mapper.AsbuiltDocMapper;
+import ITMO.ConstructionDocs.metrics.FileTransferMetrics;
 import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
 import ITMO.ConstructionDocs.model.db.entity.Company;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
 import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
 import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.projection.AsbuiltDocView;
 import ITMO.ConstructionDocs.model.db.repository.AsbuiltDocRepository;
 import ITMO.ConstructionDocs.model.dto.request.AsbuiltDocReq;
 import ITMO.ConstructionDocs.model.dto.request.AsbuiltDocToCompanyReq;
 import ITMO.ConstructionDocs.model.dto.request.AsbuiltDocToProjDocReq;
 import ITMO.ConstructionDocs.model.dto.response.AsbuiltDocResp;
+import ITMO.ConstructionDocs.model.dto.response.BackgroundJobResp;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
+import ITMO.ConstructionDocs.model.enums.ActivitySubject;
+import ITMO.ConstructionDocs.model.enums.BulkEntryStatus;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
 import ITMO.ConstructionDocs.model.enums.DocStatus;
+import ITMO.ConstructionDocs.model.enums.SearchType;
+import ITMO.ConstructionDocs.utils.ActivityWindowUtil;
+import ITMO.ConstructionDocs.utils.FileDownloadUtil;
+import ITMO.ConstructionDocs.utils.FileAddressUtil;
 import ITMO.ConstructionDocs.utils.PaginationUtil;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -25,15 +38,22 @@ import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
-import static ITMO.ConstructionDocs.constants.Constants.FILETEMP;
+import static ITMO.ConstructionDocs.constants.Constants.MAX_STREAM_FILE_SIZE;
 
 @Slf4j
 @Service
@@ -41,52 +61,75 @@ import static ITMO.ConstructionDocs.constants.Constants.FILETEMP;
 public class AsbuiltDocService {
     private final AsbuiltDocRepository asbuiltDocRepository;
     private final UserService userService;
-    private final ObjectMapper objectMapper;
+    private final UploadSessionService uploadSessionService;
+    private final FileBlobService fileBlobService;
+    private final LegacyImportService legacyImportService;
+    private final BackgroundJobService backgroundJobService;
+    private final AsbuiltDocMapper asbuiltDocMapper;
+    private final SearchService searchService;
+    private final SeekPaginationService seekPaginationService;
     private final ProjectDocService projectDocService;
     private final CompanyService companyService;
+    private final FileTransferMetrics fileTransferMetrics;
+    private final BatchWriter batchWriter;
+    private final ActivityService activityService;
 
     public AsbuiltDoc getAsbuiltDocFromDB(UUID id) {
         return asbuiltDocRepository.findById(id).orElseThrow(() -> new CustomException("AsbuiltDoc not found", HttpStatus.NOT_FOUND));
     }
 
+    public List<UUID> getExistingIds(Collection<UUID> ids) {
+        return asbuiltDocRepository.findExistingIds(ids);
+    }
+
     public AsbuiltDocResp createAsbuiltDoc(AsbuiltDocReq request, MultipartFile file, Authentication auth) {
-        try {
-            AsbuiltDoc asbuiltDoc = objectMapper.convertValue(request, AsbuiltDoc.class);
+        if (file.getSize() > 10485760) {
+            throw new CustomException("File is too big. No more than 10mb is allowed", HttpStatus.BAD_REQUEST);
+        }
 
-            String fileFormat = file.getContentType();
-            Long fileSize = file.getSize();
-            if (fileSize > 10485760) {
-                throw new CustomException("File is too big. No more than 10mb is allowed", HttpStatus.BAD_REQUEST);
-            }
-            asbuiltDoc.setFileFormat(fileFormat);
-            asbuiltDoc.setFileSize(fileSize);
-
-            File directory = new File(FILETEMP);
-            if (!directory.exists()) {
-                boolean created = directory.mkdirs();
-                if (!created) {
-                    throw new IOException("Error occurred while creating a directory" + FILETEMP);
-                }
-            }
+        try (InputStream content = file.getInputStream()) {
+            return createAsbuiltDocFromStream(request, content, file.getContentType(), auth);
+        } catch (IOException e) {
+            throw new CustomException("Error occurred while saving the file", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 
-            String filePath = FILETEMP + request.getFileName();
+    public AsbuiltDocResp updateAsbuiltDoc(UUID id, AsbuiltDocReq request, MultipartFile file, Authentication auth) {
+        if (file.getSize() > 10485760) {
+            throw new CustomException("File is too big. No more than 10mb is allowed", HttpStatus.BAD_REQUEST);
+        }
+
+        try (InputStream content = file.getInputStream()) {
+            return updateAsbuiltDocFromStream(id, request, content, file.getContentType(), auth);
+        } catch (IOException e) {
+            throw new CustomException("Error occurred while updating the file", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    public AsbuiltDocResp createAsbuiltDocFromStream(AsbuiltDocReq request, InputStream content, String fileFormat, Authentication auth) {
+        try {
+            AsbuiltDoc asbuiltDoc = asbuiltDocMapper.toAsbuiltDoc(request);
 
-            file.transferTo(new File(filePath));
-            asbuiltDoc.setFileAddress(filePath);
             User currentUser = userService.getCurrentUser(auth);
+            FileBlob fileBlob = fileBlobService.storeContent(content, MAX_STREAM_FILE_SIZE);
+
+            asbuiltDoc.setFileFormat(fileFormat);
+            asbuiltDoc.setFileSize(fileBlob.getFileSize());
+            asbuiltDoc.setContentHash(fileBlob.getContentHash());
+            asbuiltDoc.setFileAddress(FileAddressUtil.forAsbuiltDoc(asbuiltDoc));
             asbuiltDoc.setCreatedBy(currentUser);
             asbuiltDoc.setCreatedAt(LocalDateTime.now());
 
-            AsbuiltDoc savedDoc = asbuiltDocRepository.save(asbuiltDoc);
+            AsbuiltDoc savedDoc = saveReferencingBlob(asbuiltDoc);
 
-            return objectMapper.convertValue(savedDoc, AsbuiltDocResp.class);
+            return asbuiltDocMapper.toAsbuiltDocResp(savedDoc);
 
         } catch (IOException e) {
             throw new CustomException("Error occurred while saving the file", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    public AsbuiltDocResp updateAsbuiltDoc(UUID id, AsbuiltDocReq request, MultipartFile file, Authentication auth) {
+    public AsbuiltDocResp updateAsbuiltDocFromStream(UUID id, AsbuiltDocReq request, InputStream content, String fileFormat, Authentication auth) {
         try {
             AsbuiltDoc asbuiltDoc = getAsbuiltDocFromDB(id);
 
@@ -96,12 +139,6 @@ public class AsbuiltDocService {
 
             User currentUser = userService.getCurrentUser(auth);
 
-            String fileFormat = file.getContentType();
-            Long fileSize = file.getSize();
-            if (fileSize > 10485760) {
-                throw new CustomException("File is too big. No more than 10mb is allowed", HttpStatus.BAD_REQUEST);
-            }
-
             if (request.getDocStatus() != null) {
                 asbuiltDoc.setDocStatus(request.getDocStatus());
             }
@@ -114,29 +151,54 @@ public class AsbuiltDocService {
                 asbuiltDoc.setDescription(request.getDescription());
             }
 
-            asbuiltDoc.setFileFormat(fileFormat);
-            asbuiltDoc.setFileSize(fileSize);
-
-            String filePath;
-            if (asbuiltDoc.getProjectDoc() != null) {
-                filePath = asbuiltDoc.getFileAddress();
-            } else {
-                filePath = FILETEMP + request.getFileName();
-            }
+            String previousHash = asbuiltDoc.getContentHash();
+            String previousAddress = asbuiltDoc.getFileAddress();
+            FileBlob fileBlob = fileBlobService.storeContent(content, MAX_STREAM_FILE_SIZE);
 
-            file.transferTo(new File(filePath));
-            asbuiltDoc.setFileAddress(filePath);
+            asbuiltDoc.setFileFormat(fileFormat);
+            asbuiltDoc.setFileSize(fileBlob.getFileSize());
+            asbuiltDoc.setContentHash(fileBlob.getContentHash());
+            asbuiltDoc.setFileAddress(FileAddressUtil.forAsbuiltDoc(asbuiltDoc));
             asbuiltDoc.setUpdatedBy(currentUser);
             asbuiltDoc.setUpdatedAt(LocalDateTime.now());
 
-            AsbuiltDoc savedDoc = asbuiltDocRepository.save(asbuiltDoc);
+            AsbuiltDoc savedDoc = saveReferencingBlob(asbuiltDoc);
+            fileBlobService.releaseContent(previousHash, previousAddress);
 
-            return objectMapper.convertValue(savedDoc, AsbuiltDocResp.class);
+            return asbuiltDocMapper.toAsbuiltDocResp(savedDoc);
 
         } catch (IOException e) {
             throw new CustomException("Error occurred while updating the file", HttpStatus.INTERNAL_SERVER_ERROR);
         }
+    }
+
+    /**
+     * Saves a doc referencing the blob just stored for it, the reference is handed back when the doc is not saved.
+     */
+    private AsbuiltDoc saveReferencingBlob(AsbuiltDoc asbuiltDoc) {
+        try {
+            return asbuiltDocRepository.save(asbuiltDoc);
+        } catch (RuntimeException e) {
+            fileBlobService.release(asbuiltDoc.getContentHash());
+            throw e;
+        }
+    }
 
+    public AsbuiltDocResp commitAsbuiltDocUpload(UUID sessionId, AsbuiltDocReq request, Authentication auth) {
+        AsbuiltDoc savedDoc = uploadSessionService.commitSession(sessionId, auth, (session, fileBlob) -> {
+            AsbuiltDoc asbuiltDoc = asbuiltDocMapper.toAsbuiltDoc(request);
+            asbuiltDoc.setFileFormat(session.getFileFormat());
+            asbuiltDoc.setFileSize(fileBlob.getFileSize());
+            asbuiltDoc.setContentHash(fileBlob.getContentHash());
+            asbuiltDoc.setFileAddress(FileAddressUtil.forAsbuiltDoc(asbuiltDoc));
+            User currentUser = userService.getCurrentUser(auth);
+            asbuiltDoc.setCreatedBy(currentUser);
+            asbuiltDoc.setCreatedAt(LocalDateTime.now());
+
+            return asbuiltDocRepository.saveAndFlush(asbuiltDoc);
+        });
+
+        return asbuiltDocMapper.toAsbuiltDocResp(savedDoc);
     }
 
     public void deleteAsbuiltDoc(UUID id, Authentication auth) {
@@ -148,16 +210,11 @@ public class AsbuiltDocService {
             asbuiltDoc.setUpdatedBy(currentUser);
             asbuiltDoc.setUpdatedAt(LocalDateTime.now());
 
-            String filePath = asbuiltDoc.getFileAddress();
-            File fileToDelete = new File(filePath);
-            if (fileToDelete.exists()) {
-                boolean isDeleted = fileToDelete.delete();
-                if (!isDeleted) {
-                    System.out.println("Failed to delete the file, probably file was deleted before");
-                }
-            }
+            String contentHash = asbuiltDoc.getContentHash();
+            asbuiltDoc.setContentHash(null);
 
             asbuiltDocRepository.save(asbuiltDoc);
+            fileBlobService.releaseContent(contentHash, asbuiltDoc.getFileAddress());
 
         } catch (Exception e) {
             throw new CustomException("Error occurred while deleting the document", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -165,32 +222,59 @@ public class AsbuiltDocService {
     }
 
     public AsbuiltDocResp getAsbuiltDoc(UUID id) {
-        return objectMapper.convertValue(getAsbuiltDocFromDB(id), AsbuiltDocResp.class);
+        return asbuiltDocMapper.toAsbuiltDocResp(getAsbuiltDocFromDB(id));
+    }
+
+    public void writeAsbuiltDocContent(UUID id, HttpServletRequest request, HttpServletResponse response) {
+        AsbuiltDoc asbuiltDoc = getAsbuiltDocFromDB(id);
+
+        if (asbuiltDoc.getDocStatus() == DocStatus.WITHDRAWN) {
+            throw new CustomException(String.format("AsbuiltDoc with id: %s is WITHDRAWN", id), HttpStatus.NOT_FOUND);
+        }
+
+        long start = System.nanoTime();
+        try {
+            long bytes = FileDownloadUtil.writeContent(fileBlobService.getContentStorage(asbuiltDoc), fileBlobService.getContentKey(asbuiltDoc), asbuiltDoc.getContentHash(),
+                    asbuiltDoc.getFileFormat(), asbuiltDoc.getFileName(), request, response);
+            fileTransferMetrics.recordDownload(bytes, start);
+        } catch (IOException e) {
+            throw new CustomException("Error occurred while reading the file", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
     }
 
     public Page<AsbuiltDocResp> getAllAsbuiltDocs(Integer page, Integer sizePerPage, String sort, Sort.Direction order, String filter) {
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<AsbuiltDoc> all;
+        Page<AsbuiltDocView> all;
         if (filter == null) {
             all = asbuiltDocRepository.findAllNotDeleted(pageRequest, DocStatus.WITHDRAWN);
+        } else if (searchService.isReady()) {
+            all = searchService.search(SearchType.ASBUILT_DOC, filter, pageRequest, UUID::fromString, asbuiltDocRepository::findViewsByIdIn, AsbuiltDocView::getId);
         } else {
             all = asbuiltDocRepository.findAllNotDeletedAndFiltered(pageRequest, DocStatus.WITHDRAWN, filter.toLowerCase());
         }
 
         List<AsbuiltDocResp> content = all.getContent().stream()
-                .map(comment -> objectMapper.convertValue(comment, AsbuiltDocResp.class))
+                .map(asbuiltDocMapper::toAsbuiltDocResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
-    public void addAsbuiltDocToProjectDoc(@Valid AsbuiltDocToProjDocReq request, Authentication auth) {
+    public CursorPageResp<AsbuiltDocResp> seekAllAsbuiltDocs(String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        return seekPaginationService.seek(AsbuiltDoc.class, "e.docStatus <> :status", Map.of("status", DocStatus.WITHDRAWN),
+                        cursor, sizePerPage, sort, order)
+                .map(asbuiltDocMapper::toAsbuiltDocResp);
+    }
+
+    /**
+     * Attaches the doc to the project doc. A legacy file is moved by a background job whose state is returned,
+     * otherwise the result is null.
+     */
+    public BackgroundJobResp addAsbuiltDocToProjectDoc(@Valid AsbuiltDocToProjDocReq request, Authentication auth) {
         AsbuiltDoc asbuiltDoc = getAsbuiltDocFromDB(request.getAsbuiltDocId());
         ProjectDoc projectDoc = projectDocService.getProjectDocFromDB(request.getProjectDocId());
 
-        transferAsbuiltDocFileToNewAddress(projectDoc.getId(), asbuiltDoc.getId());
-
         asbuiltDoc.setUpdatedAt(LocalDateTime.now());
         asbuiltDoc.setUpdatedBy(userService.getCurrentUser(auth));
 
@@ -198,7 +282,17 @@ public class AsbuiltDocService {
         projectDocService.updateProjectDocData(projectDoc);
 
         asbuiltDoc.setProjectDoc(projectDoc);
+        // a legacy file keeps its absolute address until the import job has moved it into the blob store
+        if (asbuiltDoc.getContentHash() != null) {
+            asbuiltDoc.setFileAddress(FileAddressUtil.forAsbuiltDoc(asbuiltDoc));
+            asbuiltDocRepository.save(asbuiltDoc);
+            return null;
+        }
         asbuiltDocRepository.save(asbuiltDoc);
+
+        return legacyImportService.importProjectDocFiles(projectDoc)
+                .map(backgroundJobService::toBackgroundJobResp)
+                .orElse(null);
     }
 
     public void addAsbuiltDocToCompany(@Valid AsbuiltDocToCompanyReq request) {
@@ -212,6 +306,71 @@ public class AsbuiltDocService {
         asbuiltDocRepository.save(asbuiltDoc);
     }
 
+    /**
+     * Attaches each doc to its project doc by setting the foreign key and the address, the docs of the project
+     * docs are not loaded. Legacy files are moved by a background job per project doc, its state is the item of
+     * the pairs attached to that project doc.
+     */
+    public BatchResp<BackgroundJobResp> addAsbuiltDocsToProjectDocs(List<AsbuiltDocToProjDocReq> requests, Authentication auth) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Long currentUserId = userService.getCurrentUser(auth).getId();
+        Map<UUID, String> directories = new HashMap<>();
+
+        BatchResp<BackgroundJobResp> resp = batchWriter.link(requests,
+                AsbuiltDocToProjDocReq::getAsbuiltDocId, asbuiltDocRepository::findExistingIds, "AsbuiltDoc not found",
+                AsbuiltDocToProjDocReq::getProjectDocId, ids -> {
+                    projectDocService.getProjectDocsFromDB(ids).forEach(projectDoc ->
+                            directories.put(projectDoc.getId(), FileAddressUtil.asbuiltDirectoryOf(projectDoc)));
+                    return directories.keySet();
+                }, "ProjectDoc not found",
+                // a legacy file keeps its absolute address until the import job has moved it into the blob store
+                "update docs set project_doc_id = ?, updated_at = ?, updated_by_user_id = ?, file_address = case " +
+                        "when content_hash is null then file_address else cast(? as varchar) || file_name end where id = ?",
+                request -> new Object[]{request.getProjectDocId(), now, currentUserId,
+                        directories.get(request.getProjectDocId()), request.getAsbuiltDocId()},
+                linked -> activityService.recordLinked(ActivitySubject.ASBUILT_DOC, linked, (request, event) -> {
+                    event.setSubjectId(String.valueOf(request.getAsbuiltDocId()));
+                    event.setAsbuiltDocId(request.getAsbuiltDocId());
+                    event.setProjectDocId(request.getProjectDocId());
+                }));
+
+        List<AsbuiltDocToProjDocReq> linked = batchWriter.succeeded(resp, requests);
+        if (linked.isEmpty()) {
+            return resp;
+        }
+        searchService.indexAll(asbuiltDocRepository.findAllById(linked.stream()
+                .map(AsbuiltDocToProjDocReq::getAsbuiltDocId)
+                .collect(Collectors.toSet())));
+
+        Map<UUID, BackgroundJob> jobs = legacyImportService.importProjectDocFiles(linked.stream()
+                .map(AsbuiltDocToProjDocReq::getProjectDocId)
+                .collect(Collectors.toSet()));
+        resp.getItems().stream()
+                .filter(item -> item.getStatus() == BulkEntryStatus.LINKED)
+                .forEach(item -> Optional.ofNullable(jobs.get(requests.get(item.getIndex()).getProjectDocId()))
+                        .map(backgroundJobService::toBackgroundJobResp)
+                        .ifPresent(item::setItem));
+        return resp;
+    }
+
+    /**
+     * Attaches each doc to its company by setting the foreign key, the docs of the companies are not loaded.
+     */
+    public BatchResp<Void> addAsbuiltDocsToCompanies(List<AsbuiltDocToCompanyReq> requests, Authentication auth) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Long currentUserId = userService.getCurrentUser(auth).getId();
+
+        return batchWriter.link(requests,
+                AsbuiltDocToCompanyReq::getAsbuiltDocId, asbuiltDocRepository::findExistingIds, "AsbuiltDoc not found",
+                AsbuiltDocToCompanyReq::getCompanyId, companyService::getExistingIds, "Company not found",
+                "update docs set company_id = ?, updated_at = ?, updated_by_user_id = ? where id = ?",
+                request -> new Object[]{request.getCompanyId(), now, currentUserId, request.getAsbuiltDocId()},
+                linked -> activityService.recordLinked(ActivitySubject.ASBUILT_DOC, linked, (request, event) -> {
+                    event.setSubjectId(String.valueOf(request.getAsbuiltDocId()));
+                    event.setAsbuiltDocId(request.getAsbuiltDocId());
+                }));
+    }
+
     public AsbuiltDoc updateAsbuiltDocData(AsbuiltDoc asbuiltDoc) {
         return asbuiltDocRepository.save(asbuiltDoc);
     }
@@ -225,15 +384,27 @@ public class AsbuiltDocService {
 
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<AsbuiltDoc> all = asbuiltDocRepository.findAllByCompanyId(companyId, pageRequest);
+        Page<AsbuiltDocView> all = asbuiltDocRepository.findAllByCompanyId(companyId, pageRequest);
 
         List<AsbuiltDocResp> content = all.getContent().stream()
-                .map(asbuiltDoc -> objectMapper.convertValue(asbuiltDoc, AsbuiltDocResp.class))
+                .map(asbuiltDocMapper::toAsbuiltDocResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
+    public CursorPageResp<AsbuiltDocResp> seekAsbuiltDocsByCompanyId(Long companyId, String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        Company company = companyService.getCompanyFromDB(companyId);
+
+        if (company.getStatus().equals(CommonStatus.DELETED)) {
+            throw new CustomException(String.format("Company Info with id: %d is DELETED from DataBase", companyId), HttpStatus.NO_CONTENT);
+        }
+
+        return seekPaginationService.seek(AsbuiltDoc.class, "e.company.id = :id", Map.of("id", companyId),
+                        cursor, sizePerPage, sort, order)
+                .map(asbuiltDocMapper::toAsbuiltDocResp);
+    }
+
     public Page<AsbuiltDocResp> getAsbuiltDocsByProjectDocId(UUID projectDocId, Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
         ProjectDoc projectDoc = projectDocService.getProjectDocFromDB(projectDocId);
 
@@ -243,79 +414,88 @@ public class AsbuiltDocService {
 
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<AsbuiltDoc> all = asbuiltDocRepository.findAllByProjectDocId(projectDocId, pageRequest);
+        Page<AsbuiltDocView> all = asbuiltDocRepository.findAllByProjectDocId(projectDocId, pageRequest);
 
         List<AsbuiltDocResp> content = all.getContent().stream()
-                .map(asbuiltDoc -> objectMapper.convertValue(asbuiltDoc, AsbuiltDocResp.class))
+                .map(asbuiltDocMapper::toAsbuiltDocResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
-    public Page<AsbuiltDocResp> getAsbuiltDocsForLastWeek(Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
+    public CursorPageResp<AsbuiltDocResp> seekAsbuiltDocsByProjectDocId(UUID projectDocId, String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        ProjectDoc projectDoc = projectDocService.getProjectDocFromDB(projectDocId);
+
+        if (projectDoc.getDocStatus().equals(DocStatus.WITHDRAWN)) {
+            throw new CustomException(String.format("ProjectDoc Info with id: %d is WITHDRAWN from DataBase", projectDocId), HttpStatus.NO_CONTENT);
+        }
+
+        return seekPaginationService.seek(AsbuiltDoc.class, "e.projectDoc.id = :id", Map.of("id", projectDocId),
+                        cursor, sizePerPage, sort, order)
+                .map(asbuiltDocMapper::toAsbuiltDocResp);
+    }
+
+    public Page<AsbuiltDocResp> getAsbuiltDocsForLastWeek(LocalDateTime from, LocalDateTime to, Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        LocalDateTime lastWeek = LocalDateTime.now().minusWeeks(1);
+        LocalDateTime windowEnd = ActivityWindowUtil.getTo(to);
+        LocalDateTime windowStart = ActivityWindowUtil.getFrom(from, windowEnd);
 
-        Page<AsbuiltDoc> all = asbuiltDocRepository.findAllForLastWeek(lastWeek, pageRequest);
+        Page<AsbuiltDocView> all = asbuiltDocRepository.findAllChanged(windowStart, windowEnd, pageRequest);
 
         List<AsbuiltDocResp> content = all.getContent().stream()
-                .map(asbuiltDoc -> objectMapper.convertValue(asbuiltDoc, AsbuiltDocResp.class))
+                .map(asbuiltDocMapper::toAsbuiltDocResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
-    public Page<AsbuiltDocResp> getAsbuiltDocsByProjectDocIdForLastWeek(UUID projectDocId, Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
+    public CursorPageResp<AsbuiltDocResp> seekAsbuiltDocsForLastWeek(LocalDateTime from, LocalDateTime to, String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        LocalDateTime windowEnd = ActivityWindowUtil.getTo(to);
+        LocalDateTime windowStart = ActivityWindowUtil.getFrom(from, windowEnd);
+
+        return seekPaginationService.seek(AsbuiltDoc.class, "e.id in (select ev.asbuiltDocId from ActivityEvent ev where " +
+                        "ev.subject = :subject and ev.occurredAt >= :windowStart and ev.occurredAt < :windowEnd)",
+                        Map.of("subject", ActivitySubject.ASBUILT_DOC, "windowStart", windowStart, "windowEnd", windowEnd),
+                        cursor, sizePerPage, sort, order)
+                .map(asbuiltDocMapper::toAsbuiltDocResp);
+    }
+
+    public Page<AsbuiltDocResp> getAsbuiltDocsByProjectDocIdForLastWeek(UUID projectDocId, LocalDateTime from, LocalDateTime to, Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
         ProjectDoc projectDoc = projectDocService.getProjectDocFromDB(projectDocId);
 
         if (projectDoc.getDocStatus().equals(DocStatus.WITHDRAWN)) {
             throw new CustomException(String.format("ProjectDoc Info with id: %d is WITHDRAWN from DataBase", projectDocId), HttpStatus.NO_CONTENT);
         }
 
-        LocalDateTime lastWeek = LocalDateTime.now().minusWeeks(1);
+        LocalDateTime windowEnd = ActivityWindowUtil.getTo(to);
+        LocalDateTime windowStart = ActivityWindowUtil.getFrom(from, windowEnd);
 
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<AsbuiltDoc> all = asbuiltDocRepository.findAllByProjectDocIdForLastWeek(projectDocId, lastWeek, pageRequest);
+        Page<AsbuiltDocView> all = asbuiltDocRepository.findAllChangedByProjectDocId(projectDocId, windowStart, windowEnd, pageRequest);
 
         List<AsbuiltDocResp> content = all.getContent().stream()
-                .map(asbuiltDoc -> objectMapper.convertValue(asbuiltDoc, AsbuiltDocResp.class))
+                .map(asbuiltDocMapper::toAsbuiltDocResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
-    public void transferAsbuiltDocFileToNewAddress(UUID projectDocId, UUID asbuiltDocId) {
+    public CursorPageResp<AsbuiltDocResp> seekAsbuiltDocsByProjectDocIdForLastWeek(UUID projectDocId, LocalDateTime from, LocalDateTime to, String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
         ProjectDoc projectDoc = projectDocService.getProjectDocFromDB(projectDocId);
-        AsbuiltDoc asbuiltDoc = getAsbuiltDocFromDB(asbuiltDocId);
-
-        String oldFilePath = asbuiltDoc.getFileAddress();
-        String newFilePath = projectDoc.getFileAddress() + "-ABDs" + File.separator + asbuiltDoc.getFileName();
 
-        File oldFile = new File(oldFilePath);
-        File newFile = new File(newFilePath);
-
-        if (!oldFile.exists()) {
-            throw new CustomException("AsbuiltDoc file was not found: " + oldFile.getPath(), HttpStatus.NOT_FOUND);
+        if (projectDoc.getDocStatus().equals(DocStatus.WITHDRAWN)) {
+            throw new CustomException(String.format("ProjectDoc Info with id: %d is WITHDRAWN from DataBase", projectDocId), HttpStatus.NO_CONTENT);
         }
 
-        File parentDir = newFile.getParentFile();
-        if (!parentDir.exists()) {
-            boolean created = parentDir.mkdirs();
-            if (!created) {
-                throw new CustomException("Error occurred while creating directories for the new file path: " + newFile.getPath(), HttpStatus.INTERNAL_SERVER_ERROR);
-            }
-        }
+        LocalDateTime windowEnd = ActivityWindowUtil.getTo(to);
+        LocalDateTime windowStart = ActivityWindowUtil.getFrom(from, windowEnd);
 
-        if (oldFile.renameTo(newFile)) {
-            asbuiltDoc.setFileAddress(newFilePath);
-        } else {
-            throw new CustomException("Error occurred while transferring the file to new path: " + newFile.getPath(), HttpStatus.INTERNAL_SERVER_ERROR);
-        }
-
-        asbuiltDocRepository.save(asbuiltDoc);
+        return seekPaginationService.seek(AsbuiltDoc.class, "e.id in (select ev.asbuiltDocId from ActivityEvent ev where " +
+                        "ev.projectDocId = :id and ev.subject = :subject and ev.occurredAt >= :windowStart and ev.occurredAt < :windowEnd)",
+                        Map.of("id", projectDocId, "subject", ActivitySubject.ASBUILT_DOC, "windowStart", windowStart, "windowEnd", windowEnd),
+                        cursor, sizePerPage, sort, order)
+                .map(asbuiltDocMapper::toAsbuiltDocResp);
     }
-
 }
-
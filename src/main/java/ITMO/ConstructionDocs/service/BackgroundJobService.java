@@ -0,0 +1,135 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
+import ITMO.ConstructionDocs.model.db.repository.BackgroundJobRepository;
+import ITMO.ConstructionDocs.model.dto.response.BackgroundJobResp;
+import ITMO.ConstructionDocs.model.enums.JobStatus;
+import ITMO.ConstructionDocs.model.enums.JobType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BackgroundJobService {
+    private final BackgroundJobRepository backgroundJobRepository;
+    private final ThreadPoolTaskExecutor jobExecutor;
+
+    @Autowired
+    @Lazy
+    private List<JobHandler> jobHandlers;
+
+    /**
+     * Saves the job as QUEUED and hands it to the job executor, so callers get the job id back
+     * right away. The handler for {@code type} reports progress and checkpoints through
+     * {@link #saveProgress(BackgroundJob)}; the job ends FAILED if it throws.
+     */
+    public BackgroundJob submit(JobType type, Long projectId, UUID projectDocId) {
+        BackgroundJob job = new BackgroundJob();
+        job.setType(type);
+        job.setProjectId(projectId);
+        job.setProjectDocId(projectDocId);
+        job.setStatus(JobStatus.QUEUED);
+        job.setTotalItems(0L);
+        job.setProcessedItems(0L);
+        job.setFailedItems(0L);
+        BackgroundJob saved = backgroundJobRepository.save(job);
+
+        jobExecutor.execute(() -> run(saved));
+
+        return saved;
+    }
+
+    /**
+     * Jobs still QUEUED or RUNNING at startup were cut off by a shutdown or a crash; they are
+     * started again and continue from their last checkpoint.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        List<BackgroundJob> unfinished = backgroundJobRepository.findAllByStatusInOrderByCreatedAt(
+                List.of(JobStatus.QUEUED, JobStatus.RUNNING));
+        for (BackgroundJob job : unfinished) {
+            log.info("Resuming background job {} from checkpoint {} {}", job.getId(), job.getCheckpointStage(), job.getCheckpointItemId());
+            jobExecutor.execute(() -> run(job));
+        }
+    }
+
+    public boolean hasUnfinished(JobType type) {
+        return backgroundJobRepository.existsByTypeAndStatusIn(type, List.of(JobStatus.QUEUED, JobStatus.RUNNING));
+    }
+
+    public BackgroundJob saveProgress(BackgroundJob job) {
+        return backgroundJobRepository.save(job);
+    }
+
+    public BackgroundJobResp getJob(UUID id) {
+        return toBackgroundJobResp(getBackgroundJobFromDB(id));
+    }
+
+    public BackgroundJob getBackgroundJobFromDB(UUID id) {
+        return backgroundJobRepository.findById(id).orElseThrow(() -> new CustomException("Background job not found", HttpStatus.NOT_FOUND));
+    }
+
+    private void run(BackgroundJob job) {
+        job.setStatus(JobStatus.RUNNING);
+        backgroundJobRepository.save(job);
+
+        try {
+            getJobHandler(job.getType()).run(job);
+            job.setStatus(JobStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            log.error("Background job {} failed", job.getId(), e);
+            job.setStatus(JobStatus.FAILED);
+            job.setMessage(e.getMessage());
+        }
+
+        job.setFinishedAt(LocalDateTime.now());
+        backgroundJobRepository.save(job);
+    }
+
+    private JobHandler getJobHandler(JobType type) {
+        return jobHandlers.stream()
+                .filter(jobHandler -> jobHandler.getType() == type)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No handler for background job type " + type));
+    }
+
+    public BackgroundJobResp toBackgroundJobResp(BackgroundJob job) {
+        BackgroundJobResp resp = new BackgroundJobResp();
+        resp.setId(job.getId());
+        resp.setType(job.getType());
+        resp.setStatus(job.getStatus());
+        resp.setProjectId(job.getProjectId());
+        resp.setProjectDocId(job.getProjectDocId());
+        resp.setTotalItems(job.getTotalItems());
+        resp.setProcessedItems(job.getProcessedItems());
+        resp.setFailedItems(job.getFailedItems());
+        resp.setMessage(job.getMessage());
+        resp.setCreatedAt(job.getCreatedAt());
+        resp.setUpdatedAt(job.getUpdatedAt());
+        resp.setFinishedAt(job.getFinishedAt());
+
+        if (job.getStatus() == JobStatus.COMPLETED) {
+            resp.setProgressPercent(100);
+        } else if (job.getTotalItems() != null && job.getTotalItems() > 0) {
+            // a batch interrupted by a restart is processed again, so the count can run past the total
+            resp.setProgressPercent((int) Math.min(99, 100 * job.getProcessedItems() / job.getTotalItems()));
+        } else {
+            resp.setProgressPercent(0);
+        }
+
+        return resp;
+    }
+}
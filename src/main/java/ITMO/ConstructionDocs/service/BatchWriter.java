@@ -0,0 +1,246 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.model.dto.request.BatchUpdateReq;
+import ITMO.ConstructionDocs.model.dto.response.BatchItemResp;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
+import ITMO.ConstructionDocs.model.enums.BulkEntryStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the items of the batch endpoints in one transaction, flushed once, so Hibernate sends the inserts and
+ * updates as JDBC batches of {@code hibernate.jdbc.batch_size}. An item failing its checks is reported and left
+ * out of the batch; when the transaction itself fails nothing is written and every item is reported failed.
+ * Links are written with SQL instead, see {@link #link}.
+ */
+@Slf4j
+@Component
+public class BatchWriter {
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxItems;
+
+    public BatchWriter(TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate,
+                       @Value("${app.batch.max-items:1000}") int maxItems) {
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Inserts the entities built from the requests. {@code toEntity} runs outside the transaction and fails an
+     * item by throwing.
+     */
+    public <R, E, T> BatchResp<T> create(List<R> requests, Function<R, E> toEntity, JpaRepository<E, Long> repository,
+                                         Function<E, Long> getId, Function<E, T> toResp) {
+        List<BatchItemResp<T>> items = newItems(requests);
+        Map<BatchItemResp<T>, E> entities = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                entities.put(items.get(i), toEntity.apply(requests.get(i)));
+            } catch (RuntimeException e) {
+                markFailed(items.get(i), e.getMessage());
+            }
+        }
+
+        String message = execute(items, () -> {
+            repository.saveAll(entities.values());
+            repository.flush();
+            entities.forEach((item, entity) -> markWritten(item, BulkEntryStatus.CREATED, getId.apply(entity), toResp.apply(entity)));
+        });
+        return toBatchResp(items, message);
+    }
+
+    /**
+     * Loads the entities of the requests with one select and updates them. {@code update} fails an item by
+     * throwing, and has to do so before it changes the entity.
+     */
+    public <R, E, T> BatchResp<T> update(List<BatchUpdateReq<R>> requests, JpaRepository<E, Long> repository,
+                                         Function<E, Long> getId, String notFoundMessage,
+                                         BiConsumer<E, R> update, Function<E, T> toResp) {
+        List<BatchItemResp<T>> items = newItems(requests);
+        List<Long> ids = requests.stream().map(BatchUpdateReq::getId).collect(Collectors.toList());
+
+        String message = execute(items, () -> {
+            Map<BatchItemResp<T>, E> updated = apply(items, ids, repository, getId, notFoundMessage,
+                    (entity, i) -> update.accept(entity, requests.get(i).getItem()));
+            repository.flush();
+            updated.forEach((item, entity) -> markWritten(item, BulkEntryStatus.UPDATED, getId.apply(entity), toResp.apply(entity)));
+        });
+        return toBatchResp(items, message);
+    }
+
+    /**
+     * Loads the entities with one select and marks them deleted with {@code delete}, which fails an item by
+     * throwing before it changes the entity.
+     */
+    public <E> BatchResp<Void> delete(List<Long> ids, JpaRepository<E, Long> repository, Function<E, Long> getId,
+                                      String notFoundMessage, Consumer<E> delete) {
+        List<BatchItemResp<Void>> items = newItems(ids);
+
+        String message = execute(items, () -> {
+            Map<BatchItemResp<Void>, E> deleted = apply(items, ids, repository, getId, notFoundMessage,
+                    (entity, i) -> delete.accept(entity));
+            repository.flush();
+            deleted.forEach((item, entity) -> markWritten(item, BulkEntryStatus.DELETED, getId.apply(entity), null));
+        });
+        return toBatchResp(items, message);
+    }
+
+    /**
+     * Links the child of each request to its parent with one JDBC batch of {@code sql}, which sets the foreign key
+     * or inserts the join row, so neither side is loaded and none of their collections initialised. The ids of
+     * both sides are checked with one select each, {@code existingChildren} and {@code existingParents} return
+     * the ones found. {@code afterLink} gets the linked requests in the transaction, for the work the entity
+     * listeners do on the other writes.
+     */
+    public <R, C, P, T> BatchResp<T> link(List<R> requests,
+                                          Function<R, C> childId, Function<Set<C>, Collection<C>> existingChildren,
+                                          String childNotFoundMessage,
+                                          Function<R, P> parentId, Function<Set<P>, Collection<P>> existingParents,
+                                          String parentNotFoundMessage,
+                                          String sql, Function<R, Object[]> args, Consumer<List<R>> afterLink) {
+        List<BatchItemResp<T>> items = newItems(requests);
+
+        String message = execute(items, () -> {
+            Set<C> children = existing(requests, childId, existingChildren);
+            Set<P> parents = existing(requests, parentId, existingParents);
+
+            Map<BatchItemResp<T>, R> linked = new LinkedHashMap<>();
+            for (int i = 0; i < items.size(); i++) {
+                R request = requests.get(i);
+                if (!children.contains(childId.apply(request))) {
+                    markFailed(items.get(i), childNotFoundMessage);
+                } else if (!parents.contains(parentId.apply(request))) {
+                    markFailed(items.get(i), parentNotFoundMessage);
+                } else {
+                    linked.put(items.get(i), request);
+                }
+            }
+            if (linked.isEmpty()) {
+                return;
+            }
+
+            jdbcTemplate.batchUpdate(sql, linked.values().stream().map(args).collect(Collectors.toList()));
+            afterLink.accept(new ArrayList<>(linked.values()));
+            linked.keySet().forEach(item -> item.setStatus(BulkEntryStatus.LINKED));
+        });
+        return toBatchResp(items, message);
+    }
+
+    /**
+     * The requests of the items written, in their order.
+     */
+    public <R> List<R> succeeded(BatchResp<?> resp, List<R> requests) {
+        return resp.getItems().stream()
+                .filter(item -> item.getStatus() != BulkEntryStatus.FAILED)
+                .map(item -> requests.get(item.getIndex()))
+                .collect(Collectors.toList());
+    }
+
+    private <R, I> Set<I> existing(List<R> requests, Function<R, I> id, Function<Set<I>, Collection<I>> existingIds) {
+        Set<I> ids = requests.stream().map(id).filter(Objects::nonNull).collect(Collectors.toSet());
+        return ids.isEmpty() ? Set.of() : new HashSet<>(existingIds.apply(ids));
+    }
+
+    private <E, T> Map<BatchItemResp<T>, E> apply(List<BatchItemResp<T>> items, List<Long> ids,
+                                                  JpaRepository<E, Long> repository, Function<E, Long> getId,
+                                                  String notFoundMessage, BiConsumer<E, Integer> change) {
+        Map<Long, E> entities = repository.findAllById(ids.stream().filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(getId, Function.identity()));
+
+        Map<BatchItemResp<T>, E> changed = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchItemResp<T> item = items.get(i);
+            item.setId(ids.get(i));
+            E entity = entities.get(ids.get(i));
+            if (entity == null) {
+                markFailed(item, notFoundMessage);
+                continue;
+            }
+
+            try {
+                change.accept(entity, i);
+                changed.put(item, entity);
+            } catch (RuntimeException e) {
+                markFailed(item, e.getMessage());
+            }
+        }
+        return changed;
+    }
+
+    private <T> String execute(List<BatchItemResp<T>> items, Runnable write) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> write.run());
+            return null;
+        } catch (RuntimeException e) {
+            log.warn("Batch of {} items was not saved: {}", items.size(), e.getMessage());
+            for (BatchItemResp<T> item : items) {
+                if (item.getStatus() == BulkEntryStatus.CREATED) {
+                    // the id was drawn from the sequence, the row is gone with the rollback
+                    item.setId(null);
+                }
+                if (item.getStatus() != BulkEntryStatus.FAILED) {
+                    markFailed(item, "Not written, the batch was rolled back");
+                    item.setItem(null);
+                }
+            }
+            return "Batch was not saved, no item was written: " + e.getMessage();
+        }
+    }
+
+    private <T> List<BatchItemResp<T>> newItems(List<?> requests) {
+        if (requests.size() > maxItems) {
+            throw new CustomException(String.format("Batch of %d items exceeds the limit of %d", requests.size(), maxItems), HttpStatus.BAD_REQUEST);
+        }
+
+        List<BatchItemResp<T>> items = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            BatchItemResp<T> item = new BatchItemResp<>();
+            item.setIndex(i);
+            items.add(item);
+        }
+        return items;
+    }
+
+    private <T> void markWritten(BatchItemResp<T> item, BulkEntryStatus status, Long id, T resp) {
+        item.setStatus(status);
+        item.setId(id);
+        item.setItem(resp);
+    }
+
+    private void markFailed(BatchItemResp<?> item, String message) {
+        item.setStatus(BulkEntryStatus.FAILED);
+        item.setMessage(message);
+    }
+
+    private <T> BatchResp<T> toBatchResp(List<BatchItemResp<T>> items, String message) {
+        BatchResp<T> resp = new BatchResp<>();
+        resp.setItems(items);
+        resp.setTotalItems(items.size());
+        resp.setSucceededItems((int) items.stream().filter(item -> item.getStatus() != BulkEntryStatus.FAILED).count());
+        resp.setFailedItems(resp.getTotalItems() - resp.getSucceededItems());
+        resp.setMessage(message);
+        return resp;
+    }
+}
@@ -0,0 +1,233 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.mapper.AsbuiltDocMapper;
+import ITMO.ConstructionDocs.mapper.ProjectDocMapper;
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.Doc;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.repository.AsbuiltDocRepository;
+import ITMO.ConstructionDocs.model.db.repository.ProjectDocRepository;
+import ITMO.ConstructionDocs.model.dto.request.AsbuiltDocReq;
+import ITMO.ConstructionDocs.model.dto.request.ProjectDocReq;
+import ITMO.ConstructionDocs.model.dto.response.BulkUploadEntryResp;
+import ITMO.ConstructionDocs.model.dto.response.BulkUploadResp;
+import ITMO.ConstructionDocs.model.enums.BulkEntryStatus;
+import ITMO.ConstructionDocs.utils.FileAddressUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static ITMO.ConstructionDocs.constants.Constants.MAX_STREAM_FILE_SIZE;
+
+/**
+ * Creates docs from a ZIP archive read straight from the request body, one entry at a time, so
+ * nothing but the entry being stored is ever held on this node. Docs are inserted in JDBC batches
+ * of {@link #INSERT_BATCH_SIZE}; a failing entry or batch is reported and the rest of the archive
+ * is still processed.
+ * <p>
+ * Doc metadata comes from an optional {@value #MANIFEST_ENTRY} placed first in the archive: a JSON
+ * object keyed by entry name whose values are {@link ProjectDocReq} or {@link AsbuiltDocReq}. Entries
+ * missing from the manifest are created with their base name as file name. Metadata breaking the constraints of
+ * the request fails its entry, as a single upload with it would be refused.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkUploadService {
+    static final String MANIFEST_ENTRY = "manifest.json";
+    static final int INSERT_BATCH_SIZE = 50;
+
+    private final ProjectDocRepository projectDocRepository;
+    private final AsbuiltDocRepository asbuiltDocRepository;
+    private final FileBlobService fileBlobService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final ProjectDocMapper projectDocMapper;
+    private final AsbuiltDocMapper asbuiltDocMapper;
+    private final Validator validator;
+
+    public BulkUploadResp uploadProjectDocs(InputStream archive, Authentication auth) {
+        return upload(archive, auth, this::toProjectDoc, FileAddressUtil::forProjectDoc, projectDocRepository::saveAll);
+    }
+
+    public BulkUploadResp uploadAsbuiltDocs(InputStream archive, Authentication auth) {
+        return upload(archive, auth, this::toAsbuiltDoc, FileAddressUtil::forAsbuiltDoc, asbuiltDocRepository::saveAll);
+    }
+
+    private ProjectDoc toProjectDoc(ObjectNode metadata, User currentUser) {
+        ProjectDoc projectDoc = projectDocMapper.toProjectDoc(toRequest(metadata, ProjectDocReq.class));
+        projectDoc.setCreatedBy(currentUser);
+        return projectDoc;
+    }
+
+    private AsbuiltDoc toAsbuiltDoc(ObjectNode metadata, User currentUser) {
+        AsbuiltDoc asbuiltDoc = asbuiltDocMapper.toAsbuiltDoc(toRequest(metadata, AsbuiltDocReq.class));
+        asbuiltDoc.setCreatedBy(currentUser);
+        return asbuiltDoc;
+    }
+
+    private <R> R toRequest(ObjectNode metadata, Class<R> requestType) {
+        R request = objectMapper.convertValue(metadata, requestType);
+
+        Set<ConstraintViolation<R>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return request;
+    }
+
+    private <T extends Doc> BulkUploadResp upload(InputStream archive, Authentication auth, BiFunction<ObjectNode, User, T> toDoc,
+                                                  Function<T, String> fileAddress, Function<List<T>, List<T>> saveAll) {
+        User currentUser = userService.getCurrentUser(auth);
+        List<BulkUploadEntryResp> entries = new ArrayList<>();
+        Batch<T> batch = new Batch<>(saveAll);
+        String message = null;
+
+        try (ZipInputStream zip = new ZipInputStream(archive)) {
+            Map<String, ObjectNode> manifest = Collections.emptyMap();
+            boolean firstEntry = true;
+
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (firstEntry && MANIFEST_ENTRY.equals(entry.getName())) {
+                    manifest = objectMapper.readValue(StreamUtils.nonClosing(zip), new TypeReference<Map<String, ObjectNode>>() {});
+                    firstEntry = false;
+                    continue;
+                }
+                firstEntry = false;
+
+                BulkUploadEntryResp entryResp = new BulkUploadEntryResp();
+                entryResp.setEntryName(entry.getName());
+                entries.add(entryResp);
+
+                try {
+                    ObjectNode metadata = manifest.containsKey(entry.getName())
+                            ? manifest.get(entry.getName()).deepCopy()
+                            : objectMapper.createObjectNode();
+                    if (!metadata.hasNonNull("fileName")) {
+                        metadata.put("fileName", getBaseName(entry.getName()));
+                    }
+                    T doc = toDoc.apply(metadata, currentUser);
+
+                    // the stored blob reads the entry up to its end, the archive itself stays open
+                    FileBlob fileBlob = fileBlobService.storeContent(StreamUtils.nonClosing(zip), MAX_STREAM_FILE_SIZE);
+
+                    doc.setFileFormat(MediaTypeFactory.getMediaType(doc.getFileName())
+                            .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                            .toString());
+                    doc.setFileSize(fileBlob.getFileSize());
+                    doc.setContentHash(fileBlob.getContentHash());
+                    doc.setFileAddress(fileAddress.apply(doc));
+                    doc.setCreatedAt(LocalDateTime.now());
+
+                    entryResp.setFileName(doc.getFileName());
+                    entryResp.setFileSize(fileBlob.getFileSize());
+                    batch.add(doc, entryResp);
+
+                } catch (IOException | RuntimeException e) {
+                    markFailed(entryResp, e);
+                }
+
+                if (batch.size() >= INSERT_BATCH_SIZE) {
+                    batch.flush();
+                }
+            }
+
+        } catch (IOException e) {
+            log.warn("Bulk upload stopped after {} entries: {}", entries.size(), e.getMessage());
+            message = "Archive could not be read after entry " + entries.size() + ": " + e.getMessage();
+        }
+
+        batch.flush();
+
+        BulkUploadResp resp = new BulkUploadResp();
+        resp.setEntries(entries);
+        resp.setTotalEntries(entries.size());
+        resp.setCreatedEntries((int) entries.stream().filter(e -> e.getStatus() == BulkEntryStatus.CREATED).count());
+        resp.setFailedEntries(resp.getTotalEntries() - resp.getCreatedEntries());
+        resp.setMessage(message);
+        return resp;
+    }
+
+    private void markFailed(BulkUploadEntryResp entryResp, Exception e) {
+        entryResp.setStatus(BulkEntryStatus.FAILED);
+        entryResp.setMessage(e.getMessage());
+    }
+
+    private String getBaseName(String entryName) {
+        return entryName.substring(entryName.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Docs waiting for the next batch insert together with the report entries they fill in.
+     */
+    private class Batch<T extends Doc> {
+        private final Function<List<T>, List<T>> saveAll;
+        private final List<T> docs = new ArrayList<>();
+        private final List<BulkUploadEntryResp> entries = new ArrayList<>();
+
+        Batch(Function<List<T>, List<T>> saveAll) {
+            this.saveAll = saveAll;
+        }
+
+        void add(T doc, BulkUploadEntryResp entryResp) {
+            docs.add(doc);
+            entries.add(entryResp);
+        }
+
+        int size() {
+            return docs.size();
+        }
+
+        void flush() {
+            if (docs.isEmpty()) {
+                return;
+            }
+
+            try {
+                List<T> saved = saveAll.apply(new ArrayList<>(docs));
+                for (int i = 0; i < saved.size(); i++) {
+                    entries.get(i).setDocId(saved.get(i).getId());
+                    entries.get(i).setStatus(BulkEntryStatus.CREATED);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Bulk upload batch of {} docs was not saved: {}", docs.size(), e.getMessage());
+                for (int i = 0; i < docs.size(); i++) {
+                    fileBlobService.release(docs.get(i).getContentHash());
+                    markFailed(entries.get(i), e);
+                }
+            }
+
+            docs.clear();
+            entries.clear();
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package ITMO.ConstructionDocs.service;
 
 import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.mapper.CommentMapper;
 import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
 import ITMO.ConstructionDocs.model.db.entity.Comment;
 import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
 import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.projection.CommentView;
 import ITMO.ConstructionDocs.model.db.repository.CommentRepository;
+import ITMO.ConstructionDocs.model.dto.request.BatchUpdateReq;
 import ITMO.ConstructionDocs.model.dto.request.CommentReq;
 import ITMO.ConstructionDocs.model.dto.request.CommentToAsbuiltReq;
 import ITMO.ConstructionDocs.model.dto.request.CommentToProjDocReq;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
 import ITMO.ConstructionDocs.model.dto.response.CommentResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
+import ITMO.ConstructionDocs.model.enums.ActivitySubject;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.model.enums.SearchType;
+import ITMO.ConstructionDocs.utils.ActivityWindowUtil;
 import ITMO.ConstructionDocs.utils.PaginationUtil;
 import ITMO.ConstructionDocs.utils.RightsValidatorUtil;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -25,8 +32,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
 import javax.validation.Valid;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -34,26 +43,39 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class CommentService {
-    private final ObjectMapper objectMapper;
+    private final CommentMapper commentMapper;
+    private final SearchService searchService;
+    private final SeekPaginationService seekPaginationService;
     private final CommentRepository commentRepository;
     private final UserService userService;
     private final ProjectDocService projectDocService;
     private final AsbuiltDocService asbuiltDocService;
+    private final BatchWriter batchWriter;
+    private final ActivityService activityService;
 
     public CommentResp createComment(CommentReq request, Authentication auth) {
+        Comment save = commentRepository.save(toNewComment(request, userService.getCurrentUser(auth)));
 
-        Comment comment = objectMapper.convertValue(request, Comment.class);
-        comment.setCreatedAt(LocalDateTime.now());
-        comment.setCreatedBy(userService.getCurrentUser(auth));
-        comment.setStatus(CommonStatus.CREATED);
+        return commentMapper.toCommentResp(save);
+    }
 
-        Comment save = commentRepository.save(comment);
+    public BatchResp<CommentResp> createComments(List<CommentReq> requests, Authentication auth) {
+        User currentUser = userService.getCurrentUser(auth);
+
+        return batchWriter.create(requests, request -> toNewComment(request, currentUser), commentRepository,
+                Comment::getId, commentMapper::toCommentResp);
+    }
 
-        return objectMapper.convertValue(save, CommentResp.class);
+    private Comment toNewComment(CommentReq request, User currentUser) {
+        Comment comment = commentMapper.toComment(request);
+        comment.setCreatedAt(LocalDateTime.now());
+        comment.setCreatedBy(currentUser);
+        comment.setStatus(CommonStatus.CREATED);
+        return comment;
     }
 
     public CommentResp getComment(Long id) {
-        return objectMapper.convertValue(getCommentFromDB(id), CommentResp.class);
+        return commentMapper.toCommentResp(getCommentFromDB(id));
     }
 
     public Comment getCommentFromDB(Long id) {
@@ -62,10 +84,22 @@ public class CommentService {
 
     public CommentResp updateComment(Long id, CommentReq request, Authentication auth) {
         Comment comment = getCommentFromDB(id);
+        applyUpdate(comment, request, userService.getCurrentUser(auth));
+
+        Comment save = commentRepository.save(comment);
+
+        return commentMapper.toCommentResp(save);
+    }
 
-        User createdBy = comment.getCreatedBy();
+    public BatchResp<CommentResp> updateComments(List<BatchUpdateReq<CommentReq>> requests, Authentication auth) {
         User currentUser = userService.getCurrentUser(auth);
-        RightsValidatorUtil.validateUser(createdBy, currentUser);
+
+        return batchWriter.update(requests, commentRepository, Comment::getId, "Comment not found",
+                (comment, request) -> applyUpdate(comment, request, currentUser), commentMapper::toCommentResp);
+    }
+
+    private void applyUpdate(Comment comment, CommentReq request, User currentUser) {
+        RightsValidatorUtil.validateUser(comment.getCreatedBy(), currentUser);
         if (request.getTitle() != null) {
             comment.setTitle(request.getTitle());
         }
@@ -76,39 +110,52 @@ public class CommentService {
         comment.setUpdatedAt(LocalDateTime.now());
         comment.setUpdatedBy(currentUser);
         comment.setStatus(CommonStatus.UPDATED);
-
-        Comment save = commentRepository.save(comment);
-
-        return objectMapper.convertValue(save, CommentResp.class);
     }
 
     public void deleteComment(Long id, Authentication auth) {
         Comment comment = getCommentFromDB(id);
-        User createdBy = comment.getCreatedBy();
+        markDeleted(comment, userService.getCurrentUser(auth));
+        commentRepository.save(comment);
+    }
+
+    public BatchResp<Void> deleteComments(List<Long> ids, Authentication auth) {
         User currentUser = userService.getCurrentUser(auth);
-        RightsValidatorUtil.validateUser(createdBy, currentUser);
+
+        return batchWriter.delete(ids, commentRepository, Comment::getId, "Comment not found",
+                comment -> markDeleted(comment, currentUser));
+    }
+
+    private void markDeleted(Comment comment, User currentUser) {
+        RightsValidatorUtil.validateUser(comment.getCreatedBy(), currentUser);
         comment.setUpdatedAt(LocalDateTime.now());
         comment.setStatus(CommonStatus.DELETED);
-        commentRepository.save(comment);
     }
 
     public Page<CommentResp> getAllComments(Integer page, Integer sizePerPage, String sort, Sort.Direction order, String filter) {
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<Comment> all;
+        Page<CommentView> all;
         if (filter == null) {
             all = commentRepository.findAllNotDeleted(pageRequest, CommonStatus.DELETED);
+        } else if (searchService.isReady()) {
+            all = searchService.search(SearchType.COMMENT, filter, pageRequest, Long::valueOf, commentRepository::findViewsByIdIn, CommentView::getId);
         } else {
             all = commentRepository.findAllNotDeletedAndFiltered(pageRequest, CommonStatus.DELETED, filter.toLowerCase());
         }
 
         List<CommentResp> content = all.getContent().stream()
-                .map(comment -> objectMapper.convertValue(comment, CommentResp.class))
+                .map(commentMapper::toCommentResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
+    public CursorPageResp<CommentResp> seekAllComments(String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        return seekPaginationService.seek(Comment.class, "e.status <> :status", Map.of("status", CommonStatus.DELETED),
+                        cursor, sizePerPage, sort, order)
+                .map(commentMapper::toCommentResp);
+    }
+
     public void addCommentToProjectDoc(@Valid CommentToProjDocReq request) {
         Comment comment = getCommentFromDB(request.getCommentId());
         ProjectDoc projectDoc = projectDocService.getProjectDocFromDB(request.getProjectDocId());
@@ -131,61 +178,143 @@ public class CommentService {
         commentRepository.save(comment);
     }
 
+    /**
+     * Attaches each comment to its project doc by setting the foreign key, the comments of the project docs are
+     * not loaded.
+     */
+    public BatchResp<Void> addCommentsToProjectDocs(List<CommentToProjDocReq> requests, Authentication auth) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Long currentUserId = userService.getCurrentUser(auth).getId();
+
+        return batchWriter.link(requests,
+                CommentToProjDocReq::getCommentId, commentRepository::findExistingIds, "Comment not found",
+                CommentToProjDocReq::getProjectDocId, projectDocService::getExistingIds, "ProjectDoc not found",
+                "update comments set project_doc_id = ?, updated_at = ?, updated_by_user_id = ? where id = ?",
+                request -> new Object[]{request.getProjectDocId(), now, currentUserId, request.getCommentId()},
+                linked -> activityService.recordLinked(ActivitySubject.COMMENT, linked, (request, event) -> {
+                    event.setSubjectId(String.valueOf(request.getCommentId()));
+                    event.setCommentId(request.getCommentId());
+                    event.setProjectDocId(request.getProjectDocId());
+                }));
+    }
+
+    /**
+     * Attaches each comment to its as-built doc by setting the foreign key, the comments of the as-built docs are
+     * not loaded.
+     */
+    public BatchResp<Void> addCommentsToAsbuiltDocs(List<CommentToAsbuiltReq> requests, Authentication auth) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Long currentUserId = userService.getCurrentUser(auth).getId();
+
+        return batchWriter.link(requests,
+                CommentToAsbuiltReq::getCommentId, commentRepository::findExistingIds, "Comment not found",
+                CommentToAsbuiltReq::getAsbuiltDocId, asbuiltDocService::getExistingIds, "AsbuiltDoc not found",
+                "update comments set asbuilt_doc_id = ?, updated_at = ?, updated_by_user_id = ? where id = ?",
+                request -> new Object[]{request.getAsbuiltDocId(), now, currentUserId, request.getCommentId()},
+                linked -> activityService.recordLinked(ActivitySubject.COMMENT, linked, (request, event) -> {
+                    event.setSubjectId(String.valueOf(request.getCommentId()));
+                    event.setCommentId(request.getCommentId());
+                    event.setAsbuiltDocId(request.getAsbuiltDocId());
+                }));
+    }
+
     public Page<CommentResp> getCommentsByProjectDocId(UUID projectDocId, Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
         projectDocService.getProjectDocFromDB(projectDocId);
 
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<Comment> all = commentRepository.findAllByProjectDocId(projectDocId, pageRequest);
+        Page<CommentView> all = commentRepository.findAllByProjectDocId(projectDocId, pageRequest);
 
         List<CommentResp> content = all.getContent().stream()
-                .map(comment -> objectMapper.convertValue(comment, CommentResp.class))
+                .map(commentMapper::toCommentResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
+    public CursorPageResp<CommentResp> seekCommentsByProjectDocId(UUID projectDocId, String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        projectDocService.getProjectDocFromDB(projectDocId);
+
+        return seekPaginationService.seek(Comment.class, "e.projectDoc.id = :id", Map.of("id", projectDocId),
+                        cursor, sizePerPage, sort, order)
+                .map(commentMapper::toCommentResp);
+    }
+
     public Page<CommentResp> getCommentsByAsbuiltDocId(UUID asbuiltDocId, Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
         asbuiltDocService.getAsbuiltDocFromDB(asbuiltDocId);
 
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<Comment> all = commentRepository.findAllByAsbuiltDocId(asbuiltDocId, pageRequest);
+        Page<CommentView> all = commentRepository.findAllByAsbuiltDocId(asbuiltDocId, pageRequest);
 
         List<CommentResp> content = all.getContent().stream()
-                .map(comment -> objectMapper.convertValue(comment, CommentResp.class))
+                .map(commentMapper::toCommentResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
-    public Page<CommentResp> getCommentsForLastWeek(Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
+    public CursorPageResp<CommentResp> seekCommentsByAsbuiltDocId(UUID asbuiltDocId, String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        asbuiltDocService.getAsbuiltDocFromDB(asbuiltDocId);
+
+        return seekPaginationService.seek(Comment.class, "e.asbuiltDoc.id = :id", Map.of("id", asbuiltDocId),
+                        cursor, sizePerPage, sort, order)
+                .map(commentMapper::toCommentResp);
+    }
+
+    public Page<CommentResp> getCommentsForLastWeek(LocalDateTime from, LocalDateTime to, Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        LocalDateTime lastWeek = LocalDateTime.now().minusWeeks(1);
+        LocalDateTime windowEnd = ActivityWindowUtil.getTo(to);
+        LocalDateTime windowStart = ActivityWindowUtil.getFrom(from, windowEnd);
 
-        Page<Comment> all = commentRepository.findAllForLastWeek(lastWeek, pageRequest);
+        Page<CommentView> all = commentRepository.findAllChanged(windowStart, windowEnd, pageRequest);
 
         List<CommentResp> content = all.getContent().stream()
-                .map(comment -> objectMapper.convertValue(comment, CommentResp.class))
+                .map(commentMapper::toCommentResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
-    public Page<CommentResp> getCommentsForLastWeekByUser(Long userId, Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
+    public CursorPageResp<CommentResp> seekCommentsForLastWeek(LocalDateTime from, LocalDateTime to, String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        LocalDateTime windowEnd = ActivityWindowUtil.getTo(to);
+        LocalDateTime windowStart = ActivityWindowUtil.getFrom(from, windowEnd);
+
+        return seekPaginationService.seek(Comment.class, "e.id in (select ev.commentId from ActivityEvent ev where " +
+                        "ev.subject = :subject and ev.occurredAt >= :windowStart and ev.occurredAt < :windowEnd)",
+                        Map.of("subject", ActivitySubject.COMMENT, "windowStart", windowStart, "windowEnd", windowEnd),
+                        cursor, sizePerPage, sort, order)
+                .map(commentMapper::toCommentResp);
+    }
+
+    public Page<CommentResp> getCommentsForLastWeekByUser(Long userId, LocalDateTime from, LocalDateTime to, Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
         userService.getUserFromDB(userId);
 
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        LocalDateTime lastWeek = LocalDateTime.now().minusWeeks(1);
+        LocalDateTime windowEnd = ActivityWindowUtil.getTo(to);
+        LocalDateTime windowStart = ActivityWindowUtil.getFrom(from, windowEnd);
 
-        Page<Comment> all = commentRepository.findAllForLastWeekByUser(userId, lastWeek, pageRequest);
+        Page<CommentView> all = commentRepository.findAllChangedByUser(userId, windowStart, windowEnd, pageRequest);
 
         List<CommentResp> content = all.getContent().stream()
-                .map(comment -> objectMapper.convertValue(comment, CommentResp.class))
+                .map(commentMapper::toCommentResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
+
+    public CursorPageResp<CommentResp> seekCommentsForLastWeekByUser(Long userId, LocalDateTime from, LocalDateTime to, String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        userService.getUserFromDB(userId);
+
+        LocalDateTime windowEnd = ActivityWindowUtil.getTo(to);
+        LocalDateTime windowStart = ActivityWindowUtil.getFrom(from, windowEnd);
+
+        return seekPaginationService.seek(Comment.class, "e.id in (select ev.commentId from ActivityEvent ev where " +
+                        "ev.actorId = :userId and ev.subject = :subject and ev.occurredAt >= :windowStart and ev.occurredAt < :windowEnd)",
+                        Map.of("userId", userId, "subject", ActivitySubject.COMMENT, "windowStart", windowStart, "windowEnd", windowEnd),
+                        cursor, sizePerPage, sort, order)
+                .map(commentMapper::toCommentResp);
+    }
 }
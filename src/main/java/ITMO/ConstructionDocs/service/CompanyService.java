@@ -1,17 +1,25 @@
 package ITMO.ConstructionDocs.service;
 
+import ITMO.ConstructionDocs.cache.CacheInvalidation;
+import ITMO.ConstructionDocs.cache.SecondLevelCache;
 import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.mapper.CompanyMapper;
 import ITMO.ConstructionDocs.model.db.entity.Company;
 import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.projection.CompanyView;
 import ITMO.ConstructionDocs.model.db.repository.CompanyRepository;
+import ITMO.ConstructionDocs.model.dto.request.BatchUpdateReq;
 import ITMO.ConstructionDocs.model.dto.request.CommentToProjDocReq;
 import ITMO.ConstructionDocs.model.dto.request.CompanyReq;
 import ITMO.ConstructionDocs.model.dto.request.CompanyToProjectReq;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
 import ITMO.ConstructionDocs.model.dto.response.CompanyResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
 import ITMO.ConstructionDocs.model.dto.response.ProjectResp;
+import ITMO.ConstructionDocs.model.enums.ActivitySubject;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.model.enums.SearchType;
 import ITMO.ConstructionDocs.utils.PaginationUtil;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -23,43 +31,101 @@ import org.springframework.stereotype.Service;
 
 import javax.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CompanyService {
-    private final ObjectMapper objectMapper;
+    private static final String COMPANY_PROJECTS = Company.class.getName() + ".projects";
+    private static final String PROJECT_COMPANIES = Project.class.getName() + ".companies";
+
+    private final CompanyMapper companyMapper;
+    private final SearchService searchService;
+    private final SeekPaginationService seekPaginationService;
     private final CompanyRepository companyRepository;
     private final ProjectService projectService;
+    private final BatchWriter batchWriter;
+    private final SecondLevelCache secondLevelCache;
+    private final ActivityService activityService;
 
     public CompanyResp createCompany(CompanyReq request) {
         companyRepository.findByNameIgnoreCase(request.getName())
                 .ifPresent(company -> {
-                    throw new CustomException(String.format("Company with such name: %s already exists", request.getName()), HttpStatus.BAD_REQUEST);
+                    throw nameExists(request);
                 });
 
-        Company company = objectMapper.convertValue(request, Company.class);
-        company.setCreatedAt(LocalDateTime.now());
-        company.setStatus(CommonStatus.CREATED);
+        Company save = companyRepository.save(toNewCompany(request));
 
-        Company save = companyRepository.save(company);
+        return companyMapper.toCompanyResp(save);
+    }
+
+    public BatchResp<CompanyResp> createCompanies(List<CompanyReq> requests) {
+        // one select for the names taken, which also collects the names earlier in the batch
+        Set<String> names = getExistingNames(requests);
+
+        return batchWriter.create(requests, request -> {
+            if (request.getName() != null && !names.add(request.getName().toLowerCase())) {
+                throw nameExists(request);
+            }
+            return toNewCompany(request);
+        }, companyRepository, Company::getId, companyMapper::toCompanyResp);
+    }
+
+    private Set<String> getExistingNames(List<CompanyReq> requests) {
+        List<String> names = requests.stream()
+                .map(CompanyReq::getName)
+                .filter(Objects::nonNull)
+                .map(String::toLowerCase)
+                .collect(Collectors.toList());
+
+        return names.isEmpty() ? new HashSet<>() : new HashSet<>(companyRepository.findExistingNames(names));
+    }
 
-        return objectMapper.convertValue(save, CompanyResp.class);
+    private CustomException nameExists(CompanyReq request) {
+        return new CustomException(String.format("Company with such name: %s already exists", request.getName()), HttpStatus.BAD_REQUEST);
+    }
+
+    private Company toNewCompany(CompanyReq request) {
+        Company company = companyMapper.toCompany(request);
+        company.setCreatedAt(LocalDateTime.now());
+        company.setStatus(CommonStatus.CREATED);
+        return company;
     }
 
     public CompanyResp getCompany(Long id) {
-        return objectMapper.convertValue(getCompanyFromDB(id), CompanyResp.class);
+        return companyMapper.toCompanyResp(getCompanyFromDB(id));
     }
 
     public Company getCompanyFromDB(Long id) {
         return companyRepository.findById(id).orElseThrow(() -> new CustomException("Company not found", HttpStatus.NOT_FOUND));
     }
 
+    public List<Long> getExistingIds(Collection<Long> ids) {
+        return companyRepository.findExistingIds(ids);
+    }
+
     public CompanyResp updateCompany(Long id, CompanyReq request) {
         Company company = getCompanyFromDB(id);
+        applyUpdate(company, request);
+
+        Company save = companyRepository.save(company);
+
+        return companyMapper.toCompanyResp(save);
+    }
+
+    public BatchResp<CompanyResp> updateCompanies(List<BatchUpdateReq<CompanyReq>> requests) {
+        return batchWriter.update(requests, companyRepository, Company::getId, "Company not found",
+                this::applyUpdate, companyMapper::toCompanyResp);
+    }
 
+    private void applyUpdate(Company company, CompanyReq request) {
         if (request.getName() != null) {
             company.setName(request.getName());
         }
@@ -78,36 +144,48 @@ public class CompanyService {
 
         company.setUpdatedAt(LocalDateTime.now());
         company.setStatus(CommonStatus.UPDATED);
-
-        Company save = companyRepository.save(company);
-
-        return objectMapper.convertValue(save, CompanyResp.class);
     }
 
     public void deleteCompany(Long id) {
         Company company = getCompanyFromDB(id);
+        markDeleted(company);
+        companyRepository.save(company);
+    }
+
+    public BatchResp<Void> deleteCompanies(List<Long> ids) {
+        return batchWriter.delete(ids, companyRepository, Company::getId, "Company not found", this::markDeleted);
+    }
+
+    private void markDeleted(Company company) {
         company.setUpdatedAt(LocalDateTime.now());
         company.setStatus(CommonStatus.DELETED);
-        companyRepository.save(company);
     }
 
     public Page<CompanyResp> getAllCompanies(Integer page, Integer sizePerPage, String sort, Sort.Direction order, String filter) {
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<Company> all;
+        Page<CompanyView> all;
         if (filter == null) {
             all = companyRepository.findAllNotDeleted(pageRequest, CommonStatus.DELETED);
+        } else if (searchService.isReady()) {
+            all = searchService.search(SearchType.COMPANY, filter, pageRequest, Long::valueOf, companyRepository::findViewsByIdIn, CompanyView::getId);
         } else {
             all = companyRepository.findAllNotDeletedAndFiltered(pageRequest, CommonStatus.DELETED, filter.toLowerCase());
         }
 
         List<CompanyResp> content = all.getContent().stream()
-                .map(company -> objectMapper.convertValue(company, CompanyResp.class))
+                .map(companyMapper::toCompanyResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
+    public CursorPageResp<CompanyResp> seekAllCompanies(String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        return seekPaginationService.seek(Company.class, "e.status <> :status", Map.of("status", CommonStatus.DELETED),
+                        cursor, sizePerPage, sort, order)
+                .map(companyMapper::toCompanyResp);
+    }
+
     public Company updateCompanyData(Company company) {
         return companyRepository.save(company);
     }
@@ -121,18 +199,34 @@ public class CompanyService {
 
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<Company> all = companyRepository.findAllByProjectId(projectId, pageRequest);
+        Page<CompanyView> all = companyRepository.findAllByProjectId(projectId, pageRequest);
 
         List<CompanyResp> content = all.getContent().stream()
-                .map(company -> objectMapper.convertValue(company, CompanyResp.class))
+                .map(companyMapper::toCompanyResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
+    public CursorPageResp<CompanyResp> seekCompanyByProjectId(Long projectId, String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        Project project = projectService.getProjectFromDB(projectId);
+
+        if (project.getStatus().equals(CommonStatus.DELETED)) {
+            throw new CustomException(String.format("Project Info with id: %d is DELETED from DataBase", projectId), HttpStatus.NO_CONTENT);
+        }
+
+        return seekPaginationService.seek(Company.class, "e.id in (select c.id from Company c join c.projects p " +
+                        "where p.id = :id)", Map.of("id", projectId),
+                        cursor, sizePerPage, sort, order)
+                .map(companyMapper::toCompanyResp);
+    }
+
     public void addCompanyToProject(@Valid CompanyToProjectReq companyToProjectReq) {
         Company company = getCompanyFromDB(companyToProjectReq.getCompanyId());
         Project project = projectService.getProjectFromDB(companyToProjectReq.getProjectId());
+        if (company.getProjects().stream().anyMatch(linked -> linked.getId().equals(project.getId()))) {
+            return;
+        }
 
         project.getCompanies().add(company);
         projectService.updateProjectData(project);
@@ -140,4 +234,26 @@ public class CompanyService {
         company.getProjects().add(project);
         companyRepository.save(company);
     }
+
+    /**
+     * Links each company to its project by inserting the join row unless it is there, the projects of the
+     * companies and the companies of the projects are not loaded.
+     */
+    public BatchResp<Void> addCompaniesToProjects(List<CompanyToProjectReq> requests) {
+        return batchWriter.link(requests,
+                CompanyToProjectReq::getCompanyId, companyRepository::findExistingIds, "Company not found",
+                CompanyToProjectReq::getProjectId, projectService::getExistingIds, "Project not found",
+                "insert into company_project (company_id, project_id) values (?, ?) on conflict do nothing",
+                request -> new Object[]{request.getCompanyId(), request.getProjectId()},
+                linked -> {
+                    linked.forEach(request -> {
+                        secondLevelCache.invalidate(CacheInvalidation.collection(COMPANY_PROJECTS, request.getCompanyId()));
+                        secondLevelCache.invalidate(CacheInvalidation.collection(PROJECT_COMPANIES, request.getProjectId()));
+                    });
+                    activityService.recordLinked(ActivitySubject.COMPANY, linked, (request, event) -> {
+                        event.setSubjectId(String.valueOf(request.getCompanyId()));
+                        event.setProjectId(request.getProjectId());
+                    });
+                });
+    }
 }
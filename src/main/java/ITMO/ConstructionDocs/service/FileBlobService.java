@@ -0,0 +1,156 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.metrics.FileTransferMetrics;
+import ITMO.ConstructionDocs.model.db.entity.Doc;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
+import ITMO.ConstructionDocs.model.db.repository.BlobTextRepository;
+import ITMO.ConstructionDocs.model.db.repository.FileBlobRepository;
+import ITMO.ConstructionDocs.storage.DocumentStorage;
+import ITMO.ConstructionDocs.storage.LegacyFileStorage;
+import ITMO.ConstructionDocs.utils.FileStreamUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static ITMO.ConstructionDocs.constants.Constants.BLOBS_PREFIX;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileBlobService {
+    private final FileBlobRepository fileBlobRepository;
+    private final BlobTextRepository blobTextRepository;
+    private final DocumentStorage documentStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final FileTransferMetrics fileTransferMetrics;
+    private final LegacyFileStorage legacyFileStorage = new LegacyFileStorage();
+
+    /**
+     * Streams the content into the store under its SHA-256 hash, which is computed during the copy.
+     * If a blob with the same hash is already stored, only its reference count grows and the new
+     * copy is dropped. Every stored blob has to be handed back with {@link #release(String)}, also when the
+     * doc referencing it is not saved. In a transaction of the caller the reference rolls back with it.
+     */
+    public FileBlob storeContent(InputStream content, long maxSize) throws IOException {
+        long start = System.nanoTime();
+        // staged on this node, the hash is only known once the whole stream has been read
+        Path stagedFile = Files.createTempFile("blob-", ".staged");
+        MessageDigest digest = newDigest();
+
+        try {
+            long fileSize = FileStreamUtil.writeToFile(content, stagedFile, maxSize, digest);
+            String contentHash = String.format("%064x", new BigInteger(1, digest.digest()));
+
+            // uploaded before the reference is taken, so the blob row is not locked during the transfer
+            String blobKey = getBlobKey(contentHash);
+            storeBlob(stagedFile, blobKey);
+            // the upsert keeps the blob row locked until commit, so removeUnreferencedBlobs cannot delete
+            // the object once it is referenced. The staged file is left when an unreferenced copy was found
+            // above, which removeUnreferencedBlobs may have deleted since: it is stored again then
+            transactionTemplate.executeWithoutResult(status -> {
+                fileBlobRepository.acquire(contentHash, fileSize);
+                if (Files.exists(stagedFile)) {
+                    storeBlob(stagedFile, blobKey);
+                }
+            });
+            fileTransferMetrics.recordUpload(fileSize, start);
+
+            FileBlob fileBlob = new FileBlob();
+            fileBlob.setContentHash(contentHash);
+            fileBlob.setFileSize(fileSize);
+            return fileBlob;
+
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(stagedFile);
+        }
+    }
+
+    public void release(String contentHash) {
+        if (contentHash != null) {
+            transactionTemplate.executeWithoutResult(status -> fileBlobRepository.release(contentHash));
+        }
+    }
+
+    /**
+     * Drops the content a doc referenced: the blob reference or, for docs stored before content
+     * addressing, the file itself.
+     */
+    public void releaseContent(String contentHash, String fileAddress) throws IOException {
+        if (contentHash != null) {
+            release(contentHash);
+        } else if (fileAddress != null) {
+            legacyFileStorage.delete(fileAddress);
+        }
+    }
+
+    /**
+     * Storage holding the doc content, read with {@link #getContentKey(Doc)}: the blob store, or the legacy
+     * files for docs stored before content addressing.
+     */
+    public DocumentStorage getContentStorage(Doc doc) {
+        return doc.getContentHash() != null ? documentStorage : legacyFileStorage;
+    }
+
+    /**
+     * Storage key of the doc content. Docs stored before content addressing keep their file at {@code fileAddress}.
+     */
+    public String getContentKey(Doc doc) {
+        if (doc.getContentHash() != null) {
+            return getBlobKey(doc.getContentHash());
+        }
+        return doc.getFileAddress();
+    }
+
+    public String getBlobKey(String contentHash) {
+        return BLOBS_PREFIX + contentHash.substring(0, 2) + "/" + contentHash.substring(2, 4) + "/" + contentHash;
+    }
+
+    @Scheduled(fixedDelay = 60 * 60 * 1000)
+    public void removeUnreferencedBlobs() {
+        for (String contentHash : fileBlobRepository.findAllUnreferenced()) {
+            transactionTemplate.executeWithoutResult(status -> fileBlobRepository.findByIdForUpdate(contentHash)
+                    .filter(fileBlob -> fileBlob.getRefCount() <= 0)
+                    .ifPresent(fileBlob -> {
+                        try {
+                            documentStorage.delete(getBlobKey(contentHash));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        fileBlobRepository.delete(fileBlob);
+                        blobTextRepository.deleteByContentHash(contentHash);
+                        log.info("Unreferenced blob {} removed", contentHash);
+                    }));
+        }
+    }
+
+    private void storeBlob(Path stagedFile, String blobKey) {
+        try {
+            if (!documentStorage.exists(blobKey)) {
+                documentStorage.putFile(blobKey, stagedFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
+import ITMO.ConstructionDocs.model.enums.JobType;
+
+/**
+ * Work behind one {@link JobType}. {@link #run(BackgroundJob)} is also called for jobs that were
+ * interrupted by a restart, so it has to continue from the checkpoint saved in the job.
+ */
+public interface JobHandler {
+    JobType getType();
+
+    void run(BackgroundJob job);
+}
@@ -0,0 +1,244 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
+import ITMO.ConstructionDocs.model.db.entity.Doc;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.repository.AsbuiltDocRepository;
+import ITMO.ConstructionDocs.model.db.repository.DocRepository;
+import ITMO.ConstructionDocs.model.db.repository.ProjectDocRepository;
+import ITMO.ConstructionDocs.model.enums.DocStatus;
+import ITMO.ConstructionDocs.model.enums.JobType;
+import ITMO.ConstructionDocs.storage.DocumentStorage;
+import ITMO.ConstructionDocs.utils.FileAddressUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static ITMO.ConstructionDocs.constants.Constants.MAX_STREAM_FILE_SIZE;
+
+/**
+ * Moves files of docs stored before the blob store (absolute {@code fileAddress}, no content hash)
+ * into the store and rewrites their addresses relative to the project root. Runs as a background job
+ * scoped to all docs, one project or one project doc with its as-built docs.
+ * <p>
+ * Docs are walked in id order, one batch at a time; the items of a batch are imported in parallel on
+ * the job worker pool and the id of the last doc is saved as checkpoint once the whole batch is done.
+ * Importing a doc is idempotent, so a batch cut off by a restart is simply processed again.
+ * <p>
+ * The docs of a batch are stale by the time they are imported, so only the file columns are written, and only
+ * while the doc still has no content; a doc given a new file meanwhile keeps it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LegacyImportService implements JobHandler {
+    private static final int BATCH_SIZE = 100;
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private enum Stage {
+        PROJECT_DOCS,
+        ASBUILT_DOCS
+    }
+
+    private final ProjectDocRepository projectDocRepository;
+    private final AsbuiltDocRepository asbuiltDocRepository;
+    private final FileBlobService fileBlobService;
+    private final BackgroundJobService backgroundJobService;
+    private final ThreadPoolTaskExecutor jobWorkerExecutor;
+    private final SearchService searchService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Starts the import for one project if any of its docs still has a legacy file.
+     */
+    public Optional<BackgroundJob> importProjectFiles(Long projectId) {
+        long legacyDocs = projectDocRepository.countLegacyByProjectId(projectId, DocStatus.WITHDRAWN)
+                + asbuiltDocRepository.countLegacyByProjectId(projectId, DocStatus.WITHDRAWN);
+        if (legacyDocs == 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(backgroundJobService.submit(JobType.LEGACY_IMPORT, projectId, null));
+    }
+
+    /**
+     * Starts the import for a project doc and its as-built docs if any of them still has a legacy file.
+     */
+    public Optional<BackgroundJob> importProjectDocFiles(ProjectDoc projectDoc) {
+        long legacyDocs = asbuiltDocRepository.countLegacyByProjectDocId(projectDoc.getId(), DocStatus.WITHDRAWN);
+        if (isLegacy(projectDoc)) {
+            legacyDocs++;
+        }
+        if (legacyDocs == 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(backgroundJobService.submit(JobType.LEGACY_IMPORT, null, projectDoc.getId()));
+    }
+
+    /**
+     * Starts the import for each of the project docs of which the doc or an as-built doc still has a legacy file,
+     * found with one select for all of them.
+     */
+    public Map<UUID, BackgroundJob> importProjectDocFiles(Collection<UUID> projectDocIds) {
+        if (projectDocIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<UUID, BackgroundJob> jobs = new HashMap<>();
+        for (UUID projectDocId : projectDocRepository.findIdsWithLegacyFiles(projectDocIds, DocStatus.WITHDRAWN)) {
+            jobs.put(projectDocId, backgroundJobService.submit(JobType.LEGACY_IMPORT, null, projectDocId));
+        }
+        return jobs;
+    }
+
+    public BackgroundJob importAllFiles() {
+        return backgroundJobService.submit(JobType.LEGACY_IMPORT, null, null);
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.LEGACY_IMPORT;
+    }
+
+    @Override
+    public void run(BackgroundJob job) {
+        BiFunction<UUID, Pageable, Page<ProjectDoc>> projectDocs = projectDocFinder(job);
+        BiFunction<UUID, Pageable, Page<AsbuiltDoc>> asbuiltDocs = asbuiltDocFinder(job);
+
+        if (job.getCheckpointStage() == null) {
+            Pageable first = PageRequest.of(0, 1);
+            job.setTotalItems(projectDocs.apply(FIRST_ID, first).getTotalElements()
+                    + asbuiltDocs.apply(FIRST_ID, first).getTotalElements());
+            job.setCheckpointStage(Stage.PROJECT_DOCS.name());
+            backgroundJobService.saveProgress(job);
+        }
+
+        if (Stage.valueOf(job.getCheckpointStage()) == Stage.PROJECT_DOCS) {
+            importStage(job, projectDocs, FileAddressUtil::forProjectDoc, projectDocRepository);
+            job.setCheckpointStage(Stage.ASBUILT_DOCS.name());
+            job.setCheckpointItemId(null);
+            backgroundJobService.saveProgress(job);
+        }
+
+        importStage(job, asbuiltDocs, FileAddressUtil::forAsbuiltDoc, asbuiltDocRepository);
+
+        log.info("Legacy import {} finished: {} docs, {} failed", job.getId(), job.getProcessedItems(), job.getFailedItems());
+    }
+
+    private BiFunction<UUID, Pageable, Page<ProjectDoc>> projectDocFinder(BackgroundJob job) {
+        if (job.getProjectDocId() != null) {
+            return (afterId, pageRequest) -> projectDocRepository.findByIdAfterId(job.getProjectDocId(), afterId, pageRequest);
+        }
+        if (job.getProjectId() != null) {
+            return (afterId, pageRequest) -> projectDocRepository.findAllByProjectIdAfterId(job.getProjectId(), afterId, pageRequest);
+        }
+        return projectDocRepository::findAllAfterId;
+    }
+
+    private BiFunction<UUID, Pageable, Page<AsbuiltDoc>> asbuiltDocFinder(BackgroundJob job) {
+        if (job.getProjectDocId() != null) {
+            return (afterId, pageRequest) -> asbuiltDocRepository.findAllByProjectDocIdAfterId(job.getProjectDocId(), afterId, pageRequest);
+        }
+        if (job.getProjectId() != null) {
+            return (afterId, pageRequest) -> asbuiltDocRepository.findAllByProjectIdAfterId(job.getProjectId(), afterId, pageRequest);
+        }
+        return asbuiltDocRepository::findAllAfterId;
+    }
+
+    private <T extends Doc> void importStage(BackgroundJob job, BiFunction<UUID, Pageable, Page<T>> docs,
+                                             Function<T, String> fileAddress, DocRepository<T> repository) {
+        UUID afterId = job.getCheckpointItemId() == null ? FIRST_ID : job.getCheckpointItemId();
+        Pageable batch = PageRequest.of(0, BATCH_SIZE);
+
+        List<T> batchDocs = docs.apply(afterId, batch).getContent();
+        while (!batchDocs.isEmpty()) {
+            List<CompletableFuture<Boolean>> results = batchDocs.stream()
+                    .map(doc -> {
+                        String address = fileAddress.apply(doc);
+                        return CompletableFuture.supplyAsync(() -> importDoc(doc, address, repository), jobWorkerExecutor);
+                    })
+                    .collect(Collectors.toList());
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+
+            long failed = results.stream().filter(imported -> !imported.join()).count();
+            job.setProcessedItems(job.getProcessedItems() + batchDocs.size());
+            job.setFailedItems(job.getFailedItems() + failed);
+            afterId = batchDocs.get(batchDocs.size() - 1).getId();
+            job.setCheckpointItemId(afterId);
+            backgroundJobService.saveProgress(job);
+
+            if (batchDocs.size() < BATCH_SIZE) {
+                break;
+            }
+            batchDocs = docs.apply(afterId, batch).getContent();
+        }
+    }
+
+    private <T extends Doc> boolean importDoc(T doc, String fileAddress, DocRepository<T> repository) {
+        try {
+            if (isLegacy(doc)) {
+                String legacyKey = doc.getFileAddress();
+                DocumentStorage legacyFiles = fileBlobService.getContentStorage(doc);
+
+                FileBlob fileBlob;
+                try (InputStream content = legacyFiles.get(legacyKey)) {
+                    fileBlob = fileBlobService.storeContent(content, MAX_STREAM_FILE_SIZE);
+                }
+
+                int imported;
+                try {
+                    imported = transactionTemplate.execute(status -> repository.importContent(doc.getId(),
+                            fileBlob.getContentHash(), fileBlob.getFileSize(), fileAddress));
+                } catch (RuntimeException e) {
+                    fileBlobService.release(fileBlob.getContentHash());
+                    throw e;
+                }
+                if (imported == 0) {
+                    // the doc got a file of its own since the batch was read, which also dropped the legacy one
+                    fileBlobService.release(fileBlob.getContentHash());
+                    return true;
+                }
+
+                legacyFiles.delete(legacyKey);
+                doc.setContentHash(fileBlob.getContentHash());
+                doc.setFileSize(fileBlob.getFileSize());
+                doc.setFileAddress(fileAddress);
+                searchService.index(doc);
+
+            } else if (doc.getContentHash() != null && !fileAddress.equals(doc.getFileAddress())) {
+                transactionTemplate.execute(status ->
+                        repository.updateFileAddress(doc.getId(), doc.getContentHash(), fileAddress));
+                doc.setFileAddress(fileAddress);
+            }
+            return true;
+
+        } catch (Exception e) {
+            log.warn("File of doc {} was not imported: {}", doc.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isLegacy(Doc doc) {
+        return doc.getContentHash() == null && doc.getDocStatus() != DocStatus.WITHDRAWN;
+    }
+}
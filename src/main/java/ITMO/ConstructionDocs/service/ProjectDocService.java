@@ -1,18 +1,31 @@
 package ITMO.ConstructionDocs.service;
 
 import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.mapper.ProjectDocMapper;
+import ITMO.ConstructionDocs.metrics.FileTransferMetrics;
 import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
 import ITMO.ConstructionDocs.model.db.entity.Project;
 import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
 import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.projection.ProjectDocView;
 import ITMO.ConstructionDocs.model.db.repository.ProjectDocRepository;
 import ITMO.ConstructionDocs.model.dto.request.ProjectDocReq;
 import ITMO.ConstructionDocs.model.dto.request.ProjectDocToProjectReq;
+import ITMO.ConstructionDocs.model.dto.response.BackgroundJobResp;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
 import ITMO.ConstructionDocs.model.dto.response.ProjectDocResp;
+import ITMO.ConstructionDocs.model.enums.ActivitySubject;
+import ITMO.ConstructionDocs.model.enums.BulkEntryStatus;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
 import ITMO.ConstructionDocs.model.enums.DocStatus;
+import ITMO.ConstructionDocs.model.enums.SearchType;
+import ITMO.ConstructionDocs.utils.ActivityWindowUtil;
+import ITMO.ConstructionDocs.utils.FileDownloadUtil;
+import ITMO.ConstructionDocs.utils.FileAddressUtil;
 import ITMO.ConstructionDocs.utils.PaginationUtil;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,15 +39,22 @@ import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
-import static ITMO.ConstructionDocs.constants.Constants.FILETEMP;
+import static ITMO.ConstructionDocs.constants.Constants.MAX_STREAM_FILE_SIZE;
 
 @Slf4j
 @Service
@@ -42,8 +62,17 @@ import static ITMO.ConstructionDocs.constants.Constants.FILETEMP;
 public class ProjectDocService {
     private final ProjectDocRepository projectDocRepository;
     private final UserService userService;
-    private final ObjectMapper objectMapper;
+    private final UploadSessionService uploadSessionService;
+    private final FileBlobService fileBlobService;
+    private final LegacyImportService legacyImportService;
+    private final BackgroundJobService backgroundJobService;
+    private final ProjectDocMapper projectDocMapper;
+    private final SearchService searchService;
+    private final SeekPaginationService seekPaginationService;
     private final ProjectService projectService;
+    private final FileTransferMetrics fileTransferMetrics;
+    private final BatchWriter batchWriter;
+    private final ActivityService activityService;
 
     @Autowired
     @Lazy
@@ -53,49 +82,67 @@ public class ProjectDocService {
         return projectDocRepository.findById(id).orElseThrow(() -> new CustomException("ProjectDoc not found", HttpStatus.NOT_FOUND));
     }
 
+    public List<UUID> getExistingIds(Collection<UUID> ids) {
+        return projectDocRepository.findExistingIds(ids);
+    }
+
+    public List<ProjectDoc> getProjectDocsFromDB(Collection<UUID> ids) {
+        return projectDocRepository.findAllById(ids);
+    }
+
     /*public void setProjectDocAddress(ProjectDoc projectDoc, Project project, String fileName) {
         String address = project.getFilesRootDirectory() + "\\designs\\" + fileName;
         projectDoc.setFileAddress(address);
     }*/
 
     public ProjectDocResp createProjectDoc(ProjectDocReq request, MultipartFile file, Authentication auth) {
-        try {
-            ProjectDoc projectDoc = objectMapper.convertValue(request, ProjectDoc.class);
+        if (file.getSize() > 10485760) {
+            throw new CustomException("File is too big. No more than 10mb is allowed", HttpStatus.BAD_REQUEST);
+        }
 
-            String fileFormat = file.getContentType();
-            Long fileSize = file.getSize();
-            if (fileSize > 10485760) {
-                throw new CustomException("File is too big. No more than 10mb is allowed", HttpStatus.BAD_REQUEST);
-            }
-            projectDoc.setFileFormat(fileFormat);
-            projectDoc.setFileSize(fileSize);
-
-            File directory = new File(FILETEMP);
-            if (!directory.exists()) {
-                boolean created = directory.mkdirs();
-                if (!created) {
-                    throw new IOException("Error occurred while creating a directory" + FILETEMP);
-                }
-            }
+        try (InputStream content = file.getInputStream()) {
+            return createProjectDocFromStream(request, content, file.getContentType(), auth);
+        } catch (IOException e) {
+            throw new CustomException("Error occurred while saving the file", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    public ProjectDocResp updateProjectDoc(UUID id, ProjectDocReq request, MultipartFile file, Authentication auth) {
+        if (file.getSize() > 10485760) {
+            throw new CustomException("File is too big. No more than 10mb is allowed", HttpStatus.BAD_REQUEST);
+        }
 
-            String filePath = FILETEMP + request.getFileName();
+        try (InputStream content = file.getInputStream()) {
+            return updateProjectDocFromStream(id, request, content, file.getContentType(), auth);
+        } catch (IOException e) {
+            throw new CustomException("Error occurred while updating the file", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    public ProjectDocResp createProjectDocFromStream(ProjectDocReq request, InputStream content, String fileFormat, Authentication auth) {
+        try {
+            ProjectDoc projectDoc = projectDocMapper.toProjectDoc(request);
 
-            file.transferTo(new File(filePath));
-            projectDoc.setFileAddress(filePath);
             User currentUser = userService.getCurrentUser(auth);
+            FileBlob fileBlob = fileBlobService.storeContent(content, MAX_STREAM_FILE_SIZE);
+
+            projectDoc.setFileFormat(fileFormat);
+            projectDoc.setFileSize(fileBlob.getFileSize());
+            projectDoc.setContentHash(fileBlob.getContentHash());
+            projectDoc.setFileAddress(FileAddressUtil.forProjectDoc(projectDoc));
             projectDoc.setCreatedBy(currentUser);
             projectDoc.setCreatedAt(LocalDateTime.now());
 
-            ProjectDoc savedDoc = projectDocRepository.save(projectDoc);
+            ProjectDoc savedDoc = saveReferencingBlob(projectDoc);
 
-            return objectMapper.convertValue(savedDoc, ProjectDocResp.class);
+            return projectDocMapper.toProjectDocResp(savedDoc);
 
         } catch (IOException e) {
             throw new CustomException("Error occurred while saving the file", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    public ProjectDocResp updateProjectDoc(UUID id, ProjectDocReq request, MultipartFile file, Authentication auth) {
+    public ProjectDocResp updateProjectDocFromStream(UUID id, ProjectDocReq request, InputStream content, String fileFormat, Authentication auth) {
         try {
             ProjectDoc projectDoc = getProjectDocFromDB(id);
 
@@ -105,12 +152,6 @@ public class ProjectDocService {
 
             User currentUser = userService.getCurrentUser(auth);
 
-            String fileFormat = file.getContentType();
-            Long fileSize = file.getSize();
-            if (fileSize > 10485760) {
-                throw new CustomException("File is too big. No more than 10mb is allowed", HttpStatus.BAD_REQUEST);
-            }
-
             if (request.getDocStatus() != null) {
                 projectDoc.setDocStatus(request.getDocStatus());
             }
@@ -121,29 +162,54 @@ public class ProjectDocService {
                 projectDoc.setDescription(request.getDescription());
             }
 
-            projectDoc.setFileFormat(fileFormat);
-            projectDoc.setFileSize(fileSize);
-
-            String filePath;
-            if (projectDoc.getProject() != null) {
-                filePath = projectDoc.getFileAddress();
-            } else {
-                filePath = FILETEMP + request.getFileName();
-            }
+            String previousHash = projectDoc.getContentHash();
+            String previousAddress = projectDoc.getFileAddress();
+            FileBlob fileBlob = fileBlobService.storeContent(content, MAX_STREAM_FILE_SIZE);
 
-            file.transferTo(new File(filePath));
-            projectDoc.setFileAddress(filePath);
+            projectDoc.setFileFormat(fileFormat);
+            projectDoc.setFileSize(fileBlob.getFileSize());
+            projectDoc.setContentHash(fileBlob.getContentHash());
+            projectDoc.setFileAddress(FileAddressUtil.forProjectDoc(projectDoc));
             projectDoc.setUpdatedBy(currentUser);
             projectDoc.setUpdatedAt(LocalDateTime.now());
 
-            ProjectDoc savedDoc = projectDocRepository.save(projectDoc);
+            ProjectDoc savedDoc = saveReferencingBlob(projectDoc);
+            fileBlobService.releaseContent(previousHash, previousAddress);
 
-            return objectMapper.convertValue(savedDoc, ProjectDocResp.class);
+            return projectDocMapper.toProjectDocResp(savedDoc);
 
         } catch (IOException e) {
             throw new CustomException("Error occurred while updating the file", HttpStatus.INTERNAL_SERVER_ERROR);
         }
+    }
+
+    /**
+     * Saves a doc referencing the blob just stored for it, the reference is handed back when the doc is not saved.
+     */
+    private ProjectDoc saveReferencingBlob(ProjectDoc projectDoc) {
+        try {
+            return projectDocRepository.save(projectDoc);
+        } catch (RuntimeException e) {
+            fileBlobService.release(projectDoc.getContentHash());
+            throw e;
+        }
+    }
+
+    public ProjectDocResp commitProjectDocUpload(UUID sessionId, ProjectDocReq request, Authentication auth) {
+        ProjectDoc savedDoc = uploadSessionService.commitSession(sessionId, auth, (session, fileBlob) -> {
+            ProjectDoc projectDoc = projectDocMapper.toProjectDoc(request);
+            projectDoc.setFileFormat(session.getFileFormat());
+            projectDoc.setFileSize(fileBlob.getFileSize());
+            projectDoc.setContentHash(fileBlob.getContentHash());
+            projectDoc.setFileAddress(FileAddressUtil.forProjectDoc(projectDoc));
+            User currentUser = userService.getCurrentUser(auth);
+            projectDoc.setCreatedBy(currentUser);
+            projectDoc.setCreatedAt(LocalDateTime.now());
+
+            return projectDocRepository.saveAndFlush(projectDoc);
+        });
 
+        return projectDocMapper.toProjectDocResp(savedDoc);
     }
 
     public void deleteProjectDoc(UUID projectDocId, Authentication auth) {
@@ -155,16 +221,11 @@ public class ProjectDocService {
             projectDoc.setUpdatedBy(currentUser);
             projectDoc.setUpdatedAt(LocalDateTime.now());
 
-            String filePath = projectDoc.getFileAddress();
-            File fileToDelete = new File(filePath);
-            if (fileToDelete.exists()) {
-                boolean isDeleted = fileToDelete.delete();
-                if (!isDeleted) {
-                    System.out.println("Failed to delete the file, probably file was deleted before");
-                }
-            }
+            String contentHash = projectDoc.getContentHash();
+            projectDoc.setContentHash(null);
 
             projectDocRepository.save(projectDoc);
+            fileBlobService.releaseContent(contentHash, projectDoc.getFileAddress());
 
         } catch (Exception e) {
             throw new CustomException("Error occurred while deleting the document", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -172,32 +233,60 @@ public class ProjectDocService {
     }
 
     public ProjectDocResp getProjectDoc(UUID id) {
-        return objectMapper.convertValue(getProjectDocFromDB(id), ProjectDocResp.class);
+        return projectDocMapper.toProjectDocResp(getProjectDocFromDB(id));
+    }
+
+    public void writeProjectDocContent(UUID id, HttpServletRequest request, HttpServletResponse response) {
+        ProjectDoc projectDoc = getProjectDocFromDB(id);
+
+        if (projectDoc.getDocStatus() == DocStatus.WITHDRAWN) {
+            throw new CustomException(String.format("ProjectDoc with id: %s is WITHDRAWN", id), HttpStatus.NOT_FOUND);
+        }
+
+        long start = System.nanoTime();
+        try {
+            long bytes = FileDownloadUtil.writeContent(fileBlobService.getContentStorage(projectDoc), fileBlobService.getContentKey(projectDoc), projectDoc.getContentHash(),
+                    projectDoc.getFileFormat(), projectDoc.getFileName(), request, response);
+            fileTransferMetrics.recordDownload(bytes, start);
+        } catch (IOException e) {
+            throw new CustomException("Error occurred while reading the file", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
     }
 
     public Page<ProjectDocResp> getAllProjectDocs(Integer page, Integer sizePerPage, String sort, Sort.Direction order, String filter) {
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<ProjectDoc> all;
+        Page<ProjectDocView> all;
         if (filter == null) {
             all = projectDocRepository.findAllNotDeleted(pageRequest, DocStatus.WITHDRAWN);
+        } else if (searchService.isReady()) {
+            all = searchService.search(SearchType.PROJECT_DOC, filter, pageRequest, UUID::fromString, projectDocRepository::findViewsByIdIn, ProjectDocView::getId);
         } else {
             all = projectDocRepository.findAllNotDeletedAndFiltered(pageRequest, DocStatus.WITHDRAWN, filter.toLowerCase());
         }
 
         List<ProjectDocResp> content = all.getContent().stream()
-                .map(comment -> objectMapper.convertValue(comment, ProjectDocResp.class))
+                .map(projectDocMapper::toProjectDocResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
-    public void addProjectDocToProject(@Valid ProjectDocToProjectReq request, Authentication auth) {
+    public CursorPageResp<ProjectDocResp> seekAllProjectDocs(String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        return seekPaginationService.seek(ProjectDoc.class, "e.docStatus <> :status", Map.of("status", DocStatus.WITHDRAWN),
+                        cursor, sizePerPage, sort, order)
+                .map(projectDocMapper::toProjectDocResp);
+    }
+
+    /**
+     * Attaches the doc to the project. Files are addressed relative to the project root, so only a legacy file
+     * of the doc or of its as-built docs has to be moved; that runs as a background job whose state is returned,
+     * otherwise the result is null.
+     */
+    public BackgroundJobResp addProjectDocToProject(@Valid ProjectDocToProjectReq request, Authentication auth) {
         ProjectDoc projectDoc = getProjectDocFromDB(request.getProjectDocId());
         Project project = projectService.getProjectFromDB(request.getProjectId());
 
-        transferProjectDocFileToNewAddress(project.getId(), projectDoc.getId());
-
         projectDoc.setUpdatedAt(LocalDateTime.now());
         projectDoc.setUpdatedBy(userService.getCurrentUser(auth));
 
@@ -205,7 +294,48 @@ public class ProjectDocService {
         projectService.updateProjectData(project);
 
         projectDoc.setProject(project);
-        projectDocRepository.save(projectDoc);
+        ProjectDoc savedDoc = projectDocRepository.save(projectDoc);
+
+        return legacyImportService.importProjectDocFiles(savedDoc)
+                .map(backgroundJobService::toBackgroundJobResp)
+                .orElse(null);
+    }
+
+    /**
+     * Attaches each doc to its project by setting the foreign key, the docs of the projects are not loaded.
+     * Legacy files of a doc or of its as-built docs are moved by a background job, its state is the item of the
+     * pair.
+     */
+    public BatchResp<BackgroundJobResp> addProjectDocsToProjects(List<ProjectDocToProjectReq> requests, Authentication auth) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Long currentUserId = userService.getCurrentUser(auth).getId();
+
+        BatchResp<BackgroundJobResp> resp = batchWriter.link(requests,
+                ProjectDocToProjectReq::getProjectDocId, projectDocRepository::findExistingIds, "ProjectDoc not found",
+                ProjectDocToProjectReq::getProjectId, projectService::getExistingIds, "Project not found",
+                "update docs set project_id = ?, updated_at = ?, updated_by_user_id = ? where id = ?",
+                request -> new Object[]{request.getProjectId(), now, currentUserId, request.getProjectDocId()},
+                linked -> activityService.recordLinked(ActivitySubject.PROJECT_DOC, linked, (request, event) -> {
+                    event.setSubjectId(String.valueOf(request.getProjectDocId()));
+                    event.setProjectDocId(request.getProjectDocId());
+                    event.setProjectId(request.getProjectId());
+                }));
+
+        Set<UUID> linkedIds = batchWriter.succeeded(resp, requests).stream()
+                .map(ProjectDocToProjectReq::getProjectDocId)
+                .collect(Collectors.toSet());
+        if (linkedIds.isEmpty()) {
+            return resp;
+        }
+        searchService.indexAll(projectDocRepository.findAllById(linkedIds));
+
+        Map<UUID, BackgroundJob> jobs = legacyImportService.importProjectDocFiles(linkedIds);
+        resp.getItems().stream()
+                .filter(item -> item.getStatus() == BulkEntryStatus.LINKED)
+                .forEach(item -> Optional.ofNullable(jobs.get(requests.get(item.getIndex()).getProjectDocId()))
+                        .map(backgroundJobService::toBackgroundJobResp)
+                        .ifPresent(item::setItem));
+        return resp;
     }
 
     public ProjectDoc updateProjectDocData(ProjectDoc projectDoc) {
@@ -221,71 +351,62 @@ public class ProjectDocService {
 
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<ProjectDoc> all = projectDocRepository.findAllByProjectId(projectId, pageRequest);
+        Page<ProjectDocView> all = projectDocRepository.findAllByProjectId(projectId, pageRequest);
 
         List<ProjectDocResp> content = all.getContent().stream()
-                .map(projectDoc -> objectMapper.convertValue(projectDoc, ProjectDocResp.class))
+                .map(projectDocMapper::toProjectDocResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
-    public Page<ProjectDocResp> getProjectDocsForLastWeekByProjId(Long projectId, Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
+    public CursorPageResp<ProjectDocResp> seekProjectDocsByProjectId(Long projectId, String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
         Project project = projectService.getProjectFromDB(projectId);
 
         if (project.getStatus().equals(CommonStatus.DELETED)) {
             throw new CustomException(String.format("Project Info with id: %d is DELETED from DataBase", projectId), HttpStatus.NO_CONTENT);
         }
 
-        LocalDateTime lastWeek = LocalDateTime.now().minusWeeks(1);
+        return seekPaginationService.seek(ProjectDoc.class, "e.project.id = :id", Map.of("id", projectId),
+                        cursor, sizePerPage, sort, order)
+                .map(projectDocMapper::toProjectDocResp);
+    }
+
+    public Page<ProjectDocResp> getProjectDocsForLastWeekByProjId(Long projectId, LocalDateTime from, LocalDateTime to, Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
+        Project project = projectService.getProjectFromDB(projectId);
+
+        if (project.getStatus().equals(CommonStatus.DELETED)) {
+            throw new CustomException(String.format("Project Info with id: %d is DELETED from DataBase", projectId), HttpStatus.NO_CONTENT);
+        }
+
+        LocalDateTime windowEnd = ActivityWindowUtil.getTo(to);
+        LocalDateTime windowStart = ActivityWindowUtil.getFrom(from, windowEnd);
 
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<ProjectDoc> all = projectDocRepository.findAllForLastWeekByProjectId(lastWeek, projectId, pageRequest);
+        Page<ProjectDocView> all = projectDocRepository.findAllChangedByProjectId(projectId, windowStart, windowEnd, pageRequest);
 
         List<ProjectDocResp> content = all.getContent().stream()
-                .map(projectDoc -> objectMapper.convertValue(projectDoc, ProjectDocResp.class))
+                .map(projectDocMapper::toProjectDocResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
-    public void transferProjectDocFileToNewAddress(Long projectId, UUID projectDocId) {
+    public CursorPageResp<ProjectDocResp> seekProjectDocsForLastWeekByProjId(Long projectId, LocalDateTime from, LocalDateTime to, String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
         Project project = projectService.getProjectFromDB(projectId);
-        ProjectDoc projectDoc = getProjectDocFromDB(projectDocId);
-
-        String oldFilePath = projectDoc.getFileAddress();
-        String newFilePath = project.getFilesRootDirectory() + File.separator + projectDoc.getFileName();
-
-        File oldFile = new File(oldFilePath);
-        File newFile = new File(newFilePath);
-
-        if (!oldFile.exists()) {
-            throw new CustomException("ProjectDoc file was not found: " + oldFile.getPath(), HttpStatus.NOT_FOUND);
-        }
 
-        File parentDir = newFile.getParentFile();
-        if (!parentDir.exists()) {
-            boolean created = parentDir.mkdirs();
-            if (!created) {
-                throw new CustomException("Error occurred while creating directories for the new file path: " + newFile.getPath(), HttpStatus.INTERNAL_SERVER_ERROR);
-            }
-        }
-
-        if (oldFile.renameTo(newFile)) {
-            projectDoc.setFileAddress(newFilePath);
-        } else {
-            throw new CustomException("Error occurred while transferring the file to new path: " + newFile.getPath(), HttpStatus.INTERNAL_SERVER_ERROR);
+        if (project.getStatus().equals(CommonStatus.DELETED)) {
+            throw new CustomException(String.format("Project Info with id: %d is DELETED from DataBase", projectId), HttpStatus.NO_CONTENT);
         }
 
-        if (!projectDoc.getAsbuiltDocs().isEmpty()) {
-            for (AsbuiltDoc asbuiltDoc : projectDoc.getAsbuiltDocs()) {
-                asbuiltDocService.transferAsbuiltDocFileToNewAddress(projectDoc.getId(), asbuiltDoc.getId());
-            }
-        }
+        LocalDateTime windowEnd = ActivityWindowUtil.getTo(to);
+        LocalDateTime windowStart = ActivityWindowUtil.getFrom(from, windowEnd);
 
-        projectDocRepository.save(projectDoc);
+        return seekPaginationService.seek(ProjectDoc.class, "e.id in (select ev.projectDocId from ActivityEvent ev where " +
+                        "ev.projectId = :id and ev.subject = :subject and ev.occurredAt >= :windowStart and ev.occurredAt < :windowEnd)",
+                        Map.of("id", projectId, "subject", ActivitySubject.PROJECT_DOC, "windowStart", windowStart, "windowEnd", windowEnd),
+                        cursor, sizePerPage, sort, order)
+                .map(projectDocMapper::toProjectDocResp);
     }
 }
-    
-
@@ -1,19 +1,22 @@
 package ITMO.ConstructionDocs.service;
 
 import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.mapper.ProjectMapper;
 import ITMO.ConstructionDocs.model.db.entity.Company;
 import ITMO.ConstructionDocs.model.db.entity.Project;
-import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.projection.ProjectView;
 import ITMO.ConstructionDocs.model.db.repository.ProjectRepository;
+import ITMO.ConstructionDocs.model.dto.request.BatchUpdateReq;
 import ITMO.ConstructionDocs.model.dto.request.ProjectReq;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
 import ITMO.ConstructionDocs.model.dto.response.ProjectResp;
+import ITMO.ConstructionDocs.model.enums.BulkEntryStatus;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.model.enums.SearchType;
 import ITMO.ConstructionDocs.utils.PaginationUtil;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -22,60 +25,130 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProjectService {
-    private final ObjectMapper objectMapper;
+    private final ProjectMapper projectMapper;
+    private final SearchService searchService;
+    private final SeekPaginationService seekPaginationService;
     private final ProjectRepository projectRepository;
-
-    @Autowired
-    @Lazy
-    private ProjectDocService projectDocService;
+    private final LegacyImportService legacyImportService;
+    private final BatchWriter batchWriter;
     /*private final CompanyService companyService;*/
 
     public ProjectResp createProject(ProjectReq request) {
         projectRepository.findByNameIgnoreCase(request.getName())
                 .ifPresent(project -> {
-                    throw new CustomException(String.format("Project with such name: %s already exists", request.getName()), HttpStatus.BAD_REQUEST);
+                    throw nameExists(request);
                 });
 
-        Project project = objectMapper.convertValue(request, Project.class);
-        project.setCreatedAt(LocalDateTime.now());
-        project.setStatus(CommonStatus.CREATED);
+        Project save = projectRepository.save(toNewProject(request));
 
-        Project save = projectRepository.save(project);
+        return projectMapper.toProjectResp(save);
+    }
+
+    public BatchResp<ProjectResp> createProjects(List<ProjectReq> requests) {
+        // one select for the names taken, which also collects the names earlier in the batch
+        Set<String> names = getExistingNames(requests);
+
+        return batchWriter.create(requests, request -> {
+            if (request.getName() != null && !names.add(request.getName().toLowerCase())) {
+                throw nameExists(request);
+            }
+            return toNewProject(request);
+        }, projectRepository, Project::getId, projectMapper::toProjectResp);
+    }
+
+    private Set<String> getExistingNames(List<ProjectReq> requests) {
+        List<String> names = requests.stream()
+                .map(ProjectReq::getName)
+                .filter(Objects::nonNull)
+                .map(String::toLowerCase)
+                .collect(Collectors.toList());
+
+        return names.isEmpty() ? new HashSet<>() : new HashSet<>(projectRepository.findExistingNames(names));
+    }
+
+    private CustomException nameExists(ProjectReq request) {
+        return new CustomException(String.format("Project with such name: %s already exists", request.getName()), HttpStatus.BAD_REQUEST);
+    }
 
-        return objectMapper.convertValue(save, ProjectResp.class);
+    private Project toNewProject(ProjectReq request) {
+        Project project = projectMapper.toProject(request);
+        project.setCreatedAt(LocalDateTime.now());
+        project.setStatus(CommonStatus.CREATED);
+        return project;
     }
 
     public ProjectResp getProject(Long id) {
-        return objectMapper.convertValue(getProjectFromDB(id), ProjectResp.class);
+        return projectMapper.toProjectResp(getProjectFromDB(id));
     }
 
     public Project getProjectFromDB(Long id) {
         return projectRepository.findById(id).orElseThrow(() -> new CustomException("Project not found", HttpStatus.NOT_FOUND));
     }
 
+    public List<Long> getExistingIds(Collection<Long> ids) {
+        return projectRepository.findExistingIds(ids);
+    }
+
     public ProjectResp updateProject(Long id, ProjectReq request) {
         Project project = getProjectFromDB(id);
+        boolean rootDirectoryChanged = applyUpdate(project, request);
 
+        Project save = projectRepository.save(project);
+
+        ProjectResp resp = projectMapper.toProjectResp(save);
+        if (rootDirectoryChanged) {
+            legacyImportService.importProjectFiles(id)
+                    .ifPresent(job -> resp.setMigrationJobId(job.getId()));
+        }
+
+        return resp;
+    }
+
+    public BatchResp<ProjectResp> updateProjects(List<BatchUpdateReq<ProjectReq>> requests) {
+        Set<Long> relocated = new HashSet<>();
+        BatchResp<ProjectResp> resp = batchWriter.update(requests, projectRepository, Project::getId, "Project not found",
+                (project, request) -> {
+                    if (applyUpdate(project, request)) {
+                        relocated.add(project.getId());
+                    }
+                }, projectMapper::toProjectResp);
+
+        // the imports read the committed root directories
+        resp.getItems().stream()
+                .filter(item -> item.getStatus() == BulkEntryStatus.UPDATED && relocated.contains(item.getId()))
+                .forEach(item -> legacyImportService.importProjectFiles(item.getId())
+                        .ifPresent(job -> item.getItem().setMigrationJobId(job.getId())));
+
+        return resp;
+    }
+
+    /**
+     * Returns whether the files root directory changed, which the files of the project are imported from.
+     */
+    private boolean applyUpdate(Project project, ProjectReq request) {
         if (request.getName() != null) {
             project.setName(request.getName());
         }
         if (request.getAddress() != null) {
             project.setAddress(request.getAddress());
         }
+        // doc addresses are relative to the root directory, so relocating the project is this single update
+        boolean rootDirectoryChanged = request.getFilesRootDirectory() != null
+                && !request.getFilesRootDirectory().equals(project.getFilesRootDirectory());
         if (request.getFilesRootDirectory() != null) {
             project.setFilesRootDirectory(request.getFilesRootDirectory());
-            if (!project.getProjectDocs().isEmpty()) {
-                for (ProjectDoc projectDoc : project.getProjectDocs()) {
-                    projectDocService.transferProjectDocFileToNewAddress(id, projectDoc.getId());
-                }
-            }
         }
         if (request.getDescription() != null) {
             project.setDescription(request.getDescription());
@@ -83,36 +156,49 @@ public class ProjectService {
 
         project.setUpdatedAt(LocalDateTime.now());
         project.setStatus(CommonStatus.UPDATED);
-
-        Project save = projectRepository.save(project);
-
-        return objectMapper.convertValue(save, ProjectResp.class);
+        return rootDirectoryChanged;
     }
 
     public void deleteProject(Long id) {
         Project project = getProjectFromDB(id);
+        markDeleted(project);
+        projectRepository.save(project);
+    }
+
+    public BatchResp<Void> deleteProjects(List<Long> ids) {
+        return batchWriter.delete(ids, projectRepository, Project::getId, "Project not found", this::markDeleted);
+    }
+
+    private void markDeleted(Project project) {
         project.setUpdatedAt(LocalDateTime.now());
         project.setStatus(CommonStatus.DELETED);
-        projectRepository.save(project);
     }
 
     public Page<ProjectResp> getAllProjects(Integer page, Integer sizePerPage, String sort, Sort.Direction order, String filter) {
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<Project> all;
+        Page<ProjectView> all;
         if (filter == null) {
             all = projectRepository.findAllNotDeleted(pageRequest, CommonStatus.DELETED);
+        } else if (searchService.isReady()) {
+            all = searchService.search(SearchType.PROJECT, filter, pageRequest, Long::valueOf, projectRepository::findViewsByIdIn, ProjectView::getId);
         } else {
             all = projectRepository.findAllNotDeletedAndFiltered(pageRequest, CommonStatus.DELETED, filter.toLowerCase());
         }
 
         List<ProjectResp> content = all.getContent().stream()
-                .map(project -> objectMapper.convertValue(project, ProjectResp.class))
+                .map(projectMapper::toProjectResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
+    public CursorPageResp<ProjectResp> seekAllProjects(String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        return seekPaginationService.seek(Project.class, "e.status <> :status", Map.of("status", CommonStatus.DELETED),
+                        cursor, sizePerPage, sort, order)
+                .map(projectMapper::toProjectResp);
+    }
+
     public Project updateProjectData(Project project) {
         return projectRepository.save(project);
     }
@@ -129,7 +215,7 @@ public class ProjectService {
         Page<Project> all = projectRepository.findAllByCompanyId(companyId, pageRequest);
 
         List<ProjectResp> content = all.getContent().stream()
-                .map(comment -> objectMapper.convertValue(comment, ProjectResp.class))
+                .map(projectMapper::toProjectResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
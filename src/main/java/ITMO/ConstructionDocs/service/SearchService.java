@@ -0,0 +1,303 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
+import ITMO.ConstructionDocs.model.db.entity.Comment;
+import ITMO.ConstructionDocs.model.db.entity.Company;
+import ITMO.ConstructionDocs.model.db.entity.Doc;
+import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.repository.AsbuiltDocRepository;
+import ITMO.ConstructionDocs.model.db.repository.CommentRepository;
+import ITMO.ConstructionDocs.model.db.repository.CompanyRepository;
+import ITMO.ConstructionDocs.model.db.repository.ProjectDocRepository;
+import ITMO.ConstructionDocs.model.db.repository.ProjectRepository;
+import ITMO.ConstructionDocs.model.db.repository.UserRepository;
+import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.model.enums.DocStatus;
+import ITMO.ConstructionDocs.model.enums.JobType;
+import ITMO.ConstructionDocs.model.enums.SearchType;
+import ITMO.ConstructionDocs.search.SearchHits;
+import ITMO.ConstructionDocs.search.SearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keeps the search index in line with the database and serves the filtered {@code getAll*} pages from it.
+ * Entities are indexed after every committed write (see {@code SearchIndexListener}); the whole index is
+ * rebuilt by a background job at the first start and on demand. While the index is incomplete the services
+ * fall back to their database queries.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchService implements JobHandler {
+    private static final int BATCH_SIZE = 500;
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private final SearchIndex searchIndex;
+    private final TextExtractionService textExtractionService;
+    private final BackgroundJobService backgroundJobService;
+    private final ProjectRepository projectRepository;
+    private final ProjectDocRepository projectDocRepository;
+    private final AsbuiltDocRepository asbuiltDocRepository;
+    private final CommentRepository commentRepository;
+    private final CompanyRepository companyRepository;
+    private final UserRepository userRepository;
+    private final ThreadPoolTaskExecutor jobWorkerExecutor;
+
+    public boolean isReady() {
+        return searchIndex.isComplete();
+    }
+
+    /**
+     * Returns the page of entities matching {@code filter}, most relevant first. The sort of the page request
+     * is not applied, relevance decides the order.
+     */
+    public <T, ID> Page<T> search(SearchType type, String filter, Pageable pageRequest, Function<String, ID> parseId,
+                                  Function<List<ID>, List<T>> findAllById, Function<T, ID> idOf) {
+        SearchHits hits = searchIndex.search(type, parentOf(type), filter, (int) pageRequest.getOffset(), pageRequest.getPageSize());
+        List<T> entities = findAllById.apply(hits.getIds(parseId));
+        return new PageImpl<>(hits.inHitOrder(entities, idOf), pageRequest, hits.getTotalHits());
+    }
+
+    private SearchType parentOf(SearchType type) {
+        switch (type) {
+            case PROJECT_DOC:
+                return SearchType.PROJECT;
+            case ASBUILT_DOC:
+                return SearchType.PROJECT_DOC;
+            case USER:
+                return SearchType.COMPANY;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Adds or replaces the entity in the index, deleted and withdrawn entities are removed from it.
+     * Entities of other types are ignored.
+     */
+    public void index(Object entity) {
+        index(entity, false);
+    }
+
+    /**
+     * Indexes the entities of a write made with SQL, which the entity listeners do not see; called once it has
+     * committed. A failure is logged and leaves the other entities indexed.
+     */
+    public void indexAll(List<?> entities) {
+        for (Object entity : entities) {
+            try {
+                index(entity);
+            } catch (RuntimeException e) {
+                log.warn("Search index update failed", e);
+            }
+        }
+    }
+
+    private void index(Object entity, boolean extractNow) {
+        if (entity instanceof ProjectDoc) {
+            ProjectDoc projectDoc = (ProjectDoc) entity;
+            String content = contentOf(projectDoc, extractNow,
+                    () -> projectDocRepository.findById(projectDoc.getId()).ifPresent(this::index));
+            update(SearchType.PROJECT_DOC, projectDoc.getId(), projectDoc.getDocStatus() == DocStatus.WITHDRAWN,
+                    projectDoc.getProject() == null ? null : projectDoc.getProject().getId(), content,
+                    projectDoc.getFileName(), projectDoc.getDesignCategory());
+        } else if (entity instanceof AsbuiltDoc) {
+            AsbuiltDoc asbuiltDoc = (AsbuiltDoc) entity;
+            String content = contentOf(asbuiltDoc, extractNow,
+                    () -> asbuiltDocRepository.findById(asbuiltDoc.getId()).ifPresent(this::index));
+            update(SearchType.ASBUILT_DOC, asbuiltDoc.getId(), asbuiltDoc.getDocStatus() == DocStatus.WITHDRAWN,
+                    asbuiltDoc.getProjectDoc() == null ? null : asbuiltDoc.getProjectDoc().getId(), content,
+                    asbuiltDoc.getFileName(), asbuiltDoc.getAsbuiltCategory());
+        } else if (entity instanceof Comment) {
+            Comment comment = (Comment) entity;
+            update(SearchType.COMMENT, comment.getId(), comment.getStatus() == CommonStatus.DELETED, null, null,
+                    comment.getTitle(), comment.getText());
+        } else if (entity instanceof Company) {
+            Company company = (Company) entity;
+            update(SearchType.COMPANY, company.getId(), company.getStatus() == CommonStatus.DELETED, null, null,
+                    company.getName(), company.getAddress());
+        } else if (entity instanceof Project) {
+            Project project = (Project) entity;
+            update(SearchType.PROJECT, project.getId(), project.getStatus() == CommonStatus.DELETED, null, null,
+                    project.getName(), project.getAddress(), project.getFilesRootDirectory());
+        } else if (entity instanceof User) {
+            User user = (User) entity;
+            update(SearchType.USER, user.getId(), user.getStatus() == CommonStatus.DELETED,
+                    user.getCompany() == null ? null : user.getCompany().getId(), null,
+                    user.getFirstName(), user.getLastName(), user.getPosition());
+        }
+    }
+
+    /**
+     * Text of the doc's file. Text not extracted yet is extracted right away by the rebuild job; on a write it
+     * is extracted in the background and the doc indexed once more when it is there.
+     */
+    private String contentOf(Doc doc, boolean extractNow, Runnable indexAgain) {
+        String contentHash = doc.getContentHash();
+        if (contentHash == null || doc.getDocStatus() == DocStatus.WITHDRAWN) {
+            return null;
+        }
+
+        Optional<String> text = textExtractionService.getText(contentHash);
+        if (text.isPresent()) {
+            return text.get();
+        }
+        if (extractNow) {
+            return textExtractionService.extract(contentHash);
+        }
+        textExtractionService.extractLater(contentHash, indexAgain);
+        return null;
+    }
+
+    private void update(SearchType type, Object id, boolean deleted, Object parentId, String content, Object... values) {
+        if (deleted) {
+            searchIndex.delete(type, String.valueOf(id));
+        } else {
+            searchIndex.update(type, String.valueOf(id), parentId == null ? null : String.valueOf(parentId),
+                    Arrays.asList(values), content);
+        }
+    }
+
+    public void remove(Object entity) {
+        if (entity instanceof ProjectDoc) {
+            searchIndex.delete(SearchType.PROJECT_DOC, String.valueOf(((ProjectDoc) entity).getId()));
+        } else if (entity instanceof AsbuiltDoc) {
+            searchIndex.delete(SearchType.ASBUILT_DOC, String.valueOf(((AsbuiltDoc) entity).getId()));
+        } else if (entity instanceof Comment) {
+            searchIndex.delete(SearchType.COMMENT, String.valueOf(((Comment) entity).getId()));
+        } else if (entity instanceof Company) {
+            searchIndex.delete(SearchType.COMPANY, String.valueOf(((Company) entity).getId()));
+        } else if (entity instanceof Project) {
+            searchIndex.delete(SearchType.PROJECT, String.valueOf(((Project) entity).getId()));
+        } else if (entity instanceof User) {
+            searchIndex.delete(SearchType.USER, String.valueOf(((User) entity).getId()));
+        }
+    }
+
+    public BackgroundJob reindexAll() {
+        return backgroundJobService.submit(JobType.SEARCH_REINDEX, null, null);
+    }
+
+    /**
+     * An index missing or cut off in the middle of a rebuild is built again, unless the rebuild job is still
+     * pending and about to be resumed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIncompleteIndex() {
+        if (!searchIndex.isComplete() && !backgroundJobService.hasUnfinished(JobType.SEARCH_REINDEX)) {
+            log.info("Search index is incomplete, rebuilding it");
+            reindexAll();
+        }
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.SEARCH_REINDEX;
+    }
+
+    /**
+     * Clears the index and indexes every entity again, one type after another, extracting file text still
+     * missing on the way. Each batch is indexed in parallel on the job worker pool. The type being indexed is the
+     * checkpoint stage and the id of the last indexed entity the checkpoint item; numeric ids are kept in the
+     * low bits of the UUID.
+     */
+    @Override
+    public void run(BackgroundJob job) {
+        if (job.getCheckpointStage() == null) {
+            searchIndex.clear();
+            job.setTotalItems(projectRepository.count() + projectDocRepository.count() + asbuiltDocRepository.count()
+                    + commentRepository.count() + companyRepository.count() + userRepository.count());
+            job.setCheckpointStage(SearchType.values()[0].name());
+            backgroundJobService.saveProgress(job);
+        }
+
+        SearchType firstType = SearchType.valueOf(job.getCheckpointStage());
+        for (SearchType type : SearchType.values()) {
+            if (type.ordinal() < firstType.ordinal()) {
+                continue;
+            }
+            if (type != firstType) {
+                job.setCheckpointStage(type.name());
+                job.setCheckpointItemId(null);
+                backgroundJobService.saveProgress(job);
+            }
+            reindexType(job, type);
+        }
+
+        searchIndex.markComplete();
+        log.info("Search index rebuilt by job {}: {} entities", job.getId(), job.getProcessedItems());
+    }
+
+    private void reindexType(BackgroundJob job, SearchType type) {
+        switch (type) {
+            case PROJECT:
+                reindexByLongId(job, projectRepository::findAllAfterId, Project::getId);
+                break;
+            case PROJECT_DOC:
+                reindexByUuid(job, (afterId, batch) -> projectDocRepository.findAllAfterId(afterId, batch).getContent(), ProjectDoc::getId);
+                break;
+            case ASBUILT_DOC:
+                reindexByUuid(job, (afterId, batch) -> asbuiltDocRepository.findAllAfterId(afterId, batch).getContent(), AsbuiltDoc::getId);
+                break;
+            case COMMENT:
+                reindexByLongId(job, commentRepository::findAllAfterId, Comment::getId);
+                break;
+            case COMPANY:
+                reindexByLongId(job, companyRepository::findAllAfterId, Company::getId);
+                break;
+            case USER:
+                reindexByLongId(job, userRepository::findAllAfterId, User::getId);
+                break;
+        }
+    }
+
+    private <T> void reindexByLongId(BackgroundJob job, BiFunction<Long, Pageable, List<T>> batches, Function<T, Long> idOf) {
+        reindexBatches(job, batches, idOf, job.getCheckpointItemId() == null ? 0L : job.getCheckpointItemId().getLeastSignificantBits(),
+                id -> new UUID(0, id));
+    }
+
+    private <T> void reindexByUuid(BackgroundJob job, BiFunction<UUID, Pageable, List<T>> batches, Function<T, UUID> idOf) {
+        reindexBatches(job, batches, idOf, job.getCheckpointItemId() == null ? FIRST_ID : job.getCheckpointItemId(),
+                Function.identity());
+    }
+
+    private <T, ID> void reindexBatches(BackgroundJob job, BiFunction<ID, Pageable, List<T>> batches, Function<T, ID> idOf,
+                                        ID afterId, Function<ID, UUID> checkpointOf) {
+        Pageable batch = PageRequest.of(0, BATCH_SIZE);
+
+        List<T> entities = batches.apply(afterId, batch);
+        while (!entities.isEmpty()) {
+            CompletableFuture.allOf(entities.stream()
+                    .map(entity -> CompletableFuture.runAsync(() -> index(entity, true), jobWorkerExecutor))
+                    .toArray(CompletableFuture[]::new))
+                    .join();
+
+            afterId = idOf.apply(entities.get(entities.size() - 1));
+            job.setProcessedItems(job.getProcessedItems() + entities.size());
+            job.setCheckpointItemId(checkpointOf.apply(afterId));
+            backgroundJobService.saveProgress(job);
+
+            entities = batches.apply(afterId, batch);
+        }
+    }
+}
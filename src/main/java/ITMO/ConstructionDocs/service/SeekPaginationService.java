@@ -0,0 +1,194 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset (seek) pagination over any entity. A slice is read with a {@code where (sort, id) > cursor} condition
+ * instead of an offset, so every slice costs the same however deep the listing goes, rows inserted meanwhile
+ * do not shift the following slices, and no count query is run.
+ * <p>
+ * The cursor is opaque to clients: base64 of the sort, order and the (sort value, id) of the last row returned.
+ * Rows are ordered by the sort attribute and then by id, both in the requested direction; nulls follow postgres
+ * ordering, after all values in ascending order and before them in descending order. Every query of a slice is one
+ * range of an index on (sort, id), walked forwards or backwards, the null sort values being read by a query of their
+ * own once the listing reaches them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeekPaginationService {
+    private static final String ALIAS = "e";
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Returns the slice of entities matching {@code condition} that follows the cursor, the first slice when the
+     * cursor is null. The condition is a JPQL expression over the alias {@code e}. A cursor carries the sort and
+     * order of the listing it came from, which take precedence over the requested ones.
+     */
+    public <T> CursorPageResp<T> seek(Class<T> entityClass, String condition, Map<String, ?> params,
+                                      String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        EntityType<T> entityType = entityManager.getMetamodel().entity(entityClass);
+        Cursor after = cursor == null ? null : decode(cursor);
+        if (after != null) {
+            sort = after.getSort();
+            order = after.getOrder();
+        }
+        if (sort == null) {
+            sort = "id";
+        }
+        if (order == null) {
+            order = Sort.Direction.ASC;
+        }
+        if (sizePerPage == null) {
+            sizePerPage = 10;
+        }
+
+        Attribute<? super T, ?> sortAttribute = getSortAttribute(entityType, sort);
+        String sortPath = ALIAS + "." + sort;
+        String idPath = ALIAS + ".id";
+
+        Object afterValue = after == null ? null : convert(after.getValue(), sortAttribute.getJavaType());
+        Object afterId = after == null ? null : convert(after.getId(), entityType.getIdType().getJavaType());
+        List<Object[]> rows = new ArrayList<>();
+        for (String seekCondition : seekConditions(sortPath, idPath, order, after != null, afterValue != null)) {
+            StringBuilder jpql = new StringBuilder("select ").append(ALIAS).append(", ").append(sortPath)
+                    .append(" from ").append(entityType.getName()).append(" ").append(ALIAS)
+                    .append(" where (").append(condition).append(")");
+            if (!seekCondition.isEmpty()) {
+                jpql.append(" and (").append(seekCondition).append(")");
+            }
+            String direction = order.isAscending() ? " asc" : " desc";
+            jpql.append(" order by ").append(sortPath).append(direction).append(", ").append(idPath).append(direction);
+
+            TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class);
+            params.forEach(query::setParameter);
+            if (seekCondition.contains(":afterValue")) {
+                query.setParameter("afterValue", afterValue);
+            }
+            if (seekCondition.contains(":afterId")) {
+                query.setParameter("afterId", afterId);
+            }
+            rows.addAll(query.setMaxResults(sizePerPage + 1 - rows.size()).getResultList());
+            if (rows.size() > sizePerPage) {
+                break;
+            }
+        }
+
+        boolean hasNext = rows.size() > sizePerPage;
+        if (hasNext) {
+            rows = rows.subList(0, sizePerPage);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Object[] last = rows.get(rows.size() - 1);
+            Object lastId = entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(last[0]);
+            nextCursor = encode(new Cursor(sort, order, last[1], lastId));
+        }
+
+        List<T> content = rows.stream()
+                .map(row -> entityClass.cast(row[0]))
+                .collect(Collectors.toList());
+
+        return new CursorPageResp<>(content, nextCursor, hasNext);
+    }
+
+    /**
+     * The conditions of the rows after (afterValue, afterId), in listing order, each read by a query of its own
+     * until the slice is full. A condition on values is bounded on the sort value, so it is one range of an index
+     * on (sort, id); the rows with a null sort value, after all values in ascending order and before them in
+     * descending order, are only read by a condition of their own when the listing reaches them.
+     */
+    private List<String> seekConditions(String sortPath, String idPath, Sort.Direction order, boolean hasCursor,
+                                        boolean afterNonNull) {
+        if (!hasCursor) {
+            return List.of("");
+        }
+        String after = order.isAscending() ? " > " : " < ";
+        String nullsAfterId = sortPath + " is null and " + idPath + after + ":afterId";
+        String valuesAfter = sortPath + (order.isAscending() ? " >= " : " <= ") + ":afterValue and (" + sortPath +
+                after + ":afterValue or (" + sortPath + " = :afterValue and " + idPath + after + ":afterId))";
+        if (order.isAscending()) {
+            return afterNonNull ? List.of(valuesAfter, sortPath + " is null") : List.of(nullsAfterId);
+        }
+        return afterNonNull ? List.of(valuesAfter) : List.of(nullsAfterId, sortPath + " is not null");
+    }
+
+    private <T> Attribute<? super T, ?> getSortAttribute(EntityType<T> entityType, String sort) {
+        Attribute<? super T, ?> attribute;
+        try {
+            attribute = entityType.getAttribute(sort);
+        } catch (IllegalArgumentException e) {
+            throw new CustomException(String.format("Unknown sort field: %s", sort), HttpStatus.BAD_REQUEST);
+        }
+        if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+            throw new CustomException(String.format("Sort field %s is not supported with cursor pagination", sort), HttpStatus.BAD_REQUEST);
+        }
+        return attribute;
+    }
+
+    private Object convert(Object value, Class<?> type) {
+        try {
+            return value == null ? null : objectMapper.convertValue(value, type);
+        } catch (IllegalArgumentException e) {
+            throw new CustomException("Invalid cursor", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private String encode(Cursor cursor) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(cursor));
+        } catch (Exception e) {
+            throw new CustomException("Error occurred while building the cursor", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private Cursor decode(String cursor) {
+        try {
+            Cursor decoded = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), Cursor.class);
+            if (decoded.getSort() == null || decoded.getOrder() == null || decoded.getId() == null) {
+                throw new IllegalArgumentException("Incomplete cursor");
+            }
+            return decoded;
+        } catch (Exception e) {
+            throw new CustomException("Invalid cursor", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    static class Cursor {
+        String sort;
+        Sort.Direction order;
+        Object value;
+        Object id;
+    }
+}
@@ -0,0 +1,85 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.model.db.entity.BlobText;
+import ITMO.ConstructionDocs.model.db.repository.BlobTextRepository;
+import ITMO.ConstructionDocs.storage.DocumentStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.Tika;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Extracts the text of stored files (PDF, Office, plain text) for the search index. Text is kept per blob,
+ * so a file uploaded again or shared by several docs is read once, and a replaced file is extracted as soon
+ * as its new content is indexed.
+ * <p>
+ * Extraction of new uploads runs on {@code textExtractionExecutor}, off the request thread; when its queue
+ * is full the blob is skipped and picked up by the next search index rebuild.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TextExtractionService {
+    private final BlobTextRepository blobTextRepository;
+    private final FileBlobService fileBlobService;
+    private final DocumentStorage documentStorage;
+    private final Tika tika;
+    private final ThreadPoolTaskExecutor textExtractionExecutor;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public Optional<String> getText(String contentHash) {
+        return blobTextRepository.findById(contentHash).map(BlobText::getText);
+    }
+
+    /**
+     * Extracts the text of the blob in the background and runs {@code then} once it is saved. A blob already
+     * being extracted is not queued twice.
+     */
+    public void extractLater(String contentHash, Runnable then) {
+        if (!pending.add(contentHash)) {
+            return;
+        }
+
+        try {
+            textExtractionExecutor.execute(() -> {
+                try {
+                    extract(contentHash);
+                } finally {
+                    pending.remove(contentHash);
+                }
+                then.run();
+            });
+        } catch (TaskRejectedException e) {
+            pending.remove(contentHash);
+            log.warn("Text extraction queue is full, blob {} is left for the next reindex", contentHash);
+        }
+    }
+
+    /**
+     * Reads the text of the blob and saves it, empty if the format has none or cannot be parsed.
+     */
+    public String extract(String contentHash) {
+        String text;
+        try (InputStream content = documentStorage.get(fileBlobService.getBlobKey(contentHash))) {
+            text = tika.parseToString(content);
+        } catch (Exception e) {
+            log.warn("Text extraction of blob {} failed: {}", contentHash, e.getMessage());
+            text = "";
+        }
+
+        BlobText blobText = new BlobText();
+        blobText.setContentHash(contentHash);
+        // postgres text cannot hold NUL characters, which some PDFs produce
+        blobText.setText(text.replace('\u0000', ' ').trim());
+        blobTextRepository.save(blobText);
+        return blobText.getText();
+    }
+}
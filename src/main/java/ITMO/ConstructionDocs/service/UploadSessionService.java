@@ -0,0 +1,288 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
+import ITMO.ConstructionDocs.model.db.entity.UploadSession;
+import ITMO.ConstructionDocs.model.db.repository.UploadSessionRepository;
+import ITMO.ConstructionDocs.model.dto.request.UploadSessionReq;
+import ITMO.ConstructionDocs.model.dto.response.UploadSessionResp;
+import ITMO.ConstructionDocs.model.enums.UploadStatus;
+import ITMO.ConstructionDocs.storage.DocumentStorage;
+import ITMO.ConstructionDocs.storage.StoredObject;
+import ITMO.ConstructionDocs.utils.RightsValidatorUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static ITMO.ConstructionDocs.constants.Constants.MAX_STREAM_FILE_SIZE;
+import static ITMO.ConstructionDocs.constants.Constants.MAX_UPLOAD_CHUNK_SIZE;
+import static ITMO.ConstructionDocs.constants.Constants.UPLOAD_SESSIONS_PREFIX;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadSessionService {
+    private static final String CHUNK_SUFFIX = ".chunk";
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UserService userService;
+    private final DocumentStorage documentStorage;
+    private final FileBlobService fileBlobService;
+    private final TransactionTemplate transactionTemplate;
+
+    public UploadSessionResp openSession(UploadSessionReq request, Authentication auth) {
+        UploadSession session = new UploadSession();
+        session.setTotalChunks(request.getTotalChunks());
+        session.setFileFormat(request.getFileFormat());
+        session.setStatus(UploadStatus.OPEN);
+        session.setCreatedBy(userService.getCurrentUser(auth));
+        session.setCreatedAt(LocalDateTime.now());
+
+        UploadSession save = uploadSessionRepository.save(session);
+
+        return toUploadSessionResp(save);
+    }
+
+    public UploadSessionResp uploadChunk(UUID sessionId, Integer index, InputStream content, Authentication auth) {
+        UploadSession session = getUploadSessionFromDB(sessionId);
+        validateOpenSession(session, auth);
+
+        if (index < 0 || index >= session.getTotalChunks()) {
+            throw new CustomException(String.format("Chunk index should be between 0 and %d", session.getTotalChunks() - 1), HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            documentStorage.put(getChunkKey(sessionId, index), content, MAX_UPLOAD_CHUNK_SIZE);
+        } catch (IOException e) {
+            throw new CustomException("Error occurred while saving the chunk", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        return toUploadSessionResp(session);
+    }
+
+    public UploadSessionResp getSession(UUID sessionId, Authentication auth) {
+        UploadSession session = getUploadSessionFromDB(sessionId);
+        RightsValidatorUtil.validateUser(session.getCreatedBy(), userService.getCurrentUser(auth));
+
+        return toUploadSessionResp(session);
+    }
+
+    public UploadSession getUploadSessionFromDB(UUID id) {
+        return uploadSessionRepository.findById(id).orElseThrow(() -> new CustomException("Upload session not found", HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Stores the chunks of the session as one blob and saves the doc made of it. The session is claimed first,
+     * so a second commit of it is refused, and the chunks are copied without a transaction; the doc is saved and
+     * the session completed in a short one afterwards. When the commit fails, the blob reference is handed back
+     * and the session is open again for another try.
+     */
+    public <T> T commitSession(UUID sessionId, Authentication auth, BiFunction<UploadSession, FileBlob, T> saveDoc) {
+        UploadSession session = claimSession(sessionId, auth);
+
+        FileBlob fileBlob;
+        try (InputStream content = openChunks(session)) {
+            fileBlob = fileBlobService.storeContent(content, MAX_STREAM_FILE_SIZE);
+        } catch (IOException e) {
+            reopenSession(session);
+            throw new CustomException("Error occurred while saving the file", HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (RuntimeException e) {
+            reopenSession(session);
+            throw e;
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                T doc = saveDoc.apply(session, fileBlob);
+                completeSession(session);
+                return doc;
+            });
+        } catch (RuntimeException e) {
+            fileBlobService.release(fileBlob.getContentHash());
+            reopenSession(session);
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the chunks of the session as one stream in index order. Chunk files are opened
+     * one at a time while the stream is read.
+     */
+    public InputStream openChunks(UploadSession session) {
+        List<Integer> receivedChunks = getReceivedChunks(session.getId());
+        if (receivedChunks.size() != session.getTotalChunks()) {
+            List<Integer> missingChunks = new ArrayList<>();
+            for (int i = 0; i < session.getTotalChunks(); i++) {
+                if (!receivedChunks.contains(i)) {
+                    missingChunks.add(i);
+                }
+            }
+            throw new CustomException(String.format("Upload is incomplete, missing chunks: %s", missingChunks), HttpStatus.BAD_REQUEST);
+        }
+
+        Enumeration<InputStream> chunks = new Enumeration<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasMoreElements() {
+                return index < session.getTotalChunks();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return documentStorage.get(getChunkKey(session.getId(), index++));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+
+        return new SequenceInputStream(chunks);
+    }
+
+    /**
+     * Marks the claimed session as committed. Chunk files are removed once the surrounding transaction commits.
+     */
+    public void completeSession(UploadSession session) {
+        LocalDateTime now = LocalDateTime.now();
+        if (uploadSessionRepository.updateStatus(session.getId(), UploadStatus.COMMITTING, UploadStatus.COMMITTED, now) == 0) {
+            throw new CustomException(String.format("Upload session with id: %s is no longer being committed", session.getId()), HttpStatus.CONFLICT);
+        }
+        session.setStatus(UploadStatus.COMMITTED);
+        session.setUpdatedAt(now);
+
+        UUID sessionId = session.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteChunks(sessionId);
+                }
+            });
+        } else {
+            deleteChunks(sessionId);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60 * 60 * 1000)
+    public void removeExpiredSessions() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minusDays(7);
+
+        // a session left committing by a restart is expired as well
+        for (UploadSession session : uploadSessionRepository.findAllByStatusInCreatedBefore(
+                List.of(UploadStatus.OPEN, UploadStatus.COMMITTING), expiredBefore)) {
+            deleteChunks(session.getId());
+            uploadSessionRepository.delete(session);
+            log.info("Expired upload session {} removed", session.getId());
+        }
+    }
+
+    private void validateOpenSession(UploadSession session, Authentication auth) {
+        RightsValidatorUtil.validateUser(session.getCreatedBy(), userService.getCurrentUser(auth));
+
+        if (session.getStatus() != UploadStatus.OPEN) {
+            throw new CustomException(String.format("Upload session with id: %s is already %s", session.getId(), session.getStatus()), HttpStatus.CONFLICT);
+        }
+    }
+
+    /**
+     * Moves the open session on to committing; of concurrent commits of the same session only the first one
+     * gets it.
+     */
+    private UploadSession claimSession(UUID sessionId, Authentication auth) {
+        UploadSession session = getUploadSessionFromDB(sessionId);
+        validateOpenSession(session, auth);
+
+        Integer claimed = transactionTemplate.execute(status -> uploadSessionRepository.updateStatus(sessionId,
+                UploadStatus.OPEN, UploadStatus.COMMITTING, LocalDateTime.now()));
+        if (claimed == null || claimed == 0) {
+            throw new CustomException(String.format("Upload session with id: %s is already being committed", sessionId), HttpStatus.CONFLICT);
+        }
+
+        session.setStatus(UploadStatus.COMMITTING);
+        return session;
+    }
+
+    private void reopenSession(UploadSession session) {
+        try {
+            transactionTemplate.execute(status -> uploadSessionRepository.updateStatus(session.getId(),
+                    UploadStatus.COMMITTING, UploadStatus.OPEN, LocalDateTime.now()));
+            session.setStatus(UploadStatus.OPEN);
+        } catch (RuntimeException e) {
+            log.warn("Upload session {} was not reopened after a failed commit", session.getId(), e);
+        }
+    }
+
+    private UploadSessionResp toUploadSessionResp(UploadSession session) {
+        UploadSessionResp resp = new UploadSessionResp();
+        resp.setId(session.getId());
+        resp.setTotalChunks(session.getTotalChunks());
+        resp.setFileFormat(session.getFileFormat());
+        resp.setStatus(session.getStatus());
+
+        List<StoredObject> chunks = session.getStatus() == UploadStatus.OPEN ? listChunks(session.getId()) : List.of();
+        resp.setReceivedChunks(chunks.stream().map(this::getChunkIndex).sorted().collect(Collectors.toList()));
+        resp.setReceivedBytes(chunks.stream().mapToLong(StoredObject::getSize).sum());
+
+        return resp;
+    }
+
+    private List<Integer> getReceivedChunks(UUID sessionId) {
+        return listChunks(sessionId).stream()
+                .map(this::getChunkIndex)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private List<StoredObject> listChunks(UUID sessionId) {
+        try {
+            return documentStorage.list(getSessionPrefix(sessionId)).stream()
+                    .filter(chunk -> chunk.getKey().endsWith(CHUNK_SUFFIX))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new CustomException("Error occurred while reading the upload session", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private void deleteChunks(UUID sessionId) {
+        try {
+            for (StoredObject chunk : documentStorage.list(getSessionPrefix(sessionId))) {
+                documentStorage.delete(chunk.getKey());
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete chunks of upload session {}", sessionId);
+        }
+    }
+
+    private Integer getChunkIndex(StoredObject chunk) {
+        String name = chunk.getKey().substring(chunk.getKey().lastIndexOf('/') + 1);
+        return Integer.valueOf(name.substring(0, name.length() - CHUNK_SUFFIX.length()));
+    }
+
+    private String getSessionPrefix(UUID sessionId) {
+        return UPLOAD_SESSIONS_PREFIX + sessionId + "/";
+    }
+
+    private String getChunkKey(UUID sessionId, int index) {
+        return getSessionPrefix(sessionId) + index + CHUNK_SUFFIX;
+    }
+}
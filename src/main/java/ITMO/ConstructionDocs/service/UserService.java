@@ -1,15 +1,25 @@
 package ITMO.ConstructionDocs.service;
 
+import ITMO.ConstructionDocs.cache.CacheInvalidation;
+import ITMO.ConstructionDocs.cache.SecondLevelCache;
 import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.mapper.UserMapper;
 import ITMO.ConstructionDocs.model.db.entity.Company;
 import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.projection.UserView;
 import ITMO.ConstructionDocs.model.db.repository.UserRepository;
+import ITMO.ConstructionDocs.model.dto.request.BatchUpdateReq;
 import ITMO.ConstructionDocs.model.dto.request.UserReq;
 import ITMO.ConstructionDocs.model.dto.request.UserToCompanyReq;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
 import ITMO.ConstructionDocs.model.dto.response.UserResp;
+import ITMO.ConstructionDocs.model.enums.ActivitySubject;
+import ITMO.ConstructionDocs.model.enums.BulkEntryStatus;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.model.enums.SearchType;
+import ITMO.ConstructionDocs.security.PrincipalCache;
 import ITMO.ConstructionDocs.utils.PaginationUtil;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.validator.routines.EmailValidator;
@@ -23,45 +33,92 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import javax.validation.Valid;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
-    private final ObjectMapper objectMapper;
+    private static final String COMPANY_USERS = Company.class.getName() + ".users";
+
+    private final UserMapper userMapper;
+    private final SearchService searchService;
+    private final SeekPaginationService seekPaginationService;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final CompanyService companyService;
+    private final PrincipalCache principalCache;
+    private final BatchWriter batchWriter;
+    private final SecondLevelCache secondLevelCache;
+    private final ActivityService activityService;
 
     public User getCurrentUser(Authentication authentication) {
         return (User) authentication.getPrincipal();
     }
 
     public UserResp createUser(UserReq request) {
+        validateNewUser(request);
+
+        userRepository.findByEmailIgnoreCase(request.getEmail())
+                .ifPresent(user -> {
+                    throw emailExists(request);
+                });
+
+        User save = userRepository.save(toNewUser(request));
+
+        return userMapper.toUserResp(save);
+    }
+
+    public BatchResp<UserResp> createUsers(List<UserReq> requests) {
+        // one select for the emails taken, which also collects the emails earlier in the batch
+        Set<String> emails = getExistingEmails(requests);
+
+        return batchWriter.create(requests, request -> {
+            validateNewUser(request);
+            if (!emails.add(request.getEmail().toLowerCase())) {
+                throw emailExists(request);
+            }
+            return toNewUser(request);
+        }, userRepository, User::getId, userMapper::toUserResp);
+    }
+
+    private Set<String> getExistingEmails(List<UserReq> requests) {
+        List<String> emails = requests.stream()
+                .map(UserReq::getEmail)
+                .filter(Objects::nonNull)
+                .map(String::toLowerCase)
+                .collect(Collectors.toList());
+
+        return emails.isEmpty() ? new HashSet<>() : new HashSet<>(userRepository.findExistingEmails(emails));
+    }
+
+    private void validateNewUser(UserReq request) {
         validateEmail(request);
 
         if (request.getPhoneNumber() != null) {
             validatePhoneNumber(request);
         }
+    }
 
-        userRepository.findByEmailIgnoreCase(request.getEmail())
-                .ifPresent(user -> {
-                    throw new CustomException(String.format("User with email: %s already exists", request.getEmail()), HttpStatus.BAD_REQUEST);
-                });
+    private CustomException emailExists(UserReq request) {
+        return new CustomException(String.format("User with email: %s already exists", request.getEmail()), HttpStatus.BAD_REQUEST);
+    }
 
-        User user = objectMapper.convertValue(request, User.class);
+    private User toNewUser(UserReq request) {
+        User user = userMapper.toUser(request);
 
         user.setCreatedAt(LocalDateTime.now());
         user.setStatus(CommonStatus.CREATED);
         user.setPassword(passwordEncoder.encode(request.getPassword()));
-
-        User save = userRepository.save(user);
-
-        return objectMapper.convertValue(save, UserResp.class);
+        return user;
     }
 
     private void validateEmail(UserReq request) {
@@ -78,7 +135,7 @@ public class UserService {
     }
 
     public UserResp getUser(Long id) {
-        return objectMapper.convertValue(getUserFromDB(id), UserResp.class);
+        return userMapper.toUserResp(getUserFromDB(id));
     }
 
     public User getUserFromDB(Long id) {
@@ -87,8 +144,31 @@ public class UserService {
 
     public UserResp updateUser(Long id, UserReq request) {
         User user = getUserFromDB(id);
+        applyUpdate(user, request);
+
+        User save = userRepository.save(user);
+        principalCache.evict(id);
+
+        return userMapper.toUserResp(save);
+    }
+
+    public BatchResp<UserResp> updateUsers(List<BatchUpdateReq<UserReq>> requests) {
+        BatchResp<UserResp> resp = batchWriter.update(requests, userRepository, User::getId, "User not found",
+                this::applyUpdate, userMapper::toUserResp);
+        evictWritten(resp);
+        return resp;
+    }
+
+    private void applyUpdate(User user, UserReq request) {
+        // checked before any change, a batch flushes whatever an item changed before it failed
         if (request.getEmail() != null) {
             validateEmail(request);
+        }
+        if (request.getPhoneNumber() != null) {
+            validatePhoneNumber(request);
+        }
+
+        if (request.getEmail() != null) {
             user.setEmail(request.getEmail());
         }
         if (request.getPassword() != null) {
@@ -107,42 +187,62 @@ public class UserService {
             user.setRole(request.getRole());
         }
         if (request.getPhoneNumber() != null) {
-            validatePhoneNumber(request);
             user.setPhoneNumber(request.getPhoneNumber());
         }
 
         user.setUpdatedAt(LocalDateTime.now());
         user.setStatus(CommonStatus.UPDATED);
-
-        User save = userRepository.save(user);
-
-        return objectMapper.convertValue(save, UserResp.class);
     }
 
     public void deleteUser(Long id) {
         User user = getUserFromDB(id);
+        markDeleted(user);
+        userRepository.save(user);
+        principalCache.evict(id);
+    }
+
+    public BatchResp<Void> deleteUsers(List<Long> ids) {
+        BatchResp<Void> resp = batchWriter.delete(ids, userRepository, User::getId, "User not found", this::markDeleted);
+        evictWritten(resp);
+        return resp;
+    }
+
+    private void markDeleted(User user) {
         user.setUpdatedAt(LocalDateTime.now());
         user.setStatus(CommonStatus.DELETED);
-        userRepository.save(user);
+    }
+
+    private void evictWritten(BatchResp<?> resp) {
+        resp.getItems().stream()
+                .filter(item -> item.getStatus() != BulkEntryStatus.FAILED)
+                .forEach(item -> principalCache.evict(item.getId()));
     }
 
     public Page<UserResp> getAllUsers(Integer page, Integer sizePerPage, String sort, Sort.Direction order, String filter) {
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<User> all;
+        Page<UserView> all;
         if (filter == null) {
             all = userRepository.findAllNotDeleted(pageRequest, CommonStatus.DELETED);
+        } else if (searchService.isReady()) {
+            all = searchService.search(SearchType.USER, filter, pageRequest, Long::valueOf, userRepository::findViewsByIdIn, UserView::getId);
         } else {
             all = userRepository.findAllNotDeletedAndFiltered(pageRequest, CommonStatus.DELETED, filter.toLowerCase());
         }
 
         List<UserResp> content = all.getContent().stream()
-                .map(user -> objectMapper.convertValue(user, UserResp.class))
+                .map(userMapper::toUserResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, all.getTotalElements());
     }
 
+    public CursorPageResp<UserResp> seekAllUsers(String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        return seekPaginationService.seek(User.class, "e.status <> :status", Map.of("status", CommonStatus.DELETED),
+                        cursor, sizePerPage, sort, order)
+                .map(userMapper::toUserResp);
+    }
+
     public Optional<User> getUserByEmail(String email) {
 
         return userRepository.findByEmailIgnoreCase(email);
@@ -157,6 +257,45 @@ public class UserService {
 
         user.setCompany(company);
         userRepository.save(user);
+        principalCache.evict(user.getId());
+    }
+
+    /**
+     * Attaches each user to its company by setting the foreign key, the users of the companies are not loaded.
+     * The cached user lists of the new companies and of the ones the users leave are evicted.
+     */
+    public BatchResp<Void> addUsersToCompanies(List<UserToCompanyReq> requests) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Set<Long> previousCompanyIds = new HashSet<>();
+
+        BatchResp<Void> resp = batchWriter.link(requests,
+                UserToCompanyReq::getUserId, userIds -> {
+                    // read in the transaction of the update, before it moves the users
+                    previousCompanyIds.addAll(userRepository.findCompanyIds(userIds));
+                    return userRepository.findExistingIds(userIds);
+                }, "User not found",
+                UserToCompanyReq::getCompanyId, companyService::getExistingIds, "Company not found",
+                "update users set company_id = ?, updated_at = ? where id = ?",
+                request -> new Object[]{request.getCompanyId(), now, request.getUserId()},
+                linked -> {
+                    linked.forEach(request -> {
+                        secondLevelCache.invalidate(CacheInvalidation.entity(User.class.getName(), request.getUserId()));
+                        secondLevelCache.invalidate(CacheInvalidation.collection(COMPANY_USERS, request.getCompanyId()));
+                    });
+                    previousCompanyIds.forEach(companyId ->
+                            secondLevelCache.invalidate(CacheInvalidation.collection(COMPANY_USERS, companyId)));
+                    activityService.recordLinked(ActivitySubject.USER, linked,
+                            (request, event) -> event.setSubjectId(String.valueOf(request.getUserId())));
+                });
+
+        List<Long> linkedIds = batchWriter.succeeded(resp, requests).stream()
+                .map(UserToCompanyReq::getUserId)
+                .collect(Collectors.toList());
+        linkedIds.forEach(principalCache::evict);
+        if (!linkedIds.isEmpty()) {
+            searchService.indexAll(userRepository.findAllById(linkedIds));
+        }
+        return resp;
     }
 
     public Page<UserResp> getUsersByCompany(Long id, Integer page, Integer sizePerPage, String sort, Sort.Direction order) {
@@ -168,12 +307,24 @@ public class UserService {
 
         Pageable pageRequest = PaginationUtil.getPageRequest(page, sizePerPage, sort, order);
 
-        Page<User> userPage = userRepository.findAllByCompany(pageRequest, id);
+        Page<UserView> userPage = userRepository.findAllByCompany(pageRequest, id);
 
         List<UserResp> content = userPage.getContent().stream()
-                .map(user -> objectMapper.convertValue(user, UserResp.class))
+                .map(userMapper::toUserResp)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(content, pageRequest, userPage.getTotalElements());
     }
+
+    public CursorPageResp<UserResp> seekUsersByCompany(Long id, String cursor, Integer sizePerPage, String sort, Sort.Direction order) {
+        Company company = companyService.getCompanyFromDB(id);
+
+        if (company.getStatus().equals(CommonStatus.DELETED)) {
+            throw new CustomException(String.format("Company Info with id: %d is DELETED from DataBase", id), HttpStatus.NO_CONTENT);
+        }
+
+        return seekPaginationService.seek(User.class, "e.company.id = :id", Map.of("id", id),
+                        cursor, sizePerPage, sort, order)
+                .map(userMapper::toUserResp);
+    }
 }
@@ -0,0 +1,67 @@
+package ITMO.ConstructionDocs.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Place where document bytes live. Objects are addressed by keys such as {@code blobs/ab/cd/<hash>};
+ * services work with keys only and never with files, so the same code runs against a local disk
+ * or an object store shared by several nodes.
+ */
+public interface DocumentStorage {
+
+    /**
+     * Stores the stream under {@code key}, replacing what was there.
+     *
+     * @return number of bytes stored
+     */
+    long put(String key, InputStream content, long maxSize) throws IOException;
+
+    /**
+     * Stores a local file under {@code key}. The source file is consumed: it is moved or deleted
+     * once the object is stored. Large files may be sent as several parts in parallel.
+     */
+    void putFile(String key, Path source) throws IOException;
+
+    /**
+     * Same as {@link #putFile(String, Path)} but runs on the storage's own executor.
+     */
+    CompletableFuture<Void> putFileAsync(String key, Path source);
+
+    InputStream get(String key) throws IOException;
+
+    /**
+     * Reads bytes {@code start} to {@code end} of the object, both inclusive.
+     */
+    InputStream getRange(String key, long start, long end) throws IOException;
+
+    Optional<StoredObject> stat(String key) throws IOException;
+
+    default boolean exists(String key) throws IOException {
+        return stat(key).isPresent();
+    }
+
+    /**
+     * Lists the objects whose keys start with {@code prefix}.
+     */
+    List<StoredObject> list(String prefix) throws IOException;
+
+    /**
+     * Copies an object without passing its bytes through this node where the storage allows it.
+     */
+    void copy(String sourceKey, String targetKey) throws IOException;
+
+    void move(String sourceKey, String targetKey) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Local file behind the key, if the storage keeps objects on this node's file system.
+     * Downloads use it to hand the file to the container's sendfile.
+     */
+    Optional<Path> localPath(String key);
+}
@@ -0,0 +1,99 @@
+package ITMO.ConstructionDocs.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Files of docs stored before the blob store, on this node's disk. The key is the absolute {@code fileAddress}
+ * of the doc, anywhere the old code put it: the upload directory or the files root directory of a project.
+ * Keys only ever come from the database, never from a request. The files are read until the legacy import
+ * moves them into the blob store and deleted then; nothing is written here.
+ */
+public class LegacyFileStorage implements DocumentStorage {
+
+    @Override
+    public long put(String key, InputStream content, long maxSize) {
+        throw readOnly();
+    }
+
+    @Override
+    public void putFile(String key, Path source) {
+        throw readOnly();
+    }
+
+    @Override
+    public CompletableFuture<Void> putFileAsync(String key, Path source) {
+        throw readOnly();
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public InputStream getRange(String key, long start, long end) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(start);
+        return new RangeInputStream(Channels.newInputStream(channel), end - start + 1);
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) throws IOException {
+        Path file = resolve(key);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return Optional.of(new StoredObject(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+    }
+
+    @Override
+    public List<StoredObject> list(String prefix) {
+        throw readOnly();
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) {
+        throw readOnly();
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) {
+        throw readOnly();
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    private Path resolve(String key) {
+        Path path = Paths.get(key);
+        if (!path.isAbsolute()) {
+            throw new InvalidPathException(key, "Not the absolute address of a legacy file");
+        }
+        return path.normalize();
+    }
+
+    private UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Legacy files are only read and deleted");
+    }
+}
@@ -0,0 +1,160 @@
+package ITMO.ConstructionDocs.storage;
+
+import ITMO.ConstructionDocs.utils.FileStreamUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps objects as files below {@code root}, the key being the relative path. A key resolving outside
+ * {@code root}, absolute or through {@code ..}, is refused; files of docs stored before the blob store
+ * are read at their absolute address through {@link LegacyFileStorage}.
+ */
+public class LocalDocumentStorage implements DocumentStorage {
+    private final Path root;
+    private final ExecutorService executor;
+
+    public LocalDocumentStorage(Path root, int asyncThreads) {
+        this.root = root.toAbsolutePath().normalize();
+        this.executor = Executors.newFixedThreadPool(asyncThreads);
+    }
+
+    @Override
+    public long put(String key, InputStream content, long maxSize) throws IOException {
+        return FileStreamUtil.writeToFile(content, resolve(key), maxSize);
+    }
+
+    @Override
+    public void putFile(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // source is on another file system, copy it next to the target first
+            copyFile(source, target);
+            Files.delete(source);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> putFileAsync(String key, Path source) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                putFile(key, source);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public InputStream getRange(String key, long start, long end) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(start);
+        return new RangeInputStream(Channels.newInputStream(channel), end - start + 1);
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) throws IOException {
+        Path file = resolve(key);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return Optional.of(new StoredObject(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+    }
+
+    @Override
+    public List<StoredObject> list(String prefix) throws IOException {
+        Path directory = prefix.endsWith("/") ? resolve(prefix) : resolve(prefix).getParent();
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<String> keys = files.filter(Files::isRegularFile)
+                    .map(file -> root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/"))
+                    .filter(key -> key.startsWith(prefix))
+                    .sorted()
+                    .collect(Collectors.toList());
+
+            List<StoredObject> objects = new ArrayList<>();
+            for (String key : keys) {
+                stat(key).ifPresent(objects::add);
+            }
+            return objects;
+        }
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        Path target = resolve(targetKey);
+        Files.createDirectories(target.getParent());
+        copyFile(resolve(sourceKey), target);
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        Path target = resolve(targetKey);
+        Files.createDirectories(target.getParent());
+        Files.move(resolve(sourceKey), target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    public void close() {
+        executor.shutdown();
+    }
+
+    private Path resolve(String key) {
+        Path resolved = root.resolve(key).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new InvalidPathException(key, "Outside the storage root " + root);
+        }
+        return resolved;
+    }
+
+    private void copyFile(Path source, Path target) throws IOException {
+        Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".part");
+        try {
+            Files.copy(source, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
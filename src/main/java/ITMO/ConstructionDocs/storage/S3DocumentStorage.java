@@ -0,0 +1,213 @@
+package ITMO.ConstructionDocs.storage;
+
+import ITMO.ConstructionDocs.utils.FileStreamUtil;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.ContentStreamProvider;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps objects in one bucket of an S3-compatible store. With an endpoint override and path-style
+ * access it works against MinIO or any other local stand-in as well as against AWS.
+ */
+@Slf4j
+public class S3DocumentStorage implements DocumentStorage {
+    private static final int NOT_FOUND = 404;
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final long partSize;
+    private final ExecutorService asyncExecutor;
+    private final ExecutorService partExecutor;
+
+    public S3DocumentStorage(S3Client s3Client, String bucket, long partSize, int uploadThreads) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.partSize = partSize;
+        this.asyncExecutor = Executors.newFixedThreadPool(uploadThreads);
+        this.partExecutor = Executors.newFixedThreadPool(uploadThreads);
+    }
+
+    /**
+     * The object size has to be known before the upload starts, so the stream is staged
+     * in a local temp file first.
+     */
+    @Override
+    public long put(String key, InputStream content, long maxSize) throws IOException {
+        Path stagedFile = Files.createTempFile("s3-put-", ".part");
+        try {
+            long size = FileStreamUtil.writeToFile(content, stagedFile, maxSize);
+            putFile(key, stagedFile);
+            return size;
+        } finally {
+            Files.deleteIfExists(stagedFile);
+        }
+    }
+
+    @Override
+    public void putFile(String key, Path source) throws IOException {
+        try {
+            long size = Files.size(source);
+            if (size <= partSize) {
+                s3Client.putObject(builder -> builder.bucket(bucket).key(key), RequestBody.fromFile(source));
+            } else {
+                putMultipart(key, source, size);
+            }
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> putFileAsync(String key, Path source) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                putFile(key, source);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, asyncExecutor);
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        try {
+            return s3Client.getObject(builder -> builder.bucket(bucket).key(key));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        }
+    }
+
+    @Override
+    public InputStream getRange(String key, long start, long end) throws IOException {
+        try {
+            return s3Client.getObject(builder -> builder.bucket(bucket).key(key).range("bytes=" + start + "-" + end));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        }
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) {
+        try {
+            HeadObjectResponse head = s3Client.headObject(builder -> builder.bucket(bucket).key(key));
+            return Optional.of(new StoredObject(key, head.contentLength(), head.lastModified()));
+        } catch (S3Exception e) {
+            if (e.statusCode() == NOT_FOUND) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<StoredObject> list(String prefix) {
+        return s3Client.listObjectsV2Paginator(builder -> builder.bucket(bucket).prefix(prefix)).contents().stream()
+                .map(object -> new StoredObject(object.key(), object.size(), object.lastModified()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Server-side copy, the bytes do not leave the store. A single copy request is limited to 5GB,
+     * which is above the largest document accepted for upload.
+     */
+    @Override
+    public void copy(String sourceKey, String targetKey) {
+        s3Client.copyObject(builder -> builder
+                .sourceBucket(bucket).sourceKey(sourceKey)
+                .destinationBucket(bucket).destinationKey(targetKey));
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) {
+        copy(sourceKey, targetKey);
+        delete(sourceKey);
+    }
+
+    @Override
+    public void delete(String key) {
+        s3Client.deleteObject(builder -> builder.bucket(bucket).key(key));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    public void close() {
+        asyncExecutor.shutdown();
+        partExecutor.shutdown();
+    }
+
+    private void putMultipart(String key, Path source, long size) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(builder -> builder.bucket(bucket).key(key)).uploadId();
+
+        try {
+            List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+            long partCount = (size + partSize - 1) / partSize;
+            for (int i = 0; i < partCount; i++) {
+                int partNumber = i + 1;
+                long offset = i * partSize;
+                long length = Math.min(partSize, size - offset);
+                parts.add(CompletableFuture.supplyAsync(() -> uploadPart(key, uploadId, source, partNumber, offset, length), partExecutor));
+            }
+
+            List<CompletedPart> completedParts = parts.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
+
+            s3Client.completeMultipartUpload(builder -> builder.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(upload -> upload.parts(completedParts)));
+
+        } catch (RuntimeException e) {
+            s3Client.abortMultipartUpload(builder -> builder.bucket(bucket).key(key).uploadId(uploadId));
+            log.warn("Multipart upload of {} aborted", key);
+            if (e instanceof CompletionException && e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, Path source, int partNumber, long offset, long length) {
+        // read from the file region while sent, and again on a retry, so no part is held on the heap
+        ContentStreamProvider part = () -> {
+            try {
+                FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+                channel.position(offset);
+                return new RangeInputStream(Channels.newInputStream(channel), length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+
+        UploadPartResponse response = s3Client.uploadPart(builder -> builder.bucket(bucket).key(key)
+                        .uploadId(uploadId).partNumber(partNumber).contentLength(length),
+                RequestBody.fromContentProvider(part, length, "application/octet-stream"));
+
+        return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+    }
+}
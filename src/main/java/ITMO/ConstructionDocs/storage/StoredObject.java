@@ -0,0 +1,17 @@
+package ITMO.ConstructionDocs.storage;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class StoredObject {
+    String key;
+    long size;
+    Instant lastModified;
+}
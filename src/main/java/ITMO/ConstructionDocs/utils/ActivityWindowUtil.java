@@ -0,0 +1,27 @@
+package ITMO.ConstructionDocs.utils;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import lombok.experimental.UtilityClass;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Time window of the activity endpoints: [from, to), the week up to now unless given.
+ */
+@UtilityClass
+public class ActivityWindowUtil {
+    public static LocalDateTime getTo(LocalDateTime to) {
+        return to == null ? LocalDateTime.now() : to;
+    }
+
+    public static LocalDateTime getFrom(LocalDateTime from, LocalDateTime to) {
+        if (from == null) {
+            return to.minusWeeks(1);
+        }
+        if (!from.isBefore(to)) {
+            throw new CustomException("Start of the time window must be before its end", HttpStatus.BAD_REQUEST);
+        }
+        return from;
+    }
+}
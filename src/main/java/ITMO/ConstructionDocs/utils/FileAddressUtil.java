@@ -0,0 +1,34 @@
+package ITMO.ConstructionDocs.utils;
+
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import lombok.experimental.UtilityClass;
+
+/**
+ * File addresses are relative to the files root directory of the project the doc belongs to,
+ * so moving a project only changes {@code Project.filesRootDirectory}. Docs not attached to a
+ * project yet are addressed by their file name alone.
+ */
+@UtilityClass
+public class FileAddressUtil {
+    private static final String ASBUILT_DIRECTORY_SUFFIX = "-ABDs/";
+
+    public static String forProjectDoc(ProjectDoc projectDoc) {
+        return projectDoc.getFileName();
+    }
+
+    public static String forAsbuiltDoc(AsbuiltDoc asbuiltDoc) {
+        ProjectDoc projectDoc = asbuiltDoc.getProjectDoc();
+        if (projectDoc == null) {
+            return asbuiltDoc.getFileName();
+        }
+        return asbuiltDirectoryOf(projectDoc) + asbuiltDoc.getFileName();
+    }
+
+    /**
+     * Prefix of the addresses of the project doc's as-built docs, for SQL setting them without loading the docs.
+     */
+    public static String asbuiltDirectoryOf(ProjectDoc projectDoc) {
+        return forProjectDoc(projectDoc) + ASBUILT_DIRECTORY_SUFFIX;
+    }
+}
@@ -0,0 +1,150 @@
+package ITMO.ConstructionDocs.utils;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.storage.DocumentStorage;
+import ITMO.ConstructionDocs.storage.StoredObject;
+import lombok.experimental.UtilityClass;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+@UtilityClass
+public class FileDownloadUtil {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Writes the object stored under {@code key} (or the single byte range asked for in the Range header)
+     * to the response. Conditional requests are answered with 304 from ETag and Last-Modified; the
+     * ETag is {@code entityTag} when given, e.g. the content hash, and is built from size and mtime
+     * otherwise. When the object is a local file and the container supports sendfile the bytes are
+     * handed to it and never enter the JVM, local files are otherwise copied with
+     * {@link FileChannel#transferTo}, and remote objects are streamed from a ranged read.
+     *
+     * @return the bytes of the body, none for a 304 or a HEAD request
+     */
+    public static long writeContent(DocumentStorage storage, String key, String entityTag, String contentType, String fileName,
+                                    HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredObject object = storage.stat(key)
+                .orElseThrow(() -> new CustomException("File was not found: " + key, HttpStatus.NOT_FOUND));
+
+        long size = object.getSize();
+        long lastModified = object.getLastModified().toEpochMilli();
+        String etag = entityTag != null
+                ? "\"" + entityTag + "\""
+                : "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return 0;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        if (fileName != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.inline().filename(fileName, StandardCharsets.UTF_8).build().toString());
+        }
+
+        long start = 0;
+        long end = size - 1;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && size > 0 && isRangeApplicable(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+
+            // several ranges would need a multipart/byteranges body, the whole file is sent instead
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return 0;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+
+        if (HttpMethod.HEAD.matches(request.getMethod()) || length == 0) {
+            return 0;
+        }
+
+        Optional<Path> localFile = storage.localPath(key);
+        if (localFile.isPresent()) {
+            writeLocalFile(localFile.get(), start, end, request, response);
+            return length;
+        }
+
+        try (InputStream content = storage.getRange(key, start, end)) {
+            return content.transferTo(response.getOutputStream());
+        }
+    }
+
+    private static void writeLocalFile(Path file, long start, long end,
+                                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel sink = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long transferred = source.transferTo(position, end + 1 - position, sink);
+                if (transferred <= 0) {
+                    throw new IOException("File was truncated while it was being sent: " + file);
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    private static boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+
+        try {
+            long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return ifRangeDate != -1 && lastModified / 1000 <= ifRangeDate / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ITMO.ConstructionDocs.utils;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import lombok.experimental.UtilityClass;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+import static ITMO.ConstructionDocs.constants.Constants.STREAM_CHUNK_SIZE;
+
+@UtilityClass
+public class FileStreamUtil {
+
+    /**
+     * Copies the stream to {@code target} through a single fixed-size buffer, so memory use does not
+     * depend on the file size. Data goes to a temporary file next to the target first and replaces
+     * the target only after the whole stream was read.
+     *
+     * @return number of bytes written
+     */
+    public static long writeToFile(InputStream content, Path target, long maxSize) throws IOException {
+        return writeToFile(content, target, maxSize, null);
+    }
+
+    /**
+     * Same as {@link #writeToFile(InputStream, Path, long)}, additionally feeding every chunk
+     * into {@code digest} on the way to disk, so the content hash costs no second read.
+     */
+    public static long writeToFile(InputStream content, Path target, long maxSize, MessageDigest digest) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, target.getFileName().toString(), ".part");
+
+        try {
+            long written;
+            try (ReadableByteChannel source = Channels.newChannel(content);
+                 FileChannel sink = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                written = copy(source, sink, maxSize, digest);
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return written;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    private static long copy(ReadableByteChannel source, FileChannel sink, long maxSize, MessageDigest digest) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(STREAM_CHUNK_SIZE);
+        long written = 0;
+        boolean endOfStream = false;
+
+        while (!endOfStream) {
+            while (buffer.hasRemaining()) {
+                if (source.read(buffer) == -1) {
+                    endOfStream = true;
+                    break;
+                }
+            }
+
+            buffer.flip();
+            written += buffer.remaining();
+            if (written > maxSize) {
+                throw new CustomException(String.format("File is too big. No more than %d bytes is allowed", maxSize), HttpStatus.PAYLOAD_TOO_LARGE);
+            }
+            if (digest != null) {
+                digest.update(buffer.array(), buffer.position(), buffer.remaining());
+            }
+            while (buffer.hasRemaining()) {
+                sink.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        return written;
+    }
+}
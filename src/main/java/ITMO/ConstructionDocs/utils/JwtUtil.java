@@ -1,8 +1,10 @@
 package ITMO.ConstructionDocs.utils;
 
+import ITMO.ConstructionDocs.model.db.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
@@ -11,37 +13,42 @@ import org.springframework.security.core.Authentication;
 
 @Component
 public class JwtUtil {
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
 
-    private String secretKey = "SecretKey";
+    private final String secretKey;
+    private final long tokenValidityMillis;
 
+    public JwtUtil(@Value("${spring.security.jwt.secret:SecretKey}") String secretKey,
+                   @Value("${spring.security.jwt.token-validity:86400}") long tokenValiditySeconds) {
+        this.secretKey = secretKey;
+        this.tokenValidityMillis = tokenValiditySeconds * 1000;
+    }
+
+    /**
+     * The token carries the user id and role, so a request can be authenticated without looking the user up by email.
+     */
     public String generateToken(Authentication authentication) {
-        String email = authentication.getName();
+        User user = (User) authentication.getPrincipal();
         return Jwts.builder()
-                .setSubject(email)
+                .setSubject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 86400000)) // 1 день
+                .setExpiration(new Date(System.currentTimeMillis() + tokenValidityMillis))
                 .signWith(SignatureAlgorithm.HS256, secretKey)
                 .compact();
     }
 
-    public String extractEmail(String token) {
-        return extractClaims(token).getSubject();
-    }
-
-    private Claims extractClaims(String token) {
+    /**
+     * Verifies signature and expiration in a single parse.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims parseToken(String token) {
         return Jwts.parser()
                 .setSigningKey(secretKey)
                 .parseClaimsJws(token)
                 .getBody();
     }
-
-    public boolean validateToken(String token, String email) {
-        final String extractedEmail = extractEmail(token);
-        boolean isValid = extractedEmail.equals(email) && !isTokenExpired(token);
-        return isValid;
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractClaims(token).getExpiration().before(new Date());
-    }
 }
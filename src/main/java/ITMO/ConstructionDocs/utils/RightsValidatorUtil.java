@@ -6,10 +6,13 @@ import ITMO.ConstructionDocs.model.enums.Role;
 import lombok.experimental.UtilityClass;
 import org.springframework.http.HttpStatus;
 
+import java.util.Objects;
+
 @UtilityClass
 public class RightsValidatorUtil {
     public static void validateUser(User createdBy, User currentUser) {
-        if (createdBy.equals(currentUser)) {
+        // users are equal by id, read without loading a lazy createdBy
+        if (Objects.equals(createdBy.getId(), currentUser.getId())) {
             return;
         }
         if (currentUser.getRole() != Role.ADMIN) {
@@ -0,0 +1,153 @@
+-- Schema as Hibernate created it with ddl-auto: update. Databases it created run this too (baseline version 0),
+-- so every statement only creates what is missing.
+
+-- trigram indexes of V2, a trusted extension the owner of the database may create since postgres 13
+create extension if not exists pg_trgm;
+
+create table if not exists companies (
+    id                  bigserial primary key,
+    name                varchar(255),
+    address             varchar(255),
+    description         varchar(255),
+    registration_number varchar(255),
+    taxpayer_number     varchar(255),
+    status              varchar(255),
+    created_at          timestamp,
+    updated_at          timestamp
+);
+
+create table if not exists projects (
+    id                   bigserial primary key,
+    name                 varchar(255),
+    address              varchar(255),
+    description          varchar(255),
+    files_root_directory varchar(255),
+    status               varchar(255),
+    created_at           timestamp,
+    updated_at           timestamp
+);
+
+create table if not exists company_project (
+    company_id bigint not null constraint company_project_company_id_fk references companies,
+    project_id bigint not null constraint company_project_project_id_fk references projects
+);
+
+create table if not exists users (
+    id           bigserial primary key,
+    email        varchar(255),
+    password     varchar(255),
+    first_name   varchar(20),
+    last_name    varchar(20),
+    phone_number varchar(255),
+    position     varchar(255),
+    role         varchar(255),
+    status       varchar(255),
+    company_id   bigint constraint users_company_id_fk references companies,
+    created_at   timestamp,
+    updated_at   timestamp
+);
+
+-- project and as-built docs; the foreign keys pointing to docs are added by DocTableMigration once the rows of
+-- project_docs and asbuilt_docs are copied in
+create table if not exists docs (
+    id                 uuid primary key,
+    doc_type           varchar(16) not null,
+    file_name          varchar(255),
+    file_format        varchar(255),
+    file_size          bigint,
+    file_address       varchar(255),
+    content_hash       varchar(64),
+    description        varchar(255),
+    category           integer,
+    status             varchar(255),
+    project_id         bigint constraint docs_project_id_fk references projects,
+    project_doc_id     uuid,
+    company_id         bigint constraint docs_company_id_fk references companies,
+    created_by_user_id bigint constraint docs_created_by_user_id_fk references users,
+    updated_by_user_id bigint constraint docs_updated_by_user_id_fk references users,
+    created_at         timestamp,
+    updated_at         timestamp
+);
+
+create table if not exists comments (
+    id                 bigserial primary key,
+    title              varchar(255),
+    text               varchar(255),
+    status             varchar(255),
+    project_doc_id     uuid,
+    asbuilt_doc_id     uuid,
+    created_by_user_id bigint constraint comments_created_by_user_id_fk references users,
+    updated_by_user_id bigint constraint comments_updated_by_user_id_fk references users,
+    created_at         timestamp,
+    updated_at         timestamp
+);
+
+create table if not exists file_blobs (
+    content_hash varchar(64) primary key,
+    file_size    bigint,
+    ref_count    integer,
+    created_at   timestamp,
+    updated_at   timestamp
+);
+
+create table if not exists blob_texts (
+    content_hash varchar(64) primary key,
+    text         text,
+    extracted_at timestamp
+);
+
+create table if not exists upload_sessions (
+    id                 uuid primary key,
+    file_format        varchar(255),
+    total_chunks       integer,
+    status             varchar(255),
+    created_by_user_id bigint constraint upload_sessions_created_by_user_id_fk references users,
+    created_at         timestamp,
+    updated_at         timestamp
+);
+
+create table if not exists background_jobs (
+    id                 uuid primary key,
+    type               varchar(255),
+    status             varchar(255),
+    project_id         bigint,
+    project_doc_id     uuid,
+    total_items        bigint,
+    processed_items    bigint,
+    failed_items       bigint,
+    checkpoint_stage   varchar(255),
+    checkpoint_item_id uuid,
+    message            varchar(1000),
+    created_at         timestamp,
+    updated_at         timestamp,
+    finished_at        timestamp
+);
+
+create table if not exists activity_events (
+    id             bigserial primary key,
+    occurred_at    timestamp    not null,
+    subject        varchar(255) not null,
+    action         varchar(255) not null,
+    subject_id     varchar(255) not null,
+    project_id     bigint,
+    project_doc_id uuid,
+    asbuilt_doc_id uuid,
+    comment_id     bigint,
+    actor_id       bigint
+);
+
+create index if not exists projects_name_id_idx on projects (name, id);
+create index if not exists companies_name_id_idx on companies (name, id);
+create index if not exists users_last_name_id_idx on users (last_name, id);
+create index if not exists comments_title_id_idx on comments (title, id);
+create index if not exists docs_doc_type_file_name_id_idx on docs (doc_type, file_name, id);
+create index if not exists docs_status_idx on docs (status);
+create index if not exists docs_project_id_idx on docs (project_id);
+create index if not exists docs_project_doc_id_idx on docs (project_doc_id);
+create index if not exists docs_company_id_idx on docs (company_id);
+create index if not exists docs_created_at_idx on docs (created_at);
+create index if not exists docs_updated_at_idx on docs (updated_at);
+create index if not exists activity_events_subject_occurred_at_idx on activity_events (subject, occurred_at);
+create index if not exists activity_events_project_id_occurred_at_idx on activity_events (project_id, occurred_at);
+create index if not exists activity_events_project_doc_id_occurred_at_idx on activity_events (project_doc_id, occurred_at);
+create index if not exists activity_events_actor_id_occurred_at_idx on activity_events (actor_id, occurred_at);
@@ -0,0 +1,43 @@
+-- Indexes of the queries in the repositories. Built concurrently, the tables stay writable while they are, which
+-- keeps this migration out of a transaction (V2__query_indexes.sql.conf).
+
+-- foreign keys the lists go through; users are only ever marked deleted, the created_by and updated_by columns
+-- are left without
+create index concurrently if not exists users_company_id_idx on users (company_id);
+create index concurrently if not exists company_project_project_id_company_id_idx on company_project (project_id, company_id);
+create index concurrently if not exists company_project_company_id_project_id_idx on company_project (company_id, project_id);
+create index concurrently if not exists comments_project_doc_id_idx on comments (project_doc_id);
+create index concurrently if not exists comments_asbuilt_doc_id_idx on comments (asbuilt_doc_id);
+
+-- default sort of the lists, which leave out deleted and withdrawn rows; the full indexes they replace also held
+-- rows no list reads
+create index concurrently if not exists projects_name_id_active_idx on projects (name, id) where status <> 'DELETED';
+create index concurrently if not exists companies_name_id_active_idx on companies (name, id) where status <> 'DELETED';
+create index concurrently if not exists users_last_name_id_active_idx on users (last_name, id) where status <> 'DELETED';
+create index concurrently if not exists comments_title_id_active_idx on comments (title, id) where status <> 'DELETED';
+create index concurrently if not exists docs_doc_type_file_name_id_active_idx on docs (doc_type, file_name, id) where status <> 'WITHDRAWN';
+drop index concurrently if exists projects_name_id_idx;
+drop index concurrently if exists companies_name_id_idx;
+drop index concurrently if exists users_last_name_id_idx;
+drop index concurrently if exists comments_title_id_idx;
+drop index concurrently if exists docs_doc_type_file_name_id_idx;
+
+-- lookups ignoring case, the login one among them
+create index concurrently if not exists users_upper_email_idx on users (upper(email));
+create index concurrently if not exists projects_upper_name_idx on projects (upper(name));
+create index concurrently if not exists companies_upper_name_idx on companies (upper(name));
+
+-- the upload sessions left behind and the blobs no doc references any more, both collected on a schedule
+create index concurrently if not exists upload_sessions_status_created_at_idx on upload_sessions (status, created_at);
+create index concurrently if not exists file_blobs_unreferenced_idx on file_blobs (content_hash) where ref_count <= 0;
+
+-- the like '%filter%' of the lists, used while the search index is rebuilt
+create index concurrently if not exists projects_filter_trgm_idx on projects
+    using gin (lower(name) gin_trgm_ops, lower(address) gin_trgm_ops, lower(files_root_directory) gin_trgm_ops);
+create index concurrently if not exists companies_filter_trgm_idx on companies
+    using gin (lower(name) gin_trgm_ops, lower(address) gin_trgm_ops);
+create index concurrently if not exists users_filter_trgm_idx on users
+    using gin (lower(first_name) gin_trgm_ops, lower(last_name) gin_trgm_ops, lower(position) gin_trgm_ops);
+create index concurrently if not exists comments_filter_trgm_idx on comments
+    using gin (lower(title) gin_trgm_ops, lower(text) gin_trgm_ops);
+create index concurrently if not exists docs_file_name_trgm_idx on docs using gin (lower(file_name) gin_trgm_ops);
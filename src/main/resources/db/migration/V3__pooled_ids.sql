@@ -0,0 +1,7 @@
+-- Projects, companies, users and comments take their ids from these sequences 50 at a time, so the inserts of the
+-- batch endpoints go out as JDBC batches, which an identity column rules out. Rows inserted with the column
+-- default still draw from the same sequences and never collide with the ids handed out.
+alter sequence if exists projects_id_seq increment by 50;
+alter sequence if exists companies_id_seq increment by 50;
+alter sequence if exists users_id_seq increment by 50;
+alter sequence if exists comments_id_seq increment by 50;
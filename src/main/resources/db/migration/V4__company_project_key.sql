@@ -0,0 +1,8 @@
+-- One row per company and project, which the batch link relies on to insert with on conflict do nothing. The
+-- pairs Hibernate wrote twice are dropped first, the key is then built concurrently and taken over by the
+-- constraint, and the index of V2 on the same columns goes.
+delete from company_project a using company_project b
+    where a.ctid > b.ctid and a.company_id = b.company_id and a.project_id = b.project_id;
+create unique index concurrently if not exists company_project_pkey on company_project (company_id, project_id);
+alter table company_project add constraint company_project_pkey primary key using index company_project_pkey;
+drop index concurrently if exists company_project_company_id_project_id_idx;
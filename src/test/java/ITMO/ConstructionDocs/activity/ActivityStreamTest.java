@@ -0,0 +1,154 @@
+package ITMO.ConstructionDocs.activity;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.mapper.ActivityEventMapper;
+import ITMO.ConstructionDocs.model.db.entity.ActivityEvent;
+import ITMO.ConstructionDocs.model.db.repository.ActivityEventRepository;
+import ITMO.ConstructionDocs.model.dto.response.ActivityEventResp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityStreamTest {
+    private ActivityStream activityStream;
+
+    @Mock
+    private ActivityEventRepository activityEventRepository;
+
+    @Mock
+    private ThreadPoolTaskExecutor activityStreamExecutor;
+
+    @BeforeEach
+    void setUp() {
+        activityStream = new ActivityStream(activityEventRepository, Mappers.getMapper(ActivityEventMapper.class),
+                activityStreamExecutor, Duration.ofMinutes(30), 2, 2);
+    }
+
+    @Test
+    void publish_toSubscribersOfProjectAndProjectDoc() throws IOException {
+        sendInline();
+        UUID projectDocId = UUID.randomUUID();
+        SseEmitter projectSubscriber = mock(SseEmitter.class);
+        SseEmitter projectDocSubscriber = mock(SseEmitter.class);
+        SseEmitter otherProjectSubscriber = mock(SseEmitter.class);
+        activityStream.subscribe(projectSubscriber, 3L, null, null);
+        activityStream.subscribe(projectDocSubscriber, null, projectDocId, null);
+        activityStream.subscribe(otherProjectSubscriber, 4L, null, null);
+
+        activityStream.publish(List.of(event(10L, 3L, projectDocId)));
+
+        verify(projectSubscriber).send(any(SseEmitter.SseEventBuilder.class));
+        verify(projectDocSubscriber).send(any(SseEmitter.SseEventBuilder.class));
+        verify(otherProjectSubscriber, never()).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void subscribe_replaysMissedEventsOnce() throws IOException {
+        sendInline();
+        SseEmitter emitter = mock(SseEmitter.class);
+        when(activityEventRepository.findAllByProjectIdAndIdGreaterThanOrderByIdAsc(eq(3L), eq(4L), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    // committed while the replay is read, so also queued
+                    activityStream.publish(List.of(event(6L, 3L, null)));
+                    return List.of(entity(5L, 3L), entity(6L, 3L));
+                });
+
+        activityStream.subscribe(emitter, 3L, null, 4L);
+        activityStream.publish(List.of(event(7L, 3L, null)));
+
+        assertEquals(List.of("id:5", "id:6", "id:7"), sentIds(emitter, 3));
+    }
+
+    @Test
+    void subscribe_tooManyMissedEventsReset() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        when(activityEventRepository.findAllByProjectIdAndIdGreaterThanOrderByIdAsc(eq(3L), eq(4L), any(Pageable.class)))
+                .thenReturn(List.of(entity(5L, 3L), entity(6L, 3L), entity(7L, 3L)));
+
+        activityStream.subscribe(emitter, 3L, null, 4L);
+
+        ArgumentCaptor<SseEmitter.SseEventBuilder> sent = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter).send(sent.capture());
+        assertTrue(sent.getValue().build().iterator().next().getData().toString().contains("event:reset"));
+    }
+
+    @Test
+    void publish_slowClientDisconnected() {
+        SseEmitter emitter = mock(SseEmitter.class);
+        activityStream.subscribe(emitter, 3L, null, null);
+
+        activityStream.publish(List.of(event(1L, 3L, null), event(2L, 3L, null), event(3L, 3L, null)));
+
+        verify(emitter).complete();
+        assertEquals(0, activityStream.subscriptions());
+    }
+
+    @Test
+    void publish_closedConnectionRemoved() throws IOException {
+        sendInline();
+        SseEmitter emitter = mock(SseEmitter.class);
+        doThrow(new IOException("Broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        activityStream.subscribe(emitter, 3L, null, null);
+
+        activityStream.publish(List.of(event(1L, 3L, null)));
+
+        assertEquals(0, activityStream.subscriptions());
+    }
+
+    @Test
+    void subscribe_projectOrProjectDocRequired() {
+        CustomException e = assertThrows(CustomException.class, () -> activityStream.subscribe(null, null, null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+    }
+
+    private void sendInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(activityStreamExecutor).execute(any(Runnable.class));
+    }
+
+    private List<String> sentIds(SseEmitter emitter, int times) throws IOException {
+        ArgumentCaptor<SseEmitter.SseEventBuilder> sent = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, times(times)).send(sent.capture());
+        return sent.getAllValues().stream()
+                .map(event -> event.build().iterator().next().getData().toString().split("\n")[0])
+                .collect(Collectors.toList());
+    }
+
+    private ActivityEventResp event(Long id, Long projectId, UUID projectDocId) {
+        return ActivityEventResp.builder()
+                .id(id)
+                .projectId(projectId)
+                .projectDocId(projectDocId)
+                .build();
+    }
+
+    private ActivityEvent entity(Long id, Long projectId) {
+        ActivityEvent event = new ActivityEvent();
+        event.setId(id);
+        event.setProjectId(projectId);
+        return event;
+    }
+}
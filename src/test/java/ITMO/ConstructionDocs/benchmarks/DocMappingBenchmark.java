@@ -0,0 +1,88 @@
+package ITMO.ConstructionDocs.benchmarks;
+
+import ITMO.ConstructionDocs.mapper.ProjectDocMapper;
+import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.dto.response.ProjectDocResp;
+import ITMO.ConstructionDocs.model.enums.DesignCategory;
+import ITMO.ConstructionDocs.model.enums.DocStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cost of turning one getAll* page of entities into response DTOs,
+ * reflective Jackson round trip vs the generated mapper.
+ * Run with {@code mvn -Pbenchmarks verify -Djmh.args="DocMappingBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DocMappingBenchmark {
+    @Param({"10", "100"})
+    int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ProjectDocMapper projectDocMapper = Mappers.getMapper(ProjectDocMapper.class);
+
+    private List<ProjectDoc> page;
+
+    @Setup
+    public void setUp() {
+        Project project = new Project();
+        project.setId(1L);
+        project.setName("Benchmark project");
+
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("designer@test.com");
+
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            ProjectDoc projectDoc = new ProjectDoc();
+            projectDoc.setId(UUID.randomUUID());
+            projectDoc.setFileName("design-" + i + ".pdf");
+            projectDoc.setFileFormat("application/pdf");
+            projectDoc.setFileSize(1024L * (i + 1));
+            projectDoc.setFileAddress("design-" + i + ".pdf");
+            projectDoc.setDescription("Sheet " + i + " of the working drawings");
+            projectDoc.setDocStatus(DocStatus.INITIAL);
+            projectDoc.setDesignCategory(DesignCategory.ARCHITECTURAL);
+            projectDoc.setCreatedAt(LocalDateTime.now());
+            projectDoc.setProject(project);
+            projectDoc.setCreatedBy(user);
+            projectDoc.setComments(new ArrayList<>());
+            projectDoc.setAsbuiltDocs(new ArrayList<>());
+            page.add(projectDoc);
+        }
+    }
+
+    @Benchmark
+    public List<ProjectDocResp> convertValue() {
+        return page.stream()
+                .map(projectDoc -> objectMapper.convertValue(projectDoc, ProjectDocResp.class))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ProjectDocResp> generatedMapper() {
+        return page.stream()
+                .map(projectDocMapper::toProjectDocResp)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,76 @@
+package ITMO.ConstructionDocs.benchmarks;
+
+import ITMO.ConstructionDocs.storage.LocalDocumentStorage;
+import ITMO.ConstructionDocs.utils.FileStreamUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write path of an upload: the copy of the request stream to a file, with the SHA-256 of
+ * {@code FileBlobService.storeContent} computed on the way or without it, and the move of the staged file into
+ * the local store. Run with {@code mvn -Pbenchmarks verify -Djmh.args="FileWriteBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileWriteBenchmark {
+    @Param({"65536", "4194304"})
+    int fileSize;
+
+    private byte[] content;
+    private Path directory;
+    private Path target;
+    private LocalDocumentStorage storage;
+
+    @Setup
+    public void setUp() throws IOException {
+        content = new byte[fileSize];
+        new Random(42).nextBytes(content);
+        directory = Files.createTempDirectory("file-write-benchmark");
+        target = directory.resolve("target.bin");
+        storage = new LocalDocumentStorage(directory.resolve("store"), 1);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        storage.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long writeToFile() throws IOException {
+        return FileStreamUtil.writeToFile(new ByteArrayInputStream(content), target, fileSize);
+    }
+
+    @Benchmark
+    public byte[] writeToFileHashed() throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        FileStreamUtil.writeToFile(new ByteArrayInputStream(content), target, fileSize, digest);
+        return digest.digest();
+    }
+
+    @Benchmark
+    public long stageAndPutFile() throws IOException {
+        Path staged = directory.resolve("staged.bin");
+        long written = FileStreamUtil.writeToFile(new ByteArrayInputStream(content), staged, fileSize);
+        storage.putFile("blobs/benchmark.bin", staged);
+        return written;
+    }
+}
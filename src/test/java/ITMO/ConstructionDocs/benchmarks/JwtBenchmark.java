@@ -0,0 +1,52 @@
+package ITMO.ConstructionDocs.benchmarks;
+
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.enums.Role;
+import ITMO.ConstructionDocs.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing a token on login and of the parse and signature check every authenticated request pays.
+ * Run with {@code mvn -Pbenchmarks verify -Djmh.args="JwtBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+    private final JwtUtil jwtUtil = new JwtUtil("BenchmarkSecretKey", 86400);
+
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("designer@test.com");
+        user.setRole(Role.DESIGNER);
+        authentication = new UsernamePasswordAuthenticationToken(user, null, List.of());
+        token = jwtUtil.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(authentication);
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return jwtUtil.parseToken(token);
+    }
+}
@@ -0,0 +1,84 @@
+package ITMO.ConstructionDocs.benchmarks;
+
+import ITMO.ConstructionDocs.mapper.ProjectMapper;
+import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.projection.ProjectView;
+import ITMO.ConstructionDocs.model.dto.response.ProjectResp;
+import ITMO.ConstructionDocs.utils.PaginationUtil;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * What a getAll* method does with a page once the repository returned it: the page request, the mapping of
+ * every row to its response and the page around them. The rows are projection proxies as Spring Data hands
+ * them out, or entities as the lists loaded them before.
+ * Run with {@code mvn -Pbenchmarks verify -Djmh.args="PageAssemblyBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageAssemblyBenchmark {
+    @Param({"10", "100"})
+    int pageSize;
+
+    private final ProjectMapper projectMapper = Mappers.getMapper(ProjectMapper.class);
+
+    private List<ProjectView> views;
+    private List<Project> entities;
+
+    @Setup
+    public void setUp() {
+        SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+        views = new ArrayList<>(pageSize);
+        entities = new ArrayList<>(pageSize);
+        for (long i = 0; i < pageSize; i++) {
+            views.add(projectionFactory.createProjection(ProjectView.class, Map.of("id", i, "name", "Project " + i,
+                    "address", "Street " + i, "description", "Residential block " + i,
+                    "filesRootDirectory", "project-" + i)));
+
+            Project project = new Project();
+            project.setId(i);
+            project.setName("Project " + i);
+            project.setAddress("Street " + i);
+            project.setDescription("Residential block " + i);
+            project.setFilesRootDirectory("project-" + i);
+            entities.add(project);
+        }
+    }
+
+    @Benchmark
+    public Page<ProjectResp> fromViews() {
+        Pageable pageRequest = PaginationUtil.getPageRequest(1, pageSize, "name", Sort.Direction.ASC);
+        List<ProjectResp> content = views.stream()
+                .map(projectMapper::toProjectResp)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageRequest, 10L * pageSize);
+    }
+
+    @Benchmark
+    public Page<ProjectResp> fromEntities() {
+        Pageable pageRequest = PaginationUtil.getPageRequest(1, pageSize, "name", Sort.Direction.ASC);
+        List<ProjectResp> content = entities.stream()
+                .map(projectMapper::toProjectResp)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageRequest, 10L * pageSize);
+    }
+}
@@ -0,0 +1,60 @@
+package ITMO.ConstructionDocs.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PostgresCacheInvalidationBusTest {
+    private PostgresCacheInvalidationBus bus;
+    private final List<CacheInvalidation> received = new ArrayList<>();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        bus = new PostgresCacheInvalidationBus(jdbcTemplate, new DataSourceProperties());
+        bus.subscribe(received::add);
+    }
+
+    @Test
+    void publish_notifiesChannel() {
+        CacheInvalidation invalidation = CacheInvalidation.entity("ITMO.ConstructionDocs.model.db.entity.Company", 5L);
+
+        bus.publish(invalidation);
+
+        verify(jdbcTemplate).queryForObject(contains("pg_notify"), eq(String.class),
+                eq(PostgresCacheInvalidationBus.CHANNEL), eq(bus.encode(invalidation)));
+    }
+
+    @Test
+    void receive_ownInvalidationSkipped() {
+        bus.receive(bus.encode(CacheInvalidation.entity("ITMO.ConstructionDocs.model.db.entity.Company", 5L)));
+
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void receive_invalidationOfOtherNode() {
+        PostgresCacheInvalidationBus otherNode = new PostgresCacheInvalidationBus(jdbcTemplate, new DataSourceProperties());
+        CacheInvalidation collection = CacheInvalidation.collection("ITMO.ConstructionDocs.model.db.entity.Company.users", 5L);
+
+        bus.receive(otherNode.encode(collection));
+        bus.receive(otherNode.encode(CacheInvalidation.ALL));
+
+        assertEquals(List.of(collection, CacheInvalidation.ALL), received);
+    }
+}
@@ -0,0 +1,184 @@
+package ITMO.ConstructionDocs.cache;
+
+import ITMO.ConstructionDocs.config.CacheConfig;
+import ITMO.ConstructionDocs.mapper.CompanyMapperImpl;
+import ITMO.ConstructionDocs.mapper.ProjectMapperImpl;
+import ITMO.ConstructionDocs.mapper.UserMapperImpl;
+import ITMO.ConstructionDocs.model.db.entity.Company;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.repository.CompanyRepository;
+import ITMO.ConstructionDocs.model.db.repository.UserRepository;
+import ITMO.ConstructionDocs.model.dto.request.CompanyReq;
+import ITMO.ConstructionDocs.model.dto.response.CacheRegionResp;
+import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.model.enums.Role;
+import ITMO.ConstructionDocs.security.PrincipalCache;
+import ITMO.ConstructionDocs.service.ActivityService;
+import ITMO.ConstructionDocs.service.BatchWriter;
+import ITMO.ConstructionDocs.service.CompanyService;
+import ITMO.ConstructionDocs.service.LegacyImportService;
+import ITMO.ConstructionDocs.service.ProjectService;
+import ITMO.ConstructionDocs.service.SearchService;
+import ITMO.ConstructionDocs.service.SeekPaginationService;
+import ITMO.ConstructionDocs.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs against an in-memory database without a test transaction, query results are cached only once the writes
+ * they depend on are committed.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.database=h2",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"})
+@Import({CacheConfig.class, SecondLevelCache.class, CacheInvalidationPublisher.class, CompanyService.class,
+        ProjectService.class, UserService.class, SeekPaginationService.class, BatchWriter.class, ObjectMapper.class,
+        CompanyMapperImpl.class, ProjectMapperImpl.class, UserMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CompanyService companyService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    @MockBean
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @MockBean
+    private SearchService searchService;
+
+    @MockBean
+    private LegacyImportService legacyImportService;
+
+    @MockBean
+    private ActivityService activityService;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private PrincipalCache principalCache;
+
+    private Statistics statistics;
+    private Company company;
+
+    @BeforeEach
+    void setUp() {
+        company = new Company();
+        company.setName("Company");
+        company.setStatus(CommonStatus.CREATED);
+        company = companyRepository.save(company);
+        userRepository.saveAll(IntStream.range(0, 3)
+                .mapToObj(i -> {
+                    User user = new User();
+                    user.setEmail("user" + i + "@test.com");
+                    user.setRole(Role.CONTRACTOR);
+                    user.setCompany(company);
+                    user.setStatus(CommonStatus.CREATED);
+                    return user;
+                })
+                .collect(Collectors.toList()));
+        entityManagerFactory.getCache().evictAll();
+        clearInvocations(cacheInvalidationBus);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+        companyRepository.deleteAll();
+    }
+
+    @Test
+    void getCompanyFromDB_readOnceThenFromCache() {
+        companyService.getCompanyFromDB(company.getId());
+        companyService.getCompanyFromDB(company.getId());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void getUsersByCompany_repeatedFromQueryCache() {
+        assertEquals(3, userService.getUsersByCompany(company.getId(), 1, 20, null, null).getContent().size());
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(3, userService.getUsersByCompany(company.getId(), 1, 20, null, null).getContent().size());
+
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void updateCompany_publishedToOtherNodes() {
+        CompanyReq request = new CompanyReq();
+        request.setName("Renamed");
+
+        companyService.updateCompany(company.getId(), request);
+
+        verify(cacheInvalidationBus).publish(CacheInvalidation.entity(Company.class.getName(), company.getId()));
+    }
+
+    @Test
+    void evict_invalidationOfOtherNode() {
+        companyService.getCompanyFromDB(company.getId());
+
+        secondLevelCache.evict(CacheInvalidation.entity(Company.class.getName(), company.getId()));
+        companyService.getCompanyFromDB(company.getId());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void getStats_hitsOfRegion() {
+        companyService.getCompanyFromDB(company.getId());
+        companyService.getCompanyFromDB(company.getId());
+
+        CacheRegionResp companies = secondLevelCache.getStats().stream()
+                .filter(region -> region.getRegion().equals(CacheRegions.COMPANIES))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(companies.getHitCount() >= 1);
+        assertTrue(companies.getSize() >= 1);
+    }
+}
@@ -0,0 +1,54 @@
+package ITMO.ConstructionDocs.loadtest;
+
+import ITMO.ConstructionDocs.ConstructionDocsApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The application on postgres binaries started next to it, with no database server or container to set up, and
+ * the synthetic data of {@code DataGenerator} written on the first start. The database, files and search index
+ * are kept under {@code target/loadtest} and reused by later starts. Run with {@code mvn -Ploadtest-server verify}
+ * and point the simulation of {@code loadtest/} at it; pass settings with
+ * {@code -Dloadtest.args="--app.datagen.project-docs-per-project=1700"}.
+ */
+@Slf4j
+public class LoadTestServer {
+
+    public static void main(String[] args) throws IOException {
+        // devtools would run main again in a classloader of its own and start a second postgres
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Path directory = Path.of(System.getProperty("loadtest.dir", "target/loadtest")).toAbsolutePath();
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setDataDirectory(directory.resolve("postgres"))
+                .setCleanDataDirectory(false)
+                .setPort(Integer.getInteger("loadtest.db-port", 5433))
+                .start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                postgres.close();
+            } catch (IOException e) {
+                log.warn("Embedded postgres did not stop cleanly", e);
+            }
+        }));
+
+        // system properties rank above application.yaml and below the arguments, which can still override them
+        setDefault("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+        setDefault("spring.datasource.username", "postgres");
+        setDefault("spring.datasource.password", "");
+        setDefault("app.storage.type", "local");
+        setDefault("app.storage.local.root", directory.resolve("files").toString());
+        setDefault("app.search.index-dir", directory.resolve("search-index").toString());
+        setDefault("app.datagen.enabled", "true");
+        SpringApplication.run(ConstructionDocsApplication.class, args);
+    }
+
+    private static void setDefault(String name, String value) {
+        if (System.getProperty(name) == null) {
+            System.setProperty(name, value);
+        }
+    }
+}
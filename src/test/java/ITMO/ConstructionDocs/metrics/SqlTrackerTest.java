@@ -0,0 +1,93 @@
+package ITMO.ConstructionDocs.metrics;
+
+import ITMO.ConstructionDocs.model.dto.response.SqlRequestResp;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlTrackerTest {
+    private JdbcDataSource h2;
+
+    @BeforeEach
+    void setUp() {
+        h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:sql-tracker;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(h2);
+        jdbcTemplate.execute("drop table if exists remarks");
+        jdbcTemplate.execute("create table remarks (id int primary key, title varchar(255))");
+        jdbcTemplate.update("insert into remarks select x, 'Remark ' || x from system_range(1, 5)");
+    }
+
+    @Test
+    void statementsAndRowsOfTheRequestAreCounted() {
+        SqlTracker sqlTracker = new SqlTracker(100, Duration.ZERO, 10);
+        JdbcTemplate jdbcTemplate = tracked(sqlTracker);
+
+        jdbcTemplate.queryForList("select title from remarks", String.class);
+        RequestSqlStats stats = sqlTracker.start("GET", "/api/comments/all");
+        jdbcTemplate.queryForList("select title from remarks", String.class);
+        jdbcTemplate.queryForObject("select count(*) from remarks where id > ?", Long.class, 2);
+        sqlTracker.finish(stats, 200);
+        jdbcTemplate.queryForList("select title from remarks", String.class);
+
+        assertEquals(2, stats.getStatements());
+        assertEquals(6, stats.getRows());
+        assertTrue(stats.getJdbcMillis() > 0);
+
+        List<SqlRequestResp> slowRequests = sqlTracker.getSlowRequests();
+        assertEquals(1, slowRequests.size());
+        assertEquals("/api/comments/all", slowRequests.get(0).getUri());
+        assertEquals(2, slowRequests.get(0).getSql().size());
+        assertTrue(slowRequests.get(0).getSql().get(0).endsWith("select title from remarks"));
+    }
+
+    @Test
+    void rowsAreNotCountedWithoutResultSetProxy() {
+        SqlTracker sqlTracker = new SqlTracker(100, Duration.ZERO, 10);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(ProxyDataSourceBuilder.create(h2).listener(sqlTracker).build());
+
+        RequestSqlStats stats = sqlTracker.start("GET", "/api/comments/all");
+        jdbcTemplate.queryForList("select title from remarks", String.class);
+        sqlTracker.finish(stats, 200);
+
+        assertEquals(1, stats.getStatements());
+        assertEquals(0, stats.getRows());
+    }
+
+    @Test
+    void slowRequestsKeepTheLastOnes() {
+        SqlTracker sqlTracker = new SqlTracker(100, Duration.ZERO, 2);
+
+        for (int i = 0; i < 3; i++) {
+            sqlTracker.finish(sqlTracker.start("GET", "/api/projects/" + i), 200);
+        }
+
+        List<SqlRequestResp> slowRequests = sqlTracker.getSlowRequests();
+        assertEquals(2, slowRequests.size());
+        assertTrue(slowRequests.stream().noneMatch(request -> request.getUri().equals("/api/projects/0")));
+    }
+
+    @Test
+    void fastRequestsAreNotKept() {
+        SqlTracker sqlTracker = new SqlTracker(100, Duration.ofMinutes(1), 10);
+
+        sqlTracker.finish(sqlTracker.start("GET", "/api/projects/all"), 200);
+
+        assertTrue(sqlTracker.getSlowRequests().isEmpty());
+    }
+
+    private JdbcTemplate tracked(SqlTracker sqlTracker) {
+        return new JdbcTemplate(ProxyDataSourceBuilder.create(h2)
+                .listener(sqlTracker)
+                .methodListener(sqlTracker)
+                .proxyResultSet()
+                .build());
+    }
+}
@@ -0,0 +1,137 @@
+package ITMO.ConstructionDocs.model.db.migration;
+
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migration on a database of the release before {@code docs}: the old tables as Hibernate created them,
+ * without {@code content_hash}, and the tables of {@code V1__schema.sql} created next to them.
+ */
+class DocTableMigrationTest {
+    private static final UUID PROJECT_DOC_ID = new UUID(0, 1);
+    private static final UUID ASBUILT_DOC_ID = new UUID(0, 11);
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbcTemplate;
+    private static DocTableMigration migration;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        DataSource dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("create table projects (id bigserial primary key, name varchar(255), address varchar(255), " +
+                "description varchar(255), files_root_directory varchar(255), status varchar(255), " +
+                "created_at timestamp, updated_at timestamp)");
+        jdbcTemplate.execute("create table project_docs (id uuid primary key, file_name varchar(255), " +
+                "file_format varchar(255), file_size bigint, file_address varchar(255), description varchar(255), " +
+                "created_at timestamp, updated_at timestamp, status varchar(255), category integer, " +
+                "project_id bigint references projects, created_by_user_id bigint, updated_by_user_id bigint)");
+        jdbcTemplate.execute("create table asbuilt_docs (id uuid primary key, file_name varchar(255), " +
+                "file_format varchar(255), file_size bigint, file_address varchar(255), description varchar(255), " +
+                "created_at timestamp, updated_at timestamp, status varchar(255), category integer, " +
+                "project_doc_id uuid references project_docs, company_id bigint, created_by_user_id bigint, " +
+                "updated_by_user_id bigint)");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__schema.sql")).execute(dataSource);
+
+        jdbcTemplate.update("insert into projects (id, name) values (1, 'Bridge')");
+        for (int i = 1; i <= 5; i++) {
+            jdbcTemplate.update("insert into project_docs (id, file_name, status, category, project_id) " +
+                    "values (?, ?, 'ACTIVE', 0, 1)", new UUID(0, i), "plan-" + i + ".pdf");
+        }
+        for (int i = 1; i <= 3; i++) {
+            jdbcTemplate.update("insert into asbuilt_docs (id, file_name, status, category, project_doc_id) " +
+                    "values (?, ?, 'ACTIVE', 0, ?)", new UUID(0, 10 + i), "survey-" + i + ".pdf", PROJECT_DOC_ID);
+        }
+        jdbcTemplate.update("insert into comments (title, project_doc_id) values ('Check the piles', ?)",
+                PROJECT_DOC_ID);
+
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(postgres.getJdbcUrl("postgres", "postgres"));
+        migration = new DocTableMigration(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), dataSourceProperties,
+                "expand", 2);
+        migration.migrate();
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void expand_copiesLegacyRows() {
+        assertEquals(5, countDocs(ProjectDoc.DOC_TYPE));
+        assertEquals(3, countDocs(AsbuiltDoc.DOC_TYPE));
+        assertEquals(PROJECT_DOC_ID, jdbcTemplate.queryForObject(
+                "select project_doc_id from docs where id = ?", UUID.class, ASBUILT_DOC_ID));
+    }
+
+    @Test
+    void expand_addsContentHashToLegacyTables() {
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from information_schema.columns where " +
+                "table_name in ('project_docs', 'asbuilt_docs') and column_name = 'content_hash'", Integer.class));
+    }
+
+    @Test
+    void expand_validatesForeignKeys() {
+        assertEquals(3, jdbcTemplate.queryForObject("select count(*) from pg_constraint where conname in " +
+                "('docs_project_doc_id_fk', 'comments_project_doc_id_fk', 'comments_asbuilt_doc_id_fk') " +
+                "and convalidated", Integer.class));
+    }
+
+    @Test
+    void legacyWrite_copiedToDocs() {
+        UUID id = new UUID(0, 100);
+        jdbcTemplate.update("insert into project_docs (id, file_name, status, category, project_id) " +
+                "values (?, 'late.pdf', 'ACTIVE', 0, 1)", id);
+
+        assertEquals("late.pdf", jdbcTemplate.queryForObject(
+                "select file_name from docs where id = ? and doc_type = ?", String.class, id, ProjectDoc.DOC_TYPE));
+
+        jdbcTemplate.update("delete from project_docs where id = ?", id);
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from docs where id = ?", Integer.class, id));
+    }
+
+    @Test
+    void docsWrite_copiedToLegacyTable() {
+        UUID id = new UUID(0, 200);
+        jdbcTemplate.update("insert into docs (id, doc_type, file_name, content_hash, status, category, " +
+                "project_doc_id) values (?, ?, 'new.pdf', 'abc', 'ACTIVE', 0, ?)", id, AsbuiltDoc.DOC_TYPE,
+                PROJECT_DOC_ID);
+
+        assertEquals("abc", jdbcTemplate.queryForObject(
+                "select content_hash from asbuilt_docs where id = ?", String.class, id));
+    }
+
+    @Test
+    void migrate_secondRunFindsWorkDone() {
+        migration.migrate();
+
+        assertEquals(5, countDocs(ProjectDoc.DOC_TYPE));
+        assertEquals(3, countDocs(AsbuiltDoc.DOC_TYPE));
+    }
+
+    private static int countDocs(String docType) {
+        return jdbcTemplate.queryForObject("select count(*) from docs where doc_type = ? and id < ?", Integer.class,
+                docType, new UUID(0, 100));
+    }
+}
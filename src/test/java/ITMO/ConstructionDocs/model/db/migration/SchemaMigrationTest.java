@@ -0,0 +1,74 @@
+package ITMO.ConstructionDocs.model.db.migration;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migrates an empty postgres with the scripts of {@code db/migration} and checks the entities against the result,
+ * as {@code ddl-auto: validate} does on startup; the context fails to start when they differ.
+ */
+@DataJpaTest(showSql = false, properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SchemaMigrationTest {
+    private static final EmbeddedPostgres postgres = start();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void dataSource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void migrate_appliesEveryVersion() {
+        assertEquals(List.of("1", "2", "3", "4"), jdbcTemplate.queryForList(
+                "select version from flyway_schema_history where success order by installed_rank", String.class));
+    }
+
+    @Test
+    void migrate_buildsQueryIndexes() {
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from pg_extension where extname = 'pg_trgm'", Integer.class));
+        // an index built concurrently is left invalid when the build fails
+        List<String> indexes = jdbcTemplate.queryForList("select c.relname from pg_index i " +
+                "join pg_class c on c.oid = i.indexrelid where i.indisvalid", String.class);
+        assertTrue(indexes.containsAll(List.of("users_company_id_idx", "projects_name_id_active_idx",
+                "file_blobs_unreferenced_idx", "docs_file_name_trgm_idx", "users_filter_trgm_idx")));
+        assertFalse(indexes.contains("projects_name_id_idx"));
+    }
+
+    @Test
+    void migrate_keysCompanyProject() {
+        assertEquals("p", jdbcTemplate.queryForObject(
+                "select contype from pg_constraint where conname = 'company_project_pkey'", String.class));
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ITMO.ConstructionDocs.search;
+
+import ITMO.ConstructionDocs.model.enums.SearchType;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+    @TempDir
+    Path indexDir;
+
+    private SearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        searchIndex = new SearchIndex(FSDirectory.open(indexDir));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        searchIndex.close();
+    }
+
+    @Test
+    void search_prefixAndTypo() {
+        searchIndex.update(SearchType.PROJECT_DOC, "1", null, List.of("foundation-plan.pdf", "STRUCTURAL"));
+        searchIndex.update(SearchType.PROJECT_DOC, "2", null, List.of("roof.dwg", "ARCHITECTURAL"));
+        searchIndex.refresh();
+
+        assertEquals(List.of("1"), searchIndex.search(SearchType.PROJECT_DOC, null, "found", 0, 10).getIds());
+        assertEquals(List.of("1"), searchIndex.search(SearchType.PROJECT_DOC, null, "fundation", 0, 10).getIds());
+        assertEquals(List.of("2"), searchIndex.search(SearchType.PROJECT_DOC, null, "Architectural", 0, 10).getIds());
+        assertEquals(0, searchIndex.search(SearchType.PROJECT_DOC, null, "roof structural", 0, 10).getTotalHits());
+    }
+
+    @Test
+    void search_exactMatchFirstAndPaged() {
+        searchIndex.update(SearchType.COMMENT, "1", null, List.of("Cracks", "see the cracked beam"));
+        searchIndex.update(SearchType.COMMENT, "2", null, List.of("Crack", "crack in the wall"));
+        searchIndex.update(SearchType.COMMENT, "3", null, List.of("Paint", "wrong color"));
+        searchIndex.refresh();
+
+        SearchHits firstPage = searchIndex.search(SearchType.COMMENT, null, "crack", 0, 1);
+        SearchHits secondPage = searchIndex.search(SearchType.COMMENT, null, "crack", 1, 1);
+
+        assertEquals(2, firstPage.getTotalHits());
+        assertEquals(List.of("2"), firstPage.getIds());
+        assertEquals(List.of("1"), secondPage.getIds());
+    }
+
+    @Test
+    void search_byParentAndType() {
+        searchIndex.update(SearchType.PROJECT, "7", null, List.of("Riverside tower", "Main street 1"));
+        searchIndex.update(SearchType.PROJECT_DOC, "1", "7", List.of("plan.pdf", "STRUCTURAL"));
+        searchIndex.update(SearchType.PROJECT_DOC, "2", "8", List.of("riverside.pdf", "STRUCTURAL"));
+        searchIndex.update(SearchType.PROJECT_DOC, "3", "8", List.of("section.pdf", "STRUCTURAL"));
+        searchIndex.refresh();
+
+        SearchHits hits = searchIndex.search(SearchType.PROJECT_DOC, SearchType.PROJECT, "riverside", 0, 10);
+
+        assertEquals(2, hits.getTotalHits());
+        assertTrue(hits.getIds().containsAll(List.of("1", "2")));
+        assertEquals(List.of("7"), searchIndex.search(SearchType.PROJECT, null, "riverside", 0, 10).getIds());
+    }
+
+    @Test
+    void updateAndDelete() {
+        searchIndex.update(SearchType.USER, "1", null, List.of("Ivan", "Petrov", "engineer"));
+        searchIndex.update(SearchType.USER, "1", null, List.of("Ivan", "Sidorov", "engineer"));
+        searchIndex.update(SearchType.USER, "2", null, List.of("Anna", "Petrova", "architect"));
+        searchIndex.refresh();
+
+        assertEquals(List.of("1"), searchIndex.search(SearchType.USER, null, "sidorov", 0, 10).getIds());
+        assertEquals(List.of("2"), searchIndex.search(SearchType.USER, null, "petrov", 0, 10).getIds());
+
+        searchIndex.delete(SearchType.USER, "1");
+        searchIndex.refresh();
+
+        assertEquals(0, searchIndex.search(SearchType.USER, null, "ivan", 0, 10).getTotalHits());
+    }
+
+    @Test
+    void complete_keptAcrossRestart() throws IOException {
+        assertFalse(searchIndex.isComplete());
+
+        searchIndex.update(SearchType.COMPANY, "1", null, List.of("Stroy", "Moscow"));
+        searchIndex.markComplete();
+        searchIndex.close();
+        searchIndex = new SearchIndex(FSDirectory.open(indexDir));
+
+        assertTrue(searchIndex.isComplete());
+        assertEquals(List.of("1"), searchIndex.search(SearchType.COMPANY, null, "stroy", 0, 10).getIds());
+
+        searchIndex.clear();
+        searchIndex.close();
+        searchIndex = new SearchIndex(FSDirectory.open(indexDir));
+
+        assertFalse(searchIndex.isComplete());
+    }
+}
@@ -0,0 +1,105 @@
+package ITMO.ConstructionDocs.security;
+
+import ITMO.ConstructionDocs.config.SecurityConfig;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.model.enums.Role;
+import ITMO.ConstructionDocs.utils.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.endpoint.EndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.health.HealthContributorAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.health.HealthEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.prometheus.PrometheusMetricsExportAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementContextAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.servlet.ServletManagementContextAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the security filter chain in front of the actuator endpoints, without the rest of the application.
+ */
+@SpringBootTest(classes = {SecurityConfig.class, JwtUtil.class}, properties = {
+        "management.endpoints.web.exposure.include=health,prometheus",
+        "management.metrics.export.prometheus.enabled=true"})
+@ImportAutoConfiguration({WebMvcAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+        HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class, SecurityAutoConfiguration.class,
+        EndpointAutoConfiguration.class, WebEndpointAutoConfiguration.class, ManagementContextAutoConfiguration.class,
+        ServletManagementContextAutoConfiguration.class, HealthContributorAutoConfiguration.class,
+        HealthEndpointAutoConfiguration.class, MetricsAutoConfiguration.class,
+        PrometheusMetricsExportAutoConfiguration.class})
+@AutoConfigureMockMvc
+class ActuatorSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private PrincipalCache principalCache;
+
+    @MockBean
+    private CustomUserDetailsService userDetailsService;
+
+    @Test
+    void prometheus_adminToken() throws Exception {
+        User admin = user(1L, Role.ADMIN);
+        when(principalCache.getPrincipal(admin.getId())).thenReturn(Optional.of(admin));
+
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + token(admin)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void prometheus_noToken() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void prometheus_designerToken() throws Exception {
+        User designer = user(2L, Role.DESIGNER);
+        when(principalCache.getPrincipal(designer.getId())).thenReturn(Optional.of(designer));
+
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + token(designer)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void health_noToken() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    private User user(Long id, Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(role.name().toLowerCase() + "@mail.ru");
+        user.setRole(role);
+        user.setStatus(CommonStatus.CREATED);
+        return user;
+    }
+
+    private String token(User user) {
+        return jwtUtil.generateToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
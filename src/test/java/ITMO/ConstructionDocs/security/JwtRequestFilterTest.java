@@ -0,0 +1,138 @@
+package ITMO.ConstructionDocs.security;
+
+import ITMO.ConstructionDocs.cache.SingleNodeCacheInvalidationBus;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.repository.UserRepository;
+import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.model.enums.Role;
+import ITMO.ConstructionDocs.utils.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtRequestFilterTest {
+    @Mock
+    private UserRepository userRepository;
+
+    private final JwtUtil jwtUtil = new JwtUtil("TestSecretKey", 60);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private JwtRequestFilter jwtRequestFilter;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtRequestFilter = new JwtRequestFilter(jwtUtil, new PrincipalCache(userRepository, new SingleNodeCacheInvalidationBus(), 100, Duration.ofMinutes(1)),
+                meterRegistry);
+
+        user = new User();
+        user.setId(7L);
+        user.setEmail("designer@mail.ru");
+        user.setRole(Role.DESIGNER);
+        user.setStatus(CommonStatus.CREATED);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_principalIsLoadedOnce() throws ServletException, IOException {
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        String token = token(user);
+
+        for (int i = 0; i < 3; i++) {
+            SecurityContextHolder.clearContext();
+            MockHttpServletResponse response = filter(token);
+
+            assertEquals(200, response.getStatus());
+            assertSame(user, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        }
+
+        verify(userRepository, times(1)).findById(user.getId());
+        verifyNoMoreInteractions(userRepository);
+        assertEquals(3, meterRegistry.get("app.security.jwt").tag("outcome", "authenticated").timer().count());
+    }
+
+    @Test
+    void doFilter_missingHeader() throws ServletException, IOException {
+        MockHttpServletResponse response = filter(null);
+
+        assertEquals(401, response.getStatus());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, meterRegistry.get("app.security.jwt").tag("outcome", "rejected").timer().count());
+    }
+
+    @Test
+    void doFilter_tamperedToken() throws ServletException, IOException {
+        String token = new JwtUtil("OtherSecretKey", 60).generateToken(authentication(user));
+
+        MockHttpServletResponse response = filter(token);
+
+        assertEquals(401, response.getStatus());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void doFilter_roleChangedAfterLogin() throws ServletException, IOException {
+        String token = token(user);
+        User promoted = new User();
+        promoted.setId(user.getId());
+        promoted.setRole(Role.ADMIN);
+        promoted.setStatus(CommonStatus.UPDATED);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(promoted));
+
+        MockHttpServletResponse response = filter(token);
+
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void doFilter_deletedUser() throws ServletException, IOException {
+        user.setStatus(CommonStatus.DELETED);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        MockHttpServletResponse response = filter(token(user));
+
+        assertEquals(401, response.getStatus());
+    }
+
+    private MockHttpServletResponse filter(String token) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/designs/all");
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        jwtRequestFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private String token(User user) {
+        return jwtUtil.generateToken(authentication(user));
+    }
+
+    private UsernamePasswordAuthenticationToken authentication(User user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+}
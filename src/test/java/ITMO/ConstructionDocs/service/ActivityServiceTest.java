@@ -0,0 +1,185 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.mapper.ActivityEventMapper;
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.Comment;
+import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.repository.ActivityEventRepository;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
+import ITMO.ConstructionDocs.model.enums.ActivityAction;
+import ITMO.ConstructionDocs.model.enums.ActivitySubject;
+import ITMO.ConstructionDocs.model.enums.DocStatus;
+import org.mapstruct.factory.Mappers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityServiceTest {
+    @InjectMocks
+    private ActivityService activityService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ActivityEventRepository activityEventRepository;
+
+    @Mock
+    private SeekPaginationService seekPaginationService;
+
+    @Spy
+    private ActivityEventMapper activityEventMapper = Mappers.getMapper(ActivityEventMapper.class);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void record_withdrawnDocIsDeleted() {
+        Project project = new Project();
+        project.setId(3L);
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setId(UUID.randomUUID());
+        projectDoc.setProject(project);
+        projectDoc.setDocStatus(DocStatus.WITHDRAWN);
+
+        activityService.record(projectDoc, ActivityAction.UPDATED);
+
+        Object[] args = insertedArgs();
+        assertEquals("PROJECT_DOC", args[1]);
+        assertEquals("DELETED", args[2]);
+        assertEquals(projectDoc.getId().toString(), args[3]);
+        assertEquals(3L, args[4]);
+        assertEquals(projectDoc.getId(), args[5]);
+    }
+
+    @Test
+    void record_commentOnAsbuiltDocByCurrentUser() {
+        User user = new User();
+        user.setId(11L);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList()));
+        Project project = new Project();
+        project.setId(3L);
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setId(UUID.randomUUID());
+        projectDoc.setProject(project);
+        AsbuiltDoc asbuiltDoc = new AsbuiltDoc();
+        asbuiltDoc.setId(UUID.randomUUID());
+        asbuiltDoc.setProjectDoc(projectDoc);
+        Comment comment = new Comment();
+        comment.setId(5L);
+        comment.setAsbuiltDoc(asbuiltDoc);
+
+        activityService.record(comment, ActivityAction.CREATED);
+
+        Object[] args = insertedArgs();
+        assertEquals("COMMENT", args[1]);
+        assertEquals("CREATED", args[2]);
+        assertEquals(3L, args[4]);
+        assertEquals(projectDoc.getId(), args[5]);
+        assertEquals(asbuiltDoc.getId(), args[6]);
+        assertEquals(5L, args[7]);
+        assertEquals(11L, args[8]);
+    }
+
+    @Test
+    void record_otherEntityIgnored() {
+        activityService.record("not an entity", ActivityAction.CREATED);
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void recordLinked_oneStatementForAllRows() {
+        UUID projectDocId = UUID.randomUUID();
+
+        activityService.recordLinked(ActivitySubject.COMMENT, List.of(5L, 6L), (commentId, event) -> {
+            event.setSubjectId(String.valueOf(commentId));
+            event.setCommentId(commentId);
+            event.setProjectDocId(projectDocId);
+        });
+
+        Object[] args = insertedArgs();
+        assertEquals(18, args.length);
+        assertEquals("COMMENT", args[1]);
+        assertEquals("UPDATED", args[2]);
+        assertEquals("5", args[3]);
+        assertEquals(projectDocId, args[5]);
+        assertEquals("6", args[12]);
+        assertEquals(6L, args[16]);
+    }
+
+    @Test
+    void getActivity_defaultsToLastWeek() {
+        when(seekPaginationService.seek(any(), anyString(), anyMap(), any(), any(), eq("occurredAt"), eq(Sort.Direction.DESC)))
+                .thenReturn(new CursorPageResp<>(Collections.emptyList(), null, false));
+
+        activityService.getActivity(3L, null, null, null, null, null, 20);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> params = ArgumentCaptor.forClass(Map.class);
+        verify(seekPaginationService).seek(any(), eq("e.occurredAt >= :windowStart and e.occurredAt < :windowEnd " +
+                "and e.projectId = :projectId"), params.capture(), any(), eq(20), eq("occurredAt"), eq(Sort.Direction.DESC));
+        LocalDateTime windowEnd = (LocalDateTime) params.getValue().get("windowEnd");
+        assertEquals(windowEnd.minusWeeks(1), params.getValue().get("windowStart"));
+        assertEquals(3L, params.getValue().get("projectId"));
+    }
+
+    @Test
+    void getActivity_emptyWindow() {
+        LocalDateTime to = LocalDateTime.now();
+
+        CustomException e = assertThrows(CustomException.class,
+                () -> activityService.getActivity(null, null, null, to, to, null, 20));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+    }
+
+    @Test
+    void backfill_skippedWhenFeedNotEmpty() {
+        when(activityEventRepository.existsByIdNotNull()).thenReturn(true);
+
+        activityService.backfill();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private Object[] insertedArgs() {
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).query(contains("pg_notify('activity_events'"), args.capture(), any(int[].class),
+                ArgumentMatchers.<RowMapper<Long>>any());
+        return args.getValue();
+    }
+}
@@ -1,10 +1,14 @@
 package ITMO.ConstructionDocs.service;
 
 import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.mapper.AsbuiltDocMapper;
+import ITMO.ConstructionDocs.metrics.FileTransferMetrics;
 import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
 import ITMO.ConstructionDocs.model.db.entity.Company;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
 import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
 import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.projection.AsbuiltDocView;
 import ITMO.ConstructionDocs.model.db.repository.AsbuiltDocRepository;
 import ITMO.ConstructionDocs.model.dto.request.AsbuiltDocReq;
 import ITMO.ConstructionDocs.model.dto.request.AsbuiltDocToCompanyReq;
@@ -12,10 +16,14 @@ import ITMO.ConstructionDocs.model.dto.response.AsbuiltDocResp;
 import ITMO.ConstructionDocs.model.enums.AsbuiltCategory;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
 import ITMO.ConstructionDocs.model.enums.DocStatus;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ITMO.ConstructionDocs.storage.DocumentStorage;
+import ITMO.ConstructionDocs.storage.StoredObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -24,16 +32,26 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -41,6 +59,8 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class AsbuiltDocServiceTest {
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
     @InjectMocks
     private AsbuiltDocService asbuiltDocService;
 
@@ -50,8 +70,20 @@ class AsbuiltDocServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private FileBlobService fileBlobService;
+
+    @Mock
+    private DocumentStorage documentStorage;
+
+    @Spy
+    private FileTransferMetrics fileTransferMetrics = new FileTransferMetrics(new SimpleMeterRegistry());
+
     @Spy
-    private ObjectMapper objectMapper;
+    private AsbuiltDocMapper asbuiltDocMapper = Mappers.getMapper(AsbuiltDocMapper.class);
+
+    @Mock
+    private SearchService searchService;
 
     @Mock
     private ProjectDocService projectDocService;
@@ -76,7 +108,8 @@ class AsbuiltDocServiceTest {
 
         when(file.getContentType()).thenReturn("txt");
         when(file.getSize()).thenReturn(5000L);
-        doNothing().when(file).transferTo(any(File.class));
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[5000]));
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob(5000L));
 
         User user = new User();
         user.setId(1L);
@@ -91,6 +124,62 @@ class AsbuiltDocServiceTest {
         assertEquals(savedDoc.getId(), asbuiltDocResp.getId());
     }
 
+    @Test
+    void createAsbuiltDocFromStream() throws IOException {
+        AsbuiltDocReq asbuiltDocReq = new AsbuiltDocReq();
+        asbuiltDocReq.setFileName("stream-" + UUID.randomUUID() + ".txt");
+        byte[] content = "streamed content".getBytes(StandardCharsets.UTF_8);
+
+        User user = new User();
+        user.setId(1L);
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(user);
+
+        when(asbuiltDocRepository.save(any(AsbuiltDoc.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob(content.length));
+
+        AsbuiltDocResp asbuiltDocResp = asbuiltDocService.createAsbuiltDocFromStream(asbuiltDocReq, new ByteArrayInputStream(content), "text/plain", auth);
+
+        assertEquals(Long.valueOf(content.length), asbuiltDocResp.getFileSize());
+        assertEquals("text/plain", asbuiltDocResp.getFileFormat());
+        assertTrue(asbuiltDocResp.getFileAddress().endsWith(asbuiltDocReq.getFileName()));
+    }
+
+    @Test
+    void updateAsbuiltDocFromStream(@TempDir Path tempDir) throws IOException {
+        UUID asbuiltDocId = UUID.randomUUID();
+        AsbuiltDocReq asbuiltDocReq = new AsbuiltDocReq();
+        asbuiltDocReq.setFileName("test.txt");
+        byte[] content = "new streamed content".getBytes(StandardCharsets.UTF_8);
+
+        Path storedFile = tempDir.resolve("test.txt");
+        Files.write(storedFile, "old content".getBytes(StandardCharsets.UTF_8));
+
+        AsbuiltDoc existingDoc = new AsbuiltDoc();
+        existingDoc.setId(asbuiltDocId);
+        existingDoc.setFileName("test.txt");
+        existingDoc.setFileAddress(storedFile.toString());
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setFileName("design.pdf");
+        existingDoc.setProjectDoc(projectDoc);
+
+        when(asbuiltDocRepository.findById(asbuiltDocId)).thenReturn(Optional.of(existingDoc));
+
+        User user = new User();
+        user.setId(1L);
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(user);
+
+        when(asbuiltDocRepository.save(any(AsbuiltDoc.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        FileBlob fileBlob = fileBlob(content.length);
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob);
+
+        AsbuiltDocResp asbuiltDocResp = asbuiltDocService.updateAsbuiltDocFromStream(asbuiltDocId, asbuiltDocReq, new ByteArrayInputStream(content), "text/plain", auth);
+
+        assertEquals("design.pdf-ABDs/test.txt", asbuiltDocResp.getFileAddress());
+        assertEquals(Long.valueOf(content.length), asbuiltDocResp.getFileSize());
+        assertEquals(fileBlob.getContentHash(), existingDoc.getContentHash());
+        verify(fileBlobService, times(1)).releaseContent(null, storedFile.toString());
+    }
+
     @Test
     void updateAsbuiltDoc() throws IOException {
         UUID asbuiltDocId = UUID.randomUUID();
@@ -112,7 +201,8 @@ class AsbuiltDocServiceTest {
 
         when(file.getContentType()).thenReturn("txt");
         when(file.getSize()).thenReturn(5000L);
-        doNothing().when(file).transferTo(any(File.class));
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[5000]));
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob(5000L));
 
         User user = new User();
         user.setId(1L);
@@ -131,26 +221,20 @@ class AsbuiltDocServiceTest {
     }
 
     @Test
-    void updateAsbuiltDoc_fileSizeIsTooBig() {
+    void updateAsbuiltDoc_fileSizeIsTooBig() throws IOException {
         UUID asbuiltDocId = UUID.randomUUID();
         AsbuiltDocReq asbuiltDocReq = new AsbuiltDocReq();
         asbuiltDocReq.setFileName("test.txt");
 
-        AsbuiltDoc existingDoc = new AsbuiltDoc();
-        existingDoc.setId(asbuiltDocId);
-        existingDoc.setFileName("test.txt");
-
-        when(asbuiltDocRepository.findById(asbuiltDocId)).thenReturn(Optional.of(existingDoc));
-
-        when(file.getContentType()).thenReturn("txt");
         when(file.getSize()).thenReturn(50000000L);
 
         assertThrows(CustomException.class, () -> asbuiltDocService.updateAsbuiltDoc(asbuiltDocId, asbuiltDocReq, file, auth));
-
+        verify(asbuiltDocRepository, never()).findById(asbuiltDocId);
+        verify(fileBlobService, never()).storeContent(any(), anyLong());
     }
 
     @Test
-    void deleteAsbuiltDoc() {
+    void deleteAsbuiltDoc() throws IOException {
         AsbuiltDoc existingDoc = new AsbuiltDoc();
         existingDoc.setId(UUID.randomUUID());
         existingDoc.setFileName("test.txt");
@@ -166,6 +250,7 @@ class AsbuiltDocServiceTest {
         asbuiltDocService.deleteAsbuiltDoc(existingDoc.getId(), auth);
 
         verify(asbuiltDocRepository, times(1)).save(any(AsbuiltDoc.class));
+        verify(fileBlobService, times(1)).releaseContent(null, "test/path/test.txt");
         Assert.assertEquals(DocStatus.WITHDRAWN, existingDoc.getDocStatus());
     }
 
@@ -181,6 +266,37 @@ class AsbuiltDocServiceTest {
         Assert.assertEquals(asbuiltDoc.getId(), result.getId());
     }
 
+    @Test
+    void writeAsbuiltDocContent_notModified(@TempDir Path tempDir) throws IOException {
+        Path storedFile = tempDir.resolve("certificate.pdf");
+        Files.write(storedFile, "certificate".getBytes(StandardCharsets.UTF_8));
+
+        AsbuiltDoc asbuiltDoc = new AsbuiltDoc();
+        asbuiltDoc.setId(UUID.randomUUID());
+        asbuiltDoc.setFileName("certificate.pdf");
+        asbuiltDoc.setFileAddress(storedFile.toString());
+        when(asbuiltDocRepository.findById(asbuiltDoc.getId())).thenReturn(Optional.of(asbuiltDoc));
+        when(fileBlobService.getContentStorage(asbuiltDoc)).thenReturn(documentStorage);
+        when(fileBlobService.getContentKey(asbuiltDoc)).thenReturn("stored/key");
+        when(documentStorage.stat("stored/key")).thenReturn(Optional.of(new StoredObject("stored/key", Files.size(storedFile), Files.getLastModifiedTime(storedFile).toInstant())));
+        when(documentStorage.localPath("stored/key")).thenReturn(Optional.of(storedFile));
+
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        asbuiltDocService.writeAsbuiltDocContent(asbuiltDoc.getId(), new MockHttpServletRequest("GET", "/"), firstResponse);
+
+        assertEquals(200, firstResponse.getStatus());
+        assertEquals("certificate", firstResponse.getContentAsString());
+        String etag = firstResponse.getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest conditionalRequest = new MockHttpServletRequest("GET", "/");
+        conditionalRequest.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse secondResponse = new MockHttpServletResponse();
+        asbuiltDocService.writeAsbuiltDocContent(asbuiltDoc.getId(), conditionalRequest, secondResponse);
+
+        assertEquals(304, secondResponse.getStatus());
+        assertEquals(0, secondResponse.getContentAsByteArray().length);
+    }
+
     @Test
     void getAllAsbuiltDocs() {
         Integer page = 0;
@@ -218,7 +334,8 @@ class AsbuiltDocServiceTest {
                                     doc.getAsbuiltCategory().toString().toLowerCase().contains(filter))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredDocs, invocation.getArgument(0), filteredDocs.size());
+                    return new PageImpl<>(filteredDocs, invocation.getArgument(0), filteredDocs.size())
+                            .map(doc -> projectionFactory.createProjection(AsbuiltDocView.class, doc));
                 });
 
         Page result = asbuiltDocService.getAllAsbuiltDocs(page, sizePerPage, sort, order, filter);
@@ -327,7 +444,8 @@ class AsbuiltDocServiceTest {
                             .filter(doc -> Objects.equals(doc.getCompany().getId(), company.getId()))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredAsbuiltDocs, invocation.getArgument(1), filteredAsbuiltDocs.size());
+                    return new PageImpl<>(filteredAsbuiltDocs, invocation.getArgument(1), filteredAsbuiltDocs.size())
+                            .map(doc -> projectionFactory.createProjection(AsbuiltDocView.class, doc));
                 });
 
         Page<AsbuiltDocResp> result = asbuiltDocService.getAsbuiltDocsByCompanyId(company.getId(), page, sizePerPage, sort, order);
@@ -377,7 +495,8 @@ class AsbuiltDocServiceTest {
                             .filter(doc -> Objects.equals(doc.getProjectDoc().getId(), projectDoc1.getId()))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredAsbuiltDocs, invocation.getArgument(1), filteredAsbuiltDocs.size());
+                    return new PageImpl<>(filteredAsbuiltDocs, invocation.getArgument(1), filteredAsbuiltDocs.size())
+                            .map(doc -> projectionFactory.createProjection(AsbuiltDocView.class, doc));
                 });
 
         Page<AsbuiltDocResp> result = asbuiltDocService.getAsbuiltDocsByProjectDocId(projectDoc1.getId(), page, sizePerPage, sort, order);
@@ -410,18 +529,19 @@ class AsbuiltDocServiceTest {
 
         List<AsbuiltDoc> filteredAsbuiltDocs = new ArrayList<>();
 
-        when(asbuiltDocRepository.findAllForLastWeek(any(LocalDateTime.class), any(Pageable.class)))
+        when(asbuiltDocRepository.findAllChanged(any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
                 .thenAnswer(invocation -> {
                     List<AsbuiltDoc> allAsbuiltDocs = List.of(asbuiltDoc1, asbuiltDoc2, asbuiltDoc3);
 
                     filteredAsbuiltDocs.addAll(allAsbuiltDocs.stream()
-                            .filter(doc -> doc.getCreatedAt().isAfter(LocalDateTime.now().minusWeeks(1)))
+                            .filter(doc -> doc.getCreatedAt().isAfter(invocation.getArgument(0)))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredAsbuiltDocs, invocation.getArgument(1), filteredAsbuiltDocs.size());
+                    return new PageImpl<>(filteredAsbuiltDocs, invocation.getArgument(2), filteredAsbuiltDocs.size())
+                            .map(doc -> projectionFactory.createProjection(AsbuiltDocView.class, doc));
                 });
 
-        Page<AsbuiltDocResp> result = asbuiltDocService.getAsbuiltDocsForLastWeek(page, sizePerPage, sort, order);
+        Page<AsbuiltDocResp> result = asbuiltDocService.getAsbuiltDocsForLastWeek(null, null, page, sizePerPage, sort, order);
         assertEquals(2, result.getTotalElements());
         assertTrue(result.stream().anyMatch(doc -> doc.getId().equals(asbuiltDoc2.getId())));
         assertTrue(result.stream().anyMatch(doc -> doc.getId().equals(asbuiltDoc3.getId())));
@@ -472,7 +592,8 @@ class AsbuiltDocServiceTest {
                             .filter(doc -> doc.getCreatedAt().isAfter(LocalDateTime.now().minusWeeks(1)))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredAsbuiltDocs, invocation.getArgument(1), filteredAsbuiltDocs.size());
+                    return new PageImpl<>(filteredAsbuiltDocs, invocation.getArgument(1), filteredAsbuiltDocs.size())
+                            .map(doc -> projectionFactory.createProjection(AsbuiltDocView.class, doc));
                 });
 
         Page<AsbuiltDocResp> result = asbuiltDocService.getAsbuiltDocsByProjectDocId(projectDoc1.getId(), page, sizePerPage, sort, order);
@@ -480,4 +601,11 @@ class AsbuiltDocServiceTest {
         assertEquals(1, result.getTotalElements());
         assertEquals(asbuiltDoc3.getProjectDoc().getId(), filteredAsbuiltDocs.get(0).getProjectDoc().getId());
     }
-}
\ No newline at end of file
+
+    private FileBlob fileBlob(long fileSize) {
+        FileBlob fileBlob = new FileBlob();
+        fileBlob.setContentHash("ab".repeat(32));
+        fileBlob.setFileSize(fileSize);
+        return fileBlob;
+    }
+}
@@ -0,0 +1,111 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
+import ITMO.ConstructionDocs.model.db.repository.BackgroundJobRepository;
+import ITMO.ConstructionDocs.model.dto.response.BackgroundJobResp;
+import ITMO.ConstructionDocs.model.enums.JobStatus;
+import ITMO.ConstructionDocs.model.enums.JobType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BackgroundJobServiceTest {
+    @InjectMocks
+    private BackgroundJobService backgroundJobService;
+
+    @Mock
+    private BackgroundJobRepository backgroundJobRepository;
+
+    @Mock
+    private ThreadPoolTaskExecutor jobExecutor;
+
+    @Mock
+    private JobHandler jobHandler;
+
+    @BeforeEach
+    void runJobsInline() {
+        ReflectionTestUtils.setField(backgroundJobService, "jobHandlers", List.of(jobHandler));
+        lenient().when(jobHandler.getType()).thenReturn(JobType.LEGACY_IMPORT);
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(jobExecutor).execute(any(Runnable.class));
+        lenient().when(backgroundJobRepository.save(any(BackgroundJob.class))).then(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void submit_completedJob() {
+        doAnswer(invocation -> {
+            BackgroundJob running = invocation.getArgument(0);
+            assertEquals(JobStatus.RUNNING, running.getStatus());
+            running.setTotalItems(2L);
+            running.setProcessedItems(2L);
+            return null;
+        }).when(jobHandler).run(any(BackgroundJob.class));
+
+        BackgroundJob job = backgroundJobService.submit(JobType.LEGACY_IMPORT, 1L, null);
+
+        assertEquals(JobStatus.COMPLETED, job.getStatus());
+        assertEquals(Long.valueOf(1L), job.getProjectId());
+        assertNotNull(job.getFinishedAt());
+    }
+
+    @Test
+    void submit_failedJob() {
+        doThrow(new IllegalStateException("storage is not available")).when(jobHandler).run(any(BackgroundJob.class));
+
+        BackgroundJob job = backgroundJobService.submit(JobType.LEGACY_IMPORT, null, null);
+
+        assertEquals(JobStatus.FAILED, job.getStatus());
+        assertEquals("storage is not available", job.getMessage());
+        assertNotNull(job.getFinishedAt());
+    }
+
+    @Test
+    void resumeUnfinishedJobs() {
+        BackgroundJob interrupted = new BackgroundJob();
+        interrupted.setId(UUID.randomUUID());
+        interrupted.setType(JobType.LEGACY_IMPORT);
+        interrupted.setStatus(JobStatus.RUNNING);
+        interrupted.setCheckpointStage("ASBUILT_DOCS");
+
+        when(backgroundJobRepository.findAllByStatusInOrderByCreatedAt(List.of(JobStatus.QUEUED, JobStatus.RUNNING)))
+                .thenReturn(List.of(interrupted));
+
+        backgroundJobService.resumeUnfinishedJobs();
+
+        verify(jobHandler, times(1)).run(interrupted);
+        assertEquals(JobStatus.COMPLETED, interrupted.getStatus());
+    }
+
+    @Test
+    void getJob_progress() {
+        BackgroundJob job = new BackgroundJob();
+        job.setId(UUID.randomUUID());
+        job.setStatus(JobStatus.RUNNING);
+        job.setTotalItems(8L);
+        job.setProcessedItems(2L);
+        job.setFailedItems(0L);
+
+        when(backgroundJobRepository.findById(job.getId())).thenReturn(Optional.of(job));
+
+        BackgroundJobResp resp = backgroundJobService.getJob(job.getId());
+
+        assertEquals(job.getId(), resp.getId());
+        assertEquals(Integer.valueOf(25), resp.getProgressPercent());
+    }
+}
@@ -0,0 +1,376 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.cache.CacheInvalidation;
+import ITMO.ConstructionDocs.cache.SecondLevelCache;
+import ITMO.ConstructionDocs.mapper.AsbuiltDocMapperImpl;
+import ITMO.ConstructionDocs.mapper.CommentMapperImpl;
+import ITMO.ConstructionDocs.mapper.CompanyMapperImpl;
+import ITMO.ConstructionDocs.mapper.ProjectDocMapperImpl;
+import ITMO.ConstructionDocs.mapper.ProjectMapperImpl;
+import ITMO.ConstructionDocs.mapper.UserMapperImpl;
+import ITMO.ConstructionDocs.metrics.FileTransferMetrics;
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.Comment;
+import ITMO.ConstructionDocs.model.db.entity.Company;
+import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.dto.request.AsbuiltDocToProjDocReq;
+import ITMO.ConstructionDocs.model.dto.request.BatchUpdateReq;
+import ITMO.ConstructionDocs.model.dto.request.CommentReq;
+import ITMO.ConstructionDocs.model.dto.request.CommentToProjDocReq;
+import ITMO.ConstructionDocs.model.dto.request.CompanyReq;
+import ITMO.ConstructionDocs.model.dto.request.CompanyToProjectReq;
+import ITMO.ConstructionDocs.model.dto.request.UserToCompanyReq;
+import ITMO.ConstructionDocs.model.dto.response.BackgroundJobResp;
+import ITMO.ConstructionDocs.model.dto.response.BatchResp;
+import ITMO.ConstructionDocs.model.dto.response.CommentResp;
+import ITMO.ConstructionDocs.model.dto.response.CompanyResp;
+import ITMO.ConstructionDocs.model.enums.ActivitySubject;
+import ITMO.ConstructionDocs.model.enums.BulkEntryStatus;
+import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.model.enums.Role;
+import ITMO.ConstructionDocs.security.PrincipalCache;
+import ITMO.ConstructionDocs.storage.DocumentStorage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Counts the statements of the batch endpoints against an in-memory database: the rows of a batch go out as one
+ * JDBC batch, after one select loading the updated or deleted ones, or one select per side checking the ids of
+ * the linked ones.
+ */
+@DataJpaTest(showSql = false, properties = {
+        // the link of companies to projects inserts with on conflict do nothing
+        "spring.datasource.url=jdbc:h2:mem:batch-write;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database=h2",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"})
+@Import({AsbuiltDocService.class, ProjectDocService.class, CommentService.class, CompanyService.class,
+        ProjectService.class, UserService.class, SeekPaginationService.class, BatchWriter.class, ObjectMapper.class,
+        AsbuiltDocMapperImpl.class, ProjectDocMapperImpl.class, CommentMapperImpl.class, CompanyMapperImpl.class,
+        ProjectMapperImpl.class, UserMapperImpl.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BatchWriteTest {
+    private static final int ROWS = 30;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CompanyService companyService;
+
+    @MockBean
+    private UploadSessionService uploadSessionService;
+
+    @MockBean
+    private FileBlobService fileBlobService;
+
+    @MockBean
+    private DocumentStorage documentStorage;
+
+    @MockBean
+    private FileTransferMetrics fileTransferMetrics;
+
+    @MockBean
+    private LegacyImportService legacyImportService;
+
+    @MockBean
+    private BackgroundJobService backgroundJobService;
+
+    @MockBean
+    private SearchService searchService;
+
+    @MockBean
+    private ActivityService activityService;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private PrincipalCache principalCache;
+
+    @MockBean
+    private SecondLevelCache secondLevelCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AsbuiltDocService asbuiltDocService;
+
+    @Autowired
+    private UserService userService;
+
+    private Statistics statistics;
+    private User author;
+    private User otherUser;
+    private Company company;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        author = persistUser("author@test.com");
+        otherUser = persistUser("other@test.com");
+
+        company = new Company();
+        company.setName("Existing company");
+        company.setStatus(CommonStatus.CREATED);
+        entityManager.persist(company);
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void createComments_oneInsertBatch() {
+        List<CommentReq> requests = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            requests.add(CommentReq.builder().title("Remark " + i).text("Text " + i).build());
+        }
+
+        BatchResp<CommentResp> resp = commentService.createComments(requests, authenticated(author));
+
+        assertEquals(ROWS, resp.getSucceededItems());
+        assertTrue(resp.getItems().stream().allMatch(item -> item.getStatus() == BulkEntryStatus.CREATED && item.getId() != null));
+        assertEquals(ROWS, resp.getItems().stream().map(item -> item.getId()).distinct().count());
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        // the ids come from the sequence, at most two calls for the 30 rows, the rows themselves in one batch
+        assertTrue(statistics.getPrepareStatementCount() <= 3);
+    }
+
+    @Test
+    void updateComments_oneSelectAndOneUpdateBatch() {
+        List<Long> ids = persistComments(author, ROWS);
+        Long foreignId = persistComments(otherUser, 1).get(0);
+        statistics.clear();
+
+        List<BatchUpdateReq<CommentReq>> requests = ids.stream()
+                .map(id -> BatchUpdateReq.<CommentReq>builder().id(id).item(CommentReq.builder().title("Edited " + id).build()).build())
+                .collect(Collectors.toList());
+        requests.add(BatchUpdateReq.<CommentReq>builder().id(foreignId).item(CommentReq.builder().title("Edited").build()).build());
+        requests.add(BatchUpdateReq.<CommentReq>builder().id(-1L).item(CommentReq.builder().title("Edited").build()).build());
+
+        BatchResp<CommentResp> resp = commentService.updateComments(requests, authenticated(author));
+
+        assertEquals(ROWS, resp.getSucceededItems());
+        assertEquals(2, resp.getFailedItems());
+        assertEquals(BulkEntryStatus.FAILED, resp.getItems().get(ROWS).getStatus());
+        assertEquals("Comment not found", resp.getItems().get(ROWS + 1).getMessage());
+        assertEquals("Edited " + ids.get(0), resp.getItems().get(0).getItem().getTitle());
+        assertEquals(ROWS, statistics.getEntityUpdateCount());
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        entityManager.clear();
+        assertEquals("Comment", entityManager.find(Comment.class, foreignId).getTitle());
+    }
+
+    @Test
+    void deleteComments_marksDeleted() {
+        List<Long> ids = persistComments(author, ROWS);
+        statistics.clear();
+
+        BatchResp<Void> resp = commentService.deleteComments(ids, authenticated(author));
+
+        assertEquals(ROWS, resp.getSucceededItems());
+        assertTrue(resp.getItems().stream().allMatch(item -> item.getStatus() == BulkEntryStatus.DELETED));
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        entityManager.clear();
+        assertEquals(CommonStatus.DELETED, entityManager.find(Comment.class, ids.get(0)).getStatus());
+    }
+
+    @Test
+    void createCompanies_takenNamesFail() {
+        List<CompanyReq> requests = List.of(
+                CompanyReq.builder().name("New company").build(),
+                CompanyReq.builder().name("existing company").build(),
+                CompanyReq.builder().name("NEW COMPANY").build(),
+                CompanyReq.builder().name("Other company").build());
+
+        BatchResp<CompanyResp> resp = companyService.createCompanies(requests);
+
+        assertEquals(4, resp.getTotalItems());
+        assertEquals(2, resp.getSucceededItems());
+        assertEquals(BulkEntryStatus.CREATED, resp.getItems().get(0).getStatus());
+        assertEquals(BulkEntryStatus.FAILED, resp.getItems().get(1).getStatus());
+        assertEquals(BulkEntryStatus.FAILED, resp.getItems().get(2).getStatus());
+        assertEquals(BulkEntryStatus.CREATED, resp.getItems().get(3).getStatus());
+        assertEquals(2, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    void addCommentsToProjectDocs_oneUpdateBatchWithoutLoadingComments() {
+        List<Long> ids = persistComments(author, ROWS);
+        ProjectDoc projectDoc = persistProjectDoc("plan.pdf");
+        statistics.clear();
+
+        List<CommentToProjDocReq> requests = ids.stream()
+                .map(id -> CommentToProjDocReq.builder().commentId(id).projectDocId(projectDoc.getId()).build())
+                .collect(Collectors.toList());
+        requests.add(CommentToProjDocReq.builder().commentId(-1L).projectDocId(projectDoc.getId()).build());
+        requests.add(CommentToProjDocReq.builder().commentId(ids.get(0)).projectDocId(UUID.randomUUID()).build());
+
+        BatchResp<Void> resp = commentService.addCommentsToProjectDocs(requests, authenticated(author));
+
+        assertEquals(ROWS, resp.getSucceededItems());
+        assertEquals(BulkEntryStatus.LINKED, resp.getItems().get(0).getStatus());
+        assertEquals("Comment not found", resp.getItems().get(ROWS).getMessage());
+        assertEquals("ProjectDoc not found", resp.getItems().get(ROWS + 1).getMessage());
+        // one select per side through Hibernate, the links go out as a JDBC batch of their own
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+        verify(activityService).recordLinked(eq(ActivitySubject.COMMENT), argThat(linked -> linked.size() == ROWS), any());
+
+        entityManager.clear();
+        Comment comment = entityManager.find(Comment.class, ids.get(ROWS - 1));
+        assertEquals(projectDoc.getId(), comment.getProjectDoc().getId());
+        assertEquals(author.getId(), comment.getUpdatedBy().getId());
+    }
+
+    @Test
+    void addAsbuiltDocsToProjectDocs_addressesStoredFilesOnly() {
+        ProjectDoc projectDoc = persistProjectDoc("plan.pdf");
+        AsbuiltDoc stored = persistAsbuiltDoc("stored.pdf", "hash");
+        AsbuiltDoc legacy = persistAsbuiltDoc("legacy.pdf", null);
+        entityManager.flush();
+        entityManager.clear();
+
+        BatchResp<BackgroundJobResp> resp = asbuiltDocService.addAsbuiltDocsToProjectDocs(List.of(
+                AsbuiltDocToProjDocReq.builder().asbuiltDocId(stored.getId()).projectDocId(projectDoc.getId()).build(),
+                AsbuiltDocToProjDocReq.builder().asbuiltDocId(legacy.getId()).projectDocId(projectDoc.getId()).build()),
+                authenticated(author));
+
+        assertEquals(2, resp.getSucceededItems());
+        verify(legacyImportService).importProjectDocFiles(Set.of(projectDoc.getId()));
+
+        entityManager.clear();
+        assertEquals("plan.pdf-ABDs/stored.pdf", entityManager.find(AsbuiltDoc.class, stored.getId()).getFileAddress());
+        assertEquals("C:/legacy/legacy.pdf", entityManager.find(AsbuiltDoc.class, legacy.getId()).getFileAddress());
+    }
+
+    @Test
+    void addCompaniesToProjects_joinRowInsertedOnce() {
+        Project project = new Project();
+        project.setName("Project");
+        project.setStatus(CommonStatus.CREATED);
+        entityManager.persist(project);
+        entityManager.flush();
+        CompanyToProjectReq request = CompanyToProjectReq.builder().companyId(company.getId()).projectId(project.getId()).build();
+
+        BatchResp<Void> resp = companyService.addCompaniesToProjects(List.of(request, request));
+        companyService.addCompaniesToProjects(List.of(request));
+
+        assertEquals(2, resp.getSucceededItems());
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from company_project", Integer.class));
+        verify(secondLevelCache, times(3)).invalidate(CacheInvalidation.collection(Company.class.getName() + ".projects", company.getId()));
+        verify(activityService).recordLinked(eq(ActivitySubject.COMPANY), eq(List.of(request, request)), any());
+    }
+
+    @Test
+    void addUsersToCompanies_evictsUsersOfBothCompanies() {
+        Company newCompany = new Company();
+        newCompany.setName("New company");
+        newCompany.setStatus(CommonStatus.CREATED);
+        entityManager.persist(newCompany);
+        User member = entityManager.find(User.class, author.getId());
+        member.setCompany(entityManager.find(Company.class, company.getId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        BatchResp<Void> resp = userService.addUsersToCompanies(List.of(
+                UserToCompanyReq.builder().userId(author.getId()).companyId(newCompany.getId()).build()));
+
+        assertEquals(1, resp.getSucceededItems());
+        verify(secondLevelCache).invalidate(CacheInvalidation.entity(User.class.getName(), author.getId()));
+        verify(secondLevelCache).invalidate(CacheInvalidation.collection(Company.class.getName() + ".users", company.getId()));
+        verify(secondLevelCache).invalidate(CacheInvalidation.collection(Company.class.getName() + ".users", newCompany.getId()));
+
+        entityManager.clear();
+        assertEquals(newCompany.getId(), entityManager.find(User.class, author.getId()).getCompany().getId());
+    }
+
+    private ProjectDoc persistProjectDoc(String fileName) {
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setFileName(fileName);
+        entityManager.persist(projectDoc);
+        entityManager.flush();
+        return projectDoc;
+    }
+
+    private AsbuiltDoc persistAsbuiltDoc(String fileName, String contentHash) {
+        AsbuiltDoc asbuiltDoc = new AsbuiltDoc();
+        asbuiltDoc.setFileName(fileName);
+        asbuiltDoc.setContentHash(contentHash);
+        asbuiltDoc.setFileAddress(contentHash == null ? "C:/legacy/" + fileName : fileName);
+        entityManager.persist(asbuiltDoc);
+        return asbuiltDoc;
+    }
+
+    private User persistUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setRole(Role.CONTRACTOR);
+        user.setStatus(CommonStatus.CREATED);
+        entityManager.persist(user);
+        return user;
+    }
+
+    private List<Long> persistComments(User createdBy, int rows) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            Comment comment = new Comment();
+            comment.setTitle("Comment");
+            comment.setCreatedBy(createdBy);
+            comment.setStatus(CommonStatus.CREATED);
+            entityManager.persist(comment);
+            ids.add(comment.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return ids;
+    }
+
+    private Authentication authenticated(User user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+}
@@ -0,0 +1,206 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.mapper.AsbuiltDocMapper;
+import ITMO.ConstructionDocs.mapper.ProjectDocMapper;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.repository.AsbuiltDocRepository;
+import ITMO.ConstructionDocs.model.db.repository.ProjectDocRepository;
+import ITMO.ConstructionDocs.model.dto.response.BulkUploadEntryResp;
+import ITMO.ConstructionDocs.model.dto.response.BulkUploadResp;
+import ITMO.ConstructionDocs.model.enums.BulkEntryStatus;
+import ITMO.ConstructionDocs.model.enums.DesignCategory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkUploadServiceTest {
+    @InjectMocks
+    private BulkUploadService bulkUploadService;
+
+    @Mock
+    private ProjectDocRepository projectDocRepository;
+
+    @Mock
+    private AsbuiltDocRepository asbuiltDocRepository;
+
+    @Mock
+    private FileBlobService fileBlobService;
+
+    @Mock
+    private UserService userService;
+
+    @Spy
+    private ObjectMapper objectMapper;
+
+    @Spy
+    private ProjectDocMapper projectDocMapper = Mappers.getMapper(ProjectDocMapper.class);
+
+    @Spy
+    private AsbuiltDocMapper asbuiltDocMapper = Mappers.getMapper(AsbuiltDocMapper.class);
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private Authentication auth;
+
+    @BeforeEach
+    void storeEntries() throws IOException {
+        when(userService.getCurrentUser(auth)).thenReturn(new User());
+        lenient().when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenAnswer(invocation -> {
+            byte[] content = invocation.<InputStream>getArgument(0).readAllBytes();
+            FileBlob fileBlob = new FileBlob();
+            fileBlob.setContentHash(String.format("%064x", content.length));
+            fileBlob.setFileSize((long) content.length);
+            return fileBlob;
+        });
+    }
+
+    @Test
+    void uploadProjectDocs() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("manifest.json", ("{\"section-1/plan.pdf\": {\"fileName\": \"Plan AR-1.pdf\", \"designCategory\": \"ARCHITECTURAL\"}}")
+                .getBytes(StandardCharsets.UTF_8));
+        files.put("section-1/", null);
+        files.put("section-1/plan.pdf", new byte[12]);
+        files.put("section-1/sections.dwg", new byte[7]);
+
+        when(projectDocRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ProjectDoc> docs = invocation.getArgument(0);
+            docs.forEach(doc -> doc.setId(UUID.randomUUID()));
+            return docs;
+        });
+
+        BulkUploadResp resp = bulkUploadService.uploadProjectDocs(zip(files), auth);
+
+        assertEquals(Integer.valueOf(2), resp.getTotalEntries());
+        assertEquals(Integer.valueOf(2), resp.getCreatedEntries());
+        assertNull(resp.getMessage());
+
+        BulkUploadEntryResp plan = resp.getEntries().get(0);
+        assertEquals("section-1/plan.pdf", plan.getEntryName());
+        assertEquals("Plan AR-1.pdf", plan.getFileName());
+        assertEquals(Long.valueOf(12), plan.getFileSize());
+        assertEquals(BulkEntryStatus.CREATED, plan.getStatus());
+        assertNotNull(plan.getDocId());
+        assertEquals("sections.dwg", resp.getEntries().get(1).getFileName());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProjectDoc>> saved = ArgumentCaptor.forClass(List.class);
+        verify(projectDocRepository, times(1)).saveAll(saved.capture());
+        ProjectDoc planDoc = saved.getValue().get(0);
+        assertEquals(DesignCategory.ARCHITECTURAL, planDoc.getDesignCategory());
+        assertEquals("application/pdf", planDoc.getFileFormat());
+        assertEquals("Plan AR-1.pdf", planDoc.getFileAddress());
+    }
+
+    @Test
+    void uploadProjectDocs_invalidManifestEntry() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("manifest.json", "{\"a.pdf\": {\"fileName\": \"\"}}".getBytes(StandardCharsets.UTF_8));
+        files.put("a.pdf", new byte[1]);
+        files.put("b.pdf", new byte[2]);
+
+        when(projectDocRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkUploadResp resp = bulkUploadService.uploadProjectDocs(zip(files), auth);
+
+        assertEquals(Integer.valueOf(1), resp.getCreatedEntries());
+        assertEquals(Integer.valueOf(1), resp.getFailedEntries());
+        BulkUploadEntryResp invalid = resp.getEntries().get(0);
+        assertEquals(BulkEntryStatus.FAILED, invalid.getStatus());
+        assertTrue(invalid.getMessage().contains("fileName"));
+        verify(fileBlobService, times(1)).storeContent(any(InputStream.class), anyLong());
+    }
+
+    @Test
+    void uploadProjectDocs_failedBatchReleasesBlobs() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("a.pdf", new byte[1]);
+        files.put("b.pdf", new byte[2]);
+
+        when(projectDocRepository.saveAll(anyList())).thenThrow(new IllegalStateException("connection lost"));
+
+        BulkUploadResp resp = bulkUploadService.uploadProjectDocs(zip(files), auth);
+
+        assertEquals(Integer.valueOf(0), resp.getCreatedEntries());
+        assertEquals(Integer.valueOf(2), resp.getFailedEntries());
+        assertEquals("connection lost", resp.getEntries().get(1).getMessage());
+        verify(fileBlobService, times(2)).release(anyString());
+    }
+
+    @Test
+    void uploadProjectDocs_batchesInserts() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        for (int i = 0; i < BulkUploadService.INSERT_BATCH_SIZE + 1; i++) {
+            files.put("drawing-" + i + ".pdf", new byte[1]);
+        }
+
+        when(projectDocRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkUploadResp resp = bulkUploadService.uploadProjectDocs(zip(files), auth);
+
+        assertEquals(Integer.valueOf(BulkUploadService.INSERT_BATCH_SIZE + 1), resp.getCreatedEntries());
+        verify(projectDocRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void uploadProjectDocs_damagedArchive() throws IOException {
+        byte[] content = new byte[4096];
+        new Random(42).nextBytes(content);
+        byte[] archive = zip(Map.of("a.pdf", content)).readAllBytes();
+        byte[] truncated = Arrays.copyOf(archive, archive.length / 2);
+
+        BulkUploadResp resp = bulkUploadService.uploadProjectDocs(new ByteArrayInputStream(truncated), auth);
+
+        assertEquals(Integer.valueOf(0), resp.getCreatedEntries());
+        assertEquals(Integer.valueOf(1), resp.getFailedEntries());
+        assertEquals(BulkEntryStatus.FAILED, resp.getEntries().get(0).getStatus());
+        verify(projectDocRepository, never()).saveAll(anyList());
+    }
+
+    private InputStream zip(Map<String, byte[]> files) throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                if (file.getValue() != null) {
+                    zip.write(file.getValue());
+                }
+                zip.closeEntry();
+            }
+        }
+        return new ByteArrayInputStream(archive.toByteArray());
+    }
+}
@@ -1,18 +1,20 @@
 package ITMO.ConstructionDocs.service;
 
+import ITMO.ConstructionDocs.mapper.CommentMapper;
 import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
 import ITMO.ConstructionDocs.model.db.entity.Comment;
 import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
 import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.projection.CommentView;
 import ITMO.ConstructionDocs.model.db.repository.CommentRepository;
 import ITMO.ConstructionDocs.model.dto.request.CommentReq;
 import ITMO.ConstructionDocs.model.dto.request.CommentToProjDocReq;
 import ITMO.ConstructionDocs.model.dto.response.CommentResp;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
 import ITMO.ConstructionDocs.model.enums.DocStatus;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -21,6 +23,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.security.core.Authentication;
 
 import java.time.LocalDateTime;
@@ -35,12 +39,17 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class CommentServiceTest {
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
 
     @InjectMocks
     private CommentService commentService;
 
     @Spy
-    private ObjectMapper objectMapper;
+    private CommentMapper commentMapper = Mappers.getMapper(CommentMapper.class);
+
+    @Mock
+    private SearchService searchService;
 
     @Mock
     private CommentRepository commentRepository;
@@ -178,7 +187,8 @@ class CommentServiceTest {
                                     doc.getText().toLowerCase().contains(filter))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredComments, invocation.getArgument(0), filteredComments.size());
+                    return new PageImpl<>(filteredComments, invocation.getArgument(0), filteredComments.size())
+                            .map(comment -> projectionFactory.createProjection(CommentView.class, comment));
                 });
 
         Page result = commentService.getAllComments(page, sizePerPage, sort, order, filter);
@@ -257,7 +267,8 @@ class CommentServiceTest {
                             .filter(doc -> doc.getProjectDoc().getId() == projectDoc.getId())
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredComments, invocation.getArgument(1), filteredComments.size());
+                    return new PageImpl<>(filteredComments, invocation.getArgument(1), filteredComments.size())
+                            .map(comment -> projectionFactory.createProjection(CommentView.class, comment));
                 });
 
         Page result = commentService.getCommentsByProjectDocId(projectDoc.getId(), page, sizePerPage, sort, order);
@@ -306,7 +317,8 @@ class CommentServiceTest {
                             .filter(doc -> doc.getAsbuiltDoc().getId() == asbuiltDoc.getId())
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredComments, invocation.getArgument(1), filteredComments.size());
+                    return new PageImpl<>(filteredComments, invocation.getArgument(1), filteredComments.size())
+                            .map(comment -> projectionFactory.createProjection(CommentView.class, comment));
                 });
 
         Page result = commentService.getCommentsByAsbuiltDocId(asbuiltDoc.getId(), page, sizePerPage, sort, order);
@@ -335,18 +347,19 @@ class CommentServiceTest {
 
         List<Comment> filteredComments = new ArrayList<>();
 
-        when(commentRepository.findAllForLastWeek(any(LocalDateTime.class), any(Pageable.class)))
+        when(commentRepository.findAllChanged(any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
                 .thenAnswer(invocation -> {
                     List<Comment> allComments = List.of(comment1, comment2, comment3);
 
                     filteredComments.addAll(allComments.stream()
-                            .filter(doc -> doc.getCreatedAt().isAfter(LocalDateTime.now().minusWeeks(1)))
+                            .filter(doc -> doc.getCreatedAt().isAfter(invocation.getArgument(0)))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredComments, invocation.getArgument(1), filteredComments.size());
+                    return new PageImpl<>(filteredComments, invocation.getArgument(2), filteredComments.size())
+                            .map(comment -> projectionFactory.createProjection(CommentView.class, comment));
                 });
 
-        Page<CommentResp> result = commentService.getCommentsForLastWeek(page, sizePerPage, sort, order);
+        Page<CommentResp> result = commentService.getCommentsForLastWeek(null, null, page, sizePerPage, sort, order);
         assertEquals(1, result.getTotalElements());
         assertEquals(comment3.getId(), result.getContent().get(0).getId());
 
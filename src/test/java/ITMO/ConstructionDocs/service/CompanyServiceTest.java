@@ -1,15 +1,17 @@
 package ITMO.ConstructionDocs.service;
 
+import ITMO.ConstructionDocs.mapper.CompanyMapper;
 import ITMO.ConstructionDocs.model.db.entity.Company;
 import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.projection.CompanyView;
 import ITMO.ConstructionDocs.model.db.repository.CompanyRepository;
 import ITMO.ConstructionDocs.model.dto.request.CompanyReq;
 import ITMO.ConstructionDocs.model.dto.request.CompanyToProjectReq;
 import ITMO.ConstructionDocs.model.dto.response.CompanyResp;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -18,6 +20,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,11 +34,16 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class CompanyServiceTest {
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
     @InjectMocks
     CompanyService companyService;
 
     @Spy
-    ObjectMapper objectMapper;
+    CompanyMapper companyMapper = Mappers.getMapper(CompanyMapper.class);
+
+    @Mock
+    SearchService searchService;
 
     @Mock
     CompanyRepository companyRepository;
@@ -83,6 +92,28 @@ class CompanyServiceTest {
         assertTrue(project.getCompanies().contains(company));
     }
 
+    @Test
+    void addCompanyToProject_alreadyLinked() {
+        Project project = new Project();
+        project.setId(1L);
+
+        Company company = new Company();
+        company.setId(1L);
+        company.setProjects(new ArrayList<>(List.of(project)));
+
+        CompanyToProjectReq companyToProjectReq = new CompanyToProjectReq();
+        companyToProjectReq.setCompanyId(company.getId());
+        companyToProjectReq.setProjectId(project.getId());
+
+        when(projectService.getProjectFromDB(project.getId())).thenReturn(project);
+        when(companyRepository.findById(company.getId())).thenReturn(java.util.Optional.of(company));
+
+        companyService.addCompanyToProject(companyToProjectReq);
+
+        verify(companyRepository, never()).save(any());
+        assertEquals(1, company.getProjects().size());
+    }
+
     @Test
     void getCompany() {
         Company company = new Company();
@@ -171,7 +202,8 @@ class CompanyServiceTest {
                                     doc.getAddress().toLowerCase().contains(filter))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredCompanies, invocation.getArgument(0), filteredCompanies.size());
+                    return new PageImpl<>(filteredCompanies, invocation.getArgument(0), filteredCompanies.size())
+                            .map(company -> projectionFactory.createProjection(CompanyView.class, company));
                 });
 
         Page result = companyService.getAllCompanies(page, sizePerPage, sort, order, filter);
@@ -224,7 +256,8 @@ class CompanyServiceTest {
                             .filter(doc -> doc.getProjects().stream().anyMatch(p -> p.getId() == project.getId()))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredCompanies, invocation.getArgument(1), filteredCompanies.size());
+                    return new PageImpl<>(filteredCompanies, invocation.getArgument(1), filteredCompanies.size())
+                            .map(c -> projectionFactory.createProjection(CompanyView.class, c));
                 });
 
         Page<CompanyResp> result = companyService.getCompanyByProjectId(project.getId(), page, sizePerPage, sort, order);
@@ -0,0 +1,166 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.metrics.FileTransferMetrics;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.repository.BlobTextRepository;
+import ITMO.ConstructionDocs.model.db.repository.FileBlobRepository;
+import ITMO.ConstructionDocs.storage.LocalDocumentStorage;
+import ITMO.ConstructionDocs.utils.FileDownloadUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileBlobServiceTest {
+    @InjectMocks
+    private FileBlobService fileBlobService;
+
+    @Mock
+    private FileBlobRepository fileBlobRepository;
+
+    @Mock
+    private BlobTextRepository blobTextRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private FileTransferMetrics fileTransferMetrics = new FileTransferMetrics(meterRegistry);
+
+    @TempDir
+    static Path storageRoot;
+
+    @Spy
+    private LocalDocumentStorage documentStorage = new LocalDocumentStorage(storageRoot, 1);
+
+    @Test
+    void storeContent_sameContentIsStoredOnce() throws IOException {
+        runTransactionCallbacks();
+        byte[] content = "the same drawing".getBytes(StandardCharsets.UTF_8);
+
+        FileBlob first = fileBlobService.storeContent(new ByteArrayInputStream(content), 1024);
+        FileBlob second = fileBlobService.storeContent(new ByteArrayInputStream(content), 1024);
+
+        String blobKey = fileBlobService.getBlobKey(first.getContentHash());
+        assertEquals(first.getContentHash(), second.getContentHash());
+        assertEquals(64, first.getContentHash().length());
+        assertEquals(Long.valueOf(content.length), first.getFileSize());
+        assertArrayEquals(content, Files.readAllBytes(storageRoot.resolve(blobKey)));
+        verify(fileBlobRepository, times(2)).acquire(first.getContentHash(), (long) content.length);
+        verify(documentStorage, times(1)).putFile(eq(blobKey), any(Path.class));
+        assertEquals(2 * content.length, meterRegistry.get("app.files.transfer.size").tag("direction", "upload").summary().totalAmount());
+    }
+
+    @Test
+    void storeContent_blobRemovedBeforeReferenceIsStoredAgain() throws IOException {
+        runTransactionCallbacks();
+        byte[] content = "a drawing no doc references any more".getBytes(StandardCharsets.UTF_8);
+        // removeUnreferencedBlobs deletes the stored copy between the check of the second upload and its reference
+        doNothing().doAnswer(invocation -> {
+            documentStorage.delete(fileBlobService.getBlobKey(invocation.getArgument(0)));
+            return null;
+        }).when(fileBlobRepository).acquire(any(), any());
+
+        fileBlobService.storeContent(new ByteArrayInputStream(content), 1024);
+        FileBlob fileBlob = fileBlobService.storeContent(new ByteArrayInputStream(content), 1024);
+
+        String blobKey = fileBlobService.getBlobKey(fileBlob.getContentHash());
+        verify(documentStorage, times(2)).putFile(eq(blobKey), any(Path.class));
+        assertArrayEquals(content, Files.readAllBytes(storageRoot.resolve(blobKey)));
+    }
+
+    @Test
+    void releaseContent_legacyFileIsDeleted() throws IOException {
+        Path legacyFile = Files.write(legacyDirectory().resolve("legacy.pdf"), new byte[10]);
+
+        fileBlobService.releaseContent(null, legacyFile.toString());
+
+        assertFalse(Files.exists(legacyFile));
+        verify(fileBlobRepository, never()).release(any());
+        verify(documentStorage, never()).delete(any());
+    }
+
+    @Test
+    void getContentStorage_legacyFileOutsideStorageRoot() throws IOException {
+        Path legacyFile = Files.write(legacyDirectory().resolve("drawing.pdf"), "legacy drawing".getBytes(StandardCharsets.UTF_8));
+        ProjectDoc legacyDoc = new ProjectDoc();
+        legacyDoc.setFileName("drawing.pdf");
+        legacyDoc.setFileFormat("application/pdf");
+        legacyDoc.setFileAddress(legacyFile.toString());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileDownloadUtil.writeContent(fileBlobService.getContentStorage(legacyDoc), fileBlobService.getContentKey(legacyDoc),
+                null, legacyDoc.getFileFormat(), legacyDoc.getFileName(), new MockHttpServletRequest("GET", "/"), response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("legacy drawing", response.getContentAsString());
+        verifyNoInteractions(documentStorage);
+    }
+
+    @Test
+    void removeUnreferencedBlobs() throws IOException {
+        runTransactionCallbacks();
+        FileBlob released = new FileBlob();
+        released.setContentHash("ab".repeat(32));
+        released.setRefCount(0);
+
+        FileBlob reacquired = new FileBlob();
+        reacquired.setContentHash("cd".repeat(32));
+        reacquired.setRefCount(1);
+
+        when(fileBlobRepository.findAllUnreferenced()).thenReturn(List.of(released.getContentHash(), reacquired.getContentHash()));
+        when(fileBlobRepository.findByIdForUpdate(released.getContentHash())).thenReturn(Optional.of(released));
+        when(fileBlobRepository.findByIdForUpdate(reacquired.getContentHash())).thenReturn(Optional.of(reacquired));
+
+        fileBlobService.removeUnreferencedBlobs();
+
+        verify(fileBlobRepository, times(1)).delete(released);
+        verify(documentStorage, times(1)).delete(fileBlobService.getBlobKey(released.getContentHash()));
+        verify(fileBlobRepository, never()).delete(reacquired);
+        verify(blobTextRepository).deleteByContentHash(released.getContentHash());
+        verify(blobTextRepository, never()).deleteByContentHash(reacquired.getContentHash());
+    }
+
+    /**
+     * Directory of legacy files, outside the storage root as the project root directories of the old code were.
+     */
+    private Path legacyDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("legacy-");
+        directory.toFile().deleteOnExit();
+        return directory;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionCallbacks() {
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+}
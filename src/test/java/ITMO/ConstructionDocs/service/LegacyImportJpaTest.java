@@ -0,0 +1,193 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
+import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.repository.AsbuiltDocRepository;
+import ITMO.ConstructionDocs.model.db.repository.ProjectDocRepository;
+import ITMO.ConstructionDocs.model.db.repository.ProjectRepository;
+import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.model.enums.DocStatus;
+import ITMO.ConstructionDocs.model.enums.JobType;
+import ITMO.ConstructionDocs.storage.DocumentStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs legacy import jobs against an in-memory database without a test transaction, as the job worker does, so
+ * the docs it walks are detached and only hold the associations their query fetched.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.database=h2",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@Import(LegacyImportService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LegacyImportJpaTest {
+
+    @Autowired
+    private LegacyImportService legacyImportService;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private ProjectDocRepository projectDocRepository;
+
+    @Autowired
+    private AsbuiltDocRepository asbuiltDocRepository;
+
+    @MockBean
+    private FileBlobService fileBlobService;
+
+    @MockBean
+    private DocumentStorage documentStorage;
+
+    @MockBean
+    private BackgroundJobService backgroundJobService;
+
+    @MockBean
+    private ThreadPoolTaskExecutor jobWorkerExecutor;
+
+    @MockBean
+    private ActivityService activityService;
+
+    @MockBean
+    private SearchService searchService;
+
+    private Project project;
+    private ProjectDoc projectDoc;
+    private AsbuiltDoc legacyDoc;
+    private AsbuiltDoc storedDoc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        asbuiltDocRepository.deleteAll();
+        projectDocRepository.deleteAll();
+        projectRepository.deleteAll();
+
+        project = new Project();
+        project.setName("Bridge");
+        project.setStatus(CommonStatus.CREATED);
+        project = projectRepository.save(project);
+
+        projectDoc = new ProjectDoc();
+        projectDoc.setFileName("drawing.pdf");
+        projectDoc.setDocStatus(DocStatus.INITIAL);
+        projectDoc.setContentHash("ab".repeat(32));
+        projectDoc.setFileAddress("drawing.pdf");
+        projectDoc.setProject(project);
+        projectDoc = projectDocRepository.save(projectDoc);
+
+        legacyDoc = asbuiltDoc("act.pdf", null, "C:/CONSTRUCTION_DOCS/Bridge/drawing.pdf-ABDs/act.pdf");
+        storedDoc = asbuiltDoc("scheme.pdf", "cd".repeat(32), "C:/old/root/drawing.pdf-ABDs/scheme.pdf");
+
+        FileBlob fileBlob = new FileBlob();
+        fileBlob.setContentHash("ef".repeat(32));
+        fileBlob.setFileSize(10L);
+        when(documentStorage.get(legacyDoc.getFileAddress())).thenReturn(new ByteArrayInputStream(new byte[10]));
+        when(fileBlobService.storeContent(any(), anyLong())).thenReturn(fileBlob);
+        when(fileBlobService.getContentStorage(any())).thenReturn(documentStorage);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(jobWorkerExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void run_allDocs() throws IOException {
+        BackgroundJob job = run(scoped -> {
+        });
+
+        assertEquals(3L, job.getTotalItems());
+        assertEquals(3L, job.getProcessedItems());
+        assertEquals(0L, job.getFailedItems());
+        AsbuiltDoc importedDoc = asbuiltDocRepository.findById(legacyDoc.getId()).orElseThrow();
+        assertEquals("drawing.pdf-ABDs/act.pdf", importedDoc.getFileAddress());
+        assertEquals("ef".repeat(32), importedDoc.getContentHash());
+        assertEquals(10L, importedDoc.getFileSize());
+        assertEquals("drawing.pdf-ABDs/scheme.pdf", asbuiltDocRepository.findById(storedDoc.getId()).orElseThrow().getFileAddress());
+        verify(documentStorage).delete(legacyDoc.getFileAddress());
+    }
+
+    @Test
+    void run_docGotFileWhileCopied() throws IOException {
+        when(documentStorage.get(legacyDoc.getFileAddress())).thenAnswer(invocation -> {
+            AsbuiltDoc uploaded = asbuiltDocRepository.findById(legacyDoc.getId()).orElseThrow();
+            uploaded.setContentHash("12".repeat(32));
+            uploaded.setFileSize(20L);
+            uploaded.setFileAddress("drawing.pdf-ABDs/act-v2.pdf");
+            asbuiltDocRepository.save(uploaded);
+            return new ByteArrayInputStream(new byte[10]);
+        });
+
+        BackgroundJob job = run(scoped -> {
+        });
+
+        assertEquals(0L, job.getFailedItems());
+        AsbuiltDoc uploadedDoc = asbuiltDocRepository.findById(legacyDoc.getId()).orElseThrow();
+        assertEquals("12".repeat(32), uploadedDoc.getContentHash());
+        assertEquals(20L, uploadedDoc.getFileSize());
+        assertEquals("drawing.pdf-ABDs/act-v2.pdf", uploadedDoc.getFileAddress());
+        verify(fileBlobService).release("ef".repeat(32));
+        verify(documentStorage, never()).delete(legacyDoc.getFileAddress());
+    }
+
+    @Test
+    void run_project() {
+        BackgroundJob job = run(scoped -> scoped.setProjectId(project.getId()));
+
+        assertEquals(3L, job.getProcessedItems());
+        assertEquals(0L, job.getFailedItems());
+        assertEquals("drawing.pdf-ABDs/act.pdf", asbuiltDocRepository.findById(legacyDoc.getId()).orElseThrow().getFileAddress());
+    }
+
+    @Test
+    void run_projectDoc() {
+        BackgroundJob job = run(scoped -> scoped.setProjectDocId(projectDoc.getId()));
+
+        assertEquals(3L, job.getProcessedItems());
+        assertEquals(0L, job.getFailedItems());
+        assertEquals("drawing.pdf-ABDs/scheme.pdf", asbuiltDocRepository.findById(storedDoc.getId()).orElseThrow().getFileAddress());
+    }
+
+    private BackgroundJob run(Consumer<BackgroundJob> scope) {
+        BackgroundJob job = new BackgroundJob();
+        job.setType(JobType.LEGACY_IMPORT);
+        job.setProcessedItems(0L);
+        job.setFailedItems(0L);
+        scope.accept(job);
+
+        legacyImportService.run(job);
+        return job;
+    }
+
+    private AsbuiltDoc asbuiltDoc(String fileName, String contentHash, String fileAddress) {
+        AsbuiltDoc asbuiltDoc = new AsbuiltDoc();
+        asbuiltDoc.setFileName(fileName);
+        asbuiltDoc.setDocStatus(DocStatus.INITIAL);
+        asbuiltDoc.setContentHash(contentHash);
+        asbuiltDoc.setFileAddress(fileAddress);
+        asbuiltDoc.setProjectDoc(projectDoc);
+        return asbuiltDocRepository.save(asbuiltDoc);
+    }
+}
@@ -0,0 +1,236 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.repository.AsbuiltDocRepository;
+import ITMO.ConstructionDocs.model.db.repository.ProjectDocRepository;
+import ITMO.ConstructionDocs.model.enums.DocStatus;
+import ITMO.ConstructionDocs.model.enums.JobType;
+import ITMO.ConstructionDocs.storage.LegacyFileStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LegacyImportServiceTest {
+    @InjectMocks
+    private LegacyImportService legacyImportService;
+
+    @Mock
+    private ProjectDocRepository projectDocRepository;
+
+    @Mock
+    private AsbuiltDocRepository asbuiltDocRepository;
+
+    @Mock
+    private FileBlobService fileBlobService;
+
+    @Mock
+    private BackgroundJobService backgroundJobService;
+
+    @Mock
+    private ThreadPoolTaskExecutor jobWorkerExecutor;
+
+    @Mock
+    private SearchService searchService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void importProjectFiles_nothingToImport() {
+        when(projectDocRepository.countLegacyByProjectId(1L, DocStatus.WITHDRAWN)).thenReturn(0L);
+        when(asbuiltDocRepository.countLegacyByProjectId(1L, DocStatus.WITHDRAWN)).thenReturn(0L);
+
+        Optional<BackgroundJob> job = legacyImportService.importProjectFiles(1L);
+
+        assertFalse(job.isPresent());
+        verify(backgroundJobService, never()).submit(any(), any(), any());
+    }
+
+    @Test
+    void importProjectDocFiles_legacyAsbuiltDoc() {
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setId(UUID.randomUUID());
+        projectDoc.setContentHash("cd".repeat(32));
+        BackgroundJob job = new BackgroundJob();
+
+        when(asbuiltDocRepository.countLegacyByProjectDocId(projectDoc.getId(), DocStatus.WITHDRAWN)).thenReturn(1L);
+        when(backgroundJobService.submit(JobType.LEGACY_IMPORT, null, projectDoc.getId())).thenReturn(job);
+
+        assertEquals(Optional.of(job), legacyImportService.importProjectDocFiles(projectDoc));
+    }
+
+    @Test
+    void importProjectFiles_submitsJob() {
+        BackgroundJob job = new BackgroundJob();
+        when(projectDocRepository.countLegacyByProjectId(1L, DocStatus.WITHDRAWN)).thenReturn(3L);
+        when(asbuiltDocRepository.countLegacyByProjectId(1L, DocStatus.WITHDRAWN)).thenReturn(0L);
+        when(backgroundJobService.submit(JobType.LEGACY_IMPORT, 1L, null)).thenReturn(job);
+
+        assertEquals(Optional.of(job), legacyImportService.importProjectFiles(1L));
+    }
+
+    @Test
+    void run() throws IOException {
+        runWorkersInline();
+        runTransactionCallbacks();
+        // the old code moved files into the root directory of their project, outside the storage root
+        Path legacyDirectory = Files.createTempDirectory("legacy-");
+        legacyDirectory.toFile().deleteOnExit();
+        Path legacyFile = Files.write(legacyDirectory.resolve("legacy-drawing.pdf"), new byte[10]);
+
+        ProjectDoc legacyDoc = new ProjectDoc();
+        legacyDoc.setId(UUID.randomUUID());
+        legacyDoc.setFileName("drawing.pdf");
+        legacyDoc.setFileAddress(legacyFile.toString());
+
+        ProjectDoc storedDoc = new ProjectDoc();
+        storedDoc.setId(UUID.randomUUID());
+        storedDoc.setFileName("plan.pdf");
+        storedDoc.setContentHash("cd".repeat(32));
+        storedDoc.setFileAddress("C:/old/root/plan.pdf");
+
+        AsbuiltDoc missingDoc = new AsbuiltDoc();
+        missingDoc.setId(UUID.randomUUID());
+        missingDoc.setFileName("act.pdf");
+        missingDoc.setProjectDoc(legacyDoc);
+        missingDoc.setFileAddress(legacyDirectory.resolve("missing.pdf").toString());
+
+        FileBlob fileBlob = new FileBlob();
+        fileBlob.setContentHash("ab".repeat(32));
+        fileBlob.setFileSize(10L);
+
+        when(projectDocRepository.findAllByProjectIdAfterId(eq(1L), any(UUID.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(legacyDoc, storedDoc)));
+        when(asbuiltDocRepository.findAllByProjectIdAfterId(eq(1L), any(UUID.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(missingDoc)));
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob);
+        when(fileBlobService.getContentStorage(any())).thenReturn(new LegacyFileStorage());
+        when(projectDocRepository.importContent(legacyDoc.getId(), fileBlob.getContentHash(), 10L, "drawing.pdf"))
+                .thenReturn(1);
+
+        BackgroundJob job = job(1L);
+
+        legacyImportService.run(job);
+
+        assertEquals(fileBlob.getContentHash(), legacyDoc.getContentHash());
+        assertEquals("drawing.pdf", legacyDoc.getFileAddress());
+        assertFalse(Files.exists(legacyFile));
+        assertEquals("plan.pdf", storedDoc.getFileAddress());
+        assertNull(missingDoc.getContentHash());
+        assertEquals(Long.valueOf(3), job.getTotalItems());
+        assertEquals(Long.valueOf(3), job.getProcessedItems());
+        assertEquals(Long.valueOf(1), job.getFailedItems());
+        assertEquals("ASBUILT_DOCS", job.getCheckpointStage());
+        assertEquals(missingDoc.getId(), job.getCheckpointItemId());
+        verify(projectDocRepository).updateFileAddress(storedDoc.getId(), storedDoc.getContentHash(), "plan.pdf");
+        verify(searchService).index(legacyDoc);
+        verify(projectDocRepository, never()).save(any(ProjectDoc.class));
+        verify(asbuiltDocRepository, never()).importContent(any(), any(), any(), any());
+        verify(fileBlobService, never()).release(any());
+    }
+
+    @Test
+    void run_docGotFileMeanwhile() throws IOException {
+        runWorkersInline();
+        runTransactionCallbacks();
+        Path legacyDirectory = Files.createTempDirectory("legacy-");
+        legacyDirectory.toFile().deleteOnExit();
+        Path legacyFile = Files.write(legacyDirectory.resolve("legacy-drawing.pdf"), new byte[10]);
+
+        ProjectDoc staleDoc = new ProjectDoc();
+        staleDoc.setId(UUID.randomUUID());
+        staleDoc.setFileName("drawing.pdf");
+        staleDoc.setFileAddress(legacyFile.toString());
+
+        FileBlob fileBlob = new FileBlob();
+        fileBlob.setContentHash("ab".repeat(32));
+        fileBlob.setFileSize(10L);
+
+        when(projectDocRepository.findAllByProjectIdAfterId(eq(1L), any(UUID.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(staleDoc)));
+        when(asbuiltDocRepository.findAllByProjectIdAfterId(eq(1L), any(UUID.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.emptyList()));
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob);
+        when(fileBlobService.getContentStorage(any())).thenReturn(new LegacyFileStorage());
+        when(projectDocRepository.importContent(staleDoc.getId(), fileBlob.getContentHash(), 10L, "drawing.pdf"))
+                .thenReturn(0);
+
+        BackgroundJob job = job(1L);
+
+        legacyImportService.run(job);
+
+        assertNull(staleDoc.getContentHash());
+        assertEquals(Long.valueOf(0), job.getFailedItems());
+        verify(fileBlobService).release(fileBlob.getContentHash());
+        verify(searchService, never()).index(any());
+        verify(projectDocRepository, never()).save(any(ProjectDoc.class));
+    }
+
+    @Test
+    void run_resumesFromCheckpoint() {
+        UUID checkpointId = UUID.randomUUID();
+
+        BackgroundJob job = job(1L);
+        job.setTotalItems(250L);
+        job.setProcessedItems(200L);
+        job.setCheckpointStage("ASBUILT_DOCS");
+        job.setCheckpointItemId(checkpointId);
+
+        when(asbuiltDocRepository.findAllByProjectIdAfterId(eq(1L), eq(checkpointId), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.emptyList()));
+
+        legacyImportService.run(job);
+
+        assertEquals(Long.valueOf(250), job.getTotalItems());
+        verify(projectDocRepository, never()).findAllByProjectIdAfterId(any(), any(), any());
+        verify(asbuiltDocRepository, times(1)).findAllByProjectIdAfterId(eq(1L), eq(checkpointId), any(Pageable.class));
+    }
+
+    private BackgroundJob job(Long projectId) {
+        BackgroundJob job = new BackgroundJob();
+        job.setProjectId(projectId);
+        job.setTotalItems(0L);
+        job.setProcessedItems(0L);
+        job.setFailedItems(0L);
+        return job;
+    }
+
+    private void runTransactionCallbacks() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    private void runWorkersInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(jobWorkerExecutor).execute(any(Runnable.class));
+    }
+}
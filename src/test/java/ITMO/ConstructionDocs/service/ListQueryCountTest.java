@@ -0,0 +1,240 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.cache.SecondLevelCache;
+import ITMO.ConstructionDocs.mapper.AsbuiltDocMapperImpl;
+import ITMO.ConstructionDocs.mapper.CommentMapperImpl;
+import ITMO.ConstructionDocs.mapper.CompanyMapperImpl;
+import ITMO.ConstructionDocs.mapper.ProjectDocMapperImpl;
+import ITMO.ConstructionDocs.mapper.ProjectMapperImpl;
+import ITMO.ConstructionDocs.mapper.UserMapperImpl;
+import ITMO.ConstructionDocs.metrics.FileTransferMetrics;
+import ITMO.ConstructionDocs.model.db.entity.AsbuiltDoc;
+import ITMO.ConstructionDocs.model.db.entity.Comment;
+import ITMO.ConstructionDocs.model.db.entity.Company;
+import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.enums.CommonStatus;
+import ITMO.ConstructionDocs.model.enums.DocStatus;
+import ITMO.ConstructionDocs.model.enums.Role;
+import ITMO.ConstructionDocs.security.PrincipalCache;
+import ITMO.ConstructionDocs.storage.DocumentStorage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the statements of the list endpoints against an in-memory database: a page of any size is one select
+ * and one count, with no select per row for the associations.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.database=h2",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"})
+@Import({AsbuiltDocService.class, ProjectDocService.class, CommentService.class, CompanyService.class,
+        ProjectService.class, UserService.class, SeekPaginationService.class, BatchWriter.class, ObjectMapper.class,
+        AsbuiltDocMapperImpl.class, ProjectDocMapperImpl.class, CommentMapperImpl.class, CompanyMapperImpl.class,
+        ProjectMapperImpl.class, UserMapperImpl.class})
+class ListQueryCountTest {
+    private static final int ROWS = 30;
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AsbuiltDocService asbuiltDocService;
+
+    @Autowired
+    private ProjectDocService projectDocService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CompanyService companyService;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private UserService userService;
+
+    @MockBean
+    private UploadSessionService uploadSessionService;
+
+    @MockBean
+    private FileBlobService fileBlobService;
+
+    @MockBean
+    private DocumentStorage documentStorage;
+
+    @MockBean
+    private FileTransferMetrics fileTransferMetrics;
+
+    @MockBean
+    private LegacyImportService legacyImportService;
+
+    @MockBean
+    private BackgroundJobService backgroundJobService;
+
+    @MockBean
+    private SearchService searchService;
+
+    @MockBean
+    private ActivityService activityService;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private PrincipalCache principalCache;
+
+    @MockBean
+    private SecondLevelCache secondLevelCache;
+
+    private Statistics statistics;
+    private Project project;
+    private ProjectDoc projectDoc;
+    private AsbuiltDoc asbuiltDoc;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        for (int i = 0; i < ROWS; i++) {
+            Company company = new Company();
+            company.setName("Company " + i);
+            company.setStatus(CommonStatus.CREATED);
+            entityManager.persist(company);
+
+            User user = new User();
+            user.setEmail("user" + i + "@test.com");
+            user.setRole(Role.CONTRACTOR);
+            user.setCompany(company);
+            user.setStatus(CommonStatus.CREATED);
+            entityManager.persist(user);
+
+            project = new Project();
+            project.setName("Project " + i);
+            project.setStatus(CommonStatus.CREATED);
+            entityManager.persist(project);
+
+            projectDoc = new ProjectDoc();
+            projectDoc.setFileName("project-doc-" + i + ".pdf");
+            projectDoc.setDocStatus(DocStatus.INITIAL);
+            projectDoc.setProject(project);
+            projectDoc.setCreatedBy(user);
+            projectDoc.setUpdatedBy(user);
+            entityManager.persist(projectDoc);
+
+            asbuiltDoc = new AsbuiltDoc();
+            asbuiltDoc.setFileName("asbuilt-doc-" + i + ".pdf");
+            asbuiltDoc.setDocStatus(DocStatus.INITIAL);
+            asbuiltDoc.setProjectDoc(projectDoc);
+            asbuiltDoc.setCompany(company);
+            asbuiltDoc.setCreatedBy(user);
+            asbuiltDoc.setUpdatedBy(user);
+            entityManager.persist(asbuiltDoc);
+
+            Comment comment = new Comment();
+            comment.setTitle("Comment " + i);
+            comment.setAsbuiltDoc(asbuiltDoc);
+            comment.setProjectDoc(projectDoc);
+            comment.setCreatedBy(user);
+            comment.setUpdatedBy(user);
+            comment.setStatus(CommonStatus.CREATED);
+            entityManager.persist(comment);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void getAllAsbuiltDocs_selectAndCount() {
+        assertEquals(PAGE_SIZE, asbuiltDocService.getAllAsbuiltDocs(1, PAGE_SIZE, null, null, null).getContent().size());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllProjectDocs_selectAndCount() {
+        assertEquals(PAGE_SIZE, projectDocService.getAllProjectDocs(1, PAGE_SIZE, null, null, null).getContent().size());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllComments_selectAndCount() {
+        assertEquals(PAGE_SIZE, commentService.getAllComments(1, PAGE_SIZE, null, null, null).getContent().size());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllCompanies_selectAndCount() {
+        assertEquals(PAGE_SIZE, companyService.getAllCompanies(1, PAGE_SIZE, null, null, null).getContent().size());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllProjects_selectAndCount() {
+        assertEquals(PAGE_SIZE, projectService.getAllProjects(1, PAGE_SIZE, null, null, null).getContent().size());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllUsers_selectAndCount() {
+        assertEquals(PAGE_SIZE, userService.getAllUsers(1, PAGE_SIZE, null, null, null).getContent().size());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getProjectDocsByProjectId_parentSelectAndPage() {
+        assertEquals(1, projectDocService.getProjectDocsByProjectId(project.getId(), 1, PAGE_SIZE, null, null)
+                .getContent().size());
+
+        // the project is read to check its status, a page shorter than the size needs no count
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getCommentsByAsbuiltDocId_parentSelectAndPage() {
+        assertEquals(1, commentService.getCommentsByAsbuiltDocId(asbuiltDoc.getId(), 1, PAGE_SIZE, null, null)
+                .getContent().size());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void seekAllAsbuiltDocs_associationsNotLoaded() {
+        assertEquals(PAGE_SIZE, asbuiltDocService.seekAllAsbuiltDocs(null, PAGE_SIZE, null, null).getContent().size());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void seekAllComments_associationsNotLoaded() {
+        assertEquals(PAGE_SIZE, commentService.seekAllComments(null, PAGE_SIZE, null, null).getContent().size());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -1,19 +1,30 @@
 package ITMO.ConstructionDocs.service;
 
 import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.mapper.ProjectDocMapper;
+import ITMO.ConstructionDocs.metrics.FileTransferMetrics;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
 import ITMO.ConstructionDocs.model.db.entity.Project;
 import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.entity.UploadSession;
 import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.projection.ProjectDocView;
 import ITMO.ConstructionDocs.model.db.repository.ProjectDocRepository;
 import ITMO.ConstructionDocs.model.dto.request.ProjectDocReq;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
 import ITMO.ConstructionDocs.model.dto.response.ProjectDocResp;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
 import ITMO.ConstructionDocs.model.enums.DesignCategory;
 import ITMO.ConstructionDocs.model.enums.DocStatus;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ITMO.ConstructionDocs.model.enums.SearchType;
+import ITMO.ConstructionDocs.storage.DocumentStorage;
+import ITMO.ConstructionDocs.storage.StoredObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -22,21 +33,34 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ProjectDocServiceTest {
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
     @InjectMocks
     private ProjectDocService projectDocService;
 
@@ -49,8 +73,26 @@ class ProjectDocServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private UploadSessionService uploadSessionService;
+
+    @Mock
+    private FileBlobService fileBlobService;
+
+    @Mock
+    private DocumentStorage documentStorage;
+
     @Spy
-    private ObjectMapper objectMapper;
+    private FileTransferMetrics fileTransferMetrics = new FileTransferMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private ProjectDocMapper projectDocMapper = Mappers.getMapper(ProjectDocMapper.class);
+
+    @Mock
+    private SearchService searchService;
+
+    @Mock
+    private SeekPaginationService seekPaginationService;
 
     @Mock
     private MultipartFile file;
@@ -69,7 +111,8 @@ class ProjectDocServiceTest {
 
         when(file.getContentType()).thenReturn("txt");
         when(file.getSize()).thenReturn(5000L);
-        doNothing().when(file).transferTo(any(File.class));
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[5000]));
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob(5000L));
 
         User user = new User();
         user.setId(1L);
@@ -84,6 +127,100 @@ class ProjectDocServiceTest {
         assertEquals(savedDoc.getId(), projectDocResp.getId());
     }
 
+    @Test
+    void createProjectDocFromStream() throws IOException {
+        ProjectDocReq projectDocReq = new ProjectDocReq();
+        projectDocReq.setFileName("stream-" + UUID.randomUUID() + ".txt");
+        byte[] content = "streamed content".getBytes(StandardCharsets.UTF_8);
+
+        User user = new User();
+        user.setId(1L);
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(user);
+
+        when(projectDocRepository.save(any(ProjectDoc.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob(content.length));
+
+        ProjectDocResp projectDocResp = projectDocService.createProjectDocFromStream(projectDocReq, new ByteArrayInputStream(content), "text/plain", auth);
+
+        assertEquals(Long.valueOf(content.length), projectDocResp.getFileSize());
+        assertEquals("text/plain", projectDocResp.getFileFormat());
+        assertTrue(projectDocResp.getFileAddress().endsWith(projectDocReq.getFileName()));
+    }
+
+    @Test
+    void createProjectDocFromStream_blobReleasedWhenDocNotSaved() throws IOException {
+        ProjectDocReq projectDocReq = new ProjectDocReq();
+        projectDocReq.setFileName("test.txt");
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(new User());
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob(10L));
+        when(projectDocRepository.save(any(ProjectDoc.class))).thenThrow(new IllegalStateException("connection lost"));
+
+        assertThrows(IllegalStateException.class, () -> projectDocService.createProjectDocFromStream(projectDocReq,
+                new ByteArrayInputStream(new byte[10]), "text/plain", auth));
+
+        verify(fileBlobService).release("ab".repeat(32));
+    }
+
+    @Test
+    void updateProjectDocFromStream(@TempDir Path tempDir) throws IOException {
+        UUID projectDocId = UUID.randomUUID();
+        ProjectDocReq projectDocReq = new ProjectDocReq();
+        projectDocReq.setFileName("test.txt");
+        byte[] content = "new streamed content".getBytes(StandardCharsets.UTF_8);
+
+        Path storedFile = tempDir.resolve("test.txt");
+        Files.write(storedFile, "old content".getBytes(StandardCharsets.UTF_8));
+
+        ProjectDoc existingDoc = new ProjectDoc();
+        existingDoc.setId(projectDocId);
+        existingDoc.setFileName("test.txt");
+        existingDoc.setFileAddress(storedFile.toString());
+        existingDoc.setProject(new Project());
+
+        when(projectDocRepository.findById(projectDocId)).thenReturn(Optional.of(existingDoc));
+
+        User user = new User();
+        user.setId(1L);
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(user);
+
+        when(projectDocRepository.save(any(ProjectDoc.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        FileBlob fileBlob = fileBlob(content.length);
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob);
+
+        ProjectDocResp projectDocResp = projectDocService.updateProjectDocFromStream(projectDocId, projectDocReq, new ByteArrayInputStream(content), "text/plain", auth);
+
+        assertEquals("test.txt", projectDocResp.getFileAddress());
+        assertEquals(Long.valueOf(content.length), projectDocResp.getFileSize());
+        assertEquals(fileBlob.getContentHash(), existingDoc.getContentHash());
+        verify(fileBlobService, times(1)).releaseContent(null, storedFile.toString());
+    }
+
+    @Test
+    void commitProjectDocUpload() {
+        ProjectDocReq projectDocReq = new ProjectDocReq();
+        projectDocReq.setFileName("test.pdf");
+        projectDocReq.setDesignCategory(DesignCategory.STRUCTURAL);
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID());
+        session.setFileFormat("application/pdf");
+        FileBlob fileBlob = fileBlob(400L);
+        when(uploadSessionService.commitSession(eq(session.getId()), eq(auth), any())).thenAnswer(invocation ->
+                invocation.<BiFunction<UploadSession, FileBlob, ProjectDoc>>getArgument(2).apply(session, fileBlob));
+
+        User user = new User();
+        user.setId(1L);
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(user);
+
+        when(projectDocRepository.saveAndFlush(any(ProjectDoc.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ProjectDocResp projectDocResp = projectDocService.commitProjectDocUpload(session.getId(), projectDocReq, auth);
+
+        assertEquals(400L, projectDocResp.getFileSize());
+        assertEquals("application/pdf", projectDocResp.getFileFormat());
+        assertEquals(DesignCategory.STRUCTURAL, projectDocResp.getDesignCategory());
+    }
+
     @Test
     void updateProjectDoc() throws IOException {
         UUID projectDocId = UUID.randomUUID();
@@ -105,7 +242,8 @@ class ProjectDocServiceTest {
 
         when(file.getContentType()).thenReturn("txt");
         when(file.getSize()).thenReturn(5000L);
-        doNothing().when(file).transferTo(any(File.class));
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[5000]));
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob(5000L));
 
         User user = new User();
         user.setId(1L);
@@ -124,26 +262,20 @@ class ProjectDocServiceTest {
     }
 
     @Test
-    void updateProjectDoc_fileSizeIsTooBig() {
+    void updateProjectDoc_fileSizeIsTooBig() throws IOException {
         UUID projectDocId = UUID.randomUUID();
         ProjectDocReq projectDocReq = new ProjectDocReq();
         projectDocReq.setFileName("test.txt");
 
-        ProjectDoc existingDoc = new ProjectDoc();
-        existingDoc.setId(projectDocId);
-        existingDoc.setFileName("test.txt");
-
-        when(projectDocRepository.findById(projectDocId)).thenReturn(Optional.of(existingDoc));
-
-        when(file.getContentType()).thenReturn("txt");
         when(file.getSize()).thenReturn(50000000L);
 
         assertThrows(CustomException.class, () -> projectDocService.updateProjectDoc(projectDocId, projectDocReq, file, auth));
-
+        verify(projectDocRepository, never()).findById(projectDocId);
+        verify(fileBlobService, never()).storeContent(any(), anyLong());
     }
 
     @Test
-    void deleteProjectDoc() {
+    void deleteProjectDoc() throws IOException {
         ProjectDoc existingDoc = new ProjectDoc();
         existingDoc.setId(UUID.randomUUID());
         existingDoc.setFileName("test.txt");
@@ -159,6 +291,7 @@ class ProjectDocServiceTest {
         projectDocService.deleteProjectDoc(existingDoc.getId(), auth);
 
         verify(projectDocRepository, times(1)).save(any(ProjectDoc.class));
+        verify(fileBlobService, times(1)).releaseContent(null, "test/path/test.txt");
         Assert.assertEquals(DocStatus.WITHDRAWN, existingDoc.getDocStatus());
     }
 
@@ -174,6 +307,47 @@ class ProjectDocServiceTest {
         Assert.assertEquals(projectDoc.getId(), result.getId());
     }
 
+    @Test
+    void writeProjectDocContent_range(@TempDir Path tempDir) throws IOException {
+        Path storedFile = tempDir.resolve("drawing.pdf");
+        Files.write(storedFile, "0123456789".getBytes(StandardCharsets.UTF_8));
+
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setId(UUID.randomUUID());
+        projectDoc.setFileName("drawing.pdf");
+        projectDoc.setFileFormat("application/pdf");
+        projectDoc.setFileAddress("designs/drawing.pdf");
+        projectDoc.setContentHash("ab".repeat(32));
+        when(projectDocRepository.findById(projectDoc.getId())).thenReturn(Optional.of(projectDoc));
+        when(fileBlobService.getContentStorage(projectDoc)).thenReturn(documentStorage);
+        when(fileBlobService.getContentKey(projectDoc)).thenReturn("stored/key");
+        when(documentStorage.stat("stored/key")).thenReturn(Optional.of(new StoredObject("stored/key", Files.size(storedFile), Files.getLastModifiedTime(storedFile).toInstant())));
+        when(documentStorage.localPath("stored/key")).thenReturn(Optional.of(storedFile));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/designs/" + projectDoc.getId() + "/content");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        projectDocService.writeProjectDocContent(projectDoc.getId(), request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("application/pdf", response.getContentType());
+        assertEquals("\"" + projectDoc.getContentHash() + "\"", response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void writeProjectDocContent_withdrawn() {
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setId(UUID.randomUUID());
+        projectDoc.setDocStatus(DocStatus.WITHDRAWN);
+        when(projectDocRepository.findById(projectDoc.getId())).thenReturn(Optional.of(projectDoc));
+
+        assertThrows(CustomException.class, () -> projectDocService.writeProjectDocContent(projectDoc.getId(),
+                new MockHttpServletRequest(), new MockHttpServletResponse()));
+    }
+
     @Test
     void getAllProjectDocs() {
         Integer page = 0;
@@ -208,7 +382,8 @@ class ProjectDocServiceTest {
                                     doc.getDesignCategory().toString().toLowerCase().contains(filter))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredDocs, invocation.getArgument(0), filteredDocs.size());
+                    return new PageImpl<>(filteredDocs, invocation.getArgument(0), filteredDocs.size())
+                            .map(doc -> projectionFactory.createProjection(ProjectDocView.class, doc));
                 });
 
         Page result = projectDocService.getAllProjectDocs(page, sizePerPage, sort, order, filter);
@@ -217,6 +392,46 @@ class ProjectDocServiceTest {
         assertEquals(filteredDocs.get(1).getId(), projectDoc3.getId());
     }
 
+    @Test
+    void getAllProjectDocs_fromSearchIndex() {
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setId(UUID.randomUUID());
+        projectDoc.setFileName("arch.txt");
+
+        when(searchService.isReady()).thenReturn(true);
+        when(searchService.search(eq(SearchType.PROJECT_DOC), eq("arch"), any(Pageable.class), any(), any(), any()))
+                .thenAnswer(invocation -> new PageImpl<>(List.of(projectionFactory.createProjection(ProjectDocView.class, projectDoc)),
+                        invocation.getArgument(2), 1));
+
+        Page<ProjectDocResp> result = projectDocService.getAllProjectDocs(1, 10, null, null, "arch");
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals(projectDoc.getId(), result.getContent().get(0).getId());
+        verify(projectDocRepository, never()).findAllNotDeletedAndFiltered(any(), any(), any());
+    }
+
+    @Test
+    void seekProjectDocsByProjectId() {
+        Project project = new Project();
+        project.setId(1L);
+        project.setStatus(CommonStatus.CREATED);
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setId(UUID.randomUUID());
+        projectDoc.setFileName("arch.txt");
+
+        when(projectService.getProjectFromDB(project.getId())).thenReturn(project);
+        when(seekPaginationService.seek(ProjectDoc.class, "e.project.id = :id", Map.of("id", project.getId()),
+                "cursor", 10, "fileName", Sort.Direction.ASC))
+                .thenReturn(new CursorPageResp<>(List.of(projectDoc), "next", true));
+
+        CursorPageResp<ProjectDocResp> result = projectDocService.seekProjectDocsByProjectId(project.getId(), "cursor", 10,
+                "fileName", Sort.Direction.ASC);
+
+        assertEquals(projectDoc.getId(), result.getContent().get(0).getId());
+        assertEquals("next", result.getNextCursor());
+        assertTrue(result.isHasNext());
+    }
+
     @Test
     void addProjectDocToProject() {
     }
@@ -258,7 +473,8 @@ class ProjectDocServiceTest {
                             .filter(doc -> Objects.equals(doc.getProject().getId(), project.getId()))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredProjectDocs, invocation.getArgument(1), filteredProjectDocs.size());
+                    return new PageImpl<>(filteredProjectDocs, invocation.getArgument(1), filteredProjectDocs.size())
+                            .map(doc -> projectionFactory.createProjection(ProjectDocView.class, doc));
                 });
 
         Page<ProjectDocResp> result = projectDocService.getProjectDocsByProjectId(project.getId(), page, sizePerPage, sort, order);
@@ -302,19 +518,27 @@ class ProjectDocServiceTest {
         List<ProjectDoc> allDocs = List.of(projectDoc1, projectDoc2, projectDoc3);
         List<ProjectDoc> filteredProjectDocs = new ArrayList<>();
 
-        when(projectDocRepository.findAllForLastWeekByProjectId(any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+        when(projectDocRepository.findAllChangedByProjectId(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
                 .thenAnswer(invocation -> {
                     filteredProjectDocs.addAll(allDocs.stream()
                             .filter(doc -> Objects.equals(doc.getProject().getId(), project.getId()))
-                            .filter(doc -> doc.getCreatedAt().isAfter(LocalDateTime.now().minusDays(7)))
+                            .filter(doc -> doc.getCreatedAt().isAfter(invocation.getArgument(1)))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredProjectDocs, invocation.getArgument(2), filteredProjectDocs.size());
+                    return new PageImpl<>(filteredProjectDocs, invocation.getArgument(3), filteredProjectDocs.size())
+                            .map(doc -> projectionFactory.createProjection(ProjectDocView.class, doc));
                 });
 
-        Page<ProjectDocResp> result = projectDocService.getProjectDocsForLastWeekByProjId(project.getId(), page, sizePerPage, sort, order);
+        Page<ProjectDocResp> result = projectDocService.getProjectDocsForLastWeekByProjId(project.getId(), null, null, page, sizePerPage, sort, order);
 
         assertEquals(1, result.getTotalElements());
         assertTrue(result.stream().anyMatch(doc -> doc.getId().equals(projectDoc1.getId())));
     }
-}
\ No newline at end of file
+
+    private FileBlob fileBlob(long fileSize) {
+        FileBlob fileBlob = new FileBlob();
+        fileBlob.setContentHash("ab".repeat(32));
+        fileBlob.setFileSize(fileSize);
+        return fileBlob;
+    }
+}
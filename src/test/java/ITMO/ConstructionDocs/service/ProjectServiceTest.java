@@ -1,13 +1,16 @@
 package ITMO.ConstructionDocs.service;
 
+import ITMO.ConstructionDocs.mapper.ProjectMapper;
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
 import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.projection.ProjectView;
 import ITMO.ConstructionDocs.model.db.repository.ProjectRepository;
 import ITMO.ConstructionDocs.model.dto.request.ProjectReq;
 import ITMO.ConstructionDocs.model.dto.response.ProjectResp;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -16,9 +19,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
@@ -27,15 +34,23 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ProjectServiceTest {
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
     @InjectMocks
     ProjectService projectService;
 
     @Spy
-    ObjectMapper objectMapper;
+    ProjectMapper projectMapper = Mappers.getMapper(ProjectMapper.class);
+
+    @Mock
+    SearchService searchService;
 
     @Mock
     ProjectRepository projectRepository;
 
+    @Mock
+    LegacyImportService legacyImportService;
+
     @Test
     void createProject() {
         ProjectReq projectReq = new ProjectReq();
@@ -89,6 +104,29 @@ class ProjectServiceTest {
         assertEquals(projectReq.getDescription(), projectResp.getDescription());
     }
 
+    @Test
+    void updateProjectRootDirectory() {
+        ProjectReq projectReq = new ProjectReq();
+        projectReq.setFilesRootDirectory("new/root");
+
+        Project project = new Project();
+        project.setId(1L);
+        project.setFilesRootDirectory("old/root");
+
+        BackgroundJob job = new BackgroundJob();
+        job.setId(UUID.randomUUID());
+
+        when(projectRepository.findById(project.getId())).thenReturn(java.util.Optional.of(project));
+        when(projectRepository.save(any(Project.class))).thenReturn(project);
+        when(legacyImportService.importProjectFiles(project.getId())).thenReturn(Optional.of(job));
+
+        ProjectResp projectResp = projectService.updateProject(project.getId(), projectReq);
+
+        assertEquals("new/root", projectResp.getFilesRootDirectory());
+        assertEquals(job.getId(), projectResp.getMigrationJobId());
+        verify(projectRepository, times(1)).save(project);
+    }
+
     @Test
     void deleteProject() {
         Project project = new Project();
@@ -137,7 +175,8 @@ class ProjectServiceTest {
                                     doc.getAddress().toLowerCase().contains(filter))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredProjects, invocation.getArgument(0), filteredProjects.size());
+                    return new PageImpl<>(filteredProjects, invocation.getArgument(0), filteredProjects.size())
+                            .map(project -> projectionFactory.createProjection(ProjectView.class, project));
                 });
 
         Page<ProjectResp> result = projectService.getAllProjects(page, sizePerPage, sort, order, filter);
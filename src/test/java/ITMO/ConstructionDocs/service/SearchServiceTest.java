@@ -0,0 +1,230 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.model.db.entity.BackgroundJob;
+import ITMO.ConstructionDocs.model.db.entity.Project;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.db.repository.AsbuiltDocRepository;
+import ITMO.ConstructionDocs.model.db.repository.CommentRepository;
+import ITMO.ConstructionDocs.model.db.repository.CompanyRepository;
+import ITMO.ConstructionDocs.model.db.repository.ProjectDocRepository;
+import ITMO.ConstructionDocs.model.db.repository.ProjectRepository;
+import ITMO.ConstructionDocs.model.db.repository.UserRepository;
+import ITMO.ConstructionDocs.model.enums.DesignCategory;
+import ITMO.ConstructionDocs.model.enums.DocStatus;
+import ITMO.ConstructionDocs.model.enums.JobType;
+import ITMO.ConstructionDocs.model.enums.SearchType;
+import ITMO.ConstructionDocs.search.SearchHits;
+import ITMO.ConstructionDocs.search.SearchIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchServiceTest {
+    @InjectMocks
+    private SearchService searchService;
+
+    @Mock
+    private SearchIndex searchIndex;
+
+    @Mock
+    private TextExtractionService textExtractionService;
+
+    @Mock
+    private BackgroundJobService backgroundJobService;
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private ProjectDocRepository projectDocRepository;
+
+    @Mock
+    private AsbuiltDocRepository asbuiltDocRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private CompanyRepository companyRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ThreadPoolTaskExecutor jobWorkerExecutor;
+
+    @Test
+    void index_projectDoc() {
+        Project project = new Project();
+        project.setId(7L);
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setId(UUID.randomUUID());
+        projectDoc.setFileName("plan.pdf");
+        projectDoc.setDesignCategory(DesignCategory.STRUCTURAL);
+        projectDoc.setProject(project);
+
+        searchService.index(projectDoc);
+
+        verify(searchIndex).update(SearchType.PROJECT_DOC, projectDoc.getId().toString(), "7",
+                List.of("plan.pdf", DesignCategory.STRUCTURAL), null);
+    }
+
+    @Test
+    void index_projectDocWithExtractedText() {
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setId(UUID.randomUUID());
+        projectDoc.setFileName("certificate.pdf");
+        projectDoc.setContentHash("ab".repeat(32));
+        when(textExtractionService.getText(projectDoc.getContentHash())).thenReturn(Optional.of("Serial number SN-4711"));
+
+        searchService.index(projectDoc);
+
+        verify(searchIndex).update(eq(SearchType.PROJECT_DOC), eq(projectDoc.getId().toString()), isNull(), any(),
+                eq("Serial number SN-4711"));
+        verify(textExtractionService, never()).extractLater(any(), any());
+    }
+
+    @Test
+    void index_projectDocTextExtractedLater() {
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setId(UUID.randomUUID());
+        projectDoc.setContentHash("ab".repeat(32));
+        when(textExtractionService.getText(projectDoc.getContentHash())).thenReturn(Optional.empty(), Optional.of("SN-4711"));
+        when(projectDocRepository.findById(projectDoc.getId())).thenReturn(Optional.of(projectDoc));
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(textExtractionService).extractLater(eq(projectDoc.getContentHash()), any(Runnable.class));
+
+        searchService.index(projectDoc);
+
+        verify(searchIndex).update(eq(SearchType.PROJECT_DOC), eq(projectDoc.getId().toString()), isNull(), any(), isNull());
+        verify(searchIndex).update(eq(SearchType.PROJECT_DOC), eq(projectDoc.getId().toString()), isNull(), any(), eq("SN-4711"));
+    }
+
+    @Test
+    void index_withdrawnProjectDocRemoved() {
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setId(UUID.randomUUID());
+        projectDoc.setDocStatus(DocStatus.WITHDRAWN);
+
+        searchService.index(projectDoc);
+
+        verify(searchIndex).delete(SearchType.PROJECT_DOC, projectDoc.getId().toString());
+        verify(searchIndex, never()).update(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void search_keepsHitOrder() {
+        Project first = new Project();
+        first.setId(2L);
+        Project second = new Project();
+        second.setId(1L);
+        when(searchIndex.search(SearchType.PROJECT, null, "tower", 10, 10)).thenReturn(new SearchHits(List.of("2", "1"), 12));
+        when(projectRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(second, first));
+
+        Page<Project> page = searchService.search(SearchType.PROJECT, "tower", PageRequest.of(1, 10), Long::valueOf,
+                projectRepository::findAllById, Project::getId);
+
+        assertEquals(List.of(first, second), page.getContent());
+        assertEquals(12, page.getTotalElements());
+    }
+
+    @Test
+    void rebuildIncompleteIndex() {
+        when(searchIndex.isComplete()).thenReturn(false);
+        when(backgroundJobService.hasUnfinished(JobType.SEARCH_REINDEX)).thenReturn(false);
+
+        searchService.rebuildIncompleteIndex();
+
+        verify(backgroundJobService).submit(JobType.SEARCH_REINDEX, null, null);
+    }
+
+    @Test
+    void rebuildIncompleteIndex_jobPending() {
+        when(searchIndex.isComplete()).thenReturn(false);
+        when(backgroundJobService.hasUnfinished(JobType.SEARCH_REINDEX)).thenReturn(true);
+
+        searchService.rebuildIncompleteIndex();
+
+        verify(backgroundJobService, never()).submit(any(), any(), any());
+    }
+
+    @Test
+    void run_rebuildsAllTypes() {
+        runWorkersInline();
+        BackgroundJob job = new BackgroundJob();
+        job.setProcessedItems(0L);
+        Project project = new Project();
+        project.setId(5L);
+        ProjectDoc projectDoc = new ProjectDoc();
+        projectDoc.setId(UUID.randomUUID());
+        projectDoc.setContentHash("ab".repeat(32));
+        when(textExtractionService.getText(projectDoc.getContentHash())).thenReturn(Optional.empty());
+        when(textExtractionService.extract(projectDoc.getContentHash())).thenReturn("SN-4711");
+        when(projectRepository.count()).thenReturn(1L);
+        when(projectDocRepository.count()).thenReturn(1L);
+        when(projectRepository.findAllAfterId(eq(0L), any(Pageable.class))).thenReturn(List.of(project));
+        when(projectRepository.findAllAfterId(eq(5L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(projectDocRepository.findAllAfterId(any(UUID.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(projectDoc)), Page.empty());
+        when(asbuiltDocRepository.findAllAfterId(any(UUID.class), any(Pageable.class))).thenReturn(Page.empty());
+        when(commentRepository.findAllAfterId(anyLong(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(companyRepository.findAllAfterId(anyLong(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(userRepository.findAllAfterId(anyLong(), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        searchService.run(job);
+
+        verify(searchIndex).clear();
+        verify(searchIndex).update(eq(SearchType.PROJECT), eq("5"), any(), any(), isNull());
+        verify(searchIndex).update(eq(SearchType.PROJECT_DOC), eq(projectDoc.getId().toString()), any(), any(), eq("SN-4711"));
+        verify(textExtractionService, never()).extractLater(any(), any());
+        verify(searchIndex).markComplete();
+        assertEquals(2, job.getTotalItems());
+        assertEquals(2, job.getProcessedItems());
+        assertEquals(SearchType.USER.name(), job.getCheckpointStage());
+    }
+
+    @Test
+    void run_resumesFromCheckpoint() {
+        BackgroundJob job = new BackgroundJob();
+        job.setProcessedItems(40L);
+        job.setCheckpointStage(SearchType.COMPANY.name());
+        job.setCheckpointItemId(new UUID(0, 40L));
+        when(companyRepository.findAllAfterId(eq(40L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(userRepository.findAllAfterId(eq(0L), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        searchService.run(job);
+
+        verify(searchIndex, never()).clear();
+        verify(projectRepository, never()).findAllAfterId(anyLong(), any());
+        verify(searchIndex).markComplete();
+    }
+
+    private void runWorkersInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(jobWorkerExecutor).execute(any(Runnable.class));
+    }
+}
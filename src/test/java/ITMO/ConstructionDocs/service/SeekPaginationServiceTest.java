@@ -0,0 +1,214 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.model.db.entity.ProjectDoc;
+import ITMO.ConstructionDocs.model.dto.response.CursorPageResp;
+import ITMO.ConstructionDocs.model.enums.DocStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.Type;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SeekPaginationServiceTest {
+    @InjectMocks
+    private SeekPaginationService seekPaginationService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private Metamodel metamodel;
+
+    @Mock
+    private EntityType<ProjectDoc> entityType;
+
+    @Mock
+    private Attribute<ProjectDoc, String> fileName;
+
+    @Mock
+    private Type<UUID> idType;
+
+    @Mock
+    private TypedQuery<Object[]> query;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManager.getMetamodel()).thenReturn(metamodel);
+        when(metamodel.entity(ProjectDoc.class)).thenReturn(entityType);
+        lenient().when(entityType.getName()).thenReturn("ProjectDoc");
+        lenient().doReturn(fileName).when(entityType).getAttribute("fileName");
+        lenient().when(fileName.getPersistentAttributeType()).thenReturn(Attribute.PersistentAttributeType.BASIC);
+        lenient().when(fileName.getJavaType()).thenReturn(String.class);
+        lenient().doReturn(idType).when(entityType).getIdType();
+        lenient().when(idType.getJavaType()).thenReturn(UUID.class);
+        lenient().when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(query);
+        lenient().when(query.setMaxResults(anyInt())).thenReturn(query);
+    }
+
+    @Test
+    void seek_firstSliceReadsOneExtraRow() {
+        List<ProjectDoc> docs = projectDocs("a.pdf", "b.pdf", "c.pdf");
+        when(query.getResultList()).thenReturn(rows(docs));
+
+        CursorPageResp<ProjectDoc> slice = seekPaginationService.seek(ProjectDoc.class, "e.docStatus <> :status",
+                Map.of("status", DocStatus.WITHDRAWN), null, 2, "fileName", Sort.Direction.ASC);
+
+        verify(entityManager).createQuery("select e, e.fileName from ProjectDoc e where (e.docStatus <> :status) " +
+                "order by e.fileName asc, e.id asc", Object[].class);
+        verify(query).setParameter("status", DocStatus.WITHDRAWN);
+        verify(query).setMaxResults(3);
+        assertEquals(docs.subList(0, 2), slice.getContent());
+        assertTrue(slice.isHasNext());
+        assertNotNull(slice.getNextCursor());
+    }
+
+    @Test
+    void seek_nextSliceStartsAfterCursor() {
+        List<ProjectDoc> docs = projectDocs("a.pdf", "b.pdf", "c.pdf");
+        when(query.getResultList()).thenReturn(rows(docs), rows(docs.subList(2, 3)), new ArrayList<>());
+        String cursor = seekPaginationService.seek(ProjectDoc.class, "e.docStatus <> :status",
+                Map.of("status", DocStatus.WITHDRAWN), null, 2, "fileName", Sort.Direction.ASC).getNextCursor();
+
+        CursorPageResp<ProjectDoc> slice = seekPaginationService.seek(ProjectDoc.class, "e.docStatus <> :status",
+                Map.of("status", DocStatus.WITHDRAWN), cursor, 2, "title", Sort.Direction.DESC);
+
+        verify(entityManager).createQuery("select e, e.fileName from ProjectDoc e where (e.docStatus <> :status) " +
+                "and (e.fileName >= :afterValue and (e.fileName > :afterValue or (e.fileName = :afterValue " +
+                "and e.id > :afterId))) order by e.fileName asc, e.id asc", Object[].class);
+        // the slice is not full, the rows with no file name follow
+        verify(entityManager).createQuery("select e, e.fileName from ProjectDoc e where (e.docStatus <> :status) " +
+                "and (e.fileName is null) order by e.fileName asc, e.id asc", Object[].class);
+        verify(query).setParameter("afterValue", "b.pdf");
+        verify(query).setParameter("afterId", docs.get(1).getId());
+        verify(query).setMaxResults(2);
+        assertEquals(docs.subList(2, 3), slice.getContent());
+        assertFalse(slice.isHasNext());
+        assertNull(slice.getNextCursor());
+    }
+
+    @Test
+    void seek_descendingAfterNullValue() throws Exception {
+        UUID afterId = UUID.randomUUID();
+        String cursor = Base64.getUrlEncoder().encodeToString(objectMapper.writeValueAsBytes(
+                new SeekPaginationService.Cursor("fileName", Sort.Direction.DESC, null, afterId)));
+        when(query.getResultList()).thenReturn(new ArrayList<>());
+
+        seekPaginationService.seek(ProjectDoc.class, "e.project.id = :id", Map.of("id", 7L), cursor, 10, "fileName",
+                Sort.Direction.ASC);
+
+        verify(entityManager).createQuery("select e, e.fileName from ProjectDoc e where (e.project.id = :id) " +
+                "and (e.fileName is null and e.id < :afterId) order by e.fileName desc, e.id desc", Object[].class);
+        verify(entityManager).createQuery("select e, e.fileName from ProjectDoc e where (e.project.id = :id) " +
+                "and (e.fileName is not null) order by e.fileName desc, e.id desc", Object[].class);
+        verify(query, never()).setParameter(eq("afterValue"), any());
+        verify(query).setParameter("afterId", afterId);
+    }
+
+    @Test
+    void seek_fullSliceSkipsNullTail() {
+        List<ProjectDoc> docs = projectDocs("a.pdf", "b.pdf", "c.pdf", "d.pdf", "e.pdf");
+        when(query.getResultList()).thenReturn(rows(docs.subList(0, 3)), rows(docs.subList(2, 5)));
+        String cursor = seekPaginationService.seek(ProjectDoc.class, "e.docStatus <> :status",
+                Map.of("status", DocStatus.WITHDRAWN), null, 2, "fileName", Sort.Direction.ASC).getNextCursor();
+
+        CursorPageResp<ProjectDoc> slice = seekPaginationService.seek(ProjectDoc.class, "e.docStatus <> :status",
+                Map.of("status", DocStatus.WITHDRAWN), cursor, 2, "fileName", Sort.Direction.ASC);
+
+        verify(entityManager, never()).createQuery(contains("is null"), eq(Object[].class));
+        assertEquals(docs.subList(2, 4), slice.getContent());
+        assertTrue(slice.isHasNext());
+    }
+
+    @Test
+    void seek_descendingAfterValueBounded() throws Exception {
+        UUID afterId = UUID.randomUUID();
+        String cursor = Base64.getUrlEncoder().encodeToString(objectMapper.writeValueAsBytes(
+                new SeekPaginationService.Cursor("fileName", Sort.Direction.DESC, "m.pdf", afterId)));
+        when(query.getResultList()).thenReturn(new ArrayList<>());
+
+        seekPaginationService.seek(ProjectDoc.class, "e.project.id = :id", Map.of("id", 7L), cursor, 10, "fileName",
+                Sort.Direction.ASC);
+
+        // the nulls come first in descending order, none follow a value
+        verify(entityManager).createQuery("select e, e.fileName from ProjectDoc e where (e.project.id = :id) " +
+                "and (e.fileName <= :afterValue and (e.fileName < :afterValue or (e.fileName = :afterValue " +
+                "and e.id < :afterId))) order by e.fileName desc, e.id desc", Object[].class);
+        verify(entityManager).createQuery(anyString(), eq(Object[].class));
+    }
+
+    @Test
+    void seek_unknownSortField() {
+        doThrow(new IllegalArgumentException()).when(entityType).getAttribute("fileName; drop table users");
+
+        CustomException e = assertThrows(CustomException.class, () -> seekPaginationService.seek(ProjectDoc.class,
+                "e.docStatus <> :status", Map.of(), null, 10, "fileName; drop table users", Sort.Direction.ASC));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+        verify(entityManager, never()).createQuery(anyString(), eq(Object[].class));
+    }
+
+    @Test
+    void seek_invalidCursor() {
+        CustomException e = assertThrows(CustomException.class, () -> seekPaginationService.seek(ProjectDoc.class,
+                "e.docStatus <> :status", Map.of(), "not-a-cursor", 10, "fileName", Sort.Direction.ASC));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+    }
+
+    private List<ProjectDoc> projectDocs(String... fileNames) {
+        PersistenceUnitUtil persistenceUnitUtil = mock(PersistenceUnitUtil.class);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        lenient().when(entityManager.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+        lenient().when(entityManagerFactory.getPersistenceUnitUtil()).thenReturn(persistenceUnitUtil);
+
+        List<ProjectDoc> docs = new ArrayList<>();
+        for (String name : fileNames) {
+            ProjectDoc projectDoc = new ProjectDoc();
+            projectDoc.setId(UUID.randomUUID());
+            projectDoc.setFileName(name);
+            lenient().when(persistenceUnitUtil.getIdentifier(projectDoc)).thenReturn(projectDoc.getId());
+            docs.add(projectDoc);
+        }
+        return docs;
+    }
+
+    private List<Object[]> rows(List<ProjectDoc> docs) {
+        List<Object[]> rows = new ArrayList<>();
+        for (ProjectDoc projectDoc : docs) {
+            rows.add(new Object[]{projectDoc, projectDoc.getFileName()});
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,132 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.model.db.entity.BlobText;
+import ITMO.ConstructionDocs.model.db.repository.BlobTextRepository;
+import ITMO.ConstructionDocs.storage.LocalDocumentStorage;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.tika.Tika;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TextExtractionServiceTest {
+    @InjectMocks
+    private TextExtractionService textExtractionService;
+
+    @Mock
+    private BlobTextRepository blobTextRepository;
+
+    @Mock
+    private FileBlobService fileBlobService;
+
+    @Mock
+    private ThreadPoolTaskExecutor textExtractionExecutor;
+
+    @Spy
+    private Tika tika = new Tika();
+
+    @TempDir
+    static Path storageRoot;
+
+    @Spy
+    private LocalDocumentStorage documentStorage = new LocalDocumentStorage(storageRoot, 1);
+
+    @Test
+    void extract_pdf() throws IOException {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(50, 700);
+                content.showText("Certificate of conformity SN-4711");
+                content.endText();
+            }
+            document.save(pdf);
+        }
+        storeBlob("pdf", pdf.toByteArray());
+
+        String text = textExtractionService.extract("pdf");
+
+        assertEquals("Certificate of conformity SN-4711", text);
+        assertEquals(text, savedText());
+    }
+
+    @Test
+    void extract_docx() throws IOException {
+        ByteArrayOutputStream docx = new ByteArrayOutputStream();
+        try (XWPFDocument document = new XWPFDocument()) {
+            document.createParagraph().createRun().setText("Hidden works act 17, concrete class B25");
+            document.write(docx);
+        }
+        storeBlob("docx", docx.toByteArray());
+
+        assertEquals("Hidden works act 17, concrete class B25", textExtractionService.extract("docx"));
+    }
+
+    @Test
+    void extract_unreadableContentSavedEmpty() throws IOException {
+        storeBlob("broken", "%PDF-1.7 not really".getBytes(StandardCharsets.UTF_8));
+        doThrow(new IOException("damaged")).when(documentStorage).get("blobs/broken");
+
+        assertEquals("", textExtractionService.extract("broken"));
+        assertEquals("", savedText());
+    }
+
+    @Test
+    void extractLater_queuedOncePerBlob() {
+        textExtractionService.extractLater("ab", () -> {
+        });
+        textExtractionService.extractLater("ab", () -> {
+        });
+
+        verify(textExtractionExecutor, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    void extractLater_queueFull() {
+        doThrow(new TaskRejectedException("full")).doNothing().when(textExtractionExecutor).execute(any(Runnable.class));
+
+        textExtractionService.extractLater("ab", () -> {
+        });
+        textExtractionService.extractLater("ab", () -> {
+        });
+
+        verify(textExtractionExecutor, times(2)).execute(any(Runnable.class));
+    }
+
+    private void storeBlob(String contentHash, byte[] content) throws IOException {
+        when(fileBlobService.getBlobKey(contentHash)).thenReturn("blobs/" + contentHash);
+        documentStorage.put("blobs/" + contentHash, new ByteArrayInputStream(content), content.length);
+    }
+
+    private String savedText() {
+        ArgumentCaptor<BlobText> saved = ArgumentCaptor.forClass(BlobText.class);
+        verify(blobTextRepository).save(saved.capture());
+        return saved.getValue().getText();
+    }
+}
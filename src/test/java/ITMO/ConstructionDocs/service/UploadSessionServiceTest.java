@@ -0,0 +1,256 @@
+package ITMO.ConstructionDocs.service;
+
+import ITMO.ConstructionDocs.exceptions.CustomException;
+import ITMO.ConstructionDocs.model.db.entity.FileBlob;
+import ITMO.ConstructionDocs.model.db.entity.UploadSession;
+import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.repository.UploadSessionRepository;
+import ITMO.ConstructionDocs.model.dto.request.UploadSessionReq;
+import ITMO.ConstructionDocs.model.dto.response.UploadSessionResp;
+import ITMO.ConstructionDocs.model.enums.Role;
+import ITMO.ConstructionDocs.model.enums.UploadStatus;
+import ITMO.ConstructionDocs.storage.LocalDocumentStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSessionServiceTest {
+    @InjectMocks
+    private UploadSessionService uploadSessionService;
+
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private FileBlobService fileBlobService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    static Path storageRoot;
+
+    @Spy
+    private LocalDocumentStorage documentStorage = new LocalDocumentStorage(storageRoot, 1);
+
+    @Mock
+    private Authentication auth;
+
+    @Test
+    void openSession() {
+        UploadSessionReq request = new UploadSessionReq();
+        request.setTotalChunks(3);
+        request.setFileFormat("application/pdf");
+
+        User user = new User();
+        user.setId(1L);
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(user);
+
+        when(uploadSessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> {
+            UploadSession session = invocation.getArgument(0);
+            session.setId(UUID.randomUUID());
+            return session;
+        });
+
+        UploadSessionResp result = uploadSessionService.openSession(request, auth);
+
+        assertNotNull(result.getId());
+        assertEquals(UploadStatus.OPEN, result.getStatus());
+        assertEquals(3, result.getTotalChunks());
+        assertTrue(result.getReceivedChunks().isEmpty());
+    }
+
+    @Test
+    void uploadChunk_indexOutOfRange() {
+        User user = new User();
+        user.setId(1L);
+        UploadSession session = createSession(user, 2);
+
+        when(uploadSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(user);
+
+        assertThrows(CustomException.class, () -> uploadSessionService.uploadChunk(session.getId(), 2, new ByteArrayInputStream(new byte[1]), auth));
+    }
+
+    @Test
+    void uploadChunk_anotherUser() {
+        User owner = new User();
+        owner.setId(1L);
+        UploadSession session = createSession(owner, 2);
+
+        User another = new User();
+        another.setId(2L);
+        another.setRole(Role.CONTRACTOR);
+
+        when(uploadSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(another);
+
+        assertThrows(CustomException.class, () -> uploadSessionService.uploadChunk(session.getId(), 0, new ByteArrayInputStream(new byte[1]), auth));
+    }
+
+    @Test
+    void uploadChunksInAnyOrderAndReadInIndexOrder() throws IOException {
+        User user = new User();
+        user.setId(1L);
+        UploadSession session = createSession(user, 3);
+
+        when(uploadSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(user);
+        when(uploadSessionRepository.updateStatus(eq(session.getId()), eq(UploadStatus.COMMITTING), eq(UploadStatus.COMMITTED), any()))
+                .thenReturn(1);
+
+        try {
+            uploadSessionService.uploadChunk(session.getId(), 2, toStream("third"), auth);
+            UploadSessionResp partial = uploadSessionService.uploadChunk(session.getId(), 0, toStream("first-"), auth);
+
+            assertEquals(List.of(0, 2), partial.getReceivedChunks());
+            assertEquals(11L, partial.getReceivedBytes());
+            assertThrows(CustomException.class, () -> uploadSessionService.openChunks(session));
+
+            UploadSessionResp complete = uploadSessionService.uploadChunk(session.getId(), 1, toStream("second-"), auth);
+            assertEquals(List.of(0, 1, 2), complete.getReceivedChunks());
+
+            try (InputStream content = uploadSessionService.openChunks(session)) {
+                assertEquals("first-second-third", new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            uploadSessionService.completeSession(session);
+        }
+
+        assertEquals(UploadStatus.COMMITTED, session.getStatus());
+    }
+
+    @Test
+    void commitSession() throws IOException {
+        User user = new User();
+        user.setId(1L);
+        UploadSession session = createSession(user, 1);
+        FileBlob fileBlob = new FileBlob();
+        fileBlob.setContentHash("ab".repeat(32));
+
+        when(uploadSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(user);
+        when(uploadSessionRepository.updateStatus(eq(session.getId()), any(), any(), any())).thenReturn(1);
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob);
+        runTransactionCallbacks();
+        uploadSessionService.uploadChunk(session.getId(), 0, toStream("content"), auth);
+
+        String saved = uploadSessionService.commitSession(session.getId(), auth, (committing, blob) -> {
+            assertEquals(UploadStatus.COMMITTING, committing.getStatus());
+            return blob.getContentHash();
+        });
+
+        assertEquals(fileBlob.getContentHash(), saved);
+        assertEquals(UploadStatus.COMMITTED, session.getStatus());
+        verify(uploadSessionRepository).updateStatus(eq(session.getId()), eq(UploadStatus.OPEN), eq(UploadStatus.COMMITTING), any());
+        verify(uploadSessionRepository).updateStatus(eq(session.getId()), eq(UploadStatus.COMMITTING), eq(UploadStatus.COMMITTED), any());
+        verify(fileBlobService, never()).release(any());
+        assertTrue(documentStorage.list("upload-sessions/" + session.getId() + "/").isEmpty());
+    }
+
+    @Test
+    void commitSession_claimedByAnotherCommit() throws IOException {
+        User user = new User();
+        user.setId(1L);
+        UploadSession session = createSession(user, 1);
+
+        when(uploadSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(user);
+        when(uploadSessionRepository.updateStatus(eq(session.getId()), eq(UploadStatus.OPEN), eq(UploadStatus.COMMITTING), any()))
+                .thenReturn(0);
+        runTransactionCallbacks();
+
+        CustomException e = assertThrows(CustomException.class,
+                () -> uploadSessionService.commitSession(session.getId(), auth, (committing, blob) -> blob));
+
+        assertEquals(HttpStatus.CONFLICT, e.getHttpStatus());
+        verify(fileBlobService, never()).storeContent(any(), anyLong());
+    }
+
+    @Test
+    void commitSession_docNotSaved() throws IOException {
+        User user = new User();
+        user.setId(1L);
+        UploadSession session = createSession(user, 1);
+        FileBlob fileBlob = new FileBlob();
+        fileBlob.setContentHash("ab".repeat(32));
+
+        when(uploadSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(user);
+        when(uploadSessionRepository.updateStatus(eq(session.getId()), any(), any(), any())).thenReturn(1);
+        when(fileBlobService.storeContent(any(InputStream.class), anyLong())).thenReturn(fileBlob);
+        runTransactionCallbacks();
+        uploadSessionService.uploadChunk(session.getId(), 0, toStream("content"), auth);
+
+        assertThrows(IllegalStateException.class, () -> uploadSessionService.commitSession(session.getId(), auth,
+                (committing, blob) -> {
+                    throw new IllegalStateException("constraint violated");
+                }));
+
+        assertEquals(UploadStatus.OPEN, session.getStatus());
+        verify(fileBlobService).release(fileBlob.getContentHash());
+        verify(uploadSessionRepository).updateStatus(eq(session.getId()), eq(UploadStatus.COMMITTING), eq(UploadStatus.OPEN), any());
+        verify(uploadSessionRepository, never()).updateStatus(eq(session.getId()), eq(UploadStatus.COMMITTING), eq(UploadStatus.COMMITTED), any());
+        assertFalse(documentStorage.list("upload-sessions/" + session.getId() + "/").isEmpty());
+    }
+
+    @Test
+    void commitSession_alreadyCommitted() {
+        User user = new User();
+        user.setId(1L);
+        UploadSession session = createSession(user, 1);
+        session.setStatus(UploadStatus.COMMITTED);
+
+        when(uploadSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+        when(userService.getCurrentUser(any(Authentication.class))).thenReturn(user);
+
+        assertThrows(CustomException.class, () -> uploadSessionService.commitSession(session.getId(), auth, (committing, blob) -> blob));
+        verify(uploadSessionRepository, never()).updateStatus(any(), any(), any(), any());
+    }
+
+    private void runTransactionCallbacks() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    private UploadSession createSession(User owner, int totalChunks) {
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID());
+        session.setTotalChunks(totalChunks);
+        session.setStatus(UploadStatus.OPEN);
+        session.setCreatedBy(owner);
+        return session;
+    }
+
+    private ByteArrayInputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
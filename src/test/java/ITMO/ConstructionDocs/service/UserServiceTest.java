@@ -1,16 +1,19 @@
 package ITMO.ConstructionDocs.service;
 
+import ITMO.ConstructionDocs.mapper.UserMapper;
 import ITMO.ConstructionDocs.model.db.entity.Company;
 import ITMO.ConstructionDocs.model.db.entity.User;
+import ITMO.ConstructionDocs.model.db.projection.UserView;
 import ITMO.ConstructionDocs.model.db.repository.UserRepository;
 import ITMO.ConstructionDocs.model.dto.request.UserReq;
 import ITMO.ConstructionDocs.model.dto.request.UserToCompanyReq;
 import ITMO.ConstructionDocs.model.dto.response.UserResp;
 import ITMO.ConstructionDocs.model.enums.CommonStatus;
 import ITMO.ConstructionDocs.model.enums.Role;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ITMO.ConstructionDocs.security.PrincipalCache;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -19,6 +22,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.ArrayList;
@@ -27,17 +32,23 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
 
     @InjectMocks
     UserService userService;
 
     @Spy
-    ObjectMapper objectMapper;
+    UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    @Mock
+    SearchService searchService;
 
     @Mock
     UserRepository userRepository;
@@ -48,6 +59,9 @@ class UserServiceTest {
     @Mock
     CompanyService companyService;
 
+    @Mock
+    PrincipalCache principalCache;
+
     @Test
     void getCurrentUser() {
     }
@@ -75,6 +89,7 @@ class UserServiceTest {
         User user = new User();
         user.setId(1L);
         user.setRole(Role.ADMIN);
+        user.setPassword("$2a$10$hash");
 
         when(userRepository.findById(user.getId())).thenReturn(java.util.Optional.of(user));
 
@@ -82,6 +97,7 @@ class UserServiceTest {
 
         assertEquals(user.getId(), result.getId());
         assertEquals(user.getRole(), result.getRole());
+        assertNull(result.getPassword());
     }
 
     @Test
@@ -112,6 +128,7 @@ class UserServiceTest {
         assertEquals(user.getEmail(), userReq.getEmail());
         assertEquals(user.getPassword(), userReq.getPassword());
         assertEquals(user.getPhoneNumber(), userResp.getPhoneNumber());
+        verify(principalCache, times(1)).evict(user.getId());
     }
 
     @Test
@@ -127,6 +144,7 @@ class UserServiceTest {
         userService.deleteUser(user.getId());
         verify(userRepository, times(1)).save(any(User.class));
         assertEquals(user.getStatus(), CommonStatus.DELETED);
+        verify(principalCache, times(1)).evict(user.getId());
     }
 
     @Test
@@ -173,7 +191,8 @@ class UserServiceTest {
                                     (user.getPosition().toLowerCase().contains(filter)))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredUsers, invocation.getArgument(0), filteredUsers.size());
+                    return new PageImpl<>(filteredUsers, invocation.getArgument(0), filteredUsers.size())
+                            .map(user -> projectionFactory.createProjection(UserView.class, user));
                 });
 
         Page<UserResp> result = userService.getAllUsers(page, sizePerPage, sort, order, filter);
@@ -261,7 +280,8 @@ class UserServiceTest {
                             .filter(user -> Objects.equals(user.getCompany().getId(), company.getId()))
                             .collect(Collectors.toList()));
 
-                    return new PageImpl<>(filteredUsers, invocation.getArgument(0), filteredUsers.size());
+                    return new PageImpl<>(filteredUsers, invocation.getArgument(0), filteredUsers.size())
+                            .map(user -> projectionFactory.createProjection(UserView.class, user));
                 });
 
         Page<UserResp> result = userService.getUsersByCompany(company.getId(), page, sizePerPage, sort, order);
@@ -0,0 +1,96 @@
+package ITMO.ConstructionDocs.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalDocumentStorageTest {
+    @TempDir
+    Path root;
+
+    private LocalDocumentStorage documentStorage;
+
+    @BeforeEach
+    void setUp() {
+        documentStorage = new LocalDocumentStorage(root, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        documentStorage.close();
+    }
+
+    @Test
+    void putAndReadRange() throws IOException {
+        long size = documentStorage.put("docs/a.txt", toStream("0123456789"), 100);
+
+        assertEquals(10, size);
+        assertEquals(10, documentStorage.stat("docs/a.txt").orElseThrow().getSize());
+        try (InputStream range = documentStorage.getRange("docs/a.txt", 2, 5)) {
+            assertEquals("2345", new String(range.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void putFileAsyncConsumesSource(@TempDir Path stagingDir) throws Exception {
+        Path source = stagingDir.resolve("source.bin");
+        Files.write(source, new byte[]{1, 2, 3});
+
+        documentStorage.putFileAsync("blobs/source.bin", source).get();
+
+        assertFalse(Files.exists(source));
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(root.resolve("blobs/source.bin")));
+    }
+
+    @Test
+    void listCopyMoveDelete() throws IOException {
+        documentStorage.put("sessions/1/0.chunk", toStream("a"), 10);
+        documentStorage.put("sessions/1/1.chunk", toStream("b"), 10);
+        documentStorage.put("sessions/2/0.chunk", toStream("c"), 10);
+
+        List<String> keys = documentStorage.list("sessions/1/").stream().map(StoredObject::getKey).collect(Collectors.toList());
+        assertEquals(List.of("sessions/1/0.chunk", "sessions/1/1.chunk"), keys);
+
+        documentStorage.copy("sessions/1/0.chunk", "copies/0.chunk");
+        documentStorage.move("sessions/1/1.chunk", "moved/1.chunk");
+        documentStorage.delete("sessions/2/0.chunk");
+
+        assertTrue(documentStorage.exists("sessions/1/0.chunk"));
+        assertTrue(documentStorage.exists("copies/0.chunk"));
+        assertFalse(documentStorage.exists("sessions/1/1.chunk"));
+        assertTrue(documentStorage.exists("moved/1.chunk"));
+        assertFalse(documentStorage.exists("sessions/2/0.chunk"));
+        assertTrue(documentStorage.list("missing/").isEmpty());
+    }
+
+    @Test
+    void keysOutsideRootAreRefused() throws IOException {
+        String escapingKey = "sessions/../../" + root.getFileName() + "-outside/a.txt";
+
+        assertThrows(InvalidPathException.class, () -> documentStorage.put(escapingKey, toStream("a"), 10));
+        assertThrows(InvalidPathException.class, () -> documentStorage.get(escapingKey));
+        assertThrows(InvalidPathException.class, () -> documentStorage.delete("../a.txt"));
+        assertThrows(InvalidPathException.class, () -> documentStorage.get(root.getParent().resolve("a.txt").toString()));
+        assertFalse(Files.exists(root.resolveSibling(root.getFileName() + "-outside")));
+
+        documentStorage.put("docs/a.txt", toStream("a"), 10);
+        assertTrue(documentStorage.exists(root.resolve("docs/a.txt").toString()));
+    }
+
+    private ByteArrayInputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,129 @@
+package ITMO.ConstructionDocs.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3DocumentStorageTest {
+    @Mock
+    private S3Client s3Client;
+
+    @TempDir
+    Path stagingDir;
+
+    private S3DocumentStorage documentStorage;
+
+    @BeforeEach
+    void setUp() {
+        documentStorage = new S3DocumentStorage(s3Client, "docs", 4, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        documentStorage.close();
+    }
+
+    @Test
+    void putFile_smallFileIsSentInOneRequest() throws IOException {
+        Path source = stagingDir.resolve("small.bin");
+        Files.write(source, new byte[]{1, 2, 3});
+
+        documentStorage.putFile("blobs/small", source);
+
+        verify(s3Client, times(1)).putObject(any(Consumer.class), any(RequestBody.class));
+        verify(s3Client, never()).createMultipartUpload(any(Consumer.class));
+        assertFalse(Files.exists(source));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void putFile_largeFileIsSentInParts() throws IOException {
+        Path source = stagingDir.resolve("large.bin");
+        byte[] content = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        Files.write(source, content);
+
+        Map<Integer, byte[]> sentParts = new ConcurrentHashMap<>();
+        when(s3Client.createMultipartUpload(any(Consumer.class))).thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(Consumer.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            UploadPartRequest.Builder builder = UploadPartRequest.builder();
+            ((Consumer<UploadPartRequest.Builder>) invocation.getArgument(0)).accept(builder);
+            try (InputStream part = invocation.<RequestBody>getArgument(1).contentStreamProvider().newStream()) {
+                sentParts.put(builder.build().partNumber(), part.readAllBytes());
+            }
+            return UploadPartResponse.builder().eTag("etag-" + builder.build().partNumber()).build();
+        });
+
+        documentStorage.putFile("blobs/large", source);
+
+        ArgumentCaptor<Consumer<UploadPartRequest.Builder>> partCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(s3Client, times(3)).uploadPart(partCaptor.capture(), any(RequestBody.class));
+        long totalLength = partCaptor.getAllValues().stream().mapToLong(consumer -> {
+            UploadPartRequest.Builder builder = UploadPartRequest.builder();
+            consumer.accept(builder);
+            return builder.build().contentLength();
+        }).sum();
+        assertEquals(10, totalLength);
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        new TreeMap<>(sentParts).values().forEach(sent::writeBytes);
+        assertArrayEquals(content, sent.toByteArray());
+
+        ArgumentCaptor<Consumer<CompleteMultipartUploadRequest.Builder>> completeCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(s3Client, times(1)).completeMultipartUpload(completeCaptor.capture());
+        CompleteMultipartUploadRequest.Builder complete = CompleteMultipartUploadRequest.builder();
+        completeCaptor.getValue().accept(complete);
+        assertEquals(3, complete.build().multipartUpload().parts().size());
+        assertEquals("upload-1", complete.build().uploadId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void copyIsDoneByTheStore() {
+        documentStorage.copy("a", "b");
+
+        ArgumentCaptor<Consumer<CopyObjectRequest.Builder>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(s3Client, times(1)).copyObject(captor.capture());
+        CopyObjectRequest.Builder builder = CopyObjectRequest.builder();
+        captor.getValue().accept(builder);
+        assertEquals("a", builder.build().sourceKey());
+        assertEquals("b", builder.build().destinationKey());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stat_missingObject() {
+        when(s3Client.headObject(any(Consumer.class))).thenThrow(S3Exception.builder().statusCode(404).build());
+
+        assertTrue(documentStorage.stat("missing").isEmpty());
+    }
+}